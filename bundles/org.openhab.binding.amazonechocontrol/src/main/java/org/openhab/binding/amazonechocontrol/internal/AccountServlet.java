@@ -23,7 +23,6 @@ import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.Collectors;
 
-import javax.net.ssl.HttpsURLConnection;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -31,6 +30,8 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.http.HttpHeader;
 import org.openhab.binding.amazonechocontrol.internal.handler.AccountHandler;
 import org.openhab.binding.amazonechocontrol.internal.jsons.JsonBluetoothStates;
 import org.openhab.binding.amazonechocontrol.internal.jsons.JsonBluetoothStates.BluetoothState;
@@ -61,6 +62,7 @@ import com.google.gson.JsonSyntaxException;
  * Simple possibility for a user to get the ids needed for writing rules
  *
  * @author Michael Geramb - Initial Contribution
+ * @author agent - Responses of the shared http client
  */
 @NonNullByDefault
 public class AccountServlet extends HttpServlet {
@@ -100,7 +102,7 @@ public class AccountServlet extends HttpServlet {
         if (oldConnection == null) {
             oldConnection = account.findConnection();
         }
-        return new Connection(oldConnection, this.gson);
+        return account.createConnection(oldConnection);
     }
 
     public void dispose() {
@@ -153,7 +155,7 @@ public class AccountServlet extends HttpServlet {
             }
             String domain = domainArray[0];
             String loginData = connection.serializeLoginData();
-            Connection newConnection = new Connection(null, this.gson);
+            Connection newConnection = account.createConnection(null);
             if (newConnection.tryRestoreLogin(loginData, domain)) {
                 account.setConnection(newConnection);
             }
@@ -284,7 +286,7 @@ public class AccountServlet extends HttpServlet {
                 }
                 // handle commands
                 if (baseUrl.equals("/newdevice") || baseUrl.equals("/newdevice/")) {
-                    this.connectionToInitialize = new Connection(null, this.gson);
+                    this.connectionToInitialize = account.createConnection(null);
                     this.account.setConnection(null);
                     resp.sendRedirect(this.servletUrl);
                     return;
@@ -628,7 +630,7 @@ public class AccountServlet extends HttpServlet {
 
     void handleProxyRequest(Connection connection, HttpServletResponse resp, String verb, String url,
             @Nullable String referer, @Nullable String postData, boolean json, String site) throws IOException {
-        HttpsURLConnection urlConnection;
+        ContentResponse response;
         try {
             Map<String, String> headers = null;
             if (referer != null) {
@@ -636,10 +638,10 @@ public class AccountServlet extends HttpServlet {
                 headers.put("Referer", referer);
             }
 
-            urlConnection = connection.makeRequest(verb, url, postData, json, false, headers, 0);
-            if (urlConnection.getResponseCode() == 302) {
+            response = connection.makeRequest(verb, url, postData, json, false, headers, 0);
+            if (response.getStatus() == 302) {
                 {
-                    String location = urlConnection.getHeaderField("location");
+                    String location = Objects.requireNonNullElse(response.getHeaders().get(HttpHeader.LOCATION), "");
                     if (location.contains("/ap/maplanding")) {
                         try {
                             connection.registerConnectionAsApp(location);
@@ -681,8 +683,7 @@ public class AccountServlet extends HttpServlet {
             returnError(resp, e.getLocalizedMessage());
             return;
         }
-        String response = connection.convertStream(urlConnection);
-        returnHtml(connection, resp, response, site);
+        returnHtml(connection, resp, response.getContentAsString(), site);
     }
 
     private void returnHtml(Connection connection, HttpServletResponse resp, String html) {
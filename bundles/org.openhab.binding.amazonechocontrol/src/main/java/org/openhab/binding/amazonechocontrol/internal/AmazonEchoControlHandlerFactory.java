@@ -18,6 +18,8 @@ import java.util.*;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.util.HttpCookieStore;
 import org.openhab.binding.amazonechocontrol.internal.discovery.AmazonEchoDiscovery;
 import org.openhab.binding.amazonechocontrol.internal.discovery.SmartHomeDevicesDiscovery;
 import org.openhab.binding.amazonechocontrol.internal.handler.AccountHandler;
@@ -26,6 +28,7 @@ import org.openhab.binding.amazonechocontrol.internal.handler.FlashBriefingProfi
 import org.openhab.binding.amazonechocontrol.internal.handler.SmartHomeDeviceHandler;
 import org.openhab.core.config.discovery.AbstractDiscoveryService;
 import org.openhab.core.config.discovery.DiscoveryService;
+import org.openhab.core.io.net.http.HttpClientFactory;
 import org.openhab.core.storage.Storage;
 import org.openhab.core.storage.StorageService;
 import org.openhab.core.thing.Bridge;
@@ -51,11 +54,15 @@ import com.google.gson.Gson;
  * handlers.
  *
  * @author Michael Geramb - Initial contribution
+ * @author agent - Shared http client
  */
 @Component(service = { ThingHandlerFactory.class,
         AmazonEchoControlHandlerFactory.class }, configurationPid = "binding.amazonechocontrol")
 @NonNullByDefault
 public class AmazonEchoControlHandlerFactory extends BaseThingHandlerFactory {
+    // Requests of all accounts share the connections of one client, only a few of them run in parallel per host
+    private static final int MAX_CONNECTIONS_PER_DESTINATION = 4;
+
     private final Logger logger = LoggerFactory.getLogger(AmazonEchoControlHandlerFactory.class);
     private final Map<ThingUID, List<ServiceRegistration<?>>> discoveryServiceRegistrations = new HashMap<>();
 
@@ -63,15 +70,26 @@ public class AmazonEchoControlHandlerFactory extends BaseThingHandlerFactory {
     private final HttpService httpService;
     private final StorageService storageService;
     private final BindingServlet bindingServlet;
+    private final HttpClient httpClient;
     private final Gson gson;
 
     @Activate
     public AmazonEchoControlHandlerFactory(@Reference HttpService httpService,
-            @Reference StorageService storageService) {
+            @Reference StorageService storageService, @Reference HttpClientFactory httpClientFactory) {
         this.storageService = storageService;
         this.httpService = httpService;
         this.gson = new Gson();
         this.bindingServlet = new BindingServlet(httpService);
+        this.httpClient = httpClientFactory.createHttpClient(BINDING_ID);
+        // redirects and cookies are handled by the connection of each account
+        httpClient.setFollowRedirects(false);
+        httpClient.setCookieStore(new HttpCookieStore.Empty());
+        httpClient.setMaxConnectionsPerDestination(MAX_CONNECTIONS_PER_DESTINATION);
+        try {
+            httpClient.start();
+        } catch (Exception e) {
+            logger.warn("Unable to start Jetty HttpClient {}", e.getMessage());
+        }
     }
 
     @Override
@@ -83,6 +101,11 @@ public class AmazonEchoControlHandlerFactory extends BaseThingHandlerFactory {
     @Override
     protected void deactivate(ComponentContext componentContext) {
         bindingServlet.dispose();
+        try {
+            httpClient.stop();
+        } catch (Exception e) {
+            logger.warn("Unable to stop Jetty HttpClient {}", e.getMessage());
+        }
         super.deactivate(componentContext);
     }
 
@@ -93,7 +116,7 @@ public class AmazonEchoControlHandlerFactory extends BaseThingHandlerFactory {
         if (thingTypeUID.equals(THING_TYPE_ACCOUNT)) {
             Storage<String> storage = storageService.getStorage(thing.getUID().toString(),
                     String.class.getClassLoader());
-            AccountHandler bridgeHandler = new AccountHandler((Bridge) thing, httpService, storage, gson);
+            AccountHandler bridgeHandler = new AccountHandler((Bridge) thing, httpService, storage, httpClient, gson);
             accountHandlers.add(bridgeHandler);
             registerDiscoveryService(bridgeHandler);
             bindingServlet.addAccountThing(thing);
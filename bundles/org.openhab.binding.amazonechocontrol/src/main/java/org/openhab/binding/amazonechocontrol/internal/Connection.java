@@ -13,21 +13,20 @@
 package org.openhab.binding.amazonechocontrol.internal;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InterruptedIOException;
-import java.io.OutputStream;
 import java.net.CookieManager;
 import java.net.CookieStore;
 import java.net.HttpCookie;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.URL;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
@@ -35,16 +34,20 @@ import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
-import java.util.zip.GZIPInputStream;
-
-import javax.net.ssl.HttpsURLConnection;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.HttpContentResponse;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
+import org.eclipse.jetty.client.util.StringContentProvider;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpHeaderValue;
 import org.openhab.binding.amazonechocontrol.internal.jsons.JsonActivities;
 import org.openhab.binding.amazonechocontrol.internal.jsons.JsonActivities.Activity;
 import org.openhab.binding.amazonechocontrol.internal.jsons.JsonAnnouncementContent;
@@ -114,12 +117,16 @@ import com.google.gson.JsonSyntaxException;
  * and handling of the commands
  *
  * @author Michael Geramb - Initial contribution
+ * @author agent - Asynchronous requests on a shared http client
  */
 @NonNullByDefault
 public class Connection {
     private static final String THING_THREADPOOL_NAME = "thingHandler";
     private static final long EXPIRES_IN = 432000; // five days
-    private static final Pattern CHARSET_PATTERN = Pattern.compile("(?i)\\bcharset=\\s*\"?([^\\s;\"]*)");
+    private static final long REQUEST_TIMEOUT_SECONDS = 30;
+    private static final long RETRY_DELAY_MS = 2000;
+    private static final int MAX_RESPONSE_SIZE = 16 * 1024 * 1024;
+    private static final int MAX_STATE_REQUESTS_PER_CALL = 100;
     private static final String DEVICE_TYPE = "A2IVLV5VM2W81";
 
     private final Logger logger = LoggerFactory.getLogger(Connection.class);
@@ -128,6 +135,7 @@ public class Connection {
 
     private final Random rand = new Random();
     private final CookieManager cookieManager = new CookieManager();
+    private final HttpClient httpClient;
     private final Gson gson;
     private final Gson gsonWithNullSerialization;
 
@@ -164,7 +172,8 @@ public class Connection {
         TEXT_COMMAND
     }
 
-    public Connection(@Nullable Connection oldConnection, Gson gson) {
+    public Connection(@Nullable Connection oldConnection, HttpClient httpClient, Gson gson) {
+        this.httpClient = httpClient;
         this.gson = gson;
         String frc = null;
         String serial = null;
@@ -253,6 +262,15 @@ public class Connection {
         alexaServer = "https://alexa." + this.amazonSite;
     }
 
+    /**
+     * Use another server for the alexa api, e.g. a local server in tests
+     *
+     * @param alexaServer the scheme, host and port of the server
+     */
+    void setAlexaServer(String alexaServer) {
+        this.alexaServer = alexaServer;
+    }
+
     public @Nullable Date tryGetLoginTime() {
         return loginTime;
     }
@@ -475,12 +493,12 @@ public class Connection {
     }
 
     private @Nullable Authentication tryGetBootstrap() throws IOException, URISyntaxException, InterruptedException {
-        HttpsURLConnection connection = makeRequest("GET", alexaServer + "/api/bootstrap", null, false, false, null, 0);
-        String contentType = connection.getContentType();
-        if (connection.getResponseCode() == 200 && contentType != null
+        ContentResponse response = makeRequest("GET", alexaServer + "/api/bootstrap", null, false, false, null, 0);
+        String contentType = response.getHeaders().get(HttpHeader.CONTENT_TYPE);
+        if (response.getStatus() == 200 && contentType != null
                 && contentType.toLowerCase().startsWith("application/json")) {
             try {
-                String bootstrapResultJson = convertStream(connection);
+                String bootstrapResultJson = response.getContentAsString();
                 JsonBootstrapResult result = parseJson(bootstrapResultJson, JsonBootstrapResult.class);
                 Authentication authentication = result.authentication;
                 if (authentication != null && authentication.authenticated) {
@@ -498,205 +516,238 @@ public class Connection {
         return null;
     }
 
-    public String convertStream(HttpsURLConnection connection) throws IOException {
-        InputStream input = connection.getInputStream();
-        if (input == null) {
-            return "";
-        }
-
-        InputStream readerStream;
-        if ("gzip".equalsIgnoreCase(connection.getContentEncoding())) {
-            readerStream = new GZIPInputStream(connection.getInputStream());
-        } else {
-            readerStream = input;
-        }
-        String contentType = connection.getContentType();
-        String charSet = null;
-        if (contentType != null) {
-            Matcher m = CHARSET_PATTERN.matcher(contentType);
-            if (m.find()) {
-                charSet = m.group(1).trim().toUpperCase();
-            }
-        }
-
-        Scanner inputScanner = charSet == null || charSet.isEmpty()
-                ? new Scanner(readerStream, StandardCharsets.UTF_8.name())
-                : new Scanner(readerStream, charSet);
-        Scanner scannerWithoutDelimiter = inputScanner.useDelimiter("\\A");
-        String result = scannerWithoutDelimiter.hasNext() ? scannerWithoutDelimiter.next() : null;
-        inputScanner.close();
-        scannerWithoutDelimiter.close();
-        input.close();
-        if (result == null) {
-            result = "";
-        }
-        return result;
-    }
-
     public String makeRequestAndReturnString(String url) throws IOException, URISyntaxException, InterruptedException {
         return makeRequestAndReturnString("GET", url, null, false, null);
     }
 
     public String makeRequestAndReturnString(String verb, String url, @Nullable String postData, boolean json,
             @Nullable Map<String, String> customHeaders) throws IOException, URISyntaxException, InterruptedException {
-        HttpsURLConnection connection = makeRequest(verb, url, postData, json, true, customHeaders, 3);
-        String result = convertStream(connection);
+        ContentResponse response = makeRequest(verb, url, postData, json, true, customHeaders, 3);
+        String result = response.getContentAsString();
         logger.debug("Result of {} {}:{}", verb, url, result);
         return result;
     }
 
-    public HttpsURLConnection makeRequest(String verb, String url, @Nullable String postData, boolean json,
+    public ContentResponse makeRequest(String verb, String url, @Nullable String postData, boolean json,
             boolean autoredirect, @Nullable Map<String, String> customHeaders, int badRequestRepeats)
             throws IOException, URISyntaxException, InterruptedException {
-        String currentUrl = url;
-        int redirectCounter = 0;
-        int retryCounter = 0;
-        // loop for handling redirect and bad request, using automatic redirect is not
-        // possible, because all response headers must be catched
-        while (true) {
-            int code;
-            HttpsURLConnection connection = null;
-            try {
-                logger.debug("Make request to {}", url);
-                connection = (HttpsURLConnection) new URL(currentUrl).openConnection();
-                connection.setRequestMethod(verb);
-                connection.setRequestProperty("Accept-Language", "en-US");
-                if (customHeaders == null || !customHeaders.containsKey("User-Agent")) {
-                    connection.setRequestProperty("User-Agent", userAgent);
-                }
-                connection.setRequestProperty("Accept-Encoding", "gzip");
-                connection.setRequestProperty("DNT", "1");
-                connection.setRequestProperty("Upgrade-Insecure-Requests", "1");
-                if (customHeaders != null) {
-                    for (String key : customHeaders.keySet()) {
-                        String value = customHeaders.get(key);
-                        if (value != null && !value.isEmpty()) {
-                            connection.setRequestProperty(key, value);
-                        }
-                    }
-                }
-                connection.setInstanceFollowRedirects(false);
+        CompletableFuture<ContentResponse> future = makeRequestAsync(verb, url, postData, json, autoredirect,
+                customHeaders, badRequestRepeats);
+        try {
+            return waitForResponse(future);
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            logger.warn("Unable to wait for next call to {}", url, e);
+            throw e;
+        }
+    }
 
-                // add cookies
-                URI uri = connection.getURL().toURI();
+    /**
+     * Send a request without blocking the calling thread. Redirects are followed and failed requests are repeated
+     * from the scheduler, the connection to the server is taken from the pool of the shared http client.
+     *
+     * @return a future that completes with the response with status 200, or with the redirect if autoredirect is
+     *         false. It completes exceptionally with an {@link HttpException} if the request still fails after
+     *         badRequestRepeats retries.
+     */
+    public CompletableFuture<ContentResponse> makeRequestAsync(String verb, String url, @Nullable String postData,
+            boolean json, boolean autoredirect, @Nullable Map<String, String> customHeaders, int badRequestRepeats) {
+        PendingRequest request = new PendingRequest(verb, url, postData, json, autoredirect, customHeaders,
+                badRequestRepeats);
+        request.send();
+        return request.result;
+    }
 
-                if (customHeaders == null || !customHeaders.containsKey("Cookie")) {
-                    StringBuilder cookieHeaderBuilder = new StringBuilder();
-                    for (HttpCookie cookie : cookieManager.getCookieStore().get(uri)) {
-                        if (cookieHeaderBuilder.length() > 0) {
-                            cookieHeaderBuilder.append(";");
-                        }
-                        cookieHeaderBuilder.append(cookie.getName());
-                        cookieHeaderBuilder.append("=");
-                        cookieHeaderBuilder.append(cookie.getValue());
-                        if (cookie.getName().equals("csrf")) {
-                            connection.setRequestProperty("csrf", cookie.getValue());
-                        }
+    private <T> T waitForResponse(CompletableFuture<T> future)
+            throws IOException, URISyntaxException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof URISyntaxException) {
+                throw (URISyntaxException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
 
-                    }
-                    if (cookieHeaderBuilder.length() > 0) {
-                        String cookies = cookieHeaderBuilder.toString();
-                        connection.setRequestProperty("Cookie", cookies);
-                    }
+    /**
+     * A request with its redirects and retries. Redirects are not followed by the http client, because all
+     * cookies of the responses must be caught.
+     */
+    private class PendingRequest {
+        private final CompletableFuture<ContentResponse> result = new CompletableFuture<>();
+        private final String verb;
+        private final String url;
+        private final @Nullable String postData;
+        private final boolean json;
+        private final boolean autoredirect;
+        private final @Nullable Map<String, String> customHeaders;
+        private final int badRequestRepeats;
+
+        private String currentUrl;
+        private int redirectCounter = 0;
+        private int retryCounter = 0;
+        private volatile @Nullable Request request;
+
+        private PendingRequest(String verb, String url, @Nullable String postData, boolean json, boolean autoredirect,
+                @Nullable Map<String, String> customHeaders, int badRequestRepeats) {
+            this.verb = verb;
+            this.url = url;
+            this.currentUrl = url;
+            this.postData = postData;
+            this.json = json;
+            this.autoredirect = autoredirect;
+            this.customHeaders = customHeaders;
+            this.badRequestRepeats = badRequestRepeats;
+            result.whenComplete((response, e) -> {
+                Request request = this.request;
+                if (result.isCancelled() && request != null) {
+                    request.abort(new CancellationException("Request to " + url + " cancelled"));
                 }
-                if (postData != null) {
-                    logger.debug("{}: {}", verb, postData);
-                    // post data
-                    byte[] postDataBytes = postData.getBytes(StandardCharsets.UTF_8);
-                    int postDataLength = postDataBytes.length;
-
-                    connection.setFixedLengthStreamingMode(postDataLength);
+            });
+        }
 
-                    if (json) {
-                        connection.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
-                    } else {
-                        connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+        private void send() {
+            if (result.isDone()) {
+                return;
+            }
+            URI uri;
+            Request request;
+            try {
+                uri = new URI(currentUrl);
+                request = createRequest(uri);
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            this.request = request;
+            logger.debug("Make request to {}", url);
+            request.send(new BufferingResponseListener(MAX_RESPONSE_SIZE) {
+                @Override
+                public void onComplete(@Nullable Result requestResult) {
+                    if (requestResult == null) {
+                        return;
+                    }
+                    Throwable failure = requestResult.getFailure();
+                    if (failure != null) {
+                        if (!result.isDone()) {
+                            logger.warn("Request to url '{}' fails with unknown error", url, failure);
+                        }
+                        result.completeExceptionally(failure);
+                        return;
                     }
-                    connection.setRequestProperty("Content-Length", Integer.toString(postDataLength));
-                    if ("POST".equals(verb)) {
-                        connection.setRequestProperty("Expect", "100-continue");
+                    try {
+                        handleResponse(uri, new HttpContentResponse(requestResult.getResponse(), getContent(),
+                                getMediaType(), getEncoding()));
+                    } catch (RuntimeException e) {
+                        result.completeExceptionally(e);
                     }
-
-                    connection.setDoOutput(true);
-                    OutputStream outputStream = connection.getOutputStream();
-                    outputStream.write(postDataBytes);
-                    outputStream.close();
                 }
-                // handle result
-                code = connection.getResponseCode();
-                String location = null;
-
-                // handle response headers
-                Map<@Nullable String, List<String>> headerFields = connection.getHeaderFields();
-                for (Map.Entry<@Nullable String, List<String>> header : headerFields.entrySet()) {
-                    String key = header.getKey();
-                    if (key != null && !key.isEmpty()) {
-                        if (key.equalsIgnoreCase("Set-Cookie")) {
-                            // store cookie
-                            for (String cookieHeader : header.getValue()) {
-                                if (!cookieHeader.isEmpty()) {
-                                    List<HttpCookie> cookies = HttpCookie.parse(cookieHeader);
-                                    for (HttpCookie cookie : cookies) {
-                                        cookieManager.getCookieStore().add(uri, cookie);
-                                    }
-                                }
-                            }
-                        }
-                        if (key.equalsIgnoreCase("Location")) {
-                            // get redirect location
-                            location = header.getValue().get(0);
-                            if (!location.isEmpty()) {
-                                location = uri.resolve(location).toString();
-                                // check for https
-                                if (location.toLowerCase().startsWith("http://")) {
-                                    // always use https
-                                    location = "https://" + location.substring(7);
-                                    logger.debug("Redirect corrected to {}", location);
-                                }
-                            }
+            });
+        }
+
+        private Request createRequest(URI uri) {
+            Map<String, String> customHeaders = this.customHeaders;
+            Request request = httpClient.newRequest(uri).method(verb).followRedirects(false)
+                    .timeout(REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            request.header(HttpHeader.ACCEPT_LANGUAGE, "en-US");
+            request.agent(userAgent);
+            request.header("DNT", "1");
+            request.header("Upgrade-Insecure-Requests", "1");
+            if (customHeaders != null) {
+                for (String key : customHeaders.keySet()) {
+                    String value = customHeaders.get(key);
+                    if (value != null && !value.isEmpty()) {
+                        if (HttpHeader.USER_AGENT.is(key)) {
+                            request.agent(value);
+                        } else {
+                            request.header(key, value);
                         }
                     }
                 }
-                if (code == 200) {
-                    logger.debug("Call to {} succeeded", url);
-                    return connection;
-                } else if (code == 302 && location != null) {
-                    logger.debug("Redirected to {}", location);
-                    redirectCounter++;
-                    if (redirectCounter > 30) {
-                        throw new ConnectionException("Too many redirects");
+            }
+
+            // add cookies
+            if (customHeaders == null || !customHeaders.containsKey("Cookie")) {
+                StringBuilder cookieHeaderBuilder = new StringBuilder();
+                for (HttpCookie cookie : cookieManager.getCookieStore().get(uri)) {
+                    if (cookieHeaderBuilder.length() > 0) {
+                        cookieHeaderBuilder.append(";");
                     }
-                    currentUrl = location;
-                    if (autoredirect) {
-                        continue; // repeat with new location
+                    cookieHeaderBuilder.append(cookie.getName());
+                    cookieHeaderBuilder.append("=");
+                    cookieHeaderBuilder.append(cookie.getValue());
+                    if (cookie.getName().equals("csrf")) {
+                        request.header("csrf", cookie.getValue());
                     }
-                    return connection;
-                } else {
-                    logger.debug("Retry call to {}", url);
-                    retryCounter++;
-                    if (retryCounter > badRequestRepeats) {
-                        throw new HttpException(code,
-                                verb + " url '" + url + "' failed: " + connection.getResponseMessage());
+                }
+                if (cookieHeaderBuilder.length() > 0) {
+                    request.header(HttpHeader.COOKIE, cookieHeaderBuilder.toString());
+                }
+            }
+            String postData = this.postData;
+            if (postData != null) {
+                logger.debug("{}: {}", verb, postData);
+                String contentType = json ? "application/json; charset=UTF-8" : "application/x-www-form-urlencoded";
+                request.content(new StringContentProvider(contentType, postData, StandardCharsets.UTF_8));
+                if ("POST".equals(verb)) {
+                    request.header(HttpHeader.EXPECT, HttpHeaderValue.CONTINUE.asString());
+                }
+            }
+            return request;
+        }
+
+        private void handleResponse(URI uri, ContentResponse response) {
+            int code = response.getStatus();
+            String location = null;
+
+            // handle response headers
+            for (String cookieHeader : response.getHeaders().getValuesList(HttpHeader.SET_COOKIE)) {
+                if (!cookieHeader.isEmpty()) {
+                    // store cookie
+                    for (HttpCookie cookie : HttpCookie.parse(cookieHeader)) {
+                        cookieManager.getCookieStore().add(uri, cookie);
                     }
-                    Thread.sleep(2000);
                 }
-            } catch (InterruptedException | InterruptedIOException e) {
-                if (connection != null) {
-                    connection.disconnect();
+            }
+            String locationHeader = response.getHeaders().get(HttpHeader.LOCATION);
+            if (locationHeader != null && !locationHeader.isEmpty()) {
+                // get redirect location
+                location = uri.resolve(locationHeader).toString();
+                // check for https, a request over https is never redirected to http
+                if ("https".equals(uri.getScheme()) && location.toLowerCase().startsWith("http://")) {
+                    // always use https
+                    location = "https://" + location.substring(7);
+                    logger.debug("Redirect corrected to {}", location);
                 }
-                logger.warn("Unable to wait for next call to {}", url, e);
-                throw e;
-            } catch (IOException e) {
-                if (connection != null) {
-                    connection.disconnect();
+            }
+            if (code == 200) {
+                logger.debug("Call to {} succeeded", url);
+                result.complete(response);
+            } else if (code == 302 && location != null) {
+                logger.debug("Redirected to {}", location);
+                redirectCounter++;
+                if (redirectCounter > 30) {
+                    throw new ConnectionException("Too many redirects");
                 }
-                logger.warn("Request to url '{}' fails with unknown error", url, e);
-                throw e;
-            } catch (Exception e) {
-                if (connection != null) {
-                    connection.disconnect();
+                currentUrl = location;
+                if (autoredirect) {
+                    send(); // repeat with new location
+                } else {
+                    result.complete(response);
+                }
+            } else {
+                logger.debug("Retry call to {}", url);
+                retryCounter++;
+                if (retryCounter > badRequestRepeats) {
+                    throw new HttpException(code, verb + " url '" + url + "' failed: " + response.getReason());
                 }
-                throw e;
+                scheduler.schedule(this::send, RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
             }
         }
     }
@@ -1031,10 +1082,16 @@ public class Connection {
         return json;
     }
 
+    /**
+     * Get the capability states of smart home devices. The states of up to {@link #MAX_STATE_REQUESTS_PER_CALL}
+     * appliances are requested with one call, the calls for more appliances are sent in parallel.
+     *
+     * @param devices the devices
+     * @return the capability states by appliance id
+     */
     public Map<String, JsonArray> getSmartHomeDeviceStatesJson(Set<SmartHomeBaseDevice> devices)
             throws IOException, URISyntaxException, InterruptedException {
-        JsonObject requestObject = new JsonObject();
-        JsonArray stateRequests = new JsonArray();
+        List<JsonObject> stateRequests = new ArrayList<>();
         Map<String, String> mergedApplianceMap = new HashMap<>();
         for (SmartHomeBaseDevice device : devices) {
             String applianceId = device.findId();
@@ -1058,14 +1115,39 @@ public class Connection {
                 }
             }
         }
-        requestObject.add("stateRequests", stateRequests);
-        String requestBody = requestObject.toString();
-        String json = makeRequestAndReturnString("POST", alexaServer + "/api/phoenix/state", requestBody, true, null);
-        logger.trace("Requested {} and received {}", requestBody, json);
+        List<String> requestBodies = new ArrayList<>();
+        List<CompletableFuture<ContentResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < stateRequests.size(); i += MAX_STATE_REQUESTS_PER_CALL) {
+            JsonArray stateRequestBatch = new JsonArray();
+            stateRequests.subList(i, Math.min(i + MAX_STATE_REQUESTS_PER_CALL, stateRequests.size()))
+                    .forEach(stateRequestBatch::add);
+            JsonObject requestObject = new JsonObject();
+            requestObject.add("stateRequests", stateRequestBatch);
+            String requestBody = requestObject.toString();
+            requestBodies.add(requestBody);
+            responses.add(
+                    makeRequestAsync("POST", alexaServer + "/api/phoenix/state", requestBody, true, true, null, 3));
+        }
 
+        Map<String, JsonArray> result = new HashMap<>();
+        try {
+            for (int i = 0; i < responses.size(); i++) {
+                String json = waitForResponse(responses.get(i)).getContentAsString();
+                logger.trace("Requested {} and received {}", requestBodies.get(i), json);
+                addSmartHomeDeviceStates(json, mergedApplianceMap, result);
+            }
+        } catch (IOException | URISyntaxException | InterruptedException | RuntimeException e) {
+            // the states of the other batches are not used, stop their requests and retries
+            responses.forEach(response -> response.cancel(false));
+            throw e;
+        }
+        return result;
+    }
+
+    private void addSmartHomeDeviceStates(String json, Map<String, String> mergedApplianceMap,
+            Map<String, JsonArray> result) {
         JsonObject responseObject = Objects.requireNonNull(gson.fromJson(json, JsonObject.class));
         JsonArray deviceStates = (JsonArray) responseObject.get("deviceStates");
-        Map<String, JsonArray> result = new HashMap<>();
         for (JsonElement deviceState : deviceStates) {
             JsonObject deviceStateObject = deviceState.getAsJsonObject();
             JsonObject entity = deviceStateObject.get("entity").getAsJsonObject();
@@ -1086,7 +1168,6 @@ public class Connection {
                 }
             }
         }
-        return result;
     }
 
     public @Nullable JsonPlayerState getPlayer(Device device)
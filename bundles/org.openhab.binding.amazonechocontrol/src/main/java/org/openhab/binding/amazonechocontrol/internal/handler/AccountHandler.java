@@ -26,6 +26,7 @@ import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jetty.client.HttpClient;
 import org.openhab.binding.amazonechocontrol.internal.AccountHandlerConfig;
 import org.openhab.binding.amazonechocontrol.internal.AccountServlet;
 import org.openhab.binding.amazonechocontrol.internal.Connection;
@@ -55,6 +56,7 @@ import org.openhab.binding.amazonechocontrol.internal.jsons.JsonPushCommand;
 import org.openhab.binding.amazonechocontrol.internal.jsons.JsonSmartHomeDevices.SmartHomeDevice;
 import org.openhab.binding.amazonechocontrol.internal.jsons.JsonWakeWords.WakeWord;
 import org.openhab.binding.amazonechocontrol.internal.jsons.SmartHomeBaseDevice;
+import org.openhab.binding.amazonechocontrol.internal.smarthome.SmartHomeDeviceStateFingerprints;
 import org.openhab.binding.amazonechocontrol.internal.smarthome.SmartHomeDeviceStateGroupUpdateCalculator;
 import org.openhab.core.storage.Storage;
 import org.openhab.core.thing.Bridge;
@@ -80,6 +82,7 @@ import com.google.gson.JsonSyntaxException;
  * Handles the connection to the amazon server.
  *
  * @author Michael Geramb - Initial Contribution
+ * @author agent - Dispatch only changed smart home device states
  */
 @NonNullByDefault
 public class AccountHandler extends BaseBridgeHandler implements IWebSocketCommandHandler, IAmazonThingHandler {
@@ -91,6 +94,9 @@ public class AccountHandler extends BaseBridgeHandler implements IWebSocketComma
     private final Set<EchoHandler> echoHandlers = new CopyOnWriteArraySet<>();
     private final Set<SmartHomeDeviceHandler> smartHomeDeviceHandlers = new CopyOnWriteArraySet<>();
     private final Set<FlashBriefingProfileHandler> flashBriefingProfileHandlers = new CopyOnWriteArraySet<>();
+    // smart home device handlers that did not receive any state yet
+    private final Set<SmartHomeDeviceHandler> smartHomeDeviceHandlersWithoutState = new CopyOnWriteArraySet<>();
+    private final SmartHomeDeviceStateFingerprints smartHomeDeviceStateFingerprints;
 
     private final Object synchronizeConnection = new Object();
     private Map<String, Device> jsonSerialNumberDeviceMapping = new HashMap<>();
@@ -105,6 +111,7 @@ public class AccountHandler extends BaseBridgeHandler implements IWebSocketComma
     private @Nullable ScheduledFuture<?> forceCheckDataJob;
     private String currentFlashBriefingJson = "";
     private final HttpService httpService;
+    private final HttpClient httpClient;
     private @Nullable AccountServlet accountServlet;
     private final Gson gson;
     private int checkDataCounter;
@@ -114,10 +121,13 @@ public class AccountHandler extends BaseBridgeHandler implements IWebSocketComma
 
     private AccountHandlerConfig handlerConfig = new AccountHandlerConfig();
 
-    public AccountHandler(Bridge bridge, HttpService httpService, Storage<String> stateStorage, Gson gson) {
+    public AccountHandler(Bridge bridge, HttpService httpService, Storage<String> stateStorage, HttpClient httpClient,
+            Gson gson) {
         super(bridge);
         this.gson = gson;
+        this.smartHomeDeviceStateFingerprints = new SmartHomeDeviceStateFingerprints(gson);
         this.httpService = httpService;
+        this.httpClient = httpClient;
         this.stateStorage = stateStorage;
         channelHandlers.add(new ChannelHandlerSendMessage(this, this.gson));
     }
@@ -129,7 +139,7 @@ public class AccountHandler extends BaseBridgeHandler implements IWebSocketComma
         synchronized (synchronizeConnection) {
             Connection connection = this.connection;
             if (connection == null) {
-                this.connection = new Connection(null, gson);
+                this.connection = createConnection(null);
             }
         }
 
@@ -160,6 +170,16 @@ public class AccountHandler extends BaseBridgeHandler implements IWebSocketComma
                 TimeUnit.SECONDS);
     }
 
+    /**
+     * Create a connection to the amazon server that uses the http client of the binding
+     *
+     * @param oldConnection a connection to take the device identification from, or null for a new device
+     * @return the connection
+     */
+    public Connection createConnection(@Nullable Connection oldConnection) {
+        return new Connection(oldConnection, httpClient, gson);
+    }
+
     @Override
     public void updateChannelState(String channelId, State state) {
         updateState(channelId, state);
@@ -217,6 +237,7 @@ public class AccountHandler extends BaseBridgeHandler implements IWebSocketComma
 
     public void addSmartHomeDeviceHandler(SmartHomeDeviceHandler smartHomeDeviceHandler) {
         if (smartHomeDeviceHandlers.add(smartHomeDeviceHandler)) {
+            smartHomeDeviceHandlersWithoutState.add(smartHomeDeviceHandler);
             forceCheckData();
         }
     }
@@ -284,6 +305,7 @@ public class AccountHandler extends BaseBridgeHandler implements IWebSocketComma
         // check for flash briefing profile handler
         if (childHandler instanceof SmartHomeDeviceHandler) {
             smartHomeDeviceHandlers.remove(childHandler);
+            smartHomeDeviceHandlersWithoutState.remove(childHandler);
         }
         super.childHandlerDisposed(childHandler, childThing);
     }
@@ -336,6 +358,7 @@ public class AccountHandler extends BaseBridgeHandler implements IWebSocketComma
             connection.logout();
             this.connection = null;
         }
+        smartHomeDeviceStateFingerprints.clear();
         closeWebSocketConnection();
     }
 
@@ -901,6 +924,7 @@ public class AccountHandler extends BaseBridgeHandler implements IWebSocketComma
             }
             Map<String, JsonArray> applianceIdToCapabilityStates = connection
                     .getSmartHomeDeviceStatesJson(targetDevices);
+            Set<String> changedApplianceIds = smartHomeDeviceStateFingerprints.update(applianceIdToCapabilityStates);
 
             for (SmartHomeDeviceHandler smartHomeDeviceHandler : smartHomeDeviceHandlers) {
                 String id = smartHomeDeviceHandler.getId();
@@ -908,8 +932,14 @@ public class AccountHandler extends BaseBridgeHandler implements IWebSocketComma
                     logger.debug("Device update {} suspended", id);
                     continue;
                 }
-                if (deviceFilterId == null || id.equals(deviceFilterId)) {
+                if (deviceFilterId == null && !smartHomeDeviceHandlersWithoutState.contains(smartHomeDeviceHandler)
+                        && !hasChangedDevice(smartHomeDeviceHandler, allDevices, changedApplianceIds)) {
+                    logger.trace("State of {} not changed", id);
+                } else if (deviceFilterId == null || id.equals(deviceFilterId)) {
                     smartHomeDeviceHandler.updateChannelStates(allDevices, applianceIdToCapabilityStates);
+                    if (smartHomeDeviceHandler.getThing().getStatus() == ThingStatus.ONLINE) {
+                        smartHomeDeviceHandlersWithoutState.remove(smartHomeDeviceHandler);
+                    }
                 } else {
                     logger.trace("Id {} not matching filter {}", id, deviceFilterId);
                 }
@@ -922,4 +952,11 @@ public class AccountHandler extends BaseBridgeHandler implements IWebSocketComma
             logger.warn("updateSmartHomeState fails with unexpected error", e);
         }
     }
+
+    private boolean hasChangedDevice(SmartHomeDeviceHandler handler, List<SmartHomeBaseDevice> allDevices,
+            Set<String> changedApplianceIds) {
+        SmartHomeBaseDevice baseDevice = jsonIdSmartHomeDeviceMapping.get(handler.getId());
+        return SmartHomeDeviceHandler.getSupportedSmartHomeDevices(baseDevice, allDevices).stream()
+                .map(device -> device.applianceId).anyMatch(changedApplianceIds::contains);
+    }
 }
@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.amazonechocontrol.internal.smarthome;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+
+/**
+ * Remembers the capability states of the last poll of each appliance, to find the appliances whose state changed
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class SmartHomeDeviceStateFingerprints {
+    private final Gson gson;
+    // the capability states of the last poll by appliance id, without the time of the sample
+    private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+
+    public SmartHomeDeviceStateFingerprints(Gson gson) {
+        this.gson = gson;
+    }
+
+    /**
+     * Remember the capability states of a poll
+     *
+     * @param applianceIdToCapabilityStates the capability states by appliance id
+     * @return the ids of the appliances whose capability states are new or changed
+     */
+    public Set<String> update(Map<String, JsonArray> applianceIdToCapabilityStates) {
+        Set<String> changedApplianceIds = new HashSet<>();
+        applianceIdToCapabilityStates.forEach((applianceId, capabilityStates) -> {
+            String fingerprint = getFingerprint(capabilityStates);
+            if (!fingerprint.equals(fingerprints.put(applianceId, fingerprint))) {
+                changedApplianceIds.add(applianceId);
+            }
+        });
+        return changedApplianceIds;
+    }
+
+    public void clear() {
+        fingerprints.clear();
+    }
+
+    /**
+     * The capability states contain the time of the sample, which changes with each poll even if the state does not
+     *
+     * @param capabilityStates the capability states of an appliance
+     * @return the capability states without the time of the sample
+     */
+    private String getFingerprint(JsonArray capabilityStates) {
+        StringBuilder fingerprint = new StringBuilder();
+        for (JsonElement stateElement : capabilityStates) {
+            String stateJson = stateElement.isJsonPrimitive() ? stateElement.getAsString() : stateElement.toString();
+            try {
+                JsonObject state = gson.fromJson(stateJson, JsonObject.class);
+                if (state != null) {
+                    state.remove("timeOfSample");
+                    state.remove("uncertaintyInMilliseconds");
+                    stateJson = state.toString();
+                }
+            } catch (JsonParseException e) {
+                // not a json object, compare it as it is
+            }
+            fingerprint.append(stateJson).append('\n');
+        }
+        return fingerprint.toString();
+    }
+}
@@ -0,0 +1,299 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.amazonechocontrol.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.jetty.util.HttpCookieStore;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.binding.amazonechocontrol.internal.jsons.JsonSmartHomeDevices.SmartHomeDevice;
+import org.openhab.binding.amazonechocontrol.internal.jsons.SmartHomeBaseDevice;
+import org.openhab.binding.amazonechocontrol.internal.smarthome.SmartHomeDeviceStateFingerprints;
+import org.openhab.core.test.TestPortUtil;
+import org.openhab.core.test.TestServer;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Tests the requests of the {@link Connection} against a local stub of the amazon server
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ConnectionTest {
+
+    private static final String HOST = "127.0.0.1";
+    private static final int PORT = TestPortUtil.findFreePort();
+    private static final String SERVER = "http://" + HOST + ":" + PORT;
+
+    /**
+     * Answers a request of the stub server
+     */
+    @FunctionalInterface
+    private interface Reply {
+        void handle(HttpServletRequest request, HttpServletResponse response, String body) throws IOException;
+    }
+
+    /**
+     * A request received by the stub server
+     */
+    private static class ReceivedRequest {
+        private final String path;
+        private final @Nullable String cookie;
+        private final String body;
+
+        private ReceivedRequest(String path, @Nullable String cookie, String body) {
+            this.path = path;
+            this.cookie = cookie;
+            this.body = body;
+        }
+    }
+
+    private static final List<ReceivedRequest> RECEIVED = new CopyOnWriteArrayList<>();
+    private static volatile Reply reply = (request, response, body) -> response.sendError(404);
+    // the smart home state reported by the stub server
+    private static volatile String powerState = "ON";
+    private static volatile String timeOfSample = "2021-03-01T10:00:00.000Z";
+
+    private static final HttpServlet STUB = new HttpServlet() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void service(@Nullable HttpServletRequest request, @Nullable HttpServletResponse response)
+                throws IOException {
+            if (request == null || response == null) {
+                return;
+            }
+            String body = new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            RECEIVED.add(new ReceivedRequest(request.getRequestURI(), request.getHeader("Cookie"), body));
+            reply.handle(request, response, body);
+        }
+    };
+
+    private static @Nullable TestServer server;
+    private static @Nullable HttpClient httpClient;
+
+    private final Gson gson = new Gson();
+    private @Nullable Connection connection;
+
+    @BeforeAll
+    public static void startServer() throws Exception {
+        TestServer server = new TestServer(HOST, PORT, 10000, new ServletHolder(STUB));
+        server.startServer();
+        ConnectionTest.server = server;
+        // configured like the http client of the handler factory
+        HttpClient httpClient = new HttpClient();
+        httpClient.setFollowRedirects(false);
+        httpClient.setCookieStore(new HttpCookieStore.Empty());
+        httpClient.start();
+        ConnectionTest.httpClient = httpClient;
+    }
+
+    @AfterAll
+    public static void stopServer() throws Exception {
+        TestServer server = ConnectionTest.server;
+        if (server != null) {
+            server.stopServer();
+        }
+        HttpClient httpClient = ConnectionTest.httpClient;
+        if (httpClient != null) {
+            httpClient.stop();
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        RECEIVED.clear();
+        powerState = "ON";
+        Connection connection = new Connection(null, getHttpClient(), gson);
+        connection.setAlexaServer(SERVER);
+        this.connection = connection;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Connection connection = this.connection;
+        if (connection != null) {
+            connection.logout();
+        }
+    }
+
+    private static HttpClient getHttpClient() {
+        HttpClient httpClient = ConnectionTest.httpClient;
+        assertNotNull(httpClient);
+        return httpClient;
+    }
+
+    private Connection getConnection() {
+        Connection connection = this.connection;
+        assertNotNull(connection);
+        return connection;
+    }
+
+    @Test
+    public void redirectIsFollowedWithItsCookies() throws Exception {
+        reply = (request, response, body) -> {
+            if ("/start".equals(request.getRequestURI())) {
+                response.addHeader("Set-Cookie", "session-id=123; Path=/");
+                response.setHeader("Location", "/target");
+                response.setStatus(302);
+            } else {
+                response.getWriter().write("target reached");
+            }
+        };
+
+        assertEquals("target reached", getConnection().makeRequestAndReturnString(SERVER + "/start"));
+
+        assertEquals(2, RECEIVED.size());
+        ReceivedRequest redirected = RECEIVED.get(1);
+        assertEquals("/target", redirected.path);
+        assertEquals("session-id=123", redirected.cookie);
+    }
+
+    @Test
+    public void redirectIsReturnedWithoutAutoredirect() throws Exception {
+        reply = (request, response, body) -> {
+            response.setHeader("Location", "/target");
+            response.setStatus(302);
+        };
+
+        ContentResponse response = getConnection().makeRequest("GET", SERVER + "/start", null, false, false, null, 0);
+
+        assertEquals(302, response.getStatus());
+        assertEquals(1, RECEIVED.size());
+    }
+
+    @Test
+    public void failedRequestIsRepeated() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        reply = (request, response, body) -> {
+            if (calls.getAndIncrement() == 0) {
+                response.sendError(503);
+            } else {
+                response.getWriter().write("ok");
+            }
+        };
+
+        ContentResponse response = getConnection().makeRequest("GET", SERVER + "/flaky", null, false, true, null, 1);
+
+        assertEquals("ok", response.getContentAsString());
+        assertEquals(2, RECEIVED.size());
+    }
+
+    @Test
+    public void httpExceptionAfterBadRequestRepeats() {
+        reply = (request, response, body) -> response.sendError(500);
+
+        HttpException e = assertThrows(HttpException.class,
+                () -> getConnection().makeRequest("POST", SERVER + "/broken", "{}", true, true, null, 1));
+
+        assertEquals(500, e.getCode());
+        // the first request and one repetition
+        assertEquals(2, RECEIVED.size());
+    }
+
+    @Test
+    public void stateRequestsAreSentInBatches() throws Exception {
+        reply = ConnectionTest::replyStates;
+        Set<SmartHomeBaseDevice> devices = new HashSet<>();
+        for (int i = 0; i < 250; i++) {
+            devices.add(device("appliance-" + i));
+        }
+
+        Map<String, JsonArray> states = getConnection().getSmartHomeDeviceStatesJson(devices);
+
+        assertEquals(250, states.size());
+        assertEquals(3, RECEIVED.size());
+        List<Integer> batchSizes = new ArrayList<>();
+        for (ReceivedRequest request : RECEIVED) {
+            assertEquals("/api/phoenix/state", request.path);
+            batchSizes.add(gson.fromJson(request.body, JsonObject.class).getAsJsonArray("stateRequests").size());
+        }
+        batchSizes.sort(null);
+        assertEquals(List.of(50, 100, 100), batchSizes);
+    }
+
+    @Test
+    public void timeOfSampleOnlyChangeIsNotDispatched() throws Exception {
+        SmartHomeDeviceStateFingerprints fingerprints = new SmartHomeDeviceStateFingerprints(gson);
+        Set<SmartHomeBaseDevice> devices = Set.of(device("lamp"));
+
+        reply = ConnectionTest::replyStates;
+        assertEquals(Set.of("lamp"), fingerprints.update(getConnection().getSmartHomeDeviceStatesJson(devices)));
+
+        timeOfSample = "2021-03-01T10:00:10.000Z";
+        assertEquals(Set.of(), fingerprints.update(getConnection().getSmartHomeDeviceStatesJson(devices)));
+
+        powerState = "OFF";
+        assertEquals(Set.of("lamp"), fingerprints.update(getConnection().getSmartHomeDeviceStatesJson(devices)));
+    }
+
+    /**
+     * Answer a state request like the amazon server, the capability states are json strings
+     */
+    private static void replyStates(HttpServletRequest request, HttpServletResponse response, String body)
+            throws IOException {
+        JsonArray deviceStates = new JsonArray();
+        for (var stateRequest : new Gson().fromJson(body, JsonObject.class).getAsJsonArray("stateRequests")) {
+            JsonObject capabilityState = new JsonObject();
+            capabilityState.addProperty("namespace", "Alexa.PowerController");
+            capabilityState.addProperty("name", "powerState");
+            capabilityState.addProperty("value", powerState);
+            capabilityState.addProperty("timeOfSample", timeOfSample);
+            capabilityState.addProperty("uncertaintyInMilliseconds", 0);
+            JsonArray capabilityStates = new JsonArray();
+            capabilityStates.add(capabilityState.toString());
+            JsonObject entity = new JsonObject();
+            entity.addProperty("entityId", stateRequest.getAsJsonObject().get("entityId").getAsString());
+            JsonObject deviceState = new JsonObject();
+            deviceState.add("entity", entity);
+            deviceState.add("capabilityStates", capabilityStates);
+            deviceStates.add(deviceState);
+        }
+        JsonObject result = new JsonObject();
+        result.add("deviceStates", deviceStates);
+        response.setContentType("application/json");
+        response.getWriter().write(result.toString());
+    }
+
+    private static SmartHomeDevice device(String applianceId) {
+        SmartHomeDevice device = new SmartHomeDevice();
+        device.applianceId = applianceId;
+        return device;
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.amazonechocontrol.internal.smarthome;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+
+/**
+ * Tests cases for {@link SmartHomeDeviceStateFingerprints}
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class SmartHomeDeviceStateFingerprintsTest {
+
+    private final SmartHomeDeviceStateFingerprints fingerprints = new SmartHomeDeviceStateFingerprints(new Gson());
+
+    private static JsonArray states(String... states) {
+        JsonArray array = new JsonArray();
+        for (String state : states) {
+            array.add(state);
+        }
+        return array;
+    }
+
+    private static String power(String value, String timeOfSample) {
+        return "{\"namespace\":\"Alexa.PowerController\",\"name\":\"powerState\",\"value\":\"" + value
+                + "\",\"timeOfSample\":\"" + timeOfSample + "\",\"uncertaintyInMilliseconds\":500}";
+    }
+
+    @Test
+    public void newAppliancesAreChanged() {
+        assertEquals(Set.of("a", "b"), fingerprints.update(
+                Map.of("a", states(power("ON", "10:00")), "b", states(power("OFF", "10:00")))));
+    }
+
+    @Test
+    public void timeOfSampleIsIgnored() {
+        fingerprints.update(Map.of("a", states(power("ON", "10:00"))));
+
+        assertEquals(Set.of(), fingerprints.update(Map.of("a", states(power("ON", "10:01")))));
+        assertEquals(Set.of("a"), fingerprints.update(Map.of("a", states(power("OFF", "10:02")))));
+    }
+
+    @Test
+    public void onlyChangedAppliancesAreReported() {
+        fingerprints.update(Map.of("a", states(power("ON", "10:00")), "b", states(power("ON", "10:00"))));
+
+        assertEquals(Set.of("b"), fingerprints.update(
+                Map.of("a", states(power("ON", "10:01")), "b", states(power("ON", "10:01"), "not json"))));
+    }
+
+    @Test
+    public void clearReportsAllAppliancesAgain() {
+        fingerprints.update(Map.of("a", states(power("ON", "10:00"))));
+        fingerprints.clear();
+
+        assertEquals(Set.of("a"), fingerprints.update(Map.of("a", states(power("ON", "10:00")))));
+    }
+}
@@ -33,4 +33,6 @@ public class BlueGigaAdapterConstants {
     public static final String PROPERTY_LINKLAYER = "linklayer";
     public static final String PROPERTY_PROTOCOL = "protocol";
     public static final String PROPERTY_DISCOVERY = "discovery";
+    public static final String PROPERTY_TRANSACTION_STATISTICS = "transactionStatistics";
+    public static final String PROPERTY_ADVERTISEMENT_STATISTICS = "advertisementStatistics";
 }
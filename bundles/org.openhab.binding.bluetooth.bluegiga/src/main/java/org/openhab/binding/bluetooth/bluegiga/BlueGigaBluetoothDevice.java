@@ -14,6 +14,7 @@ package org.openhab.binding.bluetooth.bluegiga;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.NavigableMap;
@@ -51,6 +52,7 @@ import org.openhab.binding.bluetooth.bluegiga.internal.eir.EirPacket;
 import org.openhab.binding.bluetooth.bluegiga.internal.enumeration.BgApiResponse;
 import org.openhab.binding.bluetooth.bluegiga.internal.enumeration.BluetoothAddressType;
 import org.openhab.binding.bluetooth.bluegiga.internal.enumeration.ConnectionStatusFlag;
+import org.openhab.binding.bluetooth.bluegiga.internal.enumeration.ScanResponseType;
 import org.openhab.binding.bluetooth.notification.BluetoothConnectionStatusNotification;
 import org.openhab.binding.bluetooth.notification.BluetoothScanNotification;
 import org.openhab.binding.bluetooth.notification.BluetoothScanNotification.BluetoothBeaconType;
@@ -62,11 +64,17 @@ import org.slf4j.LoggerFactory;
  * An extended {@link BluetoothDevice} class to handle BlueGiga specific information
  *
  * @author Chris Jackson - Initial contribution
+ * @author agent - Drop repeated advertisements
  */
 @NonNullByDefault
 public class BlueGigaBluetoothDevice extends BaseBluetoothDevice implements BlueGigaEventListener {
     private final long TIMEOUT_SEC = 60;
 
+    /**
+     * Advertisements with the same payload as the last processed one are dropped within this period
+     */
+    private static final long DUPLICATE_SCAN_PERIOD_NS = TimeUnit.SECONDS.toNanos(1);
+
     private final Logger logger = LoggerFactory.getLogger(BlueGigaBluetoothDevice.class);
 
     private static final BlueGigaProcedure PROCEDURE_NONE = new BlueGigaProcedure(BlueGigaProcedure.Type.NONE);
@@ -96,6 +104,12 @@ public class BlueGigaBluetoothDevice extends BaseBluetoothDevice implements Blue
     private @Nullable ScheduledFuture<?> connectTimer;
     private @Nullable ScheduledFuture<?> procedureTimer;
 
+    // The last processed advertisement, guarded by scanLock as the events of the bridge are handled on a thread pool
+    private final Object scanLock = new Object();
+    private int @Nullable [] lastScanData;
+    private @Nullable ScanResponseType lastScanPacketType;
+    private long lastScanTime;
+
     private Runnable connectTimeoutTask = new Runnable() {
         @Override
         public void run() {
@@ -357,11 +371,8 @@ public class BlueGigaBluetoothDevice extends BaseBluetoothDevice implements Blue
 
     @Override
     public void bluegigaEventReceived(BlueGigaResponse event) {
-        if (event instanceof BlueGigaScanResponseEvent) {
-            handleScanEvent((BlueGigaScanResponseEvent) event);
-        }
-
-        else if (event instanceof BlueGigaGroupFoundEvent) {
+        // Scan responses are passed by the bridge to the device of the sender, see handleScanEvent
+        if (event instanceof BlueGigaGroupFoundEvent) {
             handleGroupFoundEvent((BlueGigaGroupFoundEvent) event);
         }
 
@@ -387,12 +398,16 @@ public class BlueGigaBluetoothDevice extends BaseBluetoothDevice implements Blue
         }
     }
 
-    private void handleScanEvent(BlueGigaScanResponseEvent event) {
-        // Check if this is addressed to this device
-        if (!address.equals(new BluetoothAddress(event.getSender()))) {
-            return;
-        }
-
+    /**
+     * Process an advertisement or scan response of this device.
+     * <p>
+     * Beacons repeat the same payload many times per second. If the payload equals the last processed one, only the
+     * RSSI is updated and the advertisement is dropped, unless the last processed one is older than a second.
+     *
+     * @param event the scan response sent by this device
+     * @return true if the advertisement has been processed, false if it has been dropped as duplicate
+     */
+    public boolean handleScanEvent(BlueGigaScanResponseEvent event) {
         logger.trace("scanEvent: {}", event);
         updateLastSeenTime();
 
@@ -400,6 +415,10 @@ public class BlueGigaBluetoothDevice extends BaseBluetoothDevice implements Blue
         rssi = event.getRssi();
         addressType = event.getAddressType();
 
+        if (isDuplicateScan(event, System.nanoTime()) && connectionState != ConnectionState.DISCOVERING) {
+            return false;
+        }
+
         byte[] manufacturerData = null;
 
         // If the packet contains data, then process it and add anything relevant to the device...
@@ -509,6 +528,28 @@ public class BlueGigaBluetoothDevice extends BaseBluetoothDevice implements Blue
         }
 
         notifyListeners(BluetoothEventType.SCAN_RECORD, scanNotification);
+        return true;
+    }
+
+    /**
+     * Check if an advertisement equals the last processed one of the last second, otherwise remember it as the last
+     * processed one.
+     *
+     * @param event the scan response sent by this device
+     * @param now the current {@link System#nanoTime()}
+     * @return true if the advertisement is a duplicate
+     */
+    boolean isDuplicateScan(BlueGigaScanResponseEvent event, long now) {
+        synchronized (scanLock) {
+            if (event.getPacketType() == lastScanPacketType && now - lastScanTime < DUPLICATE_SCAN_PERIOD_NS
+                    && Arrays.equals(event.getData(), lastScanData)) {
+                return true;
+            }
+            lastScanData = event.getData();
+            lastScanPacketType = event.getPacketType();
+            lastScanTime = now;
+            return false;
+        }
     }
 
     private void handleGroupFoundEvent(BlueGigaGroupFoundEvent event) {
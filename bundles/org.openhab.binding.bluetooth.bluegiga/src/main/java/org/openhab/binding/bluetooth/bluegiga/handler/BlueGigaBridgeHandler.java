@@ -29,6 +29,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.io.IOUtils;
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -121,6 +122,7 @@ public class BlueGigaBridgeHandler extends AbstractBluetoothBridgeHandler<BlueGi
 
     private final int COMMAND_TIMEOUT_MS = 5000;
     private final int INITIALIZATION_INTERVAL_SEC = 60;
+    private final int STATISTICS_INTERVAL_SEC = 60;
 
     private final SerialPortManager serialPortManager;
 
@@ -154,12 +156,17 @@ public class BlueGigaBridgeHandler extends AbstractBluetoothBridgeHandler<BlueGi
 
     private volatile boolean initComplete = false;
 
+    // Advertisement counters
+    private final AtomicLong advertisementsReceived = new AtomicLong();
+    private final AtomicLong advertisementsDropped = new AtomicLong();
+
     private CompletableFuture<SerialPort> serialPortFuture = CompletableFuture
             .failedFuture(new IllegalStateException("Uninitialized"));
 
     private @Nullable ScheduledFuture<?> removeInactiveDevicesTask;
     private @Nullable ScheduledFuture<?> discoveryTask;
     private @Nullable ScheduledFuture<?> initTask;
+    private @Nullable ScheduledFuture<?> statisticsTask;
 
     private @Nullable Future<?> passiveScanIdleTimer;
 
@@ -264,7 +271,8 @@ public class BlueGigaBridgeHandler extends AbstractBluetoothBridgeHandler<BlueGi
                     .thenApply(sp -> new BlueGigaSerialHandler(getThing().getUID().getAsString(), inputStream.get(),
                             outputStream.get()));
             transactionManager = serialHandler.thenApply(sh -> {
-                BlueGigaTransactionManager th = new BlueGigaTransactionManager(sh, executor);
+                BlueGigaTransactionManager th = new BlueGigaTransactionManager(sh, executor,
+                        configuration.maxInFlightTransactions);
                 sh.addHandlerListener(this);
                 th.addEventListener(this);
                 return th;
@@ -364,6 +372,23 @@ public class BlueGigaBridgeHandler extends AbstractBluetoothBridgeHandler<BlueGi
     private void startScheduledTasks() {
         schedulePassiveScan();
         discoveryTask = scheduler.scheduleWithFixedDelay(this::refreshDiscoveredDevices, 0, 10, TimeUnit.SECONDS);
+        statisticsTask = scheduler.scheduleWithFixedDelay(this::updateTransactionStatistics, STATISTICS_INTERVAL_SEC,
+                STATISTICS_INTERVAL_SEC, TimeUnit.SECONDS);
+    }
+
+    private void updateTransactionStatistics() {
+        BlueGigaTransactionManager manager = transactionManager.getNow(null);
+        if (manager != null) {
+            String statistics = manager.getStatistics().toString();
+            logger.debug("Transaction statistics: {}", statistics);
+            if (!statistics.isEmpty()) {
+                updateProperty(BlueGigaAdapterConstants.PROPERTY_TRANSACTION_STATISTICS, statistics);
+            }
+        }
+        String advertisements = String.format("%d received, %d duplicates dropped", advertisementsReceived.get(),
+                advertisementsDropped.get());
+        logger.debug("Advertisements: {}", advertisements);
+        updateProperty(BlueGigaAdapterConstants.PROPERTY_ADVERTISEMENT_STATISTICS, advertisements);
     }
 
     private void stopScheduledTasks() {
@@ -376,6 +401,10 @@ public class BlueGigaBridgeHandler extends AbstractBluetoothBridgeHandler<BlueGi
             discoveryTask.cancel(true);
             discoveryTask = null;
         }
+        if (statisticsTask != null) {
+            statisticsTask.cancel(true);
+            statisticsTask = null;
+        }
     }
 
     private BlueGigaGetConnectionsResponse readMaxConnections() throws BlueGigaException {
@@ -774,8 +803,12 @@ public class BlueGigaBridgeHandler extends AbstractBluetoothBridgeHandler<BlueGi
                 // The device gets created, and then manages itself for discovery etc.
                 BluetoothAddress sender = new BluetoothAddress(scanEvent.getSender());
                 BlueGigaBluetoothDevice device = getDevice(sender);
-                device.setAddressType(scanEvent.getAddressType());
-                deviceDiscovered(device);
+                advertisementsReceived.incrementAndGet();
+                if (device.handleScanEvent(scanEvent)) {
+                    deviceDiscovered(device);
+                } else {
+                    advertisementsDropped.incrementAndGet();
+                }
             } else {
                 logger.trace("Ignore BlueGigaScanResponseEvent as initialization is not complete");
             }
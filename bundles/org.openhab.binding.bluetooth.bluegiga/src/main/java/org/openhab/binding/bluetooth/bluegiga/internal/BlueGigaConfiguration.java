@@ -32,14 +32,16 @@ public class BlueGigaConfiguration extends BaseBluetoothBridgeHandlerConfigurati
     public int connIntervalMax;
     public int connLatency;
     public int connTimeout;
+    public int maxInFlightTransactions = BlueGigaTransactionManager.DEFAULT_MAX_IN_FLIGHT_TRANSACTIONS;
 
     @Override
     public String toString() {
         return String.format(
                 "[discovery=%b, port=%s, passiveScanIdleTime=%d, passiveScanInterval=%d, passiveScanWindow=%d"
                         + ", activeScanInterval=%d, activeScanWindow=%d, connIntervalMin=%d, connIntervalMax=%d"
-                        + ", connLatency=%d, connTimeout=%d]",
+                        + ", connLatency=%d, connTimeout=%d, maxInFlightTransactions=%d]",
                 backgroundDiscovery, port, passiveScanIdleTime, passiveScanInterval, passiveScanWindow,
-                activeScanInterval, activeScanWindow, connIntervalMin, connIntervalMax, connLatency, connTimeout);
+                activeScanInterval, activeScanWindow, connIntervalMin, connIntervalMax, connLatency, connTimeout,
+                maxInFlightTransactions);
     }
 }
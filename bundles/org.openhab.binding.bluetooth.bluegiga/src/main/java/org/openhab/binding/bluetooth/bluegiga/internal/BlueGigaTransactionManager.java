@@ -12,11 +12,17 @@
  */
 package org.openhab.binding.bluetooth.bluegiga.internal;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
@@ -29,13 +35,20 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.bluetooth.bluegiga.internal.command.gap.BlueGigaScanResponseEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * This class provides transaction management and queuing of {@link BlueGigaCommand} frames.
+ * <p>
+ * Commands are queued per connection, commands without a connection share a separate queue. Each queue has at most
+ * one transaction in flight, so the commands of a connection are sent in order, while the queues of different
+ * connections are served round robin and pipelined up to a global limit of transactions in flight. The dongle answers
+ * commands in the order it receives them, so a response is correlated with the oldest matching transaction in flight.
  *
  * @author Pauli Anttila - Initial contribution
+ * @author agent - Per connection queues and pipelining
  *
  */
 @NonNullByDefault
@@ -43,6 +56,16 @@ public class BlueGigaTransactionManager implements BlueGigaSerialEventListener {
 
     private static final int TRANSACTION_TIMEOUT_PERIOD_MS = 100;
 
+    /**
+     * Default number of commands sent to the dongle before their responses have been received
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT_TRANSACTIONS = 4;
+
+    /**
+     * Queue key of commands that are not related to a connection
+     */
+    private static final int NO_CONNECTION = -1;
+
     private final Logger logger = LoggerFactory.getLogger(BlueGigaTransactionManager.class);
 
     /**
@@ -51,9 +74,9 @@ public class BlueGigaTransactionManager implements BlueGigaSerialEventListener {
     private AtomicInteger transactionId = new AtomicInteger();
 
     /**
-     * Ongoing transaction id. If not present, no ongoing transaction.
+     * Transactions sent to the dongle, ordered by transaction id. Guarded by this.
      */
-    private volatile Optional<Integer> ongoingTransactionId = Optional.empty();
+    private final Map<Integer, InFlightTransaction> inFlightTransactions = new TreeMap<>();
 
     /**
      * Transaction listeners are used internally to correlate the commands and responses
@@ -65,11 +88,29 @@ public class BlueGigaTransactionManager implements BlueGigaSerialEventListener {
      */
     private final Set<BlueGigaEventListener> eventListeners = new CopyOnWriteArraySet<>();
 
-    private final Queue<BlueGigaUniqueCommand> sendQueue = new LinkedList<>();
+    /**
+     * Send queues by connection, in round robin order. Guarded by this.
+     */
+    private final Map<Integer, Queue<BlueGigaUniqueCommand>> sendQueues = new LinkedHashMap<>();
     private final ScheduledExecutorService executor;
     private final BlueGigaSerialHandler serialHandler;
-
-    private @Nullable Future<?> transactionTimeoutTimer;
+    private final int maxInFlightTransactions;
+    private final BlueGigaTransactionStatistics statistics = new BlueGigaTransactionStatistics();
+
+    private static class InFlightTransaction {
+        private final BlueGigaUniqueCommand frame;
+        private final int connection;
+        private final long sentTime;
+        private final Future<?> timeoutTimer;
+
+        private InFlightTransaction(BlueGigaUniqueCommand frame, int connection, long sentTime,
+                Future<?> timeoutTimer) {
+            this.frame = frame;
+            this.connection = connection;
+            this.sentTime = sentTime;
+            this.timeoutTimer = timeoutTimer;
+        }
+    }
 
     /**
      * Internal interface for transaction listeners.
@@ -81,8 +122,20 @@ public class BlueGigaTransactionManager implements BlueGigaSerialEventListener {
     }
 
     public BlueGigaTransactionManager(BlueGigaSerialHandler serialHandler, ScheduledExecutorService executor) {
+        this(serialHandler, executor, DEFAULT_MAX_IN_FLIGHT_TRANSACTIONS);
+    }
+
+    /**
+     * @param serialHandler the serial handler of the dongle
+     * @param executor the executor for transactions and events
+     * @param maxInFlightTransactions the number of commands sent to the dongle before their responses have been
+     *            received, 1 sends one command at a time
+     */
+    public BlueGigaTransactionManager(BlueGigaSerialHandler serialHandler, ScheduledExecutorService executor,
+            int maxInFlightTransactions) {
         this.serialHandler = serialHandler;
         this.executor = executor;
+        this.maxInFlightTransactions = Math.max(1, maxInFlightTransactions);
         serialHandler.addEventListener(this);
     }
 
@@ -91,84 +144,111 @@ public class BlueGigaTransactionManager implements BlueGigaSerialEventListener {
      */
     public void close() {
         serialHandler.removeEventListener(this);
-        cancelTransactionTimer();
-        sendQueue.clear();
+        synchronized (this) {
+            inFlightTransactions.values().forEach(transaction -> transaction.timeoutTimer.cancel(false));
+            inFlightTransactions.clear();
+            sendQueues.clear();
+        }
         transactionListeners.clear();
         eventListeners.clear();
         logger.debug("Closed");
     }
 
-    private void startTransactionTimer() {
-        transactionTimeoutTimer = executor.schedule(() -> {
-            notifyTransactionTimeout(ongoingTransactionId);
-        }, TRANSACTION_TIMEOUT_PERIOD_MS, TimeUnit.MILLISECONDS);
+    /**
+     * Get the queue wait and round trip times of the transactions per command class.
+     */
+    public BlueGigaTransactionStatistics getStatistics() {
+        return statistics;
+    }
+
+    private static int getConnection(BlueGigaCommand command) {
+        return command instanceof BlueGigaDeviceCommand ? ((BlueGigaDeviceCommand) command).getConnection()
+                : NO_CONNECTION;
     }
 
-    private void cancelTransactionTimer() {
-        if (transactionTimeoutTimer != null) {
-            transactionTimeoutTimer.cancel(true);
-            transactionTimeoutTimer = null;
+    private synchronized void sendNextFrames() {
+        while (inFlightTransactions.size() < maxInFlightTransactions) {
+            Optional<BlueGigaUniqueCommand> frame = getNextFrame();
+            if (!frame.isPresent()) {
+                return;
+            }
+            sendFrame(frame.get());
         }
     }
 
-    private void sendNextFrame() {
-        getNextFrame().ifPresent(frame -> {
-            cancelTransactionTimer();
-            logger.debug("Send frame #{}: {}", frame.getTransactionId(), frame.getMessage());
-            ongoingTransactionId = Optional.of(frame.getTransactionId());
-            serialHandler.sendFrame(frame.getMessage());
-            startTransactionTimer();
-        });
+    private void sendFrame(BlueGigaUniqueCommand frame) {
+        int id = frame.getTransactionId();
+        long now = System.nanoTime();
+        logger.debug("Send frame #{}: {}", id, frame.getMessage());
+        Future<?> timeoutTimer = executor.schedule(() -> notifyTransactionTimeout(id), TRANSACTION_TIMEOUT_PERIOD_MS,
+                TimeUnit.MILLISECONDS);
+        inFlightTransactions.put(id,
+                new InFlightTransaction(frame, getConnection(frame.getMessage()), now, timeoutTimer));
+        serialHandler.sendFrame(frame.getMessage());
     }
 
-    @SuppressWarnings({ "null", "unused" })
+    /**
+     * Take the next frame from the first queue, in round robin order, whose connection has no transaction in flight.
+     */
     private Optional<BlueGigaUniqueCommand> getNextFrame() {
-        while (!sendQueue.isEmpty()) {
-            BlueGigaUniqueCommand frame = sendQueue.poll();
-            if (frame != null) {
-                if (frame.getMessage() != null) {
-                    return Optional.of(frame);
-                } else {
-                    logger.debug("Null message found from queue, skip it");
-                    continue;
-                }
-            } else {
-                logger.debug("Null frame found from queue, skip it");
+        Set<Integer> busyConnections = new HashSet<>();
+        inFlightTransactions.values().forEach(transaction -> busyConnections.add(transaction.connection));
+
+        Iterator<Map.Entry<Integer, Queue<BlueGigaUniqueCommand>>> iterator = sendQueues.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, Queue<BlueGigaUniqueCommand>> entry = iterator.next();
+            if (busyConnections.contains(entry.getKey())) {
                 continue;
             }
+            Queue<BlueGigaUniqueCommand> queue = entry.getValue();
+            BlueGigaUniqueCommand frame = queue.poll();
+            // Move the queue to the end, so other connections are served first next time
+            iterator.remove();
+            if (!queue.isEmpty()) {
+                sendQueues.put(entry.getKey(), queue);
+            }
+            if (frame != null) {
+                return Optional.of(frame);
+            }
         }
         return Optional.empty();
     }
 
     /**
-     * Add a {@link BlueGigaUniqueCommand} frame to the send queue. The sendQueue is a
-     * FIFO queue. This method queues a {@link BlueGigaCommand} frame without
+     * Add a {@link BlueGigaUniqueCommand} frame to the send queue of its connection. The queues are
+     * FIFO queues. This method queues a {@link BlueGigaCommand} frame without
      * waiting for a response.
      *
      * @param transaction
      *            {@link BlueGigaUniqueCommand}
      */
-    public void queueFrame(BlueGigaUniqueCommand request) {
+    public synchronized void queueFrame(BlueGigaUniqueCommand request) {
         logger.trace("Queue TX BLE frame: {}", request);
-        sendQueue.add(request);
-        logger.trace("TX BLE queue size: {}", sendQueue.size());
+        int connection = getConnection(request.getMessage());
+        Queue<BlueGigaUniqueCommand> queue = sendQueues.computeIfAbsent(connection, c -> new LinkedList<>());
+        queue.add(request);
+        logger.trace("TX BLE queue size for connection {}: {}, in flight: {}", connection, queue.size(),
+                inFlightTransactions.size());
     }
 
-    private void sendNextTransactionIfNoOngoing() {
-        synchronized (this) {
-            logger.trace("Send next transaction if no ongoing");
-            if (!ongoingTransactionId.isPresent()) {
-                sendNextFrame();
+    /**
+     * Finish a transaction and send the next frames. A frame that has not been sent yet is removed from its queue.
+     */
+    private synchronized void completeTransaction(BlueGigaUniqueCommand frame, boolean responded) {
+        logger.trace("Complete transaction {} and send next frames from queues", frame.getTransactionId());
+        InFlightTransaction transaction = inFlightTransactions.remove(frame.getTransactionId());
+        if (transaction != null) {
+            transaction.timeoutTimer.cancel(false);
+            statistics.record(frame.getMessage().getClass().getSimpleName(),
+                    transaction.sentTime - frame.getQueuedTime(), System.nanoTime() - transaction.sentTime,
+                    !responded);
+        } else {
+            Queue<BlueGigaUniqueCommand> queue = sendQueues.get(getConnection(frame.getMessage()));
+            if (queue != null && queue.remove(frame) && queue.isEmpty()) {
+                sendQueues.remove(getConnection(frame.getMessage()));
             }
         }
-    }
-
-    private void clearOngoingTransactionAndSendNext() {
-        synchronized (this) {
-            logger.trace("Clear ongoing transaction and send next frame from queue");
-            ongoingTransactionId = Optional.empty();
-            sendNextFrame();
-        }
+        sendNextFrames();
     }
 
     private void addTransactionListener(BluetoothListener<? extends BlueGigaResponse> listener) {
@@ -205,7 +285,7 @@ public class BlueGigaTransactionManager implements BlueGigaSerialEventListener {
 
                 // Send the transaction
                 queueFrame(query);
-                sendNextTransactionIfNoOngoing();
+                sendNextFrames();
 
                 // Wait transaction completed or timeout
                 synchronized (this) {
@@ -218,13 +298,12 @@ public class BlueGigaTransactionManager implements BlueGigaSerialEventListener {
                     }
                 }
 
-                cancelTransactionTimer();
-
                 // Remove the listener
                 removeTransactionListener(this);
 
-                // Send next transaction if any
-                executor.submit(BlueGigaTransactionManager.this::clearOngoingTransactionAndSendNext);
+                // Send next transactions if any
+                final boolean responded = response.isPresent();
+                executor.submit(() -> completeTransaction(query, responded));
 
                 if (response.isPresent()) {
                     return (T) response.get();
@@ -235,6 +314,9 @@ public class BlueGigaTransactionManager implements BlueGigaSerialEventListener {
 
             @Override
             public boolean transactionEvent(BlueGigaResponse bleResponse, int transactionId) {
+                if (complete) {
+                    return false;
+                }
                 logger.trace("Expected transactionId: {}, received transactionId: {}", query.getTransactionId(),
                         transactionId);
 
@@ -278,7 +360,7 @@ public class BlueGigaTransactionManager implements BlueGigaSerialEventListener {
 
             @Override
             public boolean transactionTimeout(int transactionId) {
-                if (transactionId != query.getTransactionId()) {
+                if (complete || transactionId != query.getTransactionId()) {
                     return false;
                 }
                 logger.debug("Timeout, no response received for transaction {}", query.getTransactionId());
@@ -334,15 +416,34 @@ public class BlueGigaTransactionManager implements BlueGigaSerialEventListener {
 
     /**
      * Notify any event listeners when we receive a response.
-     * This uses a separate thread to separate the processing of the event.
+     * This uses a separate thread to separate the processing of the event. Each listener is notified by its own task,
+     * so that a slow listener does not delay the others. Scan responses are the exception: they arrive several times
+     * per second, only the bridge passes them on to the device of the sender and all other listeners ignore them, so
+     * a single task notifies all listeners.
      *
      * @param response the response data received
      * @return true if the response was processed
      */
     private void notifyEventListeners(final BlueGigaResponse response) {
+        if (response instanceof BlueGigaScanResponseEvent) {
+            executor.submit(() -> {
+                for (final BlueGigaEventListener listener : eventListeners) {
+                    notifyEventListener(listener, response);
+                }
+            });
+            return;
+        }
         // Notify the listeners
         for (final BlueGigaEventListener listener : eventListeners) {
-            executor.submit(() -> listener.bluegigaEventReceived(response));
+            executor.submit(() -> notifyEventListener(listener, response));
+        }
+    }
+
+    private void notifyEventListener(BlueGigaEventListener listener, BlueGigaResponse response) {
+        try {
+            listener.bluegigaEventReceived(response);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to notify listener '{}' of event {}", listener, response, e);
         }
     }
 
@@ -353,30 +454,38 @@ public class BlueGigaTransactionManager implements BlueGigaSerialEventListener {
      *            the response data received
      */
     private void notifyTransactionComplete(final BlueGigaResponse response) {
-        ongoingTransactionId.ifPresent(id -> {
-            boolean processed = false;
+        List<Integer> transactionIds;
+        synchronized (this) {
+            transactionIds = new ArrayList<>(inFlightTransactions.keySet());
+        }
+        // The oldest matching transaction gets the response
+        for (Integer id : transactionIds) {
             for (BluetoothListener<? extends BlueGigaResponse> listener : transactionListeners) {
                 if (listener.transactionEvent(response, id)) {
-                    processed = true;
+                    return;
                 }
             }
-            if (!processed) {
-                logger.debug("No listener found for received response: {}", response);
-            }
-        });
+        }
+        logger.debug("No listener found for received response: {}", response);
     }
 
-    private void notifyTransactionTimeout(final Optional<Integer> transactionId) {
-        transactionId.ifPresent(id -> {
-            boolean processed = false;
-            for (BluetoothListener<? extends BlueGigaResponse> listener : transactionListeners) {
-                if (listener.transactionTimeout(id)) {
-                    processed = true;
-                }
+    private void notifyTransactionTimeout(final int transactionId) {
+        boolean processed = false;
+        for (BluetoothListener<? extends BlueGigaResponse> listener : transactionListeners) {
+            if (listener.transactionTimeout(transactionId)) {
+                processed = true;
             }
-            if (!processed) {
-                logger.debug("No listener found for transaction timeout event, transaction id {}", id);
+        }
+        if (!processed) {
+            logger.debug("No listener found for transaction timeout event, transaction id {}", transactionId);
+            // The waiter is gone, release the slot of the transaction
+            InFlightTransaction transaction;
+            synchronized (this) {
+                transaction = inFlightTransactions.get(transactionId);
+            }
+            if (transaction != null) {
+                completeTransaction(transaction.frame, false);
             }
-        });
+        }
     }
 }
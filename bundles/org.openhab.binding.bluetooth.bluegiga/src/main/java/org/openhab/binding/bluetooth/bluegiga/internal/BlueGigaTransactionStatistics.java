@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.bluetooth.bluegiga.internal;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * This class collects the queue wait and round trip time of {@link BlueGigaCommand}s per command class.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+@NonNullByDefault
+public class BlueGigaTransactionStatistics {
+
+    private static class Entry {
+        private long count;
+        private long timeouts;
+        private long queueWaitNanos;
+        private long roundTripNanos;
+    }
+
+    private final Map<String, Entry> entries = new TreeMap<>();
+
+    /**
+     * Record a finished transaction.
+     *
+     * @param command the command class
+     * @param queueWaitNanos the time between queuing and sending the command
+     * @param roundTripNanos the time between sending the command and receiving the response or the timeout
+     * @param timeout true if no response has been received
+     */
+    public synchronized void record(String command, long queueWaitNanos, long roundTripNanos, boolean timeout) {
+        Entry entry = entries.computeIfAbsent(command, c -> new Entry());
+        entry.count++;
+        entry.queueWaitNanos += queueWaitNanos;
+        if (timeout) {
+            entry.timeouts++;
+        } else {
+            entry.roundTripNanos += roundTripNanos;
+        }
+    }
+
+    /**
+     * Returns the average times per command class, e.g.
+     * "BlueGigaReadByHandleCommand: 10 commands, 0 timeouts, queue wait 0.4 ms, round trip 6.1 ms"
+     */
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder();
+        entries.forEach((command, entry) -> {
+            if (builder.length() > 0) {
+                builder.append("; ");
+            }
+            long responses = entry.count - entry.timeouts;
+            builder.append(String.format("%s: %d commands, %d timeouts, queue wait %.1f ms, round trip %.1f ms",
+                    command, entry.count, entry.timeouts, entry.queueWaitNanos / 1e6 / entry.count,
+                    responses > 0 ? entry.roundTripNanos / 1e6 / responses : 0.0));
+        });
+        return builder.toString();
+    }
+}
@@ -24,10 +24,12 @@ import org.eclipse.jdt.annotation.NonNullByDefault;
 public class BlueGigaUniqueCommand {
     private BlueGigaCommand msg;
     private int transactionId;
+    private long queuedTime;
 
     BlueGigaUniqueCommand(BlueGigaCommand message, int transactionId) {
         this.msg = message;
         this.transactionId = transactionId;
+        this.queuedTime = System.nanoTime();
     }
 
     int getTransactionId() {
@@ -38,6 +40,13 @@ public class BlueGigaUniqueCommand {
         return msg;
     }
 
+    /**
+     * @return the {@link System#nanoTime()} of creating the command
+     */
+    long getQueuedTime() {
+        return queuedTime;
+    }
+
     @Override
     public String toString() {
         final StringBuilder builder = new StringBuilder();
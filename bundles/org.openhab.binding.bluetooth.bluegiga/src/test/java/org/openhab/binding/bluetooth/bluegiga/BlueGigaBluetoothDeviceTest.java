@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.bluetooth.bluegiga;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.openhab.binding.bluetooth.BluetoothAddress;
+import org.openhab.binding.bluetooth.bluegiga.handler.BlueGigaBridgeHandler;
+import org.openhab.binding.bluetooth.bluegiga.internal.command.gap.BlueGigaScanResponseEvent;
+import org.openhab.binding.bluetooth.bluegiga.internal.enumeration.BluetoothAddressType;
+
+/**
+ * Tests the suppression of repeated advertisements by {@link BlueGigaBluetoothDevice}.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class BlueGigaBluetoothDeviceTest {
+
+    private final BlueGigaBluetoothDevice device = new BlueGigaBluetoothDevice(mock(BlueGigaBridgeHandler.class),
+            new BluetoothAddress("12:34:56:78:9A:BC"), BluetoothAddressType.GAP_ADDRESS_TYPE_PUBLIC);
+
+    /**
+     * An advertisement of the device with a flags record
+     */
+    private static BlueGigaScanResponseEvent advertisement(int packetType, int flags) {
+        final int[] data = { 0x80, 0x0E, 0x06, 0x00, 0xC4, packetType, 0xBC, 0x9A, 0x78, 0x56, 0x34, 0x12, 0x00, 0xFF,
+                0x03, 0x02, 0x01, flags };
+        return new BlueGigaScanResponseEvent(data);
+    }
+
+    @Test
+    public void testRepeatedAdvertisementIsDropped() {
+        assertTrue(device.handleScanEvent(advertisement(0x00, 0x06)));
+        assertFalse(device.handleScanEvent(advertisement(0x00, 0x06)));
+    }
+
+    @Test
+    public void testChangedAdvertisementIsProcessed() {
+        assertTrue(device.handleScanEvent(advertisement(0x00, 0x06)));
+        assertTrue(device.handleScanEvent(advertisement(0x00, 0x04)));
+        // a scan response with the same data is another packet
+        assertTrue(device.handleScanEvent(advertisement(0x04, 0x04)));
+    }
+
+    @Test
+    public void testRepeatedAdvertisementIsProcessedAfterOneSecond() {
+        long start = System.nanoTime();
+        assertFalse(device.isDuplicateScan(advertisement(0x00, 0x06), start));
+        assertTrue(device.isDuplicateScan(advertisement(0x00, 0x06), start + TimeUnit.MILLISECONDS.toNanos(900)));
+        assertFalse(device.isDuplicateScan(advertisement(0x00, 0x06), start + TimeUnit.MILLISECONDS.toNanos(1000)));
+        assertTrue(device.isDuplicateScan(advertisement(0x00, 0x06), start + TimeUnit.MILLISECONDS.toNanos(1100)));
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.bluetooth.bluegiga.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.binding.bluetooth.bluegiga.internal.command.connection.BlueGigaGetRssiCommand;
+import org.openhab.binding.bluetooth.bluegiga.internal.command.connection.BlueGigaGetRssiResponse;
+
+/**
+ * Tests {@link BlueGigaTransactionManager}.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class BlueGigaTransactionManagerTest {
+
+    private static final long TIMEOUT_MS = 2000;
+
+    private final BlockingQueue<BlueGigaCommand> sentFrames = new LinkedBlockingQueue<>();
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(4);
+    private @NonNullByDefault({}) BlueGigaTransactionManager manager;
+
+    @BeforeEach
+    public void setUp() {
+        BlueGigaSerialHandler serialHandler = mock(BlueGigaSerialHandler.class);
+        doAnswer(invocation -> {
+            sentFrames.add(invocation.getArgument(0));
+            return null;
+        }).when(serialHandler).sendFrame(any());
+        manager = new BlueGigaTransactionManager(serialHandler, executor);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        manager.close();
+        executor.shutdownNow();
+    }
+
+    private CompletableFuture<BlueGigaGetRssiResponse> getRssi(int connection) {
+        BlueGigaGetRssiCommand command = new BlueGigaGetRssiCommand();
+        command.setConnection(connection);
+        return CompletableFuture
+                .supplyAsync(() -> manager.sendTransaction(command, BlueGigaGetRssiResponse.class, TIMEOUT_MS));
+    }
+
+    private void respond(int connection, int rssi) {
+        int[] data = { 0x00, 0x02, BlueGigaGetRssiResponse.COMMAND_CLASS, BlueGigaGetRssiResponse.COMMAND_METHOD,
+                connection, rssi & 0xff };
+        manager.bluegigaFrameReceived(new BlueGigaGetRssiResponse(data));
+    }
+
+    private int nextSentConnection() throws InterruptedException {
+        BlueGigaCommand frame = sentFrames.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertNotNull(frame);
+        return ((BlueGigaDeviceCommand) frame).getConnection();
+    }
+
+    @Test
+    public void responsesAreCorrelatedByConnection() throws Exception {
+        CompletableFuture<BlueGigaGetRssiResponse> first = getRssi(1);
+        assertEquals(1, nextSentConnection());
+        CompletableFuture<BlueGigaGetRssiResponse> second = getRssi(2);
+        // Another connection is served while the first transaction is in flight
+        assertEquals(2, nextSentConnection());
+
+        respond(2, -60);
+        respond(1, -50);
+
+        assertEquals(-50, first.get(TIMEOUT_MS, TimeUnit.MILLISECONDS).getRssi());
+        assertEquals(-60, second.get(TIMEOUT_MS, TimeUnit.MILLISECONDS).getRssi());
+    }
+
+    @Test
+    public void oneTransactionInFlightPerConnection() throws Exception {
+        CompletableFuture<BlueGigaGetRssiResponse> first = getRssi(1);
+        assertEquals(1, nextSentConnection());
+        CompletableFuture<BlueGigaGetRssiResponse> second = getRssi(1);
+        assertNull(sentFrames.poll(50, TimeUnit.MILLISECONDS));
+
+        respond(1, -50);
+        assertEquals(-50, first.get(TIMEOUT_MS, TimeUnit.MILLISECONDS).getRssi());
+        assertEquals(1, nextSentConnection());
+
+        respond(1, -55);
+        assertEquals(-55, second.get(TIMEOUT_MS, TimeUnit.MILLISECONDS).getRssi());
+    }
+
+    @Test
+    public void timeoutReleasesConnection() throws Exception {
+        CompletableFuture<BlueGigaGetRssiResponse> first = getRssi(1);
+        assertEquals(1, nextSentConnection());
+        CompletableFuture<BlueGigaGetRssiResponse> second = getRssi(1);
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> first.get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertTrue(e.getCause() instanceof BlueGigaException);
+
+        // The next command of the connection is sent after the timeout
+        assertEquals(1, nextSentConnection());
+        respond(1, -55);
+        assertEquals(-55, second.get(TIMEOUT_MS, TimeUnit.MILLISECONDS).getRssi());
+        assertTrue(manager.getStatistics().toString().contains("1 timeouts"));
+    }
+}
@@ -18,7 +18,9 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -35,20 +37,56 @@ import org.openhab.binding.bluetooth.notification.BluetoothScanNotification;
 /**
  * The {@link RoamingBluetoothDevice} acts as a roaming device by delegating
  * its operations to actual adapters.
+ * <p>
+ * The delegate is the device of the adapter with the strongest signal. The RSSI reported by each adapter is
+ * smoothed, and another adapter only takes over if its smoothed RSSI has exceeded the one of the current adapter by a
+ * hysteresis for some time, or if the current adapter has not received the device for a while. As every advertisement
+ * only needs to be compared with the current delegate, selecting the delegate takes constant time.
  *
  * @author Connor Petty - Initial contribution
+ * @author agent - Smoothed RSSI with hysteresis
  */
 @NonNullByDefault
 public class RoamingBluetoothDevice extends DelegateBluetoothDevice {
 
+    /**
+     * Weight of a new RSSI value in the smoothed RSSI of an adapter
+     */
+    private static final double RSSI_SMOOTHING = 0.25;
+
+    /**
+     * Difference of the smoothed RSSI, in dBm, required for another adapter to take over
+     */
+    private static final double RSSI_HYSTERESIS = 5;
+
+    /**
+     * Time after which an adapter that has not received the device is replaced by any adapter that does
+     */
+    private static final long STALE_ADAPTER_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    /**
+     * Time during which another adapter must stay stronger by the hysteresis before it takes over
+     */
+    static final long SWITCH_DELAY_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final RoamingBridgeHandler roamingAdapter;
+
     private final Map<BluetoothDevice, Listener> devices = new ConcurrentHashMap<>();
 
     private final List<BluetoothDeviceListener> eventListeners = new CopyOnWriteArrayList<>();
 
     private final AtomicReference<@Nullable BluetoothDevice> currentDelegateRef = new AtomicReference<>();
 
+    private final LongSupplier nanoTime;
+
     protected RoamingBluetoothDevice(RoamingBridgeHandler roamingAdapter, BluetoothAddress address) {
+        this(roamingAdapter, address, System::nanoTime);
+    }
+
+    RoamingBluetoothDevice(RoamingBridgeHandler roamingAdapter, BluetoothAddress address, LongSupplier nanoTime) {
         super(roamingAdapter, address);
+        this.roamingAdapter = roamingAdapter;
+        this.nanoTime = nanoTime;
     }
 
     public void addBluetoothDevice(BluetoothDevice device) {
@@ -60,6 +98,9 @@ public class RoamingBluetoothDevice extends DelegateBluetoothDevice {
         if (listener != null) {
             device.removeListener(listener);
         }
+        if (currentDelegateRef.get() == device) {
+            selectDelegate();
+        }
     }
 
     @Override
@@ -69,27 +110,57 @@ public class RoamingBluetoothDevice extends DelegateBluetoothDevice {
 
     @Override
     protected @Nullable BluetoothDevice getDelegate() {
-        BluetoothDevice newDelegate = null;
-        int newRssi = Integer.MIN_VALUE;
-        for (BluetoothDevice device : devices.keySet()) {
-            ConnectionState state = device.getConnectionState();
-            if (state == ConnectionState.CONNECTING || state == ConnectionState.CONNECTED) {
-                newDelegate = device;
-                break;
+        BluetoothDevice delegate = currentDelegateRef.get();
+        if (delegate != null) {
+            return delegate;
+        }
+        return selectDelegate();
+    }
+
+    /**
+     * Select the delegate from all devices: a connected device, otherwise the current delegate unless the device with
+     * the strongest smoothed RSSI should replace it.
+     */
+    private @Nullable BluetoothDevice selectDelegate() {
+        long now = nanoTime.getAsLong();
+        BluetoothDevice oldDelegate = currentDelegateRef.get();
+        BluetoothDevice newDelegate = oldDelegate != null && devices.containsKey(oldDelegate) ? oldDelegate : null;
+        Listener candidate = null;
+        for (Listener listener : devices.values()) {
+            BluetoothDevice device = listener.device;
+            if (isConnected(device)) {
+                setDelegate(oldDelegate, device);
+                return device;
             }
-            Integer rssi = device.getRssi();
-            if (rssi != null && (newDelegate == null || rssi > newRssi)) {
-                newRssi = rssi;
-                newDelegate = device;
+            if (device != newDelegate && listener.hasRssi()
+                    && (candidate == null || listener.isStrongerThan(candidate, now))) {
+                candidate = listener;
             }
         }
-        BluetoothDevice oldDelegate = currentDelegateRef.getAndSet(newDelegate);
-        if (oldDelegate != newDelegate) { // using reference comparison is valid in this case
-            notifyListeners(BluetoothEventType.ADAPTER_CHANGED, getAdapter(newDelegate));
+        if (candidate != null && candidate.shouldReplace(newDelegate, now)) {
+            newDelegate = candidate.device;
         }
+        setDelegate(oldDelegate, newDelegate);
         return newDelegate;
     }
 
+    private void setDelegate(@Nullable BluetoothDevice oldDelegate, @Nullable BluetoothDevice newDelegate) {
+        // using reference comparison is valid in this case
+        if (oldDelegate != newDelegate && currentDelegateRef.compareAndSet(oldDelegate, newDelegate)) {
+            // the other adapters have to prove themselves against the new delegate
+            devices.values().forEach(listener -> listener.stronger = false);
+            if (oldDelegate != null && newDelegate != null) {
+                roamingAdapter.adapterSwitched();
+            }
+            notifyListeners(BluetoothEventType.ADAPTER_CHANGED, getAdapter(newDelegate));
+        }
+    }
+
+    private static boolean isConnected(BluetoothDevice device) {
+        ConnectionState state = device.getConnectionState();
+        return state == ConnectionState.CONNECTING || state == ConnectionState.CONNECTED;
+    }
+
     private BluetoothAdapter getAdapter(@Nullable BluetoothDevice delegate) {
         if (delegate != null) {
             return delegate.getAdapter();
@@ -107,19 +178,100 @@ public class RoamingBluetoothDevice extends DelegateBluetoothDevice {
 
         private BluetoothDevice device;
 
+        private volatile double smoothedRssi = Double.NaN;
+        private volatile long lastRssiTime;
+        // since when this adapter has been stronger than the current delegate by the hysteresis
+        private volatile boolean stronger = false;
+        private volatile long strongerSince;
+
         public Listener(BluetoothDevice device) {
             this.device = device;
+            // start with the RSSI the adapter already knows, so the device can be selected before it advertises again
+            Integer rssi = device.getRssi();
+            if (rssi != null) {
+                updateRssi(rssi, nanoTime.getAsLong());
+            }
+        }
+
+        private boolean hasRssi() {
+            return !Double.isNaN(smoothedRssi);
+        }
+
+        private boolean isStale(long now) {
+            return now - lastRssiTime > STALE_ADAPTER_NANOS;
+        }
+
+        private void updateRssi(int rssi, long now) {
+            double smoothed = smoothedRssi;
+            smoothedRssi = Double.isNaN(smoothed) ? rssi : smoothed + RSSI_SMOOTHING * (rssi - smoothed);
+            lastRssiTime = now;
+        }
+
+        /**
+         * Whether this adapter is a better candidate than another one: it has received the device recently, or has
+         * the stronger smoothed RSSI
+         */
+        private boolean isStrongerThan(Listener other, long now) {
+            boolean stale = isStale(now);
+            boolean otherStale = other.isStale(now);
+            if (stale != otherStale) {
+                return otherStale;
+            }
+            return smoothedRssi > other.smoothedRssi;
+        }
+
+        /**
+         * Whether this adapter should replace the adapter of the current delegate. An adapter that has not received
+         * the device for a while is replaced at once, otherwise this adapter must have been stronger by the
+         * hysteresis for {@link #SWITCH_DELAY_NANOS}.
+         */
+        private boolean shouldReplace(@Nullable BluetoothDevice delegate, long now) {
+            if (delegate == null) {
+                return true;
+            }
+            if (isConnected(delegate)) {
+                return false;
+            }
+            Listener current = devices.get(delegate);
+            if (current == null || !current.hasRssi()) {
+                return true;
+            }
+            if (current.isStale(now)) {
+                return !isStale(now);
+            }
+            if (smoothedRssi <= current.smoothedRssi + RSSI_HYSTERESIS) {
+                stronger = false;
+                return false;
+            }
+            if (!stronger) {
+                stronger = true;
+                strongerSince = now;
+            }
+            return now - strongerSince >= SWITCH_DELAY_NANOS;
         }
 
         @Override
         public void onScanRecordReceived(BluetoothScanNotification scanNotification) {
-            if (device == getDelegate()) {
+            long now = nanoTime.getAsLong();
+            Integer rssi = scanNotification.getRssi() != Integer.MIN_VALUE ? scanNotification.getRssi()
+                    : device.getRssi();
+            if (rssi != null) {
+                updateRssi(rssi, now);
+            }
+
+            BluetoothDevice delegate = currentDelegateRef.get();
+            if (delegate != device && hasRssi() && shouldReplace(delegate, now)) {
+                setDelegate(delegate, device);
+            }
+            if (device == currentDelegateRef.get()) {
                 notifyListeners(BluetoothEventType.SCAN_RECORD, scanNotification);
             }
         }
 
         @Override
         public void onConnectionStateChange(BluetoothConnectionStatusNotification connectionNotification) {
+            // a connected device always becomes the delegate, and a disconnected delegate may be replaced
+            selectDelegate();
             if (device == getDelegate()) {
                 notifyListeners(BluetoothEventType.CONNECTION_STATE, connectionNotification);
             }
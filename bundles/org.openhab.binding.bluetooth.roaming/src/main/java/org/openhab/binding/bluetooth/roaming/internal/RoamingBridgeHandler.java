@@ -17,6 +17,9 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -39,6 +42,7 @@ import org.openhab.core.types.Command;
  * sent to one of the channels.
  *
  * @author Connor Petty - Initial contribution
+ * @author agent - Adapter switch count
  */
 @NonNullByDefault
 public class RoamingBridgeHandler extends BaseBridgeHandler implements RoamingBluetoothAdapter {
@@ -52,6 +56,14 @@ public class RoamingBridgeHandler extends BaseBridgeHandler implements RoamingBl
     private Map<BluetoothAddress, RoamingBluetoothDevice> devices = new HashMap<>();
     private ThingUID[] groupUIDs = new ThingUID[0];
 
+    /**
+     * Delay of updating the adapter switch count after a switch, to persist the thing at most once per period
+     */
+    private static final long ADAPTER_SWITCHES_UPDATE_DELAY_SECONDS = 60;
+
+    private final AtomicLong adapterSwitches = new AtomicLong();
+    private @Nullable ScheduledFuture<?> adapterSwitchesJob;
+
     public RoamingBridgeHandler(Bridge bridge) {
         super(bridge);
     }
@@ -85,8 +97,14 @@ public class RoamingBridgeHandler extends BaseBridgeHandler implements RoamingBl
 
     @Override
     public void dispose() {
-        // nothing that needs to be done here.
         // Listener cleanup will be performed by the discovery participant anyway.
+        synchronized (adapterSwitches) {
+            ScheduledFuture<?> job = adapterSwitchesJob;
+            if (job != null) {
+                job.cancel(false);
+                adapterSwitchesJob = null;
+            }
+        }
     }
 
     @Override
@@ -187,6 +205,26 @@ public class RoamingBridgeHandler extends BaseBridgeHandler implements RoamingBl
     public void handleCommand(ChannelUID channelUID, Command command) {
     }
 
+    /**
+     * Called when a device switches from one adapter to another
+     */
+    void adapterSwitched() {
+        adapterSwitches.incrementAndGet();
+        synchronized (adapterSwitches) {
+            if (adapterSwitchesJob == null) {
+                adapterSwitchesJob = scheduler.schedule(this::updateAdapterSwitches,
+                        ADAPTER_SWITCHES_UPDATE_DELAY_SECONDS, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    private void updateAdapterSwitches() {
+        synchronized (adapterSwitches) {
+            adapterSwitchesJob = null;
+        }
+        updateProperty(RoamingBindingConstants.PROPERTY_ADAPTER_SWITCHES, Long.toString(adapterSwitches.get()));
+    }
+
     @Override
     public void addDiscoveryListener(BluetoothDiscoveryListener listener) {
         // we don't use this
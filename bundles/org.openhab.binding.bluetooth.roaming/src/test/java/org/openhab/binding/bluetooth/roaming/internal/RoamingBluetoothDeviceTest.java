@@ -0,0 +1,231 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.bluetooth.roaming.internal;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.binding.bluetooth.BaseBluetoothDevice;
+import org.openhab.binding.bluetooth.BluetoothAdapter;
+import org.openhab.binding.bluetooth.BluetoothAddress;
+import org.openhab.binding.bluetooth.BluetoothCharacteristic;
+import org.openhab.binding.bluetooth.BluetoothDevice.ConnectionState;
+import org.openhab.binding.bluetooth.BluetoothDescriptor;
+import org.openhab.binding.bluetooth.notification.BluetoothConnectionStatusNotification;
+import org.openhab.binding.bluetooth.notification.BluetoothScanNotification;
+
+/**
+ * Tests the adapter selection of the {@link RoamingBluetoothDevice}.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class RoamingBluetoothDeviceTest {
+
+    private static final BluetoothAddress ADDRESS = new BluetoothAddress("00:11:22:33:44:55");
+
+    private final AtomicLong now = new AtomicLong();
+    private final RoamingBridgeHandler roamingAdapter = mock(RoamingBridgeHandler.class);
+    private final BluetoothAdapter adapterA = mock(BluetoothAdapter.class);
+    private final BluetoothAdapter adapterB = mock(BluetoothAdapter.class);
+
+    private @NonNullByDefault({}) RoamingBluetoothDevice roamingDevice;
+    private @NonNullByDefault({}) TestDevice deviceA;
+    private @NonNullByDefault({}) TestDevice deviceB;
+
+    @BeforeEach
+    public void setUp() {
+        roamingDevice = new RoamingBluetoothDevice(roamingAdapter, ADDRESS, now::get);
+        deviceA = new TestDevice(adapterA);
+        deviceB = new TestDevice(adapterB);
+        roamingDevice.addBluetoothDevice(deviceA);
+        roamingDevice.addBluetoothDevice(deviceB);
+    }
+
+    private void advance(long seconds) {
+        now.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    @Test
+    public void firstAdapterReceivingTheDeviceIsSelected() {
+        deviceA.advertise(-70);
+
+        assertSame(adapterA, roamingDevice.getAdapter());
+    }
+
+    @Test
+    public void similarSignalDoesNotSwitch() {
+        deviceA.advertise(-70);
+        for (int i = 0; i < 10; i++) {
+            deviceB.advertise(-67);
+            advance(1);
+        }
+
+        assertSame(adapterA, roamingDevice.getAdapter());
+        verify(roamingAdapter, never()).adapterSwitched();
+    }
+
+    @Test
+    public void strongerAdapterTakesOverAfterTheDelay() {
+        deviceA.advertise(-80);
+        deviceB.advertise(-60);
+        advance(4);
+        deviceB.advertise(-60);
+        assertSame(adapterA, roamingDevice.getAdapter());
+
+        advance(1);
+        deviceB.advertise(-60);
+        assertSame(adapterB, roamingDevice.getAdapter());
+        verify(roamingAdapter).adapterSwitched();
+    }
+
+    @Test
+    public void delayRestartsWhenTheAdapterIsNotStrongerAnymore() {
+        deviceA.advertise(-80);
+        deviceB.advertise(-60);
+        // smoothed RSSI of B drops to -77.5, within the hysteresis
+        deviceB.advertise(-100);
+        deviceB.advertise(-100);
+        advance(5);
+        // smoothed RSSI of B rises to -73.1, stronger again
+        deviceB.advertise(-60);
+        assertSame(adapterA, roamingDevice.getAdapter());
+
+        advance(5);
+        deviceB.advertise(-60);
+        assertSame(adapterB, roamingDevice.getAdapter());
+    }
+
+    @Test
+    public void stateChangeDoesNotSwitchToSimilarSignal() {
+        deviceA.advertise(-70);
+        deviceB.advertise(-68);
+
+        deviceB.changeConnectionState(ConnectionState.DISCONNECTED);
+        deviceA.changeConnectionState(ConnectionState.DISCONNECTED);
+
+        assertSame(adapterA, roamingDevice.getAdapter());
+        verify(roamingAdapter, never()).adapterSwitched();
+    }
+
+    @Test
+    public void staleAdapterIsReplacedAtOnce() {
+        deviceA.advertise(-60);
+        advance(31);
+        deviceB.advertise(-80);
+
+        assertSame(adapterB, roamingDevice.getAdapter());
+    }
+
+    @Test
+    public void connectedDeviceIsSelected() {
+        deviceA.advertise(-60);
+        deviceB.advertise(-80);
+
+        deviceB.changeConnectionState(ConnectionState.CONNECTED);
+        assertSame(adapterB, roamingDevice.getAdapter());
+
+        // a connected delegate is kept
+        advance(10);
+        deviceA.advertise(-40);
+        assertSame(adapterB, roamingDevice.getAdapter());
+    }
+
+    @Test
+    public void removedDelegateIsReplaced() {
+        deviceA.advertise(-60);
+        deviceB.advertise(-80);
+
+        roamingDevice.removeBluetoothDevice(deviceA);
+
+        assertSame(adapterB, roamingDevice.getAdapter());
+    }
+
+    private static class TestDevice extends BaseBluetoothDevice {
+
+        private TestDevice(BluetoothAdapter adapter) {
+            super(adapter, ADDRESS);
+        }
+
+        private void advertise(int rssi) {
+            setRssi(rssi);
+            BluetoothScanNotification notification = new BluetoothScanNotification();
+            notification.setRssi(rssi);
+            notifyListeners(BluetoothEventType.SCAN_RECORD, notification);
+        }
+
+        private void changeConnectionState(ConnectionState state) {
+            connectionState = state;
+            notifyListeners(BluetoothEventType.CONNECTION_STATE, new BluetoothConnectionStatusNotification(state));
+        }
+
+        @Override
+        public boolean connect() {
+            return false;
+        }
+
+        @Override
+        public boolean disconnect() {
+            return false;
+        }
+
+        @Override
+        public boolean discoverServices() {
+            return false;
+        }
+
+        @Override
+        public CompletableFuture<byte[]> readCharacteristic(BluetoothCharacteristic characteristic) {
+            return CompletableFuture.failedFuture(new UnsupportedOperationException());
+        }
+
+        @Override
+        public CompletableFuture<@Nullable Void> writeCharacteristic(BluetoothCharacteristic characteristic,
+                byte[] value) {
+            return CompletableFuture.failedFuture(new UnsupportedOperationException());
+        }
+
+        @Override
+        public boolean isNotifying(BluetoothCharacteristic characteristic) {
+            return false;
+        }
+
+        @Override
+        public CompletableFuture<@Nullable Void> enableNotifications(BluetoothCharacteristic characteristic) {
+            return CompletableFuture.failedFuture(new UnsupportedOperationException());
+        }
+
+        @Override
+        public CompletableFuture<@Nullable Void> disableNotifications(BluetoothCharacteristic characteristic) {
+            return CompletableFuture.failedFuture(new UnsupportedOperationException());
+        }
+
+        @Override
+        public boolean enableNotifications(BluetoothDescriptor descriptor) {
+            return false;
+        }
+
+        @Override
+        public boolean disableNotifications(BluetoothDescriptor descriptor) {
+            return false;
+        }
+    }
+}
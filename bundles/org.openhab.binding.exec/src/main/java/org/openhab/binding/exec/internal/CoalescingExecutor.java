@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.exec.internal;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BooleanSupplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link CoalescingExecutor} runs a task on an executor, never more than once at a time.
+ *
+ * Requests while the task is running are combined into a single run after it has finished, so a task never occupies
+ * more than one thread of the executor.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class CoalescingExecutor {
+    private final Logger logger = LoggerFactory.getLogger(CoalescingExecutor.class);
+
+    private final Executor executor;
+    private final Runnable task;
+    private final BooleanSupplier runAgain;
+
+    private boolean running = false;
+    private boolean requested = false;
+
+    /**
+     * @param executor the executor running the task
+     * @param task the task
+     * @param runAgain tells whether a request while the task was running may still be executed
+     */
+    public CoalescingExecutor(Executor executor, Runnable task, BooleanSupplier runAgain) {
+        this.executor = executor;
+        this.task = task;
+        this.runAgain = runAgain;
+    }
+
+    /**
+     * Run the task. If it is already running, it runs once more after it has finished.
+     *
+     * @return true if the task has been submitted, false if the request has been combined with a running task
+     * @throws RejectedExecutionException if the executor does not accept the task
+     */
+    public synchronized boolean request() {
+        if (running) {
+            requested = true;
+            return false;
+        }
+        executor.execute(this::run);
+        running = true;
+        return true;
+    }
+
+    private void run() {
+        do {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.warn("An exception occurred while executing the command", e);
+            }
+        } while (next());
+    }
+
+    private synchronized boolean next() {
+        boolean again = requested && runAgain.getAsBoolean();
+        requested = false;
+        running = again;
+        return again;
+    }
+}
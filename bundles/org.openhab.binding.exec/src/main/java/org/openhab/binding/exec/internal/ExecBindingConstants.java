@@ -34,4 +34,7 @@ public class ExecBindingConstants {
     public static final String EXIT = "exit";
     public static final String RUN = "run";
     public static final String LAST_EXECUTION = "lastexecution";
+
+    // List of all properties
+    public static final String PROPERTY_EXECUTION_TIMES = "executionTimes";
 }
@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.exec.internal;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.Arrays;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link ExecWorker} keeps a command running and sends requests to it.
+ *
+ * Each request is written as a single line to the standard input of the process. The process replies with any number
+ * of lines on its standard output, terminated by a line that equals the delimiter. The standard error of the process
+ * is read separately and logged, so that it cannot end a reply. The process is started with the first request and
+ * restarted if it terminates or does not reply in time.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ExecWorker {
+    private final Logger logger = LoggerFactory.getLogger(ExecWorker.class);
+
+    private final String[] cmdArray;
+    private final String delimiter;
+
+    private @Nullable Process process;
+    private @Nullable BufferedWriter writer;
+    private @Nullable BufferedReader reader;
+
+    public ExecWorker(String[] cmdArray, String delimiter) {
+        this.cmdArray = cmdArray;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Send a request to the process and wait for the reply
+     *
+     * @param request the request, must not contain line breaks
+     * @param timeoutInMS the time to wait for the reply, the process is terminated afterwards
+     * @param scheduler the scheduler for the timeout
+     * @return the reply without the delimiter line
+     * @throws IOException if the process could not be started, terminated or did not reply in time
+     */
+    public synchronized String request(String request, int timeoutInMS, ScheduledExecutorService scheduler)
+            throws IOException {
+        Process process = start();
+        BufferedWriter writer = this.writer;
+        BufferedReader reader = this.reader;
+        if (writer == null || reader == null) {
+            throw new IOException("Worker process has no streams");
+        }
+
+        // Closing the streams of the process unblocks the reader
+        ScheduledFuture<?> timeoutJob = scheduler.schedule(process::destroyForcibly, timeoutInMS,
+                TimeUnit.MILLISECONDS);
+        try {
+            writer.write(request);
+            writer.newLine();
+            writer.flush();
+
+            StringBuilder reply = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.equals(delimiter)) {
+                    return reply.toString();
+                }
+                reply.append(line).append("\n");
+                logger.debug("Exec [{}]: '{}'", "OUTPUT", line);
+            }
+            throw new IOException("Worker process terminated without reply");
+        } catch (IOException e) {
+            stop();
+            if (timeoutJob.isDone()) {
+                throw new IOException("Worker process did not reply within " + timeoutInMS + " ms");
+            }
+            throw e;
+        } finally {
+            timeoutJob.cancel(false);
+        }
+    }
+
+    /**
+     * Terminate the process. It is started again with the next request.
+     */
+    public synchronized void stop() {
+        Process process = this.process;
+        if (process != null) {
+            logger.debug("Stopping worker process '{}'", Arrays.asList(cmdArray));
+            process.destroy();
+        }
+        this.process = null;
+        this.writer = null;
+        this.reader = null;
+    }
+
+    private Process start() throws IOException {
+        Process process = this.process;
+        if (process != null && process.isAlive()) {
+            return process;
+        }
+        if (process != null) {
+            logger.debug("Worker process '{}' terminated with exit value {}, restarting", Arrays.asList(cmdArray),
+                    process.exitValue());
+        }
+        Process started = new ProcessBuilder(cmdArray).start();
+        this.process = started;
+        this.writer = new BufferedWriter(new OutputStreamWriter(started.getOutputStream()));
+        this.reader = new BufferedReader(new InputStreamReader(started.getInputStream()));
+        // The error stream must be drained, or the process blocks once the pipe is full
+        Thread errorReader = new Thread(() -> logErrors(started), "OH-binding-exec-stderr");
+        errorReader.setDaemon(true);
+        errorReader.start();
+        return started;
+    }
+
+    private void logErrors(Process process) {
+        try (BufferedReader errors = new BufferedReader(new InputStreamReader(process.getErrorStream()))) {
+            String line;
+            while ((line = errors.readLine()) != null) {
+                logger.debug("Exec [{}]: '{}'", "ERROR", line);
+            }
+        } catch (IOException e) {
+            logger.trace("Stopped reading the standard error of '{}': {}", Arrays.asList(cmdArray), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.exec.internal;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * The {@link ExecutionTimeHistogram} counts the executions of a command by their duration.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ExecutionTimeHistogram {
+    private static final long[] BUCKET_LIMITS_IN_MS = { 10, 50, 100, 500, 1000, 5000, 10000, 60000 };
+
+    private final long[] counts = new long[BUCKET_LIMITS_IN_MS.length + 1];
+    private long count = 0;
+    private long totalInMS = 0;
+    private long maxInMS = 0;
+
+    /**
+     * Count an execution
+     *
+     * @param durationInMS the duration of the execution in milliseconds
+     */
+    public synchronized void record(long durationInMS) {
+        int bucket = 0;
+        while (bucket < BUCKET_LIMITS_IN_MS.length && durationInMS >= BUCKET_LIMITS_IN_MS[bucket]) {
+            bucket++;
+        }
+        counts[bucket]++;
+        count++;
+        totalInMS += durationInMS;
+        maxInMS = Math.max(maxInMS, durationInMS);
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the non-empty buckets and a summary, e.g. "&lt;10 ms: 3, &lt;50 ms: 1; average 9 ms, max 42 ms"
+     */
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            if (counts[bucket] == 0) {
+                continue;
+            }
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            if (bucket < BUCKET_LIMITS_IN_MS.length) {
+                builder.append('<').append(BUCKET_LIMITS_IN_MS[bucket]);
+            } else {
+                builder.append(">=").append(BUCKET_LIMITS_IN_MS[BUCKET_LIMITS_IN_MS.length - 1]);
+            }
+            builder.append(" ms: ").append(counts[bucket]);
+        }
+        if (count > 0) {
+            builder.append("; average ").append(totalInMS / count).append(" ms, max ").append(maxInMS).append(" ms");
+        }
+        return builder.toString();
+    }
+}
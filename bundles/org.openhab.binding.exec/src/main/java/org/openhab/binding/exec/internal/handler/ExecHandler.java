@@ -23,6 +23,7 @@ import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.IllegalFormatException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
@@ -32,7 +33,11 @@ import java.util.regex.PatternSyntaxException;
 import org.apache.commons.lang3.StringUtils;
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.exec.internal.CoalescingExecutor;
 import org.openhab.binding.exec.internal.ExecWhitelistWatchService;
+import org.openhab.binding.exec.internal.ExecWorker;
+import org.openhab.binding.exec.internal.ExecutionTimeHistogram;
+import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.library.types.DateTimeType;
 import org.openhab.core.library.types.DecimalType;
 import org.openhab.core.library.types.OnOffType;
@@ -58,6 +63,7 @@ import org.slf4j.LoggerFactory;
  * @author Karel Goderis - Initial contribution
  * @author Constantin Piber - Added better argument support (delimiter and pass to shell)
  * @author Jan N. Klug - Add command whitelist check
+ * @author agent - Dedicated thread pool and persistent worker mode
  */
 @NonNullByDefault
 public class ExecHandler extends BaseThingHandler {
@@ -83,12 +89,32 @@ public class ExecHandler extends BaseThingHandler {
     public static final String COMMAND = "command";
     public static final String TRANSFORM = "transform";
     public static final String AUTORUN = "autorun";
+    public static final String PERSISTENT = "persistent";
+    public static final String DELIMITER = "delimiter";
+
+    /**
+     * Name of the thread pool shared by all commands, its size can be configured like any other openHAB thread pool
+     */
+    public static final String THREAD_POOL_NAME = "binding.exec";
+    private static final String DEFAULT_DELIMITER = "---";
+    private static final long PROPERTY_UPDATE_INTERVAL_IN_MS = 60000;
 
     // RegEx to extract a parse a function String <code>'(.*?)\((.*)\)'</code>
     private static final Pattern EXTRACT_FUNCTION_PATTERN = Pattern.compile("(.*?)\\((.*)\\)");
 
     private @Nullable ScheduledFuture<?> executionJob;
     private @Nullable String lastInput;
+    private volatile @Nullable ExecWorker worker;
+    private final Object workerLock = new Object();
+    private boolean disposed = false;
+
+    // Commands are executed on a pool that is not shared with other bindings. A thing never occupies more than one
+    // thread: requests while the command is running are combined into a single execution afterwards.
+    private final CoalescingExecutor executions = new CoalescingExecutor(ThreadPoolManager.getPool(THREAD_POOL_NAME),
+            this::execute, () -> getThing().getStatus() == ThingStatus.ONLINE);
+
+    private final ExecutionTimeHistogram executionTimes = new ExecutionTimeHistogram();
+    private long lastPropertyUpdate = 0;
 
     private static Runtime rt = Runtime.getRuntime();
 
@@ -106,7 +132,7 @@ public class ExecHandler extends BaseThingHandler {
             if (channelUID.getId().equals(RUN)) {
                 if (command instanceof OnOffType) {
                     if (command == OnOffType.ON) {
-                        scheduler.schedule(this::execute, 0, TimeUnit.SECONDS);
+                        requestExecution();
                     }
                 }
             } else if (channelUID.getId().equals(INPUT)) {
@@ -117,7 +143,7 @@ public class ExecHandler extends BaseThingHandler {
                         if (getConfig().get(AUTORUN) != null && ((Boolean) getConfig().get(AUTORUN))) {
                             logger.trace("Executing command '{}' after a change of the input channel to '{}'",
                                     getConfig().get(COMMAND), lastInput);
-                            scheduler.schedule(this::execute, 0, TimeUnit.SECONDS);
+                            requestExecution();
                         }
                     }
                 }
@@ -127,10 +153,14 @@ public class ExecHandler extends BaseThingHandler {
 
     @Override
     public void initialize() {
+        synchronized (workerLock) {
+            disposed = false;
+        }
         if (executionJob == null || executionJob.isCancelled()) {
             if ((getConfig().get(INTERVAL)) != null && ((BigDecimal) getConfig().get(INTERVAL)).intValue() > 0) {
                 int pollingInterval = ((BigDecimal) getConfig().get(INTERVAL)).intValue();
-                executionJob = scheduler.scheduleWithFixedDelay(this::execute, 0, pollingInterval, TimeUnit.SECONDS);
+                executionJob = scheduler.scheduleWithFixedDelay(this::requestExecution, 0, pollingInterval,
+                        TimeUnit.SECONDS);
             }
         }
 
@@ -143,6 +173,30 @@ public class ExecHandler extends BaseThingHandler {
             executionJob.cancel(true);
             executionJob = null;
         }
+        ExecWorker worker;
+        synchronized (workerLock) {
+            // an execution still running must not start a new worker
+            disposed = true;
+            worker = this.worker;
+            this.worker = null;
+        }
+        if (worker != null) {
+            worker.stop();
+        }
+    }
+
+    /**
+     * Execute the command on the thread pool of the binding. If the command is already running, it is executed once
+     * more after it has finished.
+     */
+    public void requestExecution() {
+        try {
+            if (!executions.request()) {
+                logger.trace("Command '{}' is still running, executing it again afterwards", getConfig().get(COMMAND));
+            }
+        } catch (RejectedExecutionException e) {
+            logger.warn("Could not execute command '{}': {}", getConfig().get(COMMAND), e.getMessage());
+        }
     }
 
     public void execute() {
@@ -169,12 +223,16 @@ public class ExecHandler extends BaseThingHandler {
             // problem for external commands that generate a lot of output, but this will be dependent on the limits
             // of the underlying operating system.
 
+            boolean persistent = Boolean.TRUE.equals(getConfig().get(PERSISTENT));
             Date date = Calendar.getInstance().getTime();
             try {
-                if (lastInput != null) {
-                    commandLine = String.format(commandLine, date, lastInput);
-                } else {
-                    commandLine = String.format(commandLine, date);
+                // A persistent worker is started once, the input is sent with each request
+                if (!persistent) {
+                    if (lastInput != null) {
+                        commandLine = String.format(commandLine, date, lastInput);
+                    } else {
+                        commandLine = String.format(commandLine, date);
+                    }
                 }
             } catch (IllegalFormatException e) {
                 logger.warn(
@@ -231,6 +289,12 @@ public class ExecHandler extends BaseThingHandler {
 
             logger.trace("The command to be executed will be '{}'", Arrays.asList(cmdArray));
 
+            if (persistent) {
+                executeWorker(cmdArray, timeOut);
+                return;
+            }
+
+            long startTime = System.nanoTime();
             Process proc;
             try {
                 proc = rt.exec(cmdArray);
@@ -282,6 +346,7 @@ public class ExecHandler extends BaseThingHandler {
                 proc.destroyForcibly();
             }
 
+            recordExecutionTime(startTime);
             updateState(RUN, OnOffType.OFF);
             updateState(EXIT, new DecimalType(proc.exitValue()));
 
@@ -289,17 +354,68 @@ public class ExecHandler extends BaseThingHandler {
 
             outputBuilder.append(errorBuilder.toString());
 
-            String transformedResponse = StringUtils.chomp(outputBuilder.toString());
-            String transformation = (String) getConfig().get(TRANSFORM);
+            updateOutput(outputBuilder.toString());
+        }
+    }
 
-            if (transformation != null && transformation.length() > 0) {
-                transformedResponse = transformResponse(transformedResponse, transformation);
+    private void executeWorker(String[] cmdArray, int timeOut) {
+        ExecWorker worker;
+        synchronized (workerLock) {
+            if (disposed) {
+                return;
+            }
+            worker = this.worker;
+            if (worker == null) {
+                String delimiter = (String) getConfig().get(DELIMITER);
+                worker = new ExecWorker(cmdArray,
+                        delimiter != null && !delimiter.isEmpty() ? delimiter : DEFAULT_DELIMITER);
+                this.worker = worker;
             }
+        }
+
+        String input = lastInput;
+        String request = input != null ? input.replace('\n', ' ').replace('\r', ' ') : "";
+        long startTime = System.nanoTime();
+        String reply;
+        try {
+            reply = worker.request(request, timeOut, scheduler);
+        } catch (IOException e) {
+            logger.warn("An exception occurred while sending '{}' to '{}' : '{}'", request, Arrays.asList(cmdArray),
+                    e.getMessage());
+            updateState(RUN, OnOffType.OFF);
+            updateState(OUTPUT, new StringType(e.getMessage()));
+            return;
+        }
+        recordExecutionTime(startTime);
+        updateState(RUN, OnOffType.OFF);
+        updateState(EXIT, new DecimalType(0));
+        updateOutput(reply);
+    }
+
+    private void updateOutput(String output) {
+        String transformedResponse = StringUtils.chomp(output);
+        String transformation = (String) getConfig().get(TRANSFORM);
+
+        if (transformation != null && transformation.length() > 0) {
+            transformedResponse = transformResponse(transformedResponse, transformation);
+        }
+
+        updateState(OUTPUT, new StringType(transformedResponse));
+
+        DateTimeType stampType = new DateTimeType(ZonedDateTime.now());
+        updateState(LAST_EXECUTION, stampType);
+    }
 
-            updateState(OUTPUT, new StringType(transformedResponse));
+    private void recordExecutionTime(long startTime) {
+        long durationInMS = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        executionTimes.record(durationInMS);
+        logger.debug("Command '{}' took {} ms", getConfig().get(COMMAND), durationInMS);
 
-            DateTimeType stampType = new DateTimeType(ZonedDateTime.now());
-            updateState(LAST_EXECUTION, stampType);
+        // Updating a property persists the thing, so frequently executed commands update it only once a minute
+        long now = System.currentTimeMillis();
+        if (now - lastPropertyUpdate >= PROPERTY_UPDATE_INTERVAL_IN_MS || executionTimes.getCount() == 1) {
+            lastPropertyUpdate = now;
+            updateProperty(PROPERTY_EXECUTION_TIMES, executionTimes.toString());
         }
     }
 
@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.exec.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests cases for {@link CoalescingExecutor}
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class CoalescingExecutorTest {
+
+    private final Queue<Runnable> submitted = new ArrayDeque<>();
+    private final AtomicInteger runs = new AtomicInteger();
+    private final AtomicBoolean online = new AtomicBoolean(true);
+
+    private void runSubmitted() {
+        Runnable task;
+        while ((task = submitted.poll()) != null) {
+            task.run();
+        }
+    }
+
+    @Test
+    public void requestsWhileRunningAreCombined() {
+        CoalescingExecutor executor = new CoalescingExecutor(submitted::add, runs::incrementAndGet, online::get);
+
+        assertTrue(executor.request());
+        assertFalse(executor.request());
+        assertFalse(executor.request());
+        assertEquals(1, submitted.size());
+
+        runSubmitted();
+        // the first run and a single one for both later requests
+        assertEquals(2, runs.get());
+
+        assertTrue(executor.request());
+        runSubmitted();
+        assertEquals(3, runs.get());
+    }
+
+    @Test
+    public void combinedRequestIsDroppedWhenNotAllowed() {
+        CoalescingExecutor executor = new CoalescingExecutor(submitted::add, runs::incrementAndGet, online::get);
+
+        executor.request();
+        executor.request();
+        online.set(false);
+        runSubmitted();
+
+        assertEquals(1, runs.get());
+        // not running anymore
+        assertTrue(executor.request());
+    }
+
+    @Test
+    public void failingTaskDoesNotBlockLaterRequests() {
+        CoalescingExecutor executor = new CoalescingExecutor(submitted::add, () -> {
+            runs.incrementAndGet();
+            throw new IllegalStateException("test");
+        }, online::get);
+
+        executor.request();
+        executor.request();
+        runSubmitted();
+        assertEquals(2, runs.get());
+
+        assertTrue(executor.request());
+        runSubmitted();
+        assertEquals(3, runs.get());
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.exec.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+/**
+ * Tests cases for {@link ExecWorker}, with shell scripts as worker processes
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+@EnabledOnOs({ OS.LINUX, OS.MAC })
+public class ExecWorkerTest {
+    private static final int TIMEOUT_IN_MS = 5000;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private @Nullable ExecWorker worker;
+
+    @AfterEach
+    public void tearDown() {
+        ExecWorker worker = this.worker;
+        if (worker != null) {
+            worker.stop();
+        }
+        scheduler.shutdownNow();
+    }
+
+    private ExecWorker createWorker(String script) {
+        ExecWorker worker = new ExecWorker(new String[] { "sh", "-c", script }, "---");
+        this.worker = worker;
+        return worker;
+    }
+
+    @Test
+    public void processIsKeptRunning() throws IOException {
+        ExecWorker worker = createWorker("while read line; do echo \"$line $$\"; echo ---; done");
+
+        String first = worker.request("first", TIMEOUT_IN_MS, scheduler);
+        String second = worker.request("second", TIMEOUT_IN_MS, scheduler);
+
+        assertTrue(first.startsWith("first "), first);
+        assertTrue(second.startsWith("second "), second);
+        // same process id
+        assertEquals(first.substring("first ".length()), second.substring("second ".length()));
+    }
+
+    @Test
+    public void replyWithSeveralLines() throws IOException {
+        ExecWorker worker = createWorker("while read line; do echo one; echo two; echo ---; done");
+
+        assertEquals("one\ntwo\n", worker.request("", TIMEOUT_IN_MS, scheduler));
+    }
+
+    @Test
+    public void delimiterOnStandardErrorDoesNotEndTheReply() throws IOException {
+        ExecWorker worker = createWorker(
+                "while read line; do echo --- >&2; sleep 0.1; echo \"reply $line\"; echo ---; done");
+
+        assertEquals("reply a\n", worker.request("a", TIMEOUT_IN_MS, scheduler));
+        assertEquals("reply b\n", worker.request("b", TIMEOUT_IN_MS, scheduler));
+    }
+
+    @Test
+    public void terminatedProcessIsRestarted() throws IOException {
+        ExecWorker worker = createWorker("read line; echo \"reply $line\"; echo ---");
+
+        assertEquals("reply a\n", worker.request("a", TIMEOUT_IN_MS, scheduler));
+        // the process may not have terminated yet, then the request fails and the next one restarts it
+        String reply;
+        try {
+            reply = worker.request("b", TIMEOUT_IN_MS, scheduler);
+        } catch (IOException e) {
+            reply = worker.request("b", TIMEOUT_IN_MS, scheduler);
+        }
+        assertEquals("reply b\n", reply);
+    }
+
+    @Test
+    public void missingReplyTimesOut() throws IOException {
+        ExecWorker worker = createWorker("read line; exec sleep 10");
+
+        IOException e = assertThrows(IOException.class, () -> worker.request("a", 200, scheduler));
+        assertEquals("Worker process did not reply within 200 ms", e.getMessage());
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.exec.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests cases for {@link ExecutionTimeHistogram}
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ExecutionTimeHistogramTest {
+
+    @Test
+    public void emptyHistogram() {
+        ExecutionTimeHistogram histogram = new ExecutionTimeHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals("", histogram.toString());
+    }
+
+    @Test
+    public void executionsAreCountedByDuration() {
+        ExecutionTimeHistogram histogram = new ExecutionTimeHistogram();
+        histogram.record(5);
+        histogram.record(10);
+        histogram.record(49);
+        histogram.record(70000);
+
+        assertEquals(4, histogram.getCount());
+        assertEquals("<10 ms: 1, <50 ms: 2, >=60000 ms: 1; average 17516 ms, max 70000 ms", histogram.toString());
+    }
+}
@@ -12,13 +12,17 @@
  */
 package org.openhab.binding.http.internal;
 
+import static org.openhab.binding.http.internal.HttpBindingConstants.PROPERTY_REFRESH_STATISTICS;
+
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -58,10 +62,15 @@ import org.slf4j.LoggerFactory;
  * sent to one of the channels.
  *
  * @author Jan N. Klug - Initial contribution
+ * @author agent - Refresh statistics
+ * @author agent - Shared state requests
  */
 @NonNullByDefault
 public class HttpThingHandler extends BaseThingHandler {
     private static final Set<Character> URL_PART_DELIMITER = Set.of('/', '?', '&');
+    private static final int STATISTICS_INTERVAL_SECONDS = 60;
+    // the counters change with every refresh and each property update stores the thing
+    private static final long STATISTICS_PROPERTY_INTERVAL = TimeUnit.MINUTES.toMillis(10);
 
     private final Logger logger = LoggerFactory.getLogger(HttpThingHandler.class);
     private final ValueTransformationProvider valueTransformationProvider;
@@ -69,21 +78,26 @@ public class HttpThingHandler extends BaseThingHandler {
     private HttpClient httpClient;
     private RateLimitedHttpClient rateLimitedHttpClient;
     private final HttpDynamicStateDescriptionProvider httpDynamicStateDescriptionProvider;
+    private final RefreshingUrlCacheRegistry refreshingUrlCacheRegistry;
 
     private HttpThingConfig config = new HttpThingConfig();
-    private final Map<String, RefreshingUrlCache> urlHandlers = new HashMap<>();
     private final Map<ChannelUID, ItemValueConverter> channels = new HashMap<>();
-    private final Map<ChannelUID, String> channelUrls = new HashMap<>();
+    private final Map<ChannelUID, RefreshingUrlCache.Subscription> subscriptions = new HashMap<>();
+    private @Nullable ScheduledFuture<?> statisticsTask;
+    private String refreshStatistics = "";
+    private long refreshStatisticsTime = 0;
 
     public HttpThingHandler(Thing thing, HttpClientProvider httpClientProvider,
             ValueTransformationProvider valueTransformationProvider,
-            HttpDynamicStateDescriptionProvider httpDynamicStateDescriptionProvider) {
+            HttpDynamicStateDescriptionProvider httpDynamicStateDescriptionProvider,
+            RefreshingUrlCacheRegistry refreshingUrlCacheRegistry) {
         super(thing);
         this.httpClientProvider = httpClientProvider;
         this.httpClient = httpClientProvider.getSecureClient();
         this.rateLimitedHttpClient = new RateLimitedHttpClient(httpClient, scheduler);
         this.valueTransformationProvider = valueTransformationProvider;
         this.httpDynamicStateDescriptionProvider = httpDynamicStateDescriptionProvider;
+        this.refreshingUrlCacheRegistry = refreshingUrlCacheRegistry;
     }
 
     @Override
@@ -94,21 +108,22 @@ public class HttpThingHandler extends BaseThingHandler {
             return;
         }
 
+        RefreshingUrlCache.Subscription subscription = subscriptions.get(channelUID);
         if (command instanceof RefreshType) {
-            String key = channelUrls.get(channelUID);
-            if (key != null) {
-                RefreshingUrlCache refreshingUrlCache = urlHandlers.get(key);
-                if (refreshingUrlCache != null) {
-                    try {
-                        refreshingUrlCache.get().ifPresent(itemValueConverter::process);
-                    } catch (IllegalArgumentException | IllegalStateException e) {
-                        logger.warn("Failed processing REFRESH command for channel {}: {}", channelUID, e.getMessage());
-                    }
+            if (subscription != null) {
+                try {
+                    subscription.getCache().get().ifPresent(itemValueConverter::process);
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    logger.warn("Failed processing REFRESH command for channel {}: {}", channelUID, e.getMessage());
                 }
             }
         } else {
             try {
                 itemValueConverter.send(command);
+                if (subscription != null) {
+                    // the next refresh shall update the channels even if the remote state did not change
+                    subscription.getCache().invalidate();
+                }
             } catch (IllegalArgumentException e) {
                 logger.warn("Failed to convert command '{}' to channel '{}' for sending", command, channelUID);
             } catch (IllegalStateException e) {
@@ -186,19 +201,27 @@ public class HttpThingHandler extends BaseThingHandler {
         // create channels
         thing.getChannels().forEach(this::createChannel);
 
+        statisticsTask = scheduler.scheduleWithFixedDelay(this::updateRefreshStatistics, STATISTICS_INTERVAL_SECONDS,
+                STATISTICS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
         updateStatus(ThingStatus.ONLINE);
     }
 
     @Override
     public void dispose() {
-        // stop update tasks
-        urlHandlers.values().forEach(RefreshingUrlCache::stop);
+        ScheduledFuture<?> statisticsTask = this.statisticsTask;
+        if (statisticsTask != null) {
+            statisticsTask.cancel(true);
+            this.statisticsTask = null;
+        }
+
+        // stop update tasks, caches shared with other things keep running
+        subscriptions.values().forEach(refreshingUrlCacheRegistry::unsubscribe);
         rateLimitedHttpClient.shutdown();
 
         // clear lists
-        urlHandlers.clear();
+        subscriptions.clear();
         channels.clear();
-        channelUrls.clear();
 
         // remove state descriptions
         httpDynamicStateDescriptionProvider.removeDescriptionsForThing(thing.getUID());
@@ -272,11 +295,10 @@ public class HttpThingHandler extends BaseThingHandler {
 
         channels.put(channelUID, itemValueConverter);
         if (channelConfig.mode != HttpChannelMode.WRITEONLY) {
-            // we need a key consisting of stateContent and URL, only if both are equal, we can use the same cache
-            String key = channelConfig.stateContent + "$" + stateUrl;
-            channelUrls.put(channelUID, key);
-            urlHandlers.computeIfAbsent(key, k -> new RefreshingUrlCache(scheduler, rateLimitedHttpClient, stateUrl,
-                    config, channelConfig.stateContent)).addConsumer(itemValueConverter::process);
+            // all channels of all things requesting the same state with the same parameters share one cache
+            RefreshingUrlCacheKey key = new RefreshingUrlCacheKey(stateUrl, config, channelConfig.stateContent);
+            subscriptions.put(channelUID, refreshingUrlCacheRegistry.subscribe(key, rateLimitedHttpClient, config,
+                    itemValueConverter::process));
         }
 
         StateDescription stateDescription = StateDescriptionFragmentBuilder.create()
@@ -287,6 +309,23 @@ public class HttpThingHandler extends BaseThingHandler {
         }
     }
 
+    private void updateRefreshStatistics() {
+        long now = System.currentTimeMillis();
+        if (now - refreshStatisticsTime < STATISTICS_PROPERTY_INTERVAL) {
+            return;
+        }
+        String statistics = subscriptions.values().stream().map(RefreshingUrlCache.Subscription::getCache).distinct()
+                .map(cache -> String.format("%s: %d changed, %d unchanged, %d skipped while pending, %d subscribers",
+                        cache.getUrl(), cache.getChangedRefreshes(), cache.getUnchangedRefreshes(),
+                        cache.getDeduplicatedRefreshes(), cache.getSubscriptionCount()))
+                .collect(Collectors.joining("; "));
+        if (!statistics.equals(refreshStatistics)) {
+            refreshStatistics = statistics;
+            refreshStatisticsTime = now;
+            updateProperty(PROPERTY_REFRESH_STATISTICS, statistics);
+        }
+    }
+
     private void sendHttpValue(String commandUrl, String command) {
         sendHttpValue(commandUrl, command, false);
     }
@@ -14,6 +14,7 @@ package org.openhab.binding.http.internal.http;
 
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -22,16 +23,35 @@ import org.eclipse.jdt.annotation.Nullable;
  * The {@link Content} defines the pre-processed response
  *
  * @author Jan N. Klug - Initial contribution
+ * @author agent - Validators and content hash for unchanged responses
  */
 @NonNullByDefault
 public class Content {
     private final byte[] rawContent;
     private final Charset encoding;
     private final @Nullable String mediaType;
+    private final @Nullable String etag;
+    private final @Nullable String lastModified;
+    private final int hash;
 
     public Content(byte[] rawContent, String encoding, @Nullable String mediaType) {
+        this(rawContent, encoding, mediaType, null, null);
+    }
+
+    /**
+     * @param rawContent the response body
+     * @param encoding the encoding of the body
+     * @param mediaType the media type of the body
+     * @param etag the value of the ETag header of the response
+     * @param lastModified the value of the Last-Modified header of the response
+     */
+    public Content(byte[] rawContent, String encoding, @Nullable String mediaType, @Nullable String etag,
+            @Nullable String lastModified) {
         this.rawContent = rawContent;
         this.mediaType = mediaType;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.hash = Arrays.hashCode(rawContent);
 
         Charset finalEncoding = StandardCharsets.UTF_8;
         try {
@@ -52,4 +72,23 @@ public class Content {
     public @Nullable String getMediaType() {
         return mediaType;
     }
+
+    public @Nullable String getEtag() {
+        return etag;
+    }
+
+    public @Nullable String getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Check if another response has the same body. The hashes are compared first, so different bodies are
+     * usually detected without comparing them byte by byte.
+     *
+     * @param other the other response
+     * @return true if both bodies and encodings are equal
+     */
+    public boolean hasSameContent(Content other) {
+        return hash == other.hash && encoding.equals(other.encoding) && Arrays.equals(rawContent, other.rawContent);
+    }
 }
@@ -18,12 +18,15 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.jetty.client.api.Authentication;
 import org.eclipse.jetty.client.api.AuthenticationStore;
+import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpMethod;
 import org.openhab.binding.http.internal.Util;
 import org.openhab.binding.http.internal.config.HttpThingConfig;
@@ -34,38 +37,133 @@ import org.slf4j.LoggerFactory;
  * The {@link RefreshingUrlCache} is responsible for requesting from a single URL and passing the content to the
  * channels
  *
+ * Requests are conditional if the server sent an ETag or Last-Modified header with the last response. If the server
+ * answers "304 Not Modified" or the body is equal to the last one, the channels are not updated.
+ *
+ * A cache is shared by all channels of all things with the same {@link RefreshingUrlCacheKey}. The refresh interval
+ * is the shortest interval of the subscribed things, and a refresh is skipped while the previous request has not
+ * completed.
+ *
  * @author Jan N. Klug - Initial contribution
+ * @author agent - Conditional requests and skipping unchanged content
+ * @author agent - Sharing between things
  */
 @NonNullByDefault
 public class RefreshingUrlCache {
     private final Logger logger = LoggerFactory.getLogger(RefreshingUrlCache.class);
 
+    private final ScheduledExecutorService executor;
+    private final RefreshingUrlCacheKey key;
     private final String url;
-    private final RateLimitedHttpClient httpClient;
     private final int timeout;
     private final int bufferSize;
     private final @Nullable String fallbackEncoding;
-    private final Set<Consumer<Content>> consumers = ConcurrentHashMap.newKeySet();
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
     private final List<String> headers;
     private final HttpMethod httpMethod;
     private final String httpContent;
 
-    private final ScheduledFuture<?> future;
-    private @Nullable Content lastContent;
+    private @Nullable ScheduledFuture<?> future;
+    private int refreshInterval = 0;
+    private final AtomicBoolean requestPending = new AtomicBoolean();
+    private final AtomicLong deduplicatedRefreshes = new AtomicLong();
+    private volatile @Nullable Content lastContent;
+    private volatile @Nullable URI lastUri;
+    private volatile boolean dispatchNext = true;
+    private final AtomicLong changedRefreshes = new AtomicLong();
+    private final AtomicLong unchangedRefreshes = new AtomicLong();
 
-    public RefreshingUrlCache(ScheduledExecutorService executor, RateLimitedHttpClient httpClient, String url,
-            HttpThingConfig thingConfig, String httpContent) {
-        this.httpClient = httpClient;
-        this.url = url;
+    /**
+     * A subscription of a channel to the content of a cache
+     */
+    public static class Subscription {
+        private final RefreshingUrlCache cache;
+        private final RateLimitedHttpClient httpClient;
+        private final int refresh;
+        private final Consumer<Content> consumer;
+
+        private Subscription(RefreshingUrlCache cache, RateLimitedHttpClient httpClient, int refresh,
+                Consumer<Content> consumer) {
+            this.cache = cache;
+            this.httpClient = httpClient;
+            this.refresh = refresh;
+            this.consumer = consumer;
+        }
+
+        public RefreshingUrlCache getCache() {
+            return cache;
+        }
+    }
+
+    /**
+     * Create a cache. The refresh task is started with the first subscription.
+     *
+     * @param executor the executor for the refresh task
+     * @param key the key of the cache
+     * @param thingConfig the configuration of the first subscribed thing, all other things have the same key
+     */
+    public RefreshingUrlCache(ScheduledExecutorService executor, RefreshingUrlCacheKey key,
+            HttpThingConfig thingConfig) {
+        this.executor = executor;
+        this.key = key;
+        this.url = key.getUrl();
         this.timeout = thingConfig.timeout;
         this.bufferSize = thingConfig.bufferSize;
-        this.headers = thingConfig.headers;
+        this.headers = List.copyOf(thingConfig.headers);
         this.httpMethod = thingConfig.stateMethod;
-        this.httpContent = httpContent;
+        this.httpContent = key.getContent();
         fallbackEncoding = thingConfig.encoding;
+    }
 
-        future = executor.scheduleWithFixedDelay(this::refresh, 1, thingConfig.refresh, TimeUnit.SECONDS);
-        logger.trace("Started refresh task for URL '{}' with interval {}s", url, thingConfig.refresh);
+    /**
+     * Add a subscription. The last received content is passed to the new consumer immediately.
+     *
+     * @param httpClient the client of the subscribing thing
+     * @param refresh the refresh interval requested by the subscribing thing, in seconds
+     * @param consumer the consumer for the content
+     * @return the subscription
+     */
+    synchronized Subscription subscribe(RateLimitedHttpClient httpClient, int refresh, Consumer<Content> consumer) {
+        Subscription subscription = new Subscription(this, httpClient, refresh, consumer);
+        subscriptions.add(subscription);
+        Content content = lastContent;
+        if (content != null) {
+            executor.execute(() -> dispatch(content, Set.of(subscription)));
+        }
+        reschedule();
+        return subscription;
+    }
+
+    /**
+     * Remove a subscription
+     *
+     * @param subscription the subscription
+     * @return true if no subscription is left
+     */
+    synchronized boolean unsubscribe(Subscription subscription) {
+        subscriptions.remove(subscription);
+        if (subscriptions.isEmpty()) {
+            return true;
+        }
+        reschedule();
+        return false;
+    }
+
+    private void reschedule() {
+        int interval = subscriptions.stream().mapToInt(subscription -> subscription.refresh).min().orElse(0);
+        if (interval <= 0 || interval == refreshInterval) {
+            return;
+        }
+        long initialDelay = 1;
+        ScheduledFuture<?> future = this.future;
+        if (future != null) {
+            // keep the time of the next refresh if it is not later than the new interval
+            initialDelay = Math.min(Math.max(future.getDelay(TimeUnit.SECONDS), 0), interval);
+            future.cancel(false);
+        }
+        refreshInterval = interval;
+        this.future = executor.scheduleWithFixedDelay(this::refresh, initialDelay, interval, TimeUnit.SECONDS);
+        logger.trace("Scheduled refresh task for URL '{}' with interval {}s", url, interval);
     }
 
     private void refresh() {
@@ -73,8 +171,20 @@ public class RefreshingUrlCache {
     }
 
     private void refresh(boolean isRetry) {
-        if (consumers.isEmpty()) {
+        Subscription subscription = subscriptions.stream().findAny().orElse(null);
+        if (subscription == null) {
             // do not refresh if we don't have listeners
+            if (isRetry) {
+                requestPending.set(false);
+            }
+            return;
+        }
+        RateLimitedHttpClient httpClient = subscription.httpClient;
+
+        if (!requestPending.compareAndSet(false, true) && !isRetry) {
+            // the previous request is still queued by the rate limiter or waiting for the response
+            deduplicatedRefreshes.incrementAndGet();
+            logger.trace("Skipping refresh of URL '{}', the previous request is still pending", url);
             return;
         }
 
@@ -95,25 +205,32 @@ public class RefreshingUrlCache {
                     }
                 });
 
+                Content previousContent = lastContent;
+                if (previousContent != null && !dispatchNext && uri.equals(lastUri)) {
+                    String etag = previousContent.getEtag();
+                    if (etag != null) {
+                        request.header(HttpHeader.IF_NONE_MATCH, etag);
+                    }
+                    String lastModified = previousContent.getLastModified();
+                    if (lastModified != null) {
+                        request.header(HttpHeader.IF_MODIFIED_SINCE, lastModified);
+                    }
+                }
+                lastUri = uri;
+
                 CompletableFuture<@Nullable Content> response = new CompletableFuture<>();
-                response.exceptionally(e -> {
-                    if (e instanceof HttpAuthException) {
-                        if (isRetry) {
-                            logger.warn("Retry after authentication failure failed again for '{}', failing here", uri);
-                        } else {
-                            AuthenticationStore authStore = httpClient.getAuthenticationStore();
-                            Authentication.Result authResult = authStore.findAuthenticationResult(uri);
-                            if (authResult != null) {
-                                authStore.removeAuthenticationResult(authResult);
-                                logger.debug("Cleared authentication result for '{}', retrying immediately", uri);
-                                refresh(true);
-                            } else {
-                                logger.warn("Could not find authentication result for '{}', failing here", uri);
-                            }
-                        }
+                response.whenComplete((content, e) -> {
+                    if (e == null) {
+                        processResult(content);
+                    } else if (e instanceof HttpNotModifiedException) {
+                        // processResult recognizes the unchanged content
+                        processResult(previousContent);
+                    } else if (e instanceof HttpAuthException && retryAfterAuthFailure(httpClient, uri, isRetry)) {
+                        // the request stays pending until the retry has completed
+                    } else {
+                        processResult(null);
                     }
-                    return null;
-                }).thenAccept(this::processResult);
+                });
 
                 if (logger.isTraceEnabled()) {
                     logger.trace("Sending to '{}': {}", uri, Util.requestToLogString(request));
@@ -121,6 +238,7 @@ public class RefreshingUrlCache {
 
                 request.send(new HttpResponseListener(response, fallbackEncoding, bufferSize));
             }).exceptionally(e -> {
+                requestPending.set(false);
                 if (e instanceof CancellationException) {
                     logger.debug("Request to URL {} was cancelled by thing handler.", uri);
                 } else {
@@ -129,19 +247,84 @@ public class RefreshingUrlCache {
                 return null;
             });
         } catch (IllegalArgumentException | URISyntaxException | MalformedURLException e) {
+            requestPending.set(false);
             logger.warn("Creating request for '{}' failed: {}", url, e.getMessage());
         }
     }
 
-    public void stop() {
+    /**
+     * Clear the authentication result of the URI and request it once more
+     *
+     * @return true if the request is retried
+     */
+    private boolean retryAfterAuthFailure(RateLimitedHttpClient httpClient, URI uri, boolean isRetry) {
+        if (isRetry) {
+            logger.warn("Retry after authentication failure failed again for '{}', failing here", uri);
+            return false;
+        }
+        AuthenticationStore authStore = httpClient.getAuthenticationStore();
+        Authentication.Result authResult = authStore.findAuthenticationResult(uri);
+        if (authResult == null) {
+            logger.warn("Could not find authentication result for '{}', failing here", uri);
+            return false;
+        }
+        authStore.removeAuthenticationResult(authResult);
+        logger.debug("Cleared authentication result for '{}', retrying immediately", uri);
+        refresh(true);
+        return true;
+    }
+
+    public synchronized void stop() {
         // clearing all listeners to prevent further updates
-        consumers.clear();
-        future.cancel(false);
+        subscriptions.clear();
+        ScheduledFuture<?> future = this.future;
+        if (future != null) {
+            future.cancel(false);
+            this.future = null;
+        }
+        refreshInterval = 0;
         logger.trace("Stopped refresh task for URL '{}'", url);
     }
 
-    public void addConsumer(Consumer<Content> consumer) {
-        consumers.add(consumer);
+    /**
+     * Pass the content of the next refresh to the consumers, even if it is unchanged. This is needed after a
+     * command, as the state of the channels may differ from the last received content.
+     */
+    public void invalidate() {
+        dispatchNext = true;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public RefreshingUrlCacheKey getKey() {
+        return key;
+    }
+
+    /**
+     * @return the number of refreshes that were skipped because the previous request was still pending
+     */
+    public long getDeduplicatedRefreshes() {
+        return deduplicatedRefreshes.get();
+    }
+
+    public int getSubscriptionCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * @return the number of refreshes that were passed to the consumers because the content changed
+     */
+    public long getChangedRefreshes() {
+        return changedRefreshes.get();
+    }
+
+    /**
+     * @return the number of refreshes that were skipped because the content was unchanged
+     */
+    public long getUnchangedRefreshes() {
+        return unchangedRefreshes.get();
     }
 
     public Optional<Content> get() {
@@ -154,15 +337,33 @@ public class RefreshingUrlCache {
     }
 
     private void processResult(@Nullable Content content) {
+        requestPending.set(false);
+        Content previousContent = lastContent;
         if (content != null) {
-            for (Consumer<Content> consumer : consumers) {
-                try {
-                    consumer.accept(content);
-                } catch (IllegalArgumentException | IllegalStateException e) {
-                    logger.warn("Failed processing result for URL {}: {}", url, e.getMessage());
+            if (!dispatchNext && previousContent != null
+                    && (content == previousContent || content.hasSameContent(previousContent))) {
+                unchangedRefreshes.incrementAndGet();
+                logger.trace("Content of URL {} is unchanged, skipping update of channels", url);
+                if (content != previousContent) {
+                    // keep the latest validators
+                    lastContent = content;
                 }
+                return;
             }
+            dispatchNext = false;
+            changedRefreshes.incrementAndGet();
+            dispatch(content, subscriptions);
         }
         lastContent = content;
     }
+
+    private void dispatch(Content content, Set<Subscription> subscriptions) {
+        for (Subscription subscription : subscriptions) {
+            try {
+                subscription.consumer.accept(content);
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                logger.warn("Failed processing result for URL {}: {}", url, e.getMessage());
+            }
+        }
+    }
 }
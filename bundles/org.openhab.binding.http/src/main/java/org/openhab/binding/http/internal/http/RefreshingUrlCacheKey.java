@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.http.internal.http;
+
+import java.util.List;
+import java.util.Objects;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jetty.http.HttpMethod;
+import org.openhab.binding.http.internal.config.HttpAuthMode;
+import org.openhab.binding.http.internal.config.HttpThingConfig;
+
+/**
+ * The {@link RefreshingUrlCacheKey} identifies a state request. Channels of all things with equal keys share one
+ * {@link RefreshingUrlCache}.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class RefreshingUrlCacheKey {
+    private final String url;
+    private final HttpMethod method;
+    private final String content;
+    private final List<String> headers;
+    private final String username;
+    private final String password;
+    private final HttpAuthMode authMode;
+    private final boolean ignoreSSLErrors;
+    private final @Nullable String encoding;
+    private final int bufferSize;
+    private final int timeout;
+
+    /**
+     * @param url the state URL
+     * @param thingConfig the configuration of the thing
+     * @param content the content of the state request
+     */
+    public RefreshingUrlCacheKey(String url, HttpThingConfig thingConfig, String content) {
+        this.url = url;
+        this.method = thingConfig.stateMethod;
+        this.content = content;
+        this.headers = List.copyOf(thingConfig.headers);
+        this.username = thingConfig.username;
+        this.password = thingConfig.password;
+        this.authMode = thingConfig.authMode;
+        this.ignoreSSLErrors = thingConfig.ignoreSSLErrors;
+        this.encoding = thingConfig.encoding;
+        this.bufferSize = thingConfig.bufferSize;
+        this.timeout = thingConfig.timeout;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        RefreshingUrlCacheKey other = (RefreshingUrlCacheKey) o;
+        return url.equals(other.url) && method == other.method && content.equals(other.content)
+                && headers.equals(other.headers) && username.equals(other.username)
+                && password.equals(other.password) && authMode == other.authMode
+                && ignoreSSLErrors == other.ignoreSSLErrors && Objects.equals(encoding, other.encoding)
+                && bufferSize == other.bufferSize && timeout == other.timeout;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(url, method, content, headers, username, password, authMode, ignoreSSLErrors, encoding,
+                bufferSize, timeout);
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + url;
+    }
+}
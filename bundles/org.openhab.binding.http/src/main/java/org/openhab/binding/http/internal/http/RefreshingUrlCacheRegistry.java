@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.http.internal.http;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.binding.http.internal.config.HttpThingConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link RefreshingUrlCacheRegistry} holds the {@link RefreshingUrlCache}s of all things. Things that request
+ * the same state with the same request parameters share one cache, so the URL is requested only once per refresh
+ * interval, no matter how many channels and things subscribed to it.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class RefreshingUrlCacheRegistry {
+    private final Logger logger = LoggerFactory.getLogger(RefreshingUrlCacheRegistry.class);
+
+    private final ScheduledExecutorService executor;
+    private final Map<RefreshingUrlCacheKey, RefreshingUrlCache> caches = new HashMap<>();
+
+    public RefreshingUrlCacheRegistry(ScheduledExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Subscribe to the content of a state URL. A cache is created if no other subscription with the same key exists.
+     *
+     * @param key the key of the request
+     * @param httpClient the client of the subscribing thing, used for requests while it is subscribed
+     * @param thingConfig the configuration of the subscribing thing
+     * @param consumer the consumer for the content
+     * @return the subscription
+     */
+    public synchronized RefreshingUrlCache.Subscription subscribe(RefreshingUrlCacheKey key,
+            RateLimitedHttpClient httpClient, HttpThingConfig thingConfig, Consumer<Content> consumer) {
+        RefreshingUrlCache cache = caches.computeIfAbsent(key, k -> new RefreshingUrlCache(executor, k, thingConfig));
+        logger.trace("Subscribing to {}", key);
+        return cache.subscribe(httpClient, thingConfig.refresh, consumer);
+    }
+
+    /**
+     * Cancel a subscription. The cache is stopped when its last subscription is cancelled.
+     *
+     * @param subscription the subscription
+     */
+    public synchronized void unsubscribe(RefreshingUrlCache.Subscription subscription) {
+        RefreshingUrlCache cache = subscription.getCache();
+        if (cache.unsubscribe(subscription)) {
+            cache.stop();
+            caches.remove(cache.getKey());
+            logger.trace("Removed cache for {}", cache.getKey());
+        }
+    }
+
+    /**
+     * Stop all caches
+     */
+    public synchronized void dispose() {
+        caches.values().forEach(RefreshingUrlCache::stop);
+        caches.clear();
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.http.internal.http;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jetty.client.api.Authentication;
+import org.eclipse.jetty.client.api.AuthenticationStore;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.openhab.binding.http.internal.config.HttpThingConfig;
+
+/**
+ * The {@link RefreshingUrlCacheTest} is a test class for sharing state requests between things
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class RefreshingUrlCacheTest {
+    private static final String URL = "http://localhost/state";
+
+    private final ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+    private final RateLimitedHttpClient httpClient = mock(RateLimitedHttpClient.class);
+    private final Request request = mock(Request.class);
+    private final HttpThingConfig thingConfig = new HttpThingConfig();
+    private final RefreshingUrlCacheRegistry registry = new RefreshingUrlCacheRegistry(executor);
+
+    @BeforeEach
+    public void setUp() {
+        thingConfig.refresh = 30;
+        doReturn(mock(ScheduledFuture.class)).when(executor).scheduleWithFixedDelay(any(), anyLong(), anyLong(),
+                any());
+        when(httpClient.newRequest(any(), any(), any())).thenReturn(CompletableFuture.completedFuture(request));
+    }
+
+    private RefreshingUrlCache.Subscription subscribe(String url) {
+        return registry.subscribe(new RefreshingUrlCacheKey(url, thingConfig, ""), httpClient, thingConfig,
+                content -> {
+                });
+    }
+
+    private Runnable getRefreshTask() {
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor).scheduleWithFixedDelay(task.capture(), anyLong(), eq(30L), eq(TimeUnit.SECONDS));
+        return task.getValue();
+    }
+
+    private Response.CompleteListener getSentListener(int requests) {
+        ArgumentCaptor<Response.CompleteListener> listener = ArgumentCaptor.forClass(Response.CompleteListener.class);
+        verify(request, times(requests)).send(listener.capture());
+        return listener.getValue();
+    }
+
+    private static Result result(int status) {
+        Response response = mock(Response.class);
+        when(response.getStatus()).thenReturn(status);
+        when(response.getHeaders()).thenReturn(new HttpFields());
+        Result result = mock(Result.class);
+        when(result.getResponse()).thenReturn(response);
+        when(result.getRequest()).thenReturn(mock(Request.class));
+        return result;
+    }
+
+    @Test
+    public void thingsWithSameRequestShareCache() {
+        RefreshingUrlCache.Subscription subscription1 = subscribe(URL);
+        RefreshingUrlCache.Subscription subscription2 = subscribe(URL);
+        RefreshingUrlCache.Subscription other = subscribe(URL + "2");
+
+        Assertions.assertSame(subscription1.getCache(), subscription2.getCache());
+        Assertions.assertNotSame(subscription1.getCache(), other.getCache());
+        Assertions.assertEquals(2, subscription1.getCache().getSubscriptionCount());
+
+        registry.unsubscribe(subscription1);
+        Assertions.assertEquals(1, subscription2.getCache().getSubscriptionCount());
+        registry.unsubscribe(subscription2);
+        Assertions.assertEquals(0, subscription2.getCache().getSubscriptionCount());
+
+        // the cache is removed with its last subscription
+        Assertions.assertNotSame(subscription2.getCache(), subscribe(URL).getCache());
+    }
+
+    @Test
+    public void refreshIsSkippedWhileRequestIsPending() {
+        RefreshingUrlCache cache = subscribe(URL).getCache();
+        Runnable refresh = getRefreshTask();
+
+        refresh.run();
+        refresh.run();
+        verify(httpClient, times(1)).newRequest(any(), any(), any());
+        Assertions.assertEquals(1, cache.getDeduplicatedRefreshes());
+
+        getSentListener(1).onComplete(result(HttpStatus.OK_200));
+        refresh.run();
+        verify(httpClient, times(2)).newRequest(any(), any(), any());
+    }
+
+    @Test
+    public void requestStaysPendingWhileRetryingAfterAuthFailure() {
+        AuthenticationStore authStore = mock(AuthenticationStore.class);
+        when(authStore.findAuthenticationResult(any())).thenReturn(mock(Authentication.Result.class));
+        when(httpClient.getAuthenticationStore()).thenReturn(authStore);
+        RefreshingUrlCache cache = subscribe(URL).getCache();
+        Runnable refresh = getRefreshTask();
+
+        refresh.run();
+        getSentListener(1).onComplete(result(HttpStatus.UNAUTHORIZED_401));
+        verify(authStore).removeAuthenticationResult(any());
+        verify(httpClient, times(2)).newRequest(any(), any(), any());
+
+        // the retry is in flight
+        refresh.run();
+        verify(httpClient, times(2)).newRequest(any(), any(), any());
+        Assertions.assertEquals(1, cache.getDeduplicatedRefreshes());
+
+        getSentListener(2).onComplete(result(HttpStatus.OK_200));
+        refresh.run();
+        verify(httpClient, times(3)).newRequest(any(), any(), any());
+    }
+}
@@ -15,6 +15,8 @@ package org.openhab.binding.hue.internal;
 import static java.util.stream.Collectors.joining;
 
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Collection of updates
@@ -23,6 +25,7 @@ import java.util.ArrayList;
  * @author Denis Dudnik - moved Jue library source code inside the smarthome Hue binding, minor code cleanup
  * @author Samuel Leisering - Added support for sensor API
  * @author Christoph Weitkamp - Added support for sensor API
+ * @author agent - Merging of updates
  */
 public class ConfigUpdate {
 
@@ -36,6 +39,32 @@ public class ConfigUpdate {
         return commands.isEmpty();
     }
 
+    /**
+     * Add the commands of another update. A command replaces the command of this update with the same key.
+     *
+     * @param update the other update
+     */
+    public void merge(ConfigUpdate update) {
+        for (Command command : update.commands) {
+            commands.removeIf(c -> c.key.equals(command.key));
+            commands.add(command);
+        }
+    }
+
+    /**
+     * Check if another update contains the same commands, regardless of their order.
+     *
+     * @param update the other update
+     * @return true if both updates set the same values
+     */
+    public boolean hasSameCommands(ConfigUpdate update) {
+        return toCommandMap().equals(update.toCommandMap());
+    }
+
+    private Map<String, String> toCommandMap() {
+        return commands.stream().collect(Collectors.toMap(c -> c.key, Command::toJson, (first, second) -> second));
+    }
+
     public String toJson() {
         return commands.stream().map(c -> c.toJson()).collect(joining(",", "{", "}"));
     }
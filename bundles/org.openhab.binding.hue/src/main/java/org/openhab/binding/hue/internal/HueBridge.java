@@ -48,6 +48,7 @@ import org.slf4j.LoggerFactory;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
 
@@ -59,6 +60,7 @@ import com.google.gson.JsonParser;
  * @author Denis Dudnik - moved Jue library source code inside the smarthome Hue binding, minor code cleanup
  * @author Samuel Leisering - added cached config and API-Version
  * @author Laurent Garnier - change the return type of getGroups
+ * @author agent - polling of changed lights and sensors
  */
 @NonNullByDefault
 public class HueBridge {
@@ -233,6 +235,48 @@ public class HueBridge {
         return lightList;
     }
 
+    /**
+     * Returns the lights whose state changed since the last call with the same fingerprints. Only the changed lights
+     * are deserialized.
+     *
+     * @param fingerprints the states of the last call
+     * @return the ids of all lights and the changed lights
+     * @throws UnauthorizedException thrown if the user no longer exists
+     */
+    public ResourceFingerprints.Changes<FullLight> getChangedFullLights(ResourceFingerprints fingerprints)
+            throws IOException, ApiException {
+        return getChangedResources("lights", fingerprints, FullLight.class);
+    }
+
+    /**
+     * Returns the sensors whose state or config changed since the last call with the same fingerprints. Only the
+     * changed sensors are deserialized.
+     *
+     * @param fingerprints the states of the last call
+     * @return the ids of all sensors and the changed sensors
+     * @throws UnauthorizedException thrown if the user no longer exists
+     */
+    public ResourceFingerprints.Changes<FullSensor> getChangedSensors(ResourceFingerprints fingerprints)
+            throws IOException, ApiException {
+        return getChangedResources("sensors", fingerprints, FullSensor.class);
+    }
+
+    private <T extends HueObject> ResourceFingerprints.Changes<T> getChangedResources(String path,
+            ResourceFingerprints fingerprints, Class<T> type) throws IOException, ApiException {
+        requireAuthentication();
+
+        Result result = http.get(getRelativeURL(path));
+
+        handleErrors(result);
+
+        JsonObject resources = safeFromJson(result.getBody(), JsonObject.class);
+        try {
+            return fingerprints.update(resources, gson, type);
+        } catch (JsonParseException e) {
+            throw new ApiException("API returned unexpected result: " + e.getMessage());
+        }
+    }
+
     /**
      * Returns a list of sensors known to the bridge
      *
@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.hue.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * The {@link ResourceFingerprints} remember the JSON representation of lights or sensors from the last poll, so
+ * only resources that changed are deserialized and passed to their handlers.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ResourceFingerprints {
+
+    /**
+     * The result of a poll
+     */
+    public static class Changes<T extends HueObject> {
+        private final Set<String> ids;
+        private final List<T> changed;
+
+        public Changes(Set<String> ids, List<T> changed) {
+            this.ids = ids;
+            this.changed = changed;
+        }
+
+        /**
+         * @return the ids of all resources known to the bridge
+         */
+        public Set<String> getIds() {
+            return ids;
+        }
+
+        /**
+         * @return the resources that changed since the last poll
+         */
+        public List<T> getChanged() {
+            return changed;
+        }
+    }
+
+    private final Map<String, JsonElement> fingerprints = new ConcurrentHashMap<>();
+
+    /**
+     * Compare the resources of a response with the last response
+     *
+     * @param resources the response, a JSON object with the resources by id
+     * @param gson the Gson instance for deserialization
+     * @param type the type of the resources
+     * @return the ids of all resources and the changed resources
+     */
+    <T extends HueObject> Changes<T> update(JsonObject resources, Gson gson, Class<T> type) {
+        List<T> changed = new ArrayList<>();
+        for (Map.Entry<String, JsonElement> entry : resources.entrySet()) {
+            String id = entry.getKey();
+            JsonElement json = entry.getValue();
+            if (json.equals(fingerprints.get(id))) {
+                continue;
+            }
+            T resource = gson.fromJson(json, type);
+            if (resource != null) {
+                resource.setId(id);
+                changed.add(resource);
+                fingerprints.put(id, json);
+            }
+        }
+        Set<String> ids = resources.keySet();
+        fingerprints.keySet().retainAll(ids);
+        return new Changes<>(Set.copyOf(ids), changed);
+    }
+
+    /**
+     * Forget the state of a resource, so it is reported as changed by the next poll. Needed if a handler did not
+     * accept the state.
+     *
+     * @param id the id of the resource
+     */
+    public void invalidate(String id) {
+        fingerprints.remove(id);
+    }
+
+    /**
+     * Forget the state of all resources that are not in the given collection
+     *
+     * @param ids the ids of the resources to keep
+     */
+    public void retain(Collection<String> ids) {
+        fingerprints.keySet().retainAll(ids);
+    }
+
+    /**
+     * Forget the state of all resources
+     */
+    public void clear() {
+        fingerprints.clear();
+    }
+}
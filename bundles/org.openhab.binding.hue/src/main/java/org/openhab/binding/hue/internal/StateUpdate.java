@@ -12,6 +12,10 @@
  */
 package org.openhab.binding.hue.internal;
 
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 import org.openhab.binding.hue.internal.State.AlertMode;
 import org.openhab.binding.hue.internal.State.Effect;
 import org.openhab.binding.hue.internal.dto.ColorTemperature;
@@ -23,12 +27,48 @@ import org.openhab.binding.hue.internal.dto.ColorTemperature;
  * @author Thomas Höfer - added unique id and changed range check for brightness and saturation
  * @author Denis Dudnik - moved Jue library source code inside the smarthome Hue binding, minor code cleanup
  * @author Samuel Leisering - refactor configuration updates
+ * @author agent - Merging of updates
  */
 public class StateUpdate extends ConfigUpdate {
 
+    /**
+     * Color mode of the commands that set a color
+     */
+    private static final Map<String, String> COLOR_MODES = Map.of("xy", "xy", "ct", "ct", "hue", "hs", "sat", "hs");
+
     private Integer colorTemperature;
     private Integer brightness;
 
+    /**
+     * Add the commands of another update. The color modes exclude each other and the bridge prefers xy over ct over
+     * hue and saturation, so a color of the other update removes the color commands of other modes of this update.
+     */
+    @Override
+    public void merge(ConfigUpdate update) {
+        Set<String> colorModes = update.commands.stream().map(c -> COLOR_MODES.get(c.key))
+                .filter(mode -> mode != null).collect(Collectors.toSet());
+        if (!colorModes.isEmpty()) {
+            commands.removeIf(c -> COLOR_MODES.containsKey(c.key) && !colorModes.contains(COLOR_MODES.get(c.key)));
+        }
+        super.merge(update);
+        if (update instanceof StateUpdate) {
+            StateUpdate stateUpdate = (StateUpdate) update;
+            if (stateUpdate.brightness != null) {
+                brightness = stateUpdate.brightness;
+            }
+            if (stateUpdate.colorTemperature != null) {
+                colorTemperature = stateUpdate.colorTemperature;
+            }
+        }
+        // keep the values of the merged commands only
+        if (commands.stream().noneMatch(c -> "ct".equals(c.key))) {
+            colorTemperature = null;
+        }
+        if (commands.stream().noneMatch(c -> "bri".equals(c.key))) {
+            brightness = null;
+        }
+    }
+
     /**
      * Turn light on.
      *
@@ -32,6 +32,7 @@ public class HueBridgeConfig {
     private @Nullable String userName;
     private int pollingInterval = 10;
     private int sensorPollingInterval = 500;
+    private int maxCommandsPerSecond = 10;
 
     public @Nullable String getIpAddress() {
         return ipAddress;
@@ -81,4 +82,12 @@ public class HueBridgeConfig {
     public void setSensorPollingInterval(int sensorPollingInterval) {
         this.sensorPollingInterval = sensorPollingInterval;
     }
+
+    public int getMaxCommandsPerSecond() {
+        return maxCommandsPerSecond;
+    }
+
+    public void setMaxCommandsPerSecond(int maxCommandsPerSecond) {
+        this.maxCommandsPerSecond = maxCommandsPerSecond;
+    }
 }
@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledFuture;
@@ -42,6 +43,7 @@ import org.openhab.binding.hue.internal.FullLight;
 import org.openhab.binding.hue.internal.FullSensor;
 import org.openhab.binding.hue.internal.HueBridge;
 import org.openhab.binding.hue.internal.HueConfigStatusMessage;
+import org.openhab.binding.hue.internal.ResourceFingerprints;
 import org.openhab.binding.hue.internal.Scene;
 import org.openhab.binding.hue.internal.State;
 import org.openhab.binding.hue.internal.StateUpdate;
@@ -84,6 +86,8 @@ import org.slf4j.LoggerFactory;
  * @author Samuel Leisering - Added support for sensor API
  * @author Christoph Weitkamp - Added support for sensor API
  * @author Laurent Garnier - Added support for groups
+ * @author agent - Command scheduling
+ * @author agent - Polling of changed lights and sensors, adaptive polling interval
  */
 @NonNullByDefault
 public class HueBridgeHandler extends ConfigStatusBridgeHandler implements HueClient {
@@ -96,12 +100,16 @@ public class HueBridgeHandler extends ConfigStatusBridgeHandler implements HueCl
 
     private static final long SCENE_POLLING_INTERVAL = TimeUnit.SECONDS.convert(10, TimeUnit.MINUTES);
 
+    private static final long COMMAND_STATISTICS_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
     private final Logger logger = LoggerFactory.getLogger(HueBridgeHandler.class);
     private final HueStateDescriptionOptionProvider stateDescriptionOptionProvider;
 
     private final Map<String, FullLight> lastLightStates = new ConcurrentHashMap<>();
     private final Map<String, FullSensor> lastSensorStates = new ConcurrentHashMap<>();
     private final Map<String, FullGroup> lastGroupStates = new ConcurrentHashMap<>();
+    private final ResourceFingerprints lightFingerprints = new ResourceFingerprints();
+    private final ResourceFingerprints sensorFingerprints = new ResourceFingerprints();
 
     private @Nullable HueDeviceDiscoveryService discoveryService;
     private final Map<String, LightStatusListener> lightStatusListeners = new ConcurrentHashMap<>();
@@ -186,7 +194,11 @@ public class HueBridgeHandler extends ConfigStatusBridgeHandler implements HueCl
 
             final HueDeviceDiscoveryService discovery = discoveryService;
 
-            for (final FullSensor sensor : hueBridge.getSensors()) {
+            // only sensors that changed since the last poll are passed to their listeners
+            sensorFingerprints.retain(lastSensorStates.keySet());
+            ResourceFingerprints.Changes<FullSensor> changes = hueBridge.getChangedSensors(sensorFingerprints);
+
+            for (final FullSensor sensor : changes.getChanged()) {
                 String sensorId = sensor.getId();
 
                 final SensorStatusListener sensorStatusListener = sensorStatusListeners.get(sensorId);
@@ -201,10 +213,12 @@ public class HueBridgeHandler extends ConfigStatusBridgeHandler implements HueCl
                 } else {
                     if (sensorStatusListener.onSensorStateChanged(sensor)) {
                         lastSensorStates.put(sensorId, sensor);
+                    } else {
+                        sensorFingerprints.invalidate(sensorId);
                     }
                 }
-                lastSensorStateCopy.remove(sensorId);
             }
+            lastSensorStateCopy.keySet().removeAll(changes.getIds());
 
             // Check for removed sensors
             lastSensorStateCopy.forEach((sensorId, sensor) -> {
@@ -228,21 +242,27 @@ public class HueBridgeHandler extends ConfigStatusBridgeHandler implements HueCl
         protected void doConnectedRun() throws IOException, ApiException {
             updateLights();
             updateGroups();
+            updateCommandStatistics();
         }
 
         private void updateLights() throws IOException, ApiException {
             Map<String, FullLight> lastLightStateCopy = new HashMap<>(lastLightStates);
+            lightsChanged = false;
 
-            List<FullLight> lights;
+            // only lights that changed since the last poll are passed to their listeners
+            ResourceFingerprints.Changes<FullLight> changes;
             if (ApiVersionUtils.supportsFullLights(hueBridge.getVersion())) {
-                lights = hueBridge.getFullLights();
+                lightFingerprints.retain(lastLightStates.keySet());
+                changes = hueBridge.getChangedFullLights(lightFingerprints);
             } else {
-                lights = hueBridge.getFullConfig().getLights();
+                List<FullLight> lights = hueBridge.getFullConfig().getLights();
+                changes = new ResourceFingerprints.Changes<>(
+                        lights.stream().map(FullLight::getId).collect(Collectors.toSet()), lights);
             }
 
             final HueDeviceDiscoveryService discovery = discoveryService;
 
-            for (final FullLight fullLight : lights) {
+            for (final FullLight fullLight : changes.getChanged()) {
                 final String lightId = fullLight.getId();
 
                 final LightStatusListener lightStatusListener = lightStatusListeners.get(lightId);
@@ -257,10 +277,13 @@ public class HueBridgeHandler extends ConfigStatusBridgeHandler implements HueCl
                 } else {
                     if (lightStatusListener.onLightStateChanged(fullLight)) {
                         lastLightStates.put(lightId, fullLight);
+                    } else {
+                        lightFingerprints.invalidate(lightId);
                     }
                 }
-                lastLightStateCopy.remove(lightId);
+                lightsChanged = true;
             }
+            lastLightStateCopy.keySet().removeAll(changes.getIds());
 
             // Check for removed lights
             lastLightStateCopy.forEach((lightId, light) -> {
@@ -397,11 +420,31 @@ public class HueBridgeHandler extends ConfigStatusBridgeHandler implements HueCl
 
     private @Nullable Future<?> initJob;
     private @Nullable ScheduledFuture<?> lightPollingJob;
+    // incremented whenever the light polling is started or stopped, a poll of an older chain does not reschedule
+    private long lightPollingGeneration = 0;
+    private LightPollingInterval lightPollingInterval = new LightPollingInterval(TimeUnit.SECONDS.toMillis(10));
+    private volatile boolean lightsChanged = false;
     private @Nullable ScheduledFuture<?> sensorPollingJob;
     private @Nullable ScheduledFuture<?> scenePollingJob;
 
     private @NonNullByDefault({}) HueBridge hueBridge = null;
     private @NonNullByDefault({}) HueBridgeConfig hueBridgeConfig = null;
+    private @Nullable HueCommandScheduler commandScheduler;
+    private String commandStatistics = "";
+    private long commandStatisticsTime = 0;
+
+    private final HueCommandScheduler.Dispatcher commandDispatcher = new HueCommandScheduler.Dispatcher() {
+        @Override
+        public CompletableFuture<?> sendLightState(HueCommandScheduler.LightCommand command) {
+            return HueBridgeHandler.this.sendLightState(command.getListener(), command.getLight(),
+                    command.getUpdate(), command.getFadeTime());
+        }
+
+        @Override
+        public CompletableFuture<?> sendGroupState(HueCommandScheduler.GroupCommand command) {
+            return HueBridgeHandler.this.sendGroupState(command);
+        }
+    };
 
     private List<String> consoleScenesList = new ArrayList<>();
 
@@ -425,26 +468,38 @@ public class HueBridgeHandler extends ConfigStatusBridgeHandler implements HueCl
     @Override
     public void updateLightState(LightStatusListener listener, FullLight light, StateUpdate stateUpdate,
             long fadeTime) {
-        if (hueBridge != null) {
+        HueCommandScheduler commandScheduler = this.commandScheduler;
+        if (hueBridge != null && commandScheduler != null) {
             listener.setPollBypass(BYPASS_MIN_DURATION_BEFORE_CMD);
-            hueBridge.setLightState(light, stateUpdate).thenAccept(result -> {
-                try {
-                    hueBridge.handleErrors(result);
-                    listener.setPollBypass(fadeTime);
-                } catch (Exception e) {
-                    listener.unsetPollBypass();
-                    handleLightUpdateException(listener, light, stateUpdate, fadeTime, e);
-                }
-            }).exceptionally(e -> {
-                listener.unsetPollBypass();
-                handleLightUpdateException(listener, light, stateUpdate, fadeTime, e);
-                return null;
-            });
+            commandScheduler.updateLightState(listener, light, stateUpdate, fadeTime);
+            requestFastLightPolling();
         } else {
             logger.debug("No bridge connected or selected. Cannot set light state.");
         }
     }
 
+    private CompletableFuture<?> sendLightState(LightStatusListener listener, FullLight light, StateUpdate stateUpdate,
+            long fadeTime) {
+        HueBridge bridge = hueBridge;
+        if (bridge == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        listener.setPollBypass(BYPASS_MIN_DURATION_BEFORE_CMD);
+        return bridge.setLightState(light, stateUpdate).thenAccept(result -> {
+            try {
+                bridge.handleErrors(result);
+                listener.setPollBypass(fadeTime);
+            } catch (Exception e) {
+                listener.unsetPollBypass();
+                handleLightUpdateException(listener, light, stateUpdate, fadeTime, e);
+            }
+        }).exceptionally(e -> {
+            listener.unsetPollBypass();
+            handleLightUpdateException(listener, light, stateUpdate, fadeTime, e);
+            return null;
+        });
+    }
+
     @Override
     public void updateSensorState(FullSensor sensor, StateUpdate stateUpdate) {
         if (hueBridge != null) {
@@ -483,26 +538,40 @@ public class HueBridgeHandler extends ConfigStatusBridgeHandler implements HueCl
 
     @Override
     public void updateGroupState(FullGroup group, StateUpdate stateUpdate, long fadeTime) {
-        if (hueBridge != null) {
+        HueCommandScheduler commandScheduler = this.commandScheduler;
+        if (hueBridge != null && commandScheduler != null) {
             setGroupPollBypass(group, BYPASS_MIN_DURATION_BEFORE_CMD);
-            hueBridge.setGroupState(group, stateUpdate).thenAccept(result -> {
-                try {
-                    hueBridge.handleErrors(result);
-                    setGroupPollBypass(group, fadeTime);
-                } catch (Exception e) {
-                    unsetGroupPollBypass(group);
-                    handleGroupUpdateException(group, e);
-                }
-            }).exceptionally(e -> {
-                unsetGroupPollBypass(group);
-                handleGroupUpdateException(group, e);
-                return null;
-            });
+            commandScheduler.updateGroupState(group, stateUpdate, fadeTime);
+            requestFastLightPolling();
         } else {
             logger.debug("No bridge connected or selected. Cannot set group state.");
         }
     }
 
+    private CompletableFuture<?> sendGroupState(HueCommandScheduler.GroupCommand command) {
+        HueBridge bridge = hueBridge;
+        if (bridge == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        FullGroup group = command.getGroup();
+        long fadeTime = command.getFadeTime();
+        List<HueCommandScheduler.LightCommand> promotedCommands = command.getPromotedCommands();
+        setGroupPollBypass(group, BYPASS_MIN_DURATION_BEFORE_CMD);
+        return bridge.setGroupState(group, command.getUpdate()).thenAccept(result -> {
+            try {
+                bridge.handleErrors(result);
+                setGroupPollBypass(group, fadeTime);
+            } catch (Exception e) {
+                unsetGroupPollBypass(group);
+                handleGroupUpdateException(group, promotedCommands, e);
+            }
+        }).exceptionally(e -> {
+            unsetGroupPollBypass(group);
+            handleGroupUpdateException(group, promotedCommands, e);
+            return null;
+        });
+    }
+
     private void setGroupPollBypass(FullGroup group, long bypassTime) {
         group.getLightIds().forEach((lightId) -> {
             final LightStatusListener listener = lightStatusListeners.get(lightId);
@@ -560,8 +629,15 @@ public class HueBridgeHandler extends ConfigStatusBridgeHandler implements HueCl
         }
     }
 
-    private void handleGroupUpdateException(FullGroup group, Throwable e) {
-        if (e instanceof EntityNotAvailableException) {
+    private void handleGroupUpdateException(FullGroup group, List<HueCommandScheduler.LightCommand> promotedCommands,
+            Throwable e) {
+        HueCommandScheduler commandScheduler = this.commandScheduler;
+        if (!promotedCommands.isEmpty() && commandScheduler != null) {
+            // the group update replaced updates of its lights, send them one by one to handle the errors per light
+            logger.debug("Update of group {} failed, sending the updates of its lights: {}", group.getId(),
+                    e.getMessage());
+            commandScheduler.retryLightCommands(promotedCommands);
+        } else if (e instanceof EntityNotAvailableException) {
             logger.debug("Error while accessing group: {}", e.getMessage(), e);
             final HueDeviceDiscoveryService discovery = discoveryService;
             if (discovery != null) {
@@ -587,30 +663,78 @@ public class HueBridgeHandler extends ConfigStatusBridgeHandler implements HueCl
         }
     }
 
-    private void startLightPolling() {
+    private synchronized void startLightPolling() {
         ScheduledFuture<?> job = lightPollingJob;
         if (job == null || job.isCancelled()) {
-            long lightPollingInterval;
             int configPollingInterval = hueBridgeConfig.getPollingInterval();
+            long pollingInterval;
             if (configPollingInterval < 1) {
-                lightPollingInterval = TimeUnit.SECONDS.toSeconds(10);
+                pollingInterval = TimeUnit.SECONDS.toMillis(10);
                 logger.info("Wrong configuration value for polling interval. Using default value: {}s",
-                        lightPollingInterval);
+                        TimeUnit.MILLISECONDS.toSeconds(pollingInterval));
             } else {
-                lightPollingInterval = configPollingInterval;
+                pollingInterval = TimeUnit.SECONDS.toMillis(configPollingInterval);
             }
+            lightPollingInterval = new LightPollingInterval(pollingInterval);
+            lightPollingGeneration++;
             // Delay the first execution to give a chance to have all light and group things registered
-            lightPollingJob = scheduler.scheduleWithFixedDelay(lightPollingRunnable, 3, lightPollingInterval,
-                    TimeUnit.SECONDS);
+            scheduleLightPolling(TimeUnit.SECONDS.toMillis(3));
         }
     }
 
-    private void stopLightPolling() {
+    private synchronized void stopLightPolling() {
         ScheduledFuture<?> job = lightPollingJob;
         if (job != null) {
             job.cancel(true);
         }
         lightPollingJob = null;
+        lightPollingGeneration++;
+    }
+
+    private synchronized void scheduleLightPolling(long delay) {
+        long generation = lightPollingGeneration;
+        lightPollingJob = scheduler.schedule(() -> pollLights(generation), delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Update the command statistics property if they changed, at most once per
+     * {@link #COMMAND_STATISTICS_INTERVAL}, as each update persists the bridge thing
+     */
+    private void updateCommandStatistics() {
+        HueCommandScheduler commandScheduler = this.commandScheduler;
+        if (commandScheduler == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        String statistics = commandScheduler.getStatistics();
+        if (now - commandStatisticsTime >= COMMAND_STATISTICS_INTERVAL && !statistics.equals(commandStatistics)) {
+            commandStatistics = statistics;
+            commandStatisticsTime = now;
+            updateProperty(PROPERTY_COMMAND_STATISTICS, statistics);
+        }
+    }
+
+    private void pollLights(long generation) {
+        lightPollingRunnable.run();
+        synchronized (this) {
+            // the polling may have been stopped, or stopped and started again, while the lights were polled
+            if (generation == lightPollingGeneration && lightPollingJob != null) {
+                scheduleLightPolling(lightPollingInterval.next(lightsChanged));
+            }
+        }
+    }
+
+    /**
+     * Poll the lights soon after a command, to update the channels of lights that are changed by the command
+     * without being addressed by it, e.g. the lights of a group.
+     */
+    private synchronized void requestFastLightPolling() {
+        lightPollingInterval.commandSent();
+        ScheduledFuture<?> job = lightPollingJob;
+        long fastInterval = lightPollingInterval.getFastInterval();
+        if (job != null && job.getDelay(TimeUnit.MILLISECONDS) > fastInterval && job.cancel(false)) {
+            scheduleLightPolling(fastInterval);
+        }
     }
 
     private void startSensorPolling() {
@@ -668,6 +792,13 @@ public class HueBridgeHandler extends ConfigStatusBridgeHandler implements HueCl
         stopLightPolling();
         stopSensorPolling();
         stopScenePolling();
+        lightFingerprints.clear();
+        sensorFingerprints.clear();
+        HueCommandScheduler commandScheduler = this.commandScheduler;
+        if (commandScheduler != null) {
+            commandScheduler.stop();
+            this.commandScheduler = null;
+        }
         if (hueBridge != null) {
             hueBridge = null;
         }
@@ -686,6 +817,8 @@ public class HueBridgeHandler extends ConfigStatusBridgeHandler implements HueCl
             if (hueBridge == null) {
                 hueBridge = new HueBridge(ip, hueBridgeConfig.getPort(), hueBridgeConfig.getProtocol(), scheduler);
                 hueBridge.setTimeout(5000);
+                commandScheduler = new HueCommandScheduler(scheduler, lastGroupStates::values, commandDispatcher,
+                        hueBridgeConfig.getMaxCommandsPerSecond());
 
                 // Try a first connection that will fail, then try to authenticate,
                 // and finally change the bridge status to ONLINE
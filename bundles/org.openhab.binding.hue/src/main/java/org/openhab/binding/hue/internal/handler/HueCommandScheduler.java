@@ -0,0 +1,406 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.hue.internal.handler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.hue.internal.FullGroup;
+import org.openhab.binding.hue.internal.FullLight;
+import org.openhab.binding.hue.internal.StateUpdate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link HueCommandScheduler} queues state updates of lights and groups before they are sent to the bridge.
+ *
+ * The bridge processes about 10 light commands and one group command per second, further commands are delayed or
+ * dropped. Updates are therefore sent one after the other, paced to the configured number of commands per second,
+ * and group actions are sent at most once per second. An update of a light or group that is still queued is merged
+ * into the queued update, a later value of an attribute replaces the earlier one.
+ *
+ * Light updates are held back for {@link #GROUP_PROMOTION_WINDOW} ms. If all lights of a group received the same
+ * update within this time, one group action is sent instead of the light updates.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class HueCommandScheduler {
+    static final long GROUP_PROMOTION_WINDOW = 100; // in ms
+    private static final long GROUP_COMMAND_INTERVAL = 1000; // in ms
+    private static final String LIGHT_KEY_PREFIX = "light/";
+    private static final String GROUP_KEY_PREFIX = "group/";
+
+    private final Logger logger = LoggerFactory.getLogger(HueCommandScheduler.class);
+
+    /**
+     * Sends the updates to the bridge
+     */
+    public interface Dispatcher {
+        /**
+         * Send an update of a light
+         *
+         * @param command the command
+         * @return a future that completes when the bridge has processed the update
+         */
+        CompletableFuture<?> sendLightState(LightCommand command);
+
+        /**
+         * Send an update of a group
+         *
+         * @param command the command
+         * @return a future that completes when the bridge has processed the update
+         */
+        CompletableFuture<?> sendGroupState(GroupCommand command);
+    }
+
+    /**
+     * A queued update
+     */
+    public abstract static class QueuedCommand {
+        private final StateUpdate update = new StateUpdate();
+        private long fadeTime;
+        private final long queuedTime;
+
+        private QueuedCommand(StateUpdate update, long fadeTime, long queuedTime) {
+            this.update.merge(update);
+            this.fadeTime = fadeTime;
+            this.queuedTime = queuedTime;
+        }
+
+        private void merge(StateUpdate update, long fadeTime) {
+            this.update.merge(update);
+            this.fadeTime = fadeTime;
+        }
+
+        public StateUpdate getUpdate() {
+            return update;
+        }
+
+        public long getFadeTime() {
+            return fadeTime;
+        }
+    }
+
+    /**
+     * A queued update of a light
+     */
+    public static class LightCommand extends QueuedCommand {
+        private final LightStatusListener listener;
+        private final FullLight light;
+        private boolean promotable;
+
+        private LightCommand(LightStatusListener listener, FullLight light, StateUpdate update, long fadeTime,
+                boolean promotable, long queuedTime) {
+            super(update, fadeTime, queuedTime);
+            this.listener = listener;
+            this.light = light;
+            this.promotable = promotable;
+        }
+
+        public LightStatusListener getListener() {
+            return listener;
+        }
+
+        public FullLight getLight() {
+            return light;
+        }
+    }
+
+    /**
+     * A queued update of a group
+     */
+    public static class GroupCommand extends QueuedCommand {
+        private final FullGroup group;
+        private final List<LightCommand> promotedCommands;
+
+        private GroupCommand(FullGroup group, StateUpdate update, long fadeTime, List<LightCommand> promotedCommands,
+                long queuedTime) {
+            super(update, fadeTime, queuedTime);
+            this.group = group;
+            this.promotedCommands = promotedCommands;
+        }
+
+        public FullGroup getGroup() {
+            return group;
+        }
+
+        /**
+         * @return the light updates replaced by this group update, empty if the group update was requested
+         */
+        public List<LightCommand> getPromotedCommands() {
+            return promotedCommands;
+        }
+    }
+
+    private final ScheduledExecutorService scheduler;
+    private final Supplier<Collection<FullGroup>> groups;
+    private final Dispatcher dispatcher;
+    private final long commandInterval;
+    private final LongSupplier clock;
+
+    private final Map<String, QueuedCommand> queue = new LinkedHashMap<>();
+    private @Nullable ScheduledFuture<?> sendJob;
+    private boolean sending = false;
+    private long nextCommandTime = 0;
+    private long nextGroupCommandTime = 0;
+
+    private long receivedCommands = 0;
+    private long coalescedCommands = 0;
+    private long sentCommands = 0;
+    private long groupPromotions = 0;
+
+    /**
+     * @param scheduler the scheduler for sending the updates
+     * @param groups the groups of the bridge
+     * @param dispatcher sends the updates to the bridge
+     * @param maxCommandsPerSecond the maximum number of updates sent per second
+     */
+    public HueCommandScheduler(ScheduledExecutorService scheduler, Supplier<Collection<FullGroup>> groups,
+            Dispatcher dispatcher, int maxCommandsPerSecond) {
+        this(scheduler, groups, dispatcher, maxCommandsPerSecond,
+                () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime()));
+    }
+
+    /**
+     * @param clock the current time in ms
+     */
+    HueCommandScheduler(ScheduledExecutorService scheduler, Supplier<Collection<FullGroup>> groups,
+            Dispatcher dispatcher, int maxCommandsPerSecond, LongSupplier clock) {
+        this.scheduler = scheduler;
+        this.groups = groups;
+        this.dispatcher = dispatcher;
+        this.commandInterval = 1000 / Math.max(1, maxCommandsPerSecond);
+        this.clock = clock;
+    }
+
+    /**
+     * Queue an update of a light
+     *
+     * @param listener the status listener of the light
+     * @param light the light
+     * @param update the update
+     * @param fadeTime the fade time of the update
+     */
+    public synchronized void updateLightState(LightStatusListener listener, FullLight light, StateUpdate update,
+            long fadeTime) {
+        receivedCommands++;
+        if (addLightCommand(listener, light, update, fadeTime, true)) {
+            coalescedCommands++;
+        }
+    }
+
+    /**
+     * Queue light updates again that failed as part of a group update. They are not promoted to a group update
+     * another time, and they are not counted as received updates again.
+     *
+     * @param commands the failed light updates
+     */
+    public synchronized void retryLightCommands(List<LightCommand> commands) {
+        for (LightCommand command : commands) {
+            addLightCommand(command.listener, command.light, command.getUpdate(), command.getFadeTime(), false);
+        }
+    }
+
+    /**
+     * Queue an update of a group
+     *
+     * @param group the group
+     * @param update the update
+     * @param fadeTime the fade time of the update
+     */
+    public synchronized void updateGroupState(FullGroup group, StateUpdate update, long fadeTime) {
+        receivedCommands++;
+        String key = GROUP_KEY_PREFIX + group.getId();
+        QueuedCommand queued = queue.get(key);
+        if (queued != null) {
+            queued.merge(update, fadeTime);
+            coalescedCommands++;
+        } else {
+            queue.put(key, new GroupCommand(group, update, fadeTime, List.of(), now()));
+        }
+        scheduleSend(0);
+    }
+
+    /**
+     * Stop sending and discard all queued updates
+     */
+    public synchronized void stop() {
+        ScheduledFuture<?> job = sendJob;
+        if (job != null) {
+            job.cancel(false);
+            sendJob = null;
+        }
+        queue.clear();
+    }
+
+    public synchronized int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * @return a summary of the queue size and the number of received, coalesced and sent updates
+     */
+    public synchronized String getStatistics() {
+        long coalescedPercentage = receivedCommands == 0 ? 0 : coalescedCommands * 100 / receivedCommands;
+        return String.format("%d queued, %d received, %d coalesced (%d%%), %d sent, %d group promotions", queue.size(),
+                receivedCommands, coalescedCommands, coalescedPercentage, sentCommands, groupPromotions);
+    }
+
+    /**
+     * @return true if the update has been merged into a queued update
+     */
+    private boolean addLightCommand(LightStatusListener listener, FullLight light, StateUpdate update, long fadeTime,
+            boolean promotable) {
+        String key = LIGHT_KEY_PREFIX + light.getId();
+        QueuedCommand queued = queue.get(key);
+        boolean merged = queued instanceof LightCommand;
+        if (merged) {
+            LightCommand lightCommand = (LightCommand) queued;
+            lightCommand.merge(update, fadeTime);
+            lightCommand.promotable &= promotable;
+        } else {
+            queue.put(key, new LightCommand(listener, light, update, fadeTime, promotable, now()));
+        }
+        scheduleSend(0);
+        return merged;
+    }
+
+    private void scheduleSend(long delay) {
+        if (sendJob == null && !sending && !queue.isEmpty()) {
+            sendJob = scheduler.schedule(this::sendNext, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void sendNext() {
+        sendJob = null;
+        if (sending) {
+            return;
+        }
+        long now = now();
+        if (now < nextCommandTime) {
+            scheduleSend(nextCommandTime - now);
+            return;
+        }
+        long wait = Long.MAX_VALUE;
+        for (Iterator<QueuedCommand> iterator = queue.values().iterator(); iterator.hasNext();) {
+            QueuedCommand command = iterator.next();
+            long readyTime = getReadyTime(command);
+            if (readyTime <= now) {
+                iterator.remove();
+                send(command instanceof LightCommand ? promote((LightCommand) command, now) : command, now);
+                return;
+            }
+            wait = Math.min(wait, readyTime - now);
+        }
+        if (wait != Long.MAX_VALUE) {
+            scheduleSend(wait);
+        }
+    }
+
+    private long getReadyTime(QueuedCommand command) {
+        if (command instanceof GroupCommand) {
+            return Math.max(command.queuedTime, nextGroupCommandTime);
+        } else if (((LightCommand) command).promotable) {
+            return command.queuedTime + GROUP_PROMOTION_WINDOW;
+        }
+        return command.queuedTime;
+    }
+
+    /**
+     * Replace a light update by an update of the largest group whose lights all have the same update queued
+     *
+     * @param command the light update, already removed from the queue
+     * @param now the current time
+     * @return the group update or the light update
+     */
+    private QueuedCommand promote(LightCommand command, long now) {
+        if (!command.promotable || now < nextGroupCommandTime) {
+            return command;
+        }
+        String lightId = command.light.getId();
+        FullGroup promotedGroup = null;
+        for (FullGroup group : groups.get()) {
+            List<String> lightIds = group.getLightIds();
+            if (lightIds == null || lightIds.size() < 2 || !lightIds.contains(lightId)
+                    || (promotedGroup != null && lightIds.size() <= promotedGroup.getLightIds().size())) {
+                continue;
+            }
+            if (lightIds.stream().allMatch(id -> id.equals(lightId) || hasSameUpdate(command, id))) {
+                promotedGroup = group;
+            }
+        }
+        if (promotedGroup == null) {
+            return command;
+        }
+        List<LightCommand> promotedCommands = new ArrayList<>();
+        promotedCommands.add(command);
+        for (String id : promotedGroup.getLightIds()) {
+            QueuedCommand queued = id.equals(lightId) ? null : queue.remove(LIGHT_KEY_PREFIX + id);
+            if (queued instanceof LightCommand) {
+                promotedCommands.add((LightCommand) queued);
+            }
+        }
+        groupPromotions++;
+        logger.debug("Sending update of {} lights as update of group {}", promotedCommands.size(),
+                promotedGroup.getId());
+        return new GroupCommand(promotedGroup, command.getUpdate(), command.getFadeTime(), promotedCommands,
+                command.queuedTime);
+    }
+
+    private boolean hasSameUpdate(LightCommand command, String lightId) {
+        QueuedCommand queued = queue.get(LIGHT_KEY_PREFIX + lightId);
+        return queued instanceof LightCommand && ((LightCommand) queued).promotable
+                && queued.getFadeTime() == command.getFadeTime()
+                && queued.getUpdate().hasSameCommands(command.getUpdate());
+    }
+
+    private void send(QueuedCommand command, long now) {
+        sending = true;
+        sentCommands++;
+        if (command instanceof GroupCommand) {
+            nextGroupCommandTime = now + GROUP_COMMAND_INTERVAL;
+        }
+        CompletableFuture<?> future;
+        try {
+            future = command instanceof GroupCommand ? dispatcher.sendGroupState((GroupCommand) command)
+                    : dispatcher.sendLightState((LightCommand) command);
+        } catch (RuntimeException e) {
+            logger.warn("Sending update to the bridge failed: {}", e.getMessage());
+            future = CompletableFuture.completedFuture(null);
+        }
+        future.whenComplete((result, e) -> commandCompleted(now));
+    }
+
+    private synchronized void commandCompleted(long sentTime) {
+        sending = false;
+        nextCommandTime = sentTime + commandInterval;
+        scheduleSend(Math.max(0, nextCommandTime - now()));
+    }
+
+    private long now() {
+        return clock.getAsLong();
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.hue.internal.handler;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * The {@link LightPollingInterval} computes the delay until the next light poll of a bridge. Polling is faster after a
+ * command, keeps the configured interval while lights change and slows down while nothing changes.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+class LightPollingInterval {
+
+    // light polling is faster after commands and slows down to this multiple of the configured interval
+    static final long FAST_LIGHT_POLLING_INTERVAL = 1000; // in ms
+    static final int FAST_LIGHT_POLLS_AFTER_COMMAND = 3;
+    static final int MAX_LIGHT_POLLING_BACKOFF = 3;
+
+    private final long interval; // in ms
+    private long currentInterval; // in ms
+    private int fastPolls = 0;
+
+    /**
+     * @param interval the configured polling interval in ms
+     */
+    LightPollingInterval(long interval) {
+        this.interval = interval;
+        this.currentInterval = interval;
+    }
+
+    /**
+     * @param lightsChanged whether the last poll found changed lights
+     * @return the delay until the next poll in ms
+     */
+    synchronized long next(boolean lightsChanged) {
+        if (fastPolls > 0) {
+            fastPolls--;
+            return getFastInterval();
+        }
+        if (lightsChanged) {
+            currentInterval = interval;
+        } else {
+            currentInterval = Math.min(currentInterval * 3 / 2, interval * MAX_LIGHT_POLLING_BACKOFF);
+        }
+        return currentInterval;
+    }
+
+    /**
+     * Poll faster for the next polls, after a command was sent
+     */
+    synchronized void commandSent() {
+        fastPolls = FAST_LIGHT_POLLS_AFTER_COMMAND;
+        currentInterval = interval;
+    }
+
+    /**
+     * @return the delay of a poll after a command in ms
+     */
+    long getFastInterval() {
+        return Math.min(FAST_LIGHT_POLLING_INTERVAL, interval);
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.hue.internal;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * @author agent - Initial contribution
+ */
+public class ResourceFingerprintsTest {
+
+    private static final String LIGHTS = "{\"1\":{\"name\":\"Kitchen\",\"state\":{\"on\":true,\"bri\":100}},"
+            + "\"2\":{\"name\":\"Hall\",\"state\":{\"on\":false,\"bri\":50}}}";
+
+    private final Gson gson = new Gson();
+
+    private static JsonObject parse(String json) {
+        return JsonParser.parseString(json).getAsJsonObject();
+    }
+
+    private static List<String> ids(ResourceFingerprints.Changes<FullLight> changes) {
+        return changes.getChanged().stream().map(FullLight::getId).sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    public void testFirstUpdateReportsAllResources() {
+        ResourceFingerprints fingerprints = new ResourceFingerprints();
+
+        ResourceFingerprints.Changes<FullLight> changes = fingerprints.update(parse(LIGHTS), gson, FullLight.class);
+
+        assertThat(ids(changes), is(List.of("1", "2")));
+        assertThat(changes.getIds(), is(Set.of("1", "2")));
+    }
+
+    @Test
+    public void testUnchangedResourcesAreSkipped() {
+        ResourceFingerprints fingerprints = new ResourceFingerprints();
+        fingerprints.update(parse(LIGHTS), gson, FullLight.class);
+
+        ResourceFingerprints.Changes<FullLight> changes = fingerprints.update(parse(LIGHTS), gson, FullLight.class);
+
+        assertThat(ids(changes), is(List.of()));
+        assertThat(changes.getIds(), is(Set.of("1", "2")));
+    }
+
+    @Test
+    public void testChangedResourceIsReported() {
+        ResourceFingerprints fingerprints = new ResourceFingerprints();
+        fingerprints.update(parse(LIGHTS), gson, FullLight.class);
+
+        ResourceFingerprints.Changes<FullLight> changes = fingerprints
+                .update(parse(LIGHTS.replace("\"bri\":50", "\"bri\":60")), gson, FullLight.class);
+
+        assertThat(ids(changes), is(List.of("2")));
+    }
+
+    @Test
+    public void testInvalidatedResourceIsReportedAgain() {
+        ResourceFingerprints fingerprints = new ResourceFingerprints();
+        fingerprints.update(parse(LIGHTS), gson, FullLight.class);
+
+        fingerprints.invalidate("1");
+        ResourceFingerprints.Changes<FullLight> changes = fingerprints.update(parse(LIGHTS), gson, FullLight.class);
+
+        assertThat(ids(changes), is(List.of("1")));
+        assertThat(ids(fingerprints.update(parse(LIGHTS), gson, FullLight.class)), is(List.of()));
+    }
+
+    @Test
+    public void testRemovedResourceIsForgotten() {
+        ResourceFingerprints fingerprints = new ResourceFingerprints();
+        fingerprints.update(parse(LIGHTS), gson, FullLight.class);
+
+        ResourceFingerprints.Changes<FullLight> changes = fingerprints
+                .update(parse("{\"1\":{\"name\":\"Kitchen\",\"state\":{\"on\":true,\"bri\":100}}}"), gson,
+                        FullLight.class);
+        assertThat(ids(changes), is(List.of()));
+        assertThat(changes.getIds(), is(Set.of("1")));
+
+        // a light that is added again is reported, even with its old state
+        assertThat(ids(fingerprints.update(parse(LIGHTS), gson, FullLight.class)), is(List.of("2")));
+    }
+
+    @Test
+    public void testRetainAndClearForgetResources() {
+        ResourceFingerprints fingerprints = new ResourceFingerprints();
+        fingerprints.update(parse(LIGHTS), gson, FullLight.class);
+
+        fingerprints.retain(Set.of("2"));
+        assertThat(ids(fingerprints.update(parse(LIGHTS), gson, FullLight.class)), is(List.of("1")));
+
+        fingerprints.clear();
+        assertThat(ids(fingerprints.update(parse(LIGHTS), gson, FullLight.class)), is(List.of("1", "2")));
+    }
+}
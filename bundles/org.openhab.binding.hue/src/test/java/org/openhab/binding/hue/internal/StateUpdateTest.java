@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.hue.internal;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.openhab.binding.hue.internal.dto.ColorTemperature;
+
+/**
+ * @author agent - Initial contribution
+ */
+public class StateUpdateTest {
+
+    @Test
+    public void testMergeReplacesCommandsWithSameKey() {
+        StateUpdate update = new StateUpdate().setOn(false).setBrightness(100);
+        update.merge(new StateUpdate().setOn(true).setHue(200));
+
+        assertThat(update.toJson(), is("{\"bri\":100,\"on\":true,\"hue\":200}"));
+        assertThat(update.getBrightness(), is(100));
+    }
+
+    @Test
+    public void testMergeKeepsLastBrightness() {
+        StateUpdate update = new StateUpdate().setBrightness(100);
+        update.merge(new StateUpdate().setBrightness(150));
+
+        assertThat(update.toJson(), is("{\"bri\":150}"));
+        assertThat(update.getBrightness(), is(150));
+    }
+
+    @Test
+    public void testMergeColorTemperatureReplacesXY() {
+        StateUpdate update = new StateUpdate().setXY(0.5f, 0.25f).setBrightness(100);
+        update.merge(new StateUpdate().setColorTemperature(300, new ColorTemperature()));
+
+        assertThat(update.toJson(), is("{\"bri\":100,\"ct\":300}"));
+        assertThat(update.getColorTemperature(), is(300));
+        assertThat(update.getBrightness(), is(100));
+    }
+
+    @Test
+    public void testMergeHueAndSaturationReplaceColorTemperature() {
+        StateUpdate update = new StateUpdate().setColorTemperature(300, new ColorTemperature()).setBrightness(100);
+        update.merge(new StateUpdate().setHue(200).setSat(150));
+
+        assertThat(update.toJson(), is("{\"bri\":100,\"hue\":200,\"sat\":150}"));
+        assertNull(update.getColorTemperature());
+        assertThat(update.getBrightness(), is(100));
+    }
+
+    @Test
+    public void testMergeKeepsColorOfSameMode() {
+        StateUpdate update = new StateUpdate().setHue(100).setSat(150);
+        update.merge(new StateUpdate().setHue(200));
+
+        assertThat(update.toJson(), is("{\"sat\":150,\"hue\":200}"));
+    }
+
+    @Test
+    public void testSameCommandsIgnoresOrder() {
+        StateUpdate update = new StateUpdate().setOn(true).setBrightness(100);
+
+        assertTrue(update.hasSameCommands(new StateUpdate().setBrightness(100).setOn(true)));
+        assertFalse(update.hasSameCommands(new StateUpdate().setOn(true).setBrightness(101)));
+        assertFalse(update.hasSameCommands(new StateUpdate().setOn(true)));
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.hue.internal.handler;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.binding.hue.internal.FullGroup;
+import org.openhab.binding.hue.internal.FullLight;
+import org.openhab.binding.hue.internal.StateUpdate;
+import org.openhab.binding.hue.internal.handler.HueCommandScheduler.GroupCommand;
+import org.openhab.binding.hue.internal.handler.HueCommandScheduler.LightCommand;
+
+/**
+ * Tests the pacing, merging and group promotion of the {@link HueCommandScheduler}.
+ *
+ * @author agent - Initial contribution
+ */
+public class HueCommandSchedulerTest {
+
+    private final ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+    private final LightStatusListener listener = mock(LightStatusListener.class);
+    private final List<FullGroup> groups = new ArrayList<>();
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final List<Long> taskDelays = new ArrayList<>();
+    private final List<Long> sendTimes = new ArrayList<>();
+    private final List<LightCommand> sentLightCommands = new ArrayList<>();
+    private final List<GroupCommand> sentGroupCommands = new ArrayList<>();
+    private long time = 0;
+
+    private HueCommandScheduler commandScheduler;
+
+    @BeforeEach
+    public void setUp() {
+        doAnswer(invocation -> {
+            tasks.add(invocation.getArgument(0));
+            taskDelays.add(invocation.getArgument(1));
+            return mock(ScheduledFuture.class);
+        }).when(executor).schedule(any(Runnable.class), anyLong(), eq(TimeUnit.MILLISECONDS));
+
+        HueCommandScheduler.Dispatcher dispatcher = new HueCommandScheduler.Dispatcher() {
+            @Override
+            public CompletableFuture<?> sendLightState(LightCommand command) {
+                sendTimes.add(time);
+                sentLightCommands.add(command);
+                return CompletableFuture.completedFuture(null);
+            }
+
+            @Override
+            public CompletableFuture<?> sendGroupState(GroupCommand command) {
+                sendTimes.add(time);
+                sentGroupCommands.add(command);
+                return CompletableFuture.completedFuture(null);
+            }
+        };
+        commandScheduler = new HueCommandScheduler(executor, () -> groups, dispatcher, 10, () -> time);
+    }
+
+    /**
+     * Run the scheduled tasks until the queue is empty, advancing the time by their delays
+     */
+    private void runScheduledTasks() {
+        while (!tasks.isEmpty()) {
+            Runnable task = tasks.remove(0);
+            time += taskDelays.remove(0);
+            task.run();
+        }
+    }
+
+    private static FullLight light(String id) {
+        FullLight light = mock(FullLight.class);
+        when(light.getId()).thenReturn(id);
+        return light;
+    }
+
+    private static FullGroup group(String id, String... lightIds) {
+        FullGroup group = mock(FullGroup.class);
+        when(group.getId()).thenReturn(id);
+        when(group.getLightIds()).thenReturn(List.of(lightIds));
+        return group;
+    }
+
+    @Test
+    public void testLightUpdatesArePaced() {
+        commandScheduler.updateLightState(listener, light("1"), new StateUpdate().turnOn(), 0);
+        commandScheduler.updateLightState(listener, light("2"), new StateUpdate().turnOn(), 0);
+        commandScheduler.updateLightState(listener, light("3"), new StateUpdate().turnOn(), 0);
+
+        runScheduledTasks();
+
+        // held back for the group promotion window, then one update per 100 ms
+        assertEquals(List.of(100L, 200L, 300L), sendTimes);
+        assertEquals(3, sentLightCommands.size());
+        assertEquals(0, commandScheduler.getQueueSize());
+    }
+
+    @Test
+    public void testQueuedUpdatesAreMerged() {
+        FullLight light = light("1");
+        commandScheduler.updateLightState(listener, light, new StateUpdate().turnOn(), 0);
+        commandScheduler.updateLightState(listener, light, new StateUpdate().setBrightness(100), 0);
+
+        runScheduledTasks();
+
+        assertEquals(1, sentLightCommands.size());
+        assertEquals("{\"on\":true,\"bri\":100}", sentLightCommands.get(0).getUpdate().toJson());
+        assertEquals("0 queued, 2 received, 1 coalesced (50%), 1 sent, 0 group promotions",
+                commandScheduler.getStatistics());
+    }
+
+    @Test
+    public void testSameLightUpdatesArePromotedToGroupUpdate() {
+        groups.add(group("1", "1", "2"));
+        commandScheduler.updateLightState(listener, light("1"), new StateUpdate().turnOn(), 0);
+        commandScheduler.updateLightState(listener, light("2"), new StateUpdate().turnOn(), 0);
+        commandScheduler.updateLightState(listener, light("3"), new StateUpdate().turnOn(), 0);
+
+        runScheduledTasks();
+
+        assertEquals(1, sentGroupCommands.size());
+        GroupCommand groupCommand = sentGroupCommands.get(0);
+        assertEquals("1", groupCommand.getGroup().getId());
+        assertEquals(2, groupCommand.getPromotedCommands().size());
+        // the light that is not in the group is sent on its own
+        assertEquals(1, sentLightCommands.size());
+        assertEquals("3", sentLightCommands.get(0).getLight().getId());
+    }
+
+    @Test
+    public void testDifferentLightUpdatesAreNotPromoted() {
+        groups.add(group("1", "1", "2"));
+        commandScheduler.updateLightState(listener, light("1"), new StateUpdate().turnOn(), 0);
+        commandScheduler.updateLightState(listener, light("2"), new StateUpdate().turnOff(), 0);
+
+        runScheduledTasks();
+
+        assertTrue(sentGroupCommands.isEmpty());
+        assertEquals(2, sentLightCommands.size());
+    }
+
+    @Test
+    public void testRetriedLightUpdatesAreSentSeparately() {
+        groups.add(group("1", "1", "2"));
+        commandScheduler.updateLightState(listener, light("1"), new StateUpdate().turnOn(), 0);
+        commandScheduler.updateLightState(listener, light("2"), new StateUpdate().turnOn(), 0);
+        runScheduledTasks();
+        assertEquals(1, sentGroupCommands.size());
+
+        // the group update failed
+        commandScheduler.retryLightCommands(sentGroupCommands.get(0).getPromotedCommands());
+        runScheduledTasks();
+
+        assertEquals(1, sentGroupCommands.size());
+        assertEquals(2, sentLightCommands.size());
+        assertEquals("0 queued, 2 received, 0 coalesced (0%), 3 sent, 1 group promotions",
+                commandScheduler.getStatistics());
+    }
+}
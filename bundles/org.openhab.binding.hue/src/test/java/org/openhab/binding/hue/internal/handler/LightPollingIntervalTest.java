@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.hue.internal.handler;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class LightPollingIntervalTest {
+
+    private static final long INTERVAL = 10000;
+
+    @Test
+    public void testIntervalGrowsUpToThreeTimesWhileNothingChanges() {
+        LightPollingInterval interval = new LightPollingInterval(INTERVAL);
+
+        assertThat(interval.next(false), is(15000L));
+        assertThat(interval.next(false), is(22500L));
+        assertThat(interval.next(false), is(30000L));
+        assertThat(interval.next(false), is(30000L));
+    }
+
+    @Test
+    public void testChangedLightsResetTheInterval() {
+        LightPollingInterval interval = new LightPollingInterval(INTERVAL);
+        interval.next(false);
+        interval.next(false);
+
+        assertThat(interval.next(true), is(INTERVAL));
+        assertThat(interval.next(false), is(15000L));
+    }
+
+    @Test
+    public void testCommandPollsFastThenResumesAtConfiguredInterval() {
+        LightPollingInterval interval = new LightPollingInterval(INTERVAL);
+        for (int i = 0; i < 5; i++) {
+            interval.next(false);
+        }
+
+        interval.commandSent();
+        for (int i = 0; i < LightPollingInterval.FAST_LIGHT_POLLS_AFTER_COMMAND; i++) {
+            assertThat(interval.next(false), is(LightPollingInterval.FAST_LIGHT_POLLING_INTERVAL));
+        }
+        assertThat(interval.next(true), is(INTERVAL));
+    }
+
+    @Test
+    public void testFastIntervalIsNotSlowerThanConfiguredInterval() {
+        LightPollingInterval interval = new LightPollingInterval(500);
+
+        interval.commandSent();
+
+        assertThat(interval.getFastInterval(), is(500L));
+        assertThat(interval.next(false), is(500L));
+    }
+}
@@ -14,19 +14,11 @@ package org.openhab.binding.ipcamera.internal;
 
 import static org.openhab.binding.ipcamera.internal.IpCameraBindingConstants.*;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
-import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.binding.ipcamera.internal.IpCameraBindingConstants.FFmpegFormat;
 import org.openhab.binding.ipcamera.internal.handler.IpCameraHandler;
 import org.openhab.core.library.types.DecimalType;
@@ -37,27 +29,36 @@ import org.slf4j.LoggerFactory;
 /**
  * The {@link Ffmpeg} class is responsible for handling multiple ffmpeg conversions which are used for many tasks
  *
+ * Each instance is one output of FFmpeg, the process that creates it is run by the {@link FfmpegMultiplexer} of the
+ * camera and may read the camera stream from a source process that is shared with the other outputs.
  *
  * @author Matthew Skinner - Initial contribution
+ * @author agent - Run the conversions with the FFmpeg multiplexer of the camera
  */
 
 @NonNullByDefault
 public class Ffmpeg {
     private final Logger logger = LoggerFactory.getLogger(getClass());
     private IpCameraHandler ipCameraHandler;
-    private @Nullable Process process = null;
-    private String ffmpegCommand = "";
+    private FfmpegMultiplexer multiplexer;
     private FFmpegFormat format;
-    private List<String> commandArrayList = new ArrayList<String>();
-    private IpCameraFfmpegThread ipCameraFfmpegThread = new IpCameraFfmpegThread();
+    private String ffmpegLocation;
+    private List<String> globalArguments = new ArrayList<String>();
+    private List<String> sourceArguments = new ArrayList<String>();
+    private List<String> decoderArguments = new ArrayList<String>();
+    private String input;
+    private List<String> outputArguments = new ArrayList<String>();
     private int keepAlive = 8;
+    private int countOfMotions;
     private String password;
 
     public Ffmpeg(IpCameraHandler handle, FFmpegFormat format, String ffmpegLocation, String inputArguments,
             String input, String outArguments, String output, String username, String password) {
         this.format = format;
         this.password = password;
+        this.ffmpegLocation = ffmpegLocation;
         ipCameraHandler = handle;
+        multiplexer = handle.getFfmpegMultiplexer();
         String altInput = input;
         // Input can be snapshots not just rtsp or http
         if (!password.isEmpty() && !input.contains("@") && input.contains("rtsp")) {
@@ -65,14 +66,57 @@ public class Ffmpeg {
             // will not work for https: but currently binding does not use https
             altInput = input.substring(0, 7) + credentials + input.substring(7);
         }
-        if (inputArguments.isEmpty()) {
-            ffmpegCommand = "-i " + altInput + " " + outArguments + " " + output;
-        } else {
-            ffmpegCommand = inputArguments + " -i " + altInput + " " + outArguments + " " + output;
+        this.input = altInput;
+        splitInputArguments(inputArguments);
+        if (!outArguments.isBlank()) {
+            Collections.addAll(outputArguments, outArguments.trim().split("\\s+"));
         }
-        Collections.addAll(commandArrayList, ffmpegCommand.trim().split("\\s+"));
-        // ffmpegLocation may have a space in its folder
-        commandArrayList.add(0, ffmpegLocation);
+        Collections.addAll(outputArguments, output.trim().split("\\s+"));
+    }
+
+    /**
+     * Sort the arguments before the input, so outputs that read the same input can share the source process. Options
+     * of the decoder stay with this output, a duration limits only this output and overwriting is always allowed.
+     */
+    private void splitInputArguments(String arguments) {
+        List<String> outputOptions = new ArrayList<String>();
+        String[] tokens = arguments.trim().split("\\s+");
+        for (int i = 0; i < tokens.length; i++) {
+            switch (tokens[i]) {
+                case "":
+                case "-y":
+                    break;
+                case "-hide_banner":
+                    globalArguments.add(tokens[i]);
+                    break;
+                case "-loglevel":
+                    if (i + 1 < tokens.length) {
+                        globalArguments.add(tokens[i]);
+                        globalArguments.add(tokens[++i]);
+                    }
+                    break;
+                case "-t":
+                    if (i + 1 < tokens.length) {
+                        outputOptions.add(tokens[i]);
+                        outputOptions.add(tokens[++i]);
+                    }
+                    break;
+                case "-skip_frame":
+                case "-threads":
+                case "-hwaccel":
+                case "-hwaccel_device":
+                case "-c:v":
+                case "-vcodec":
+                    if (i + 1 < tokens.length) {
+                        decoderArguments.add(tokens[i]);
+                        decoderArguments.add(tokens[++i]);
+                    }
+                    break;
+                default:
+                    sourceArguments.add(tokens[i]);
+            }
+        }
+        outputArguments.addAll(outputOptions);
     }
 
     public void setKeepAlive(int numberOfEightSeconds) {
@@ -95,86 +139,104 @@ public class Ffmpeg {
         }
     }
 
-    private class IpCameraFfmpegThread extends Thread {
-        private ScheduledExecutorService threadPool = Executors.newScheduledThreadPool(2);
-        public int countOfMotions;
+    FFmpegFormat getFormat() {
+        return format;
+    }
 
-        IpCameraFfmpegThread() {
-            setDaemon(true);
-        }
+    String getFfmpegLocation() {
+        return ffmpegLocation;
+    }
 
-        private void gifCreated() {
-            // Without a small delay, Pushover sends no file 10% of time.
-            ipCameraHandler.setChannelState(CHANNEL_RECORDING_GIF, DecimalType.ZERO);
-            ipCameraHandler.setChannelState(CHANNEL_GIF_HISTORY_LENGTH,
-                    new DecimalType(++ipCameraHandler.gifHistoryLength));
-        }
+    List<String> getGlobalArguments() {
+        return globalArguments;
+    }
 
-        private void mp4Created() {
-            ipCameraHandler.setChannelState(CHANNEL_RECORDING_MP4, DecimalType.ZERO);
-            ipCameraHandler.setChannelState(CHANNEL_MP4_HISTORY_LENGTH,
-                    new DecimalType(++ipCameraHandler.mp4HistoryLength));
-        }
+    /**
+     * @return the input options that are used to receive the stream, like the RTSP transport
+     */
+    List<String> getSourceArguments() {
+        return sourceArguments;
+    }
 
-        @Override
-        public void run() {
-            try {
-                process = Runtime.getRuntime().exec(commandArrayList.toArray(new String[commandArrayList.size()]));
-                Process localProcess = process;
-                if (localProcess != null) {
-                    InputStream errorStream = localProcess.getErrorStream();
-                    InputStreamReader errorStreamReader = new InputStreamReader(errorStream);
-                    BufferedReader bufferedReader = new BufferedReader(errorStreamReader);
-                    String line = null;
-                    while ((line = bufferedReader.readLine()) != null) {
-                        if (format.equals(FFmpegFormat.RTSP_ALARMS)) {
-                            logger.debug("{}", line);
-                            if (line.contains("lavfi.")) {
-                                if (countOfMotions == 4) {
-                                    ipCameraHandler.motionDetected(CHANNEL_FFMPEG_MOTION_ALARM);
-                                } else {
-                                    countOfMotions++;
-                                }
-                            } else if (line.contains("speed=")) {
-                                if (countOfMotions > 0) {
-                                    countOfMotions--;
-                                    countOfMotions--;
-                                    if (countOfMotions <= 0) {
-                                        ipCameraHandler.noMotionDetected(CHANNEL_FFMPEG_MOTION_ALARM);
-                                    }
-                                }
-                            } else if (line.contains("silence_start")) {
-                                ipCameraHandler.noAudioDetected();
-                            } else if (line.contains("silence_end")) {
-                                ipCameraHandler.audioDetected();
-                            }
-                        } else {
-                            logger.debug("{}", line);
-                        }
-                    }
-                }
-            } catch (IOException e) {
-                logger.warn("An error occured trying to process the messages from FFmpeg.");
-            } finally {
-                switch (format) {
-                    case GIF:
-                        threadPool.schedule(this::gifCreated, 800, TimeUnit.MILLISECONDS);
-                        break;
-                    case RECORD:
-                        threadPool.schedule(this::mp4Created, 800, TimeUnit.MILLISECONDS);
-                        break;
-                    default:
-                        break;
+    /**
+     * @return the input options that are used to decode the stream, like decoding only the key frames
+     */
+    List<String> getDecoderArguments() {
+        return decoderArguments;
+    }
+
+    String getInput() {
+        return input;
+    }
+
+    List<String> getOutputArguments() {
+        return outputArguments;
+    }
+
+    /**
+     * @return true for recordings, which end by themselves, as FFmpeg finishes the files only when the process ends
+     */
+    boolean isRecording() {
+        return format == FFmpegFormat.GIF || format == FFmpegFormat.RECORD;
+    }
+
+    /**
+     * Hide the password of the camera in a command that is logged
+     */
+    String hidePassword(String command) {
+        return password.isEmpty() ? command : command.replace(password, "********");
+    }
+
+    /**
+     * Process a line that FFmpeg has written to stderr
+     */
+    void processLine(String line) {
+        if (!format.equals(FFmpegFormat.RTSP_ALARMS)) {
+            return;
+        }
+        if (line.contains("lavfi.")) {
+            if (countOfMotions == 4) {
+                ipCameraHandler.motionDetected(CHANNEL_FFMPEG_MOTION_ALARM);
+            } else {
+                countOfMotions++;
+            }
+        } else if (line.contains("speed=")) {
+            if (countOfMotions > 0) {
+                countOfMotions--;
+                countOfMotions--;
+                if (countOfMotions <= 0) {
+                    ipCameraHandler.noMotionDetected(CHANNEL_FFMPEG_MOTION_ALARM);
                 }
             }
+        } else if (line.contains("silence_start")) {
+            ipCameraHandler.noAudioDetected();
+        } else if (line.contains("silence_end")) {
+            ipCameraHandler.audioDetected();
+        }
+    }
+
+    /**
+     * Called when the process that created this output has ended
+     */
+    void outputFinished() {
+        switch (format) {
+            case GIF:
+                ipCameraHandler.setChannelState(CHANNEL_RECORDING_GIF, DecimalType.ZERO);
+                ipCameraHandler.setChannelState(CHANNEL_GIF_HISTORY_LENGTH,
+                        new DecimalType(++ipCameraHandler.gifHistoryLength));
+                break;
+            case RECORD:
+                ipCameraHandler.setChannelState(CHANNEL_RECORDING_MP4, DecimalType.ZERO);
+                ipCameraHandler.setChannelState(CHANNEL_MP4_HISTORY_LENGTH,
+                        new DecimalType(++ipCameraHandler.mp4HistoryLength));
+                break;
+            default:
+                break;
         }
     }
 
     public void startConverting() {
-        if (!ipCameraFfmpegThread.isAlive()) {
-            ipCameraFfmpegThread = new IpCameraFfmpegThread();
-            logger.debug("Starting ffmpeg with this command now:{}", ffmpegCommand.replaceAll(password, "********"));
-            ipCameraFfmpegThread.start();
+        if (multiplexer.start(this)) {
             if (format.equals(FFmpegFormat.HLS)) {
                 ipCameraHandler.setChannelState(CHANNEL_START_STREAM, OnOffType.ON);
             }
@@ -185,20 +247,12 @@ public class Ffmpeg {
     }
 
     public boolean getIsAlive() {
-        Process localProcess = process;
-        if (localProcess != null) {
-            return localProcess.isAlive();
-        }
-        return false;
+        return multiplexer.isRunning(this);
     }
 
     public void stopConverting() {
-        if (ipCameraFfmpegThread.isAlive()) {
+        if (multiplexer.stop(this)) {
             logger.debug("Stopping ffmpeg {} now when keepalive is:{}", format, keepAlive);
-            Process localProcess = process;
-            if (localProcess != null) {
-                localProcess.destroyForcibly();
-            }
             if (format.equals(FFmpegFormat.HLS)) {
                 ipCameraHandler.setChannelState(CHANNEL_START_STREAM, OnOffType.OFF);
             }
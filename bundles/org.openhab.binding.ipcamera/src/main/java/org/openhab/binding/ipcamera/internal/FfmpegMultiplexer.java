@@ -0,0 +1,563 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.ipcamera.internal;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link FfmpegMultiplexer} runs the FFmpeg processes of a camera.
+ *
+ * An RTSP stream of the camera is opened once by a source process, which restreams it locally in MPEG-TS format
+ * without decoding it. Each output, like HLS, MJPEG, snapshots, the motion and audio alarms and the recordings, is
+ * created by a process of its own that reads the restream from its standard input. So outputs can be started and
+ * stopped at any time without interrupting the others, and recordings finish their files when their process ends.
+ * Other inputs, like HTTP streams or the snapshot files of the GIF pre-roll, are read directly by the output process.
+ *
+ * A process that ends while it is still wanted is restarted, with a delay that grows after each failure. The
+ * outputs keep running while their source is restarted. The number of running processes and their CPU time are kept
+ * for the statistics of the camera.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class FfmpegMultiplexer {
+    private static final long MIN_RESTART_DELAY_SECONDS = 2;
+    private static final long MAX_RESTART_DELAY_SECONDS = 60;
+    // Without a small delay, Pushover sends no file 10% of time.
+    private static final long RECORDING_FINISHED_DELAY_MS = 800;
+    // The restream is passed on in whole MPEG-TS packets, so an output that missed data can resynchronise
+    private static final int TS_PACKET_SIZE = 188;
+    private static final int CHUNK_SIZE = TS_PACKET_SIZE * 348;
+    // About 16 MB of stream data an output may fall behind before data is dropped
+    private static final int MAX_QUEUED_CHUNKS = 256;
+
+    private final Logger logger = LoggerFactory.getLogger(FfmpegMultiplexer.class);
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, SourceProcess> sources = new HashMap<>();
+    private final Map<Ffmpeg, OutputProcess> outputs = new LinkedHashMap<>();
+    private Duration cpuTimeOfEndedProcesses = Duration.ZERO;
+    private int restarts = 0;
+
+    /**
+     * One FFmpeg process, restarted when it ends unexpectedly
+     */
+    private abstract class FfmpegProcess {
+        @Nullable Process process;
+        @Nullable ScheduledFuture<?> restartJob;
+        long startTime;
+        long restartDelaySeconds = MIN_RESTART_DELAY_SECONDS;
+        Duration cpuTime = Duration.ZERO;
+
+        protected abstract List<String> getCommand();
+
+        protected abstract String hidePassword(String command);
+
+        protected abstract ProcessBuilder redirect(ProcessBuilder processBuilder);
+
+        protected abstract void started(Process process);
+
+        protected void processLine(String line) {
+        }
+
+        boolean isAlive() {
+            Process localProcess = process;
+            return localProcess != null && localProcess.isAlive();
+        }
+    }
+
+    /**
+     * Receives the stream of the camera and restreams it to the standard input of its outputs
+     */
+    private class SourceProcess extends FfmpegProcess {
+        private final String key;
+        private final Ffmpeg firstOutput;
+        private final Set<OutputProcess> outputs = new CopyOnWriteArraySet<>();
+
+        private SourceProcess(String key, Ffmpeg firstOutput) {
+            this.key = key;
+            this.firstOutput = firstOutput;
+        }
+
+        @Override
+        protected List<String> getCommand() {
+            return buildSourceCommand(firstOutput);
+        }
+
+        @Override
+        protected String hidePassword(String command) {
+            return firstOutput.hidePassword(command);
+        }
+
+        @Override
+        protected ProcessBuilder redirect(ProcessBuilder processBuilder) {
+            return processBuilder.redirectOutput(ProcessBuilder.Redirect.PIPE);
+        }
+
+        @Override
+        protected void started(Process process) {
+            startThread(() -> restream(this, process.getInputStream()), "restream", process);
+        }
+    }
+
+    /**
+     * Creates one output, from the restream of its source or directly from the input
+     */
+    private class OutputProcess extends FfmpegProcess {
+        private final Ffmpeg output;
+        private final @Nullable SourceProcess source;
+        private volatile @Nullable StreamWriter writer;
+
+        private OutputProcess(Ffmpeg output, @Nullable SourceProcess source) {
+            this.output = output;
+            this.source = source;
+        }
+
+        @Override
+        protected List<String> getCommand() {
+            return buildOutputCommand(output, source != null);
+        }
+
+        @Override
+        protected String hidePassword(String command) {
+            return output.hidePassword(command);
+        }
+
+        @Override
+        protected ProcessBuilder redirect(ProcessBuilder processBuilder) {
+            return processBuilder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        }
+
+        @Override
+        protected void started(Process process) {
+            if (source != null) {
+                StreamWriter streamWriter = new StreamWriter(process.getOutputStream());
+                writer = streamWriter;
+                startThread(streamWriter::run, "writer", process);
+            }
+        }
+
+        @Override
+        protected void processLine(String line) {
+            output.processLine(line);
+        }
+
+        private void closeWriter() {
+            StreamWriter streamWriter = writer;
+            if (streamWriter != null) {
+                streamWriter.close();
+                writer = null;
+            }
+        }
+    }
+
+    /**
+     * Writes the restream to the standard input of an output process. If the output falls behind, data is dropped
+     * instead of slowing down the source and the other outputs.
+     */
+    private class StreamWriter {
+        private final OutputStream stream;
+        private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(MAX_QUEUED_CHUNKS);
+        private volatile boolean closed = false;
+        private boolean dropping = false;
+
+        private StreamWriter(OutputStream stream) {
+            this.stream = stream;
+        }
+
+        private void offer(byte[] chunk) {
+            if (chunks.offer(chunk)) {
+                dropping = false;
+            } else if (!dropping) {
+                dropping = true;
+                logger.debug("FFmpeg can not keep up with the stream of the camera, dropping data.");
+            }
+        }
+
+        private void run() {
+            try (OutputStream localStream = stream) {
+                while (!closed) {
+                    byte[] chunk = chunks.poll(1, TimeUnit.SECONDS);
+                    if (chunk != null) {
+                        localStream.write(chunk);
+                        localStream.flush();
+                    }
+                }
+            } catch (IOException e) {
+                // the output process has ended
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void close() {
+            closed = true;
+            chunks.clear();
+        }
+    }
+
+    /**
+     * @param scheduler used for delayed restarts and to report finished recordings
+     */
+    public FfmpegMultiplexer(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Start creating an output. An RTSP stream is received by a source process that is shared with the other outputs
+     * of the same input; it is started if it is not already running.
+     *
+     * @param output the output
+     * @return true if the output was not already being created
+     */
+    public synchronized boolean start(Ffmpeg output) {
+        if (outputs.containsKey(output)) {
+            return false;
+        }
+        SourceProcess source = null;
+        if (isRestreamed(output)) {
+            String key = getSourceKey(output);
+            source = sources.get(key);
+            if (source == null) {
+                source = new SourceProcess(key, output);
+                sources.put(key, source);
+                launch(source);
+            }
+        }
+        OutputProcess outputProcess = new OutputProcess(output, source);
+        if (source != null) {
+            source.outputs.add(outputProcess);
+        }
+        outputs.put(output, outputProcess);
+        launch(outputProcess);
+        return true;
+    }
+
+    /**
+     * Stop creating an output. Its source is stopped when no other output reads from it.
+     *
+     * @param output the output
+     * @return true if the output was being created
+     */
+    public synchronized boolean stop(Ffmpeg output) {
+        OutputProcess outputProcess = outputs.get(output);
+        if (outputProcess == null) {
+            return false;
+        }
+        terminate(outputProcess);
+        remove(outputProcess);
+        return true;
+    }
+
+    /**
+     * @param output the output
+     * @return true if the output is being created, or its process is about to be restarted after a failure
+     */
+    public synchronized boolean isRunning(Ffmpeg output) {
+        OutputProcess outputProcess = outputs.get(output);
+        return outputProcess != null && (outputProcess.isAlive() || outputProcess.restartJob != null);
+    }
+
+    /**
+     * Stop all processes of the camera.
+     */
+    public synchronized void stopAll() {
+        for (OutputProcess outputProcess : List.copyOf(outputs.values())) {
+            terminate(outputProcess);
+            remove(outputProcess);
+        }
+        for (SourceProcess source : sources.values()) {
+            terminate(source);
+        }
+        sources.clear();
+    }
+
+    /**
+     * @return the number of running processes, only the sources receive the stream of the camera
+     */
+    public synchronized int getProcessCount() {
+        int count = 0;
+        for (FfmpegProcess ffmpegProcess : getProcesses()) {
+            if (ffmpegProcess.isAlive()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the CPU time used by all processes of the camera, including the ones that have ended
+     */
+    public synchronized Duration getCpuTime() {
+        Duration cpuTime = cpuTimeOfEndedProcesses;
+        for (FfmpegProcess ffmpegProcess : getProcesses()) {
+            sampleCpuTime(ffmpegProcess);
+            cpuTime = cpuTime.plus(ffmpegProcess.cpuTime);
+        }
+        return cpuTime;
+    }
+
+    /**
+     * @return the number of times a process was restarted because it ended unexpectedly
+     */
+    public synchronized int getRestarts() {
+        return restarts;
+    }
+
+    /**
+     * @return true if the output reads an RTSP stream, which is received once for all outputs
+     */
+    static boolean isRestreamed(Ffmpeg output) {
+        return output.getInput().toLowerCase().startsWith("rtsp");
+    }
+
+    /**
+     * Outputs share a source if they receive the same input in the same way
+     */
+    static String getSourceKey(Ffmpeg output) {
+        return output.getFfmpegLocation() + " " + String.join(" ", output.getSourceArguments()) + " -i "
+                + output.getInput();
+    }
+
+    /**
+     * The source receives the video and audio of the camera and restreams them without decoding the video. The audio
+     * is converted to AAC, as the audio codecs of many cameras can not be carried in MPEG-TS.
+     */
+    static List<String> buildSourceCommand(Ffmpeg output) {
+        List<String> command = new ArrayList<>();
+        // ffmpegLocation may have a space in its folder
+        command.add(output.getFfmpegLocation());
+        command.addAll(List.of("-hide_banner", "-loglevel", "warning"));
+        command.addAll(output.getSourceArguments());
+        command.add("-i");
+        command.add(output.getInput());
+        command.addAll(List.of("-map", "0:v", "-map", "0:a?", "-c:v", "copy", "-c:a", "aac", "-f", "mpegts", "pipe:1"));
+        return command;
+    }
+
+    /**
+     * @param restreamed true if the output reads the restream of its source from the standard input
+     */
+    static List<String> buildOutputCommand(Ffmpeg output, boolean restreamed) {
+        List<String> command = new ArrayList<>();
+        command.add(output.getFfmpegLocation());
+        command.addAll(output.getGlobalArguments());
+        command.add("-y");
+        if (restreamed) {
+            command.addAll(output.getDecoderArguments());
+            command.addAll(List.of("-f", "mpegts", "-i", "pipe:0"));
+        } else {
+            command.addAll(output.getSourceArguments());
+            command.addAll(output.getDecoderArguments());
+            command.add("-i");
+            command.add(output.getInput());
+        }
+        command.addAll(output.getOutputArguments());
+        return command;
+    }
+
+    private List<FfmpegProcess> getProcesses() {
+        List<FfmpegProcess> processes = new ArrayList<>(sources.values());
+        processes.addAll(outputs.values());
+        return processes;
+    }
+
+    private boolean isWanted(FfmpegProcess ffmpegProcess) {
+        if (ffmpegProcess instanceof SourceProcess) {
+            return sources.get(((SourceProcess) ffmpegProcess).key) == ffmpegProcess;
+        }
+        return outputs.get(((OutputProcess) ffmpegProcess).output) == ffmpegProcess;
+    }
+
+    /**
+     * Forget an output that is stopped or finished, and its source if no other output reads from it
+     */
+    private void remove(OutputProcess outputProcess) {
+        outputs.remove(outputProcess.output, outputProcess);
+        if (outputProcess.output.isRecording()) {
+            scheduler.schedule(outputProcess.output::outputFinished, RECORDING_FINISHED_DELAY_MS,
+                    TimeUnit.MILLISECONDS);
+        }
+        SourceProcess source = outputProcess.source;
+        if (source != null) {
+            source.outputs.remove(outputProcess);
+            if (source.outputs.isEmpty() && sources.remove(source.key, source)) {
+                terminate(source);
+            }
+        }
+    }
+
+    private void launch(FfmpegProcess ffmpegProcess) {
+        List<String> command = ffmpegProcess.getCommand();
+        logger.debug("Starting ffmpeg with this command now:{}",
+                ffmpegProcess.hidePassword(String.join(" ", command)));
+        try {
+            Process process = ffmpegProcess.redirect(new ProcessBuilder(command)).start();
+            ffmpegProcess.process = process;
+            ffmpegProcess.startTime = System.nanoTime();
+            ffmpegProcess.started(process);
+            startThread(() -> readErrors(ffmpegProcess, process), "ffmpeg", process);
+        } catch (IOException e) {
+            logger.warn("FFmpeg could not be started: {}", e.getMessage());
+            if (ffmpegProcess instanceof OutputProcess && ((OutputProcess) ffmpegProcess).output.isRecording()) {
+                remove((OutputProcess) ffmpegProcess);
+            } else {
+                scheduleRestart(ffmpegProcess);
+            }
+        }
+    }
+
+    private void startThread(Runnable runnable, String name, Process process) {
+        Thread thread = new Thread(runnable, "OH-binding-ipcamera-" + name + "-" + process.pid());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Pass the restream on to the outputs of the source, in whole MPEG-TS packets
+     */
+    private void restream(SourceProcess source, InputStream stream) {
+        byte[] buffer = new byte[CHUNK_SIZE];
+        int filled = 0;
+        try (InputStream localStream = stream) {
+            int read;
+            while ((read = localStream.read(buffer, filled, buffer.length - filled)) >= 0) {
+                filled += read;
+                int packets = filled - filled % TS_PACKET_SIZE;
+                if (packets == 0) {
+                    continue;
+                }
+                byte[] chunk = Arrays.copyOf(buffer, packets);
+                for (OutputProcess outputProcess : source.outputs) {
+                    StreamWriter streamWriter = outputProcess.writer;
+                    if (streamWriter != null) {
+                        streamWriter.offer(chunk);
+                    }
+                }
+                System.arraycopy(buffer, packets, buffer, 0, filled - packets);
+                filled -= packets;
+            }
+        } catch (IOException e) {
+            // the source process has ended
+        }
+    }
+
+    private void readErrors(FfmpegProcess ffmpegProcess, Process process) {
+        try (BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(process.getErrorStream()))) {
+            String line = null;
+            while ((line = bufferedReader.readLine()) != null) {
+                logger.debug("{}", line);
+                ffmpegProcess.processLine(line);
+            }
+        } catch (IOException e) {
+            logger.warn("An error occured trying to process the messages from FFmpeg.");
+        } finally {
+            processEnded(ffmpegProcess, process);
+        }
+    }
+
+    private synchronized void processEnded(FfmpegProcess ffmpegProcess, Process process) {
+        if (ffmpegProcess.process != process) {
+            // stopped, the output has been reported by stop
+            return;
+        }
+        retire(ffmpegProcess);
+        if (!isWanted(ffmpegProcess)) {
+            return;
+        }
+        if (ffmpegProcess instanceof OutputProcess) {
+            OutputProcess outputProcess = (OutputProcess) ffmpegProcess;
+            outputProcess.closeWriter();
+            if (outputProcess.output.isRecording()) {
+                // a recording has reached its length
+                remove(outputProcess);
+                return;
+            }
+        }
+        if (System.nanoTime() - ffmpegProcess.startTime > TimeUnit.SECONDS.toNanos(MAX_RESTART_DELAY_SECONDS)) {
+            // it ran for a while, so this is a new failure
+            ffmpegProcess.restartDelaySeconds = MIN_RESTART_DELAY_SECONDS;
+        }
+        logger.warn("FFmpeg stopped unexpectedly, restarting it in {} seconds.", ffmpegProcess.restartDelaySeconds);
+        scheduleRestart(ffmpegProcess);
+    }
+
+    private void scheduleRestart(FfmpegProcess ffmpegProcess) {
+        long delay = ffmpegProcess.restartDelaySeconds;
+        ffmpegProcess.restartDelaySeconds = Math.min(delay * 2, MAX_RESTART_DELAY_SECONDS);
+        ffmpegProcess.restartJob = scheduler.schedule(() -> restart(ffmpegProcess), delay, TimeUnit.SECONDS);
+    }
+
+    private synchronized void restart(FfmpegProcess ffmpegProcess) {
+        ffmpegProcess.restartJob = null;
+        if (isWanted(ffmpegProcess) && !ffmpegProcess.isAlive()) {
+            restarts++;
+            launch(ffmpegProcess);
+        }
+    }
+
+    private void terminate(FfmpegProcess ffmpegProcess) {
+        ScheduledFuture<?> localJob = ffmpegProcess.restartJob;
+        if (localJob != null) {
+            localJob.cancel(false);
+            ffmpegProcess.restartJob = null;
+        }
+        if (ffmpegProcess instanceof OutputProcess) {
+            ((OutputProcess) ffmpegProcess).closeWriter();
+        }
+        Process localProcess = ffmpegProcess.process;
+        if (localProcess != null) {
+            sampleCpuTime(ffmpegProcess);
+            retire(ffmpegProcess);
+            localProcess.destroyForcibly();
+        }
+    }
+
+    /**
+     * Keep the CPU time of a process that has ended or is about to be stopped.
+     */
+    private void retire(FfmpegProcess ffmpegProcess) {
+        cpuTimeOfEndedProcesses = cpuTimeOfEndedProcesses.plus(ffmpegProcess.cpuTime);
+        ffmpegProcess.cpuTime = Duration.ZERO;
+        ffmpegProcess.process = null;
+    }
+
+    private void sampleCpuTime(FfmpegProcess ffmpegProcess) {
+        Process localProcess = ffmpegProcess.process;
+        if (localProcess != null) {
+            localProcess.info().totalCpuDuration().ifPresent(cpuTime -> ffmpegProcess.cpuTime = cpuTime);
+        }
+    }
+}
@@ -24,6 +24,7 @@ import org.openhab.core.thing.ThingTypeUID;
  * are used across the whole binding.
  *
  * @author Matthew Skinner - Initial contribution
+ * @author agent - Properties with the FFmpeg statistics
  */
 @NonNullByDefault
 public class IpCameraBindingConstants {
@@ -72,6 +73,11 @@ public class IpCameraBindingConstants {
     public static final String CONFIG_IPADDRESS = "ipAddress";
     public static final String CONFIG_ONVIF_PORT = "onvifPort";
 
+    // List of all Thing properties
+    public static final String PROPERTY_FFMPEG_PROCESSES = "ffmpegProcesses";
+    public static final String PROPERTY_FFMPEG_CPU_TIME = "ffmpegCpuTime";
+    public static final String PROPERTY_FFMPEG_RESTARTS = "ffmpegRestarts";
+
     // List of all Channel ids
     public static final String CHANNEL_POLL_IMAGE = "pollImage";
     public static final String CHANNEL_RECORDING_GIF = "recordingGif";
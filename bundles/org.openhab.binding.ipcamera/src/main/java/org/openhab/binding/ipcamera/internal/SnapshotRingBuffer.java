@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.ipcamera.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * The {@link SnapshotRingBuffer} keeps the latest snapshots of a camera for the GIF pre-roll. The buffer holds a
+ * reference to each snapshot, the oldest snapshot is released when a new one is added to a full buffer.
+ *
+ * @author agent - Initial contribution
+ */
+
+@NonNullByDefault
+public class SnapshotRingBuffer {
+    private @Nullable ByteBuf[] snapshots = new ByteBuf[0];
+    private int next = 0;
+    private int size = 0;
+
+    /**
+     * Add a snapshot. The buffer retains its own reference, the caller keeps the reference it holds.
+     *
+     * @param snapshot the JPEG
+     * @param capacity the number of snapshots to keep. If it changed, the newest snapshots are kept.
+     */
+    public synchronized void add(ByteBuf snapshot, int capacity) {
+        if (capacity <= 0) {
+            clear();
+            return;
+        }
+        if (capacity != snapshots.length) {
+            resize(capacity);
+        }
+        ByteBuf oldest = snapshots[next];
+        if (oldest != null) {
+            oldest.release();
+        } else {
+            size++;
+        }
+        snapshots[next] = snapshot.retainedDuplicate();
+        next = (next + 1) % snapshots.length;
+    }
+
+    /**
+     * Get the snapshots from the oldest to the newest. Each snapshot must be released by the caller.
+     *
+     * @return the snapshots
+     */
+    public synchronized List<ByteBuf> retainAll() {
+        List<ByteBuf> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ByteBuf snapshot = snapshots[(next - size + i + snapshots.length) % snapshots.length];
+            if (snapshot != null) {
+                result.add(snapshot.retainedDuplicate());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Release all snapshots.
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < snapshots.length; i++) {
+            ByteBuf snapshot = snapshots[i];
+            if (snapshot != null) {
+                snapshot.release();
+                snapshots[i] = null;
+            }
+        }
+        next = 0;
+        size = 0;
+    }
+
+    private void resize(int capacity) {
+        List<ByteBuf> newest = retainAll();
+        clear();
+        snapshots = new ByteBuf[capacity];
+        for (ByteBuf snapshot : newest.subList(Math.max(0, newest.size() - capacity), newest.size())) {
+            snapshots[next] = snapshot.retain();
+            next = (next + 1) % capacity;
+            size++;
+        }
+        newest.forEach(ByteBuf::release);
+    }
+}
@@ -49,6 +49,7 @@ import io.netty.util.ReferenceCountUtil;
  * features.
  *
  * @author Matthew Skinner - Initial contribution
+ * @author agent - Pooled buffers for incoming JPEGs
  */
 
 @NonNullByDefault
@@ -57,9 +58,8 @@ public class StreamServerHandler extends ChannelInboundHandlerAdapter {
     private IpCameraHandler ipCameraHandler;
     private boolean handlingMjpeg = false; // used to remove ctx from group when handler is removed.
     private boolean handlingSnapshotStream = false; // used to remove ctx from group when handler is removed.
-    private byte[] incomingJpeg = new byte[0];
+    private @Nullable ByteBuf incomingJpeg;
     private String whiteList = "";
-    private int recievedBytes = 0;
     private boolean updateSnapshot = false;
     private boolean onvifEvent = false;
 
@@ -120,7 +120,7 @@ public class StreamServerHandler extends ChannelInboundHandlerAdapter {
                             if (!ipCameraHandler.snapshotPolling && ipCameraHandler.snapshotUri != "") {
                                 ipCameraHandler.sendHttpGET(ipCameraHandler.snapshotUri);
                             }
-                            if (ipCameraHandler.currentSnapshot.length == 1) {
+                            if (!ipCameraHandler.hasSnapshot()) {
                                 logger.warn("ipcamera.jpg was requested but there is no jpg in ram to send.");
                                 return;
                             }
@@ -176,27 +176,29 @@ public class StreamServerHandler extends ChannelInboundHandlerAdapter {
             }
             if (msg instanceof HttpContent) {
                 HttpContent content = (HttpContent) msg;
-                if (recievedBytes == 0) {
-                    incomingJpeg = new byte[content.content().readableBytes()];
-                    content.content().getBytes(0, incomingJpeg, 0, content.content().readableBytes());
-                } else {
-                    byte[] temp = incomingJpeg;
-                    incomingJpeg = new byte[recievedBytes + content.content().readableBytes()];
-                    System.arraycopy(temp, 0, incomingJpeg, 0, temp.length);
-                    content.content().getBytes(0, incomingJpeg, temp.length, content.content().readableBytes());
+                ByteBuf localJpeg = incomingJpeg;
+                if (localJpeg == null) {
+                    // pooled buffer, which grows without copying the bytes to a new array for each chunk
+                    localJpeg = ctx.alloc().buffer(content.content().readableBytes());
+                    incomingJpeg = localJpeg;
                 }
-                recievedBytes = incomingJpeg.length;
+                localJpeg.writeBytes(content.content());
                 if (content instanceof LastHttpContent) {
+                    incomingJpeg = null;
                     if (updateSnapshot) {
-                        ipCameraHandler.processSnapshot(incomingJpeg);
-                    } else if (onvifEvent) {
-                        ipCameraHandler.onvifCamera.eventRecieved(new String(incomingJpeg, StandardCharsets.UTF_8));
-                    } else { // handles the snapshots that make up mjpeg from rtsp to ffmpeg conversions.
-                        if (recievedBytes > 1000) {
-                            ipCameraHandler.sendMjpegFrame(incomingJpeg, ipCameraHandler.mjpegChannelGroup);
+                        ipCameraHandler.processSnapshot(localJpeg);
+                    } else {
+                        try {
+                            if (onvifEvent) {
+                                ipCameraHandler.onvifCamera.eventRecieved(localJpeg.toString(StandardCharsets.UTF_8));
+                            } else if (localJpeg.readableBytes() > 1000) {
+                                // handles the snapshots that make up mjpeg from rtsp to ffmpeg conversions.
+                                ipCameraHandler.sendMjpegFrame(localJpeg, ipCameraHandler.mjpegChannelGroup);
+                            }
+                        } finally {
+                            localJpeg.release();
                         }
                     }
-                    recievedBytes = 0;
                 }
             }
         } finally {
@@ -206,22 +208,18 @@ public class StreamServerHandler extends ChannelInboundHandlerAdapter {
 
     private void sendSnapshotImage(ChannelHandlerContext ctx, String contentType) {
         HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
-        ipCameraHandler.lockCurrentSnapshot.lock();
-        try {
-            ByteBuf snapshotData = Unpooled.copiedBuffer(ipCameraHandler.currentSnapshot);
-            response.headers().add(HttpHeaderNames.CONTENT_TYPE, contentType);
-            response.headers().set(HttpHeaderNames.CACHE_CONTROL, HttpHeaderValues.NO_CACHE);
-            response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
-            response.headers().add(HttpHeaderNames.CONTENT_LENGTH, snapshotData.readableBytes());
-            response.headers().add("Access-Control-Allow-Origin", "*");
-            response.headers().add("Access-Control-Expose-Headers", "*");
-            ctx.channel().write(response);
-            ctx.channel().write(snapshotData);
-            ByteBuf footerBbuf = Unpooled.copiedBuffer("\r\n", 0, 2, StandardCharsets.UTF_8);
-            ctx.channel().writeAndFlush(footerBbuf);
-        } finally {
-            ipCameraHandler.lockCurrentSnapshot.unlock();
-        }
+        // shares the bytes of the snapshot, the write releases it
+        ByteBuf snapshotData = ipCameraHandler.getSnapshot();
+        response.headers().add(HttpHeaderNames.CONTENT_TYPE, contentType);
+        response.headers().set(HttpHeaderNames.CACHE_CONTROL, HttpHeaderValues.NO_CACHE);
+        response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+        response.headers().add(HttpHeaderNames.CONTENT_LENGTH, snapshotData.readableBytes());
+        response.headers().add("Access-Control-Allow-Origin", "*");
+        response.headers().add("Access-Control-Expose-Headers", "*");
+        ctx.channel().write(response);
+        ctx.channel().write(snapshotData);
+        ByteBuf footerBbuf = Unpooled.copiedBuffer("\r\n", 0, 2, StandardCharsets.UTF_8);
+        ctx.channel().writeAndFlush(footerBbuf);
     }
 
     private void sendFile(ChannelHandlerContext ctx, String fileUri, String contentType) throws IOException {
@@ -280,6 +278,11 @@ public class StreamServerHandler extends ChannelInboundHandlerAdapter {
 
     @Override
     public void handlerRemoved(@Nullable ChannelHandlerContext ctx) {
+        ByteBuf localJpeg = incomingJpeg;
+        if (localJpeg != null) {
+            localJpeg.release();
+            incomingJpeg = null;
+        }
         if (ctx == null) {
             return;
         }
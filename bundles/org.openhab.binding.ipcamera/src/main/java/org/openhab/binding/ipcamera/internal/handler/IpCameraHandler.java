@@ -18,7 +18,6 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -26,7 +25,6 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -45,6 +43,7 @@ import org.openhab.binding.ipcamera.internal.ChannelTracking;
 import org.openhab.binding.ipcamera.internal.DahuaHandler;
 import org.openhab.binding.ipcamera.internal.DoorBirdHandler;
 import org.openhab.binding.ipcamera.internal.Ffmpeg;
+import org.openhab.binding.ipcamera.internal.FfmpegMultiplexer;
 import org.openhab.binding.ipcamera.internal.FoscamHandler;
 import org.openhab.binding.ipcamera.internal.GroupTracker;
 import org.openhab.binding.ipcamera.internal.Helper;
@@ -55,6 +54,7 @@ import org.openhab.binding.ipcamera.internal.IpCameraActions;
 import org.openhab.binding.ipcamera.internal.IpCameraBindingConstants.FFmpegFormat;
 import org.openhab.binding.ipcamera.internal.IpCameraDynamicStateDescriptionProvider;
 import org.openhab.binding.ipcamera.internal.MyNettyAuthHandler;
+import org.openhab.binding.ipcamera.internal.SnapshotRingBuffer;
 import org.openhab.binding.ipcamera.internal.StreamServerHandler;
 import org.openhab.binding.ipcamera.internal.onvif.OnvifConnection;
 import org.openhab.core.library.types.DecimalType;
@@ -78,6 +78,8 @@ import org.slf4j.LoggerFactory;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelDuplexHandler;
@@ -121,10 +123,16 @@ import io.netty.util.concurrent.GlobalEventExecutor;
  * sent to one of the channels.
  *
  * @author Matthew Skinner - Initial contribution
+ * @author agent - Pooled snapshot buffers shared by all MJPEG streams
+ * @author agent - FFmpeg outputs share the processes of the FFmpeg multiplexer
  */
 
 @NonNullByDefault
 public class IpCameraHandler extends BaseThingHandler {
+    private static final ByteBuf MJPEG_FRAME_FOOTER = Unpooled
+            .unreleasableBuffer(Unpooled.copiedBuffer("\r\n", StandardCharsets.UTF_8));
+    // the CPU time of FFmpeg grows all the time, so it is only stored this often
+    private static final long FFMPEG_CPU_TIME_INTERVAL = TimeUnit.MINUTES.toMillis(5);
     public final Logger logger = LoggerFactory.getLogger(getClass());
     public final IpCameraDynamicStateDescriptionProvider stateDescriptionProvider;
     private ScheduledExecutorService threadPool = Executors.newScheduledThreadPool(4);
@@ -142,6 +150,10 @@ public class IpCameraHandler extends BaseThingHandler {
     public @Nullable Ffmpeg ffmpegRtspHelper = null;
     public @Nullable Ffmpeg ffmpegMjpeg = null;
     public @Nullable Ffmpeg ffmpegSnapshot = null;
+    private final FfmpegMultiplexer ffmpegMultiplexer = new FfmpegMultiplexer(scheduler);
+    private int reportedFfmpegProcesses = 0;
+    private long reportedFfmpegCpuSeconds = 0;
+    private long ffmpegCpuTimeReportTime = 0;
     public boolean streamingAutoFps = false;
     public boolean motionDetected = false;
 
@@ -163,7 +175,7 @@ public class IpCameraHandler extends BaseThingHandler {
     private String mp4Filename = "ipcamera";
     private int mp4RecordTime;
     private int gifRecordTime = 5;
-    private LinkedList<byte[]> fifoSnapshotBuffer = new LinkedList<byte[]>();
+    private final SnapshotRingBuffer fifoSnapshotBuffer = new SnapshotRingBuffer();
     private int snapCount;
     private boolean updateImageChannel = false;
     private boolean updateAutoFps = false;
@@ -180,8 +192,9 @@ public class IpCameraHandler extends BaseThingHandler {
     public String mjpegUri = "";
     private @Nullable ChannelFuture serverFuture = null;
     private Object firstStreamedMsg = new Object();
-    public byte[] currentSnapshot = new byte[] { (byte) 0x00 };
-    public ReentrantLock lockCurrentSnapshot = new ReentrantLock();
+    // a single byte until the first snapshot arrives
+    private ByteBuf currentSnapshot = Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(new byte[] { (byte) 0x00 }));
+    private final ReentrantLock lockCurrentSnapshot = new ReentrantLock();
     public String rtspUri = "";
     public boolean audioAlarmUpdateSnapshot = false;
     private boolean motionAlarmUpdateSnapshot = false;
@@ -203,7 +216,7 @@ public class IpCameraHandler extends BaseThingHandler {
     private class CommonCameraHandler extends ChannelDuplexHandler {
         private int bytesToRecieve = 0;
         private int bytesAlreadyRecieved = 0;
-        private byte[] incomingJpeg = new byte[0];
+        private @Nullable ByteBuf incomingJpeg;
         private String incomingMessage = "";
         private String contentType = "empty";
         private String boundary = "";
@@ -264,7 +277,11 @@ public class IpCameraHandler extends BaseThingHandler {
                                     bytesToRecieve = 768000; // 0.768 Mbyte when no Content-Length is sent
                                     logger.debug("Camera has no Content-Length header, we have to guess how much RAM.");
                                 }
-                                incomingJpeg = new byte[bytesToRecieve];
+                                ByteBuf oldJpeg = incomingJpeg;
+                                if (oldJpeg != null) {
+                                    oldJpeg.release();
+                                }
+                                incomingJpeg = ctx.alloc().buffer(bytesToRecieve);
                             }
                         }
                     }
@@ -278,11 +295,16 @@ public class IpCameraHandler extends BaseThingHandler {
                         HttpContent content = (HttpContent) msg;
                         // Found some cameras use Content-Type: image/jpg instead of image/jpeg
                         if (contentType.contains("image/jp")) {
-                            for (int i = 0; i < content.content().capacity(); i++) {
-                                incomingJpeg[bytesAlreadyRecieved++] = content.content().getByte(i);
+                            ByteBuf localJpeg = incomingJpeg;
+                            if (localJpeg == null) {
+                                localJpeg = ctx.alloc().buffer(content.content().readableBytes());
+                                incomingJpeg = localJpeg;
                             }
+                            bytesAlreadyRecieved += content.content().readableBytes();
+                            localJpeg.writeBytes(content.content());
                             if (content instanceof LastHttpContent) {
-                                processSnapshot(incomingJpeg);
+                                incomingJpeg = null;
+                                processSnapshot(localJpeg);
                                 // testing next line and if works need to do a full cleanup of this function.
                                 closeConnection = true;
                                 if (closeConnection) {
@@ -368,6 +390,11 @@ public class IpCameraHandler extends BaseThingHandler {
 
         @Override
         public void handlerRemoved(@Nullable ChannelHandlerContext ctx) {
+            ByteBuf localJpeg = incomingJpeg;
+            if (localJpeg != null) {
+                localJpeg.release();
+                incomingJpeg = null;
+            }
         }
 
         @Override
@@ -641,44 +668,93 @@ public class IpCameraHandler extends BaseThingHandler {
                 });
     }
 
-    public void processSnapshot(byte[] incommingSnapshot) {
+    /**
+     * Process a new snapshot from the camera.
+     *
+     * @param incommingSnapshot the JPEG. The handler takes over the reference of the caller.
+     */
+    public void processSnapshot(ByteBuf incommingSnapshot) {
+        ByteBuf snapshot;
         lockCurrentSnapshot.lock();
         try {
+            // keep an own reference, as the next snapshot may release the current one at any time
+            snapshot = incommingSnapshot.retainedDuplicate();
+            currentSnapshot.release();
             currentSnapshot = incommingSnapshot;
             if (cameraConfig.getGifPreroll() > 0) {
-                fifoSnapshotBuffer.add(incommingSnapshot);
-                if (fifoSnapshotBuffer.size() > (cameraConfig.getGifPreroll() + gifRecordTime)) {
-                    fifoSnapshotBuffer.removeFirst();
-                }
+                fifoSnapshotBuffer.add(incommingSnapshot, cameraConfig.getGifPreroll() + gifRecordTime);
             }
         } finally {
             lockCurrentSnapshot.unlock();
         }
-
-        if (streamingSnapshotMjpeg) {
-            sendMjpegFrame(incommingSnapshot, snapshotMjpegChannelGroup);
+        try {
+            sendSnapshot(snapshot);
+        } finally {
+            snapshot.release();
         }
-        if (streamingAutoFps) {
-            if (motionDetected) {
-                sendMjpegFrame(incommingSnapshot, autoSnapshotMjpegChannelGroup);
-            } else if (updateAutoFps) {
-                // only happens every 8 seconds as some browsers need a frame that often to keep stream alive.
-                sendMjpegFrame(incommingSnapshot, autoSnapshotMjpegChannelGroup);
-                updateAutoFps = false;
+    }
+
+    /**
+     * Send a new snapshot to the MJPEG streams and the image channel
+     */
+    private void sendSnapshot(ByteBuf snapshot) {
+        boolean sendToAutoFps = streamingAutoFps && (motionDetected || updateAutoFps);
+        if (streamingSnapshotMjpeg || sendToAutoFps) {
+            // encode the frame once for all streams
+            ByteBuf frame = createMjpegFrame(snapshot);
+            try {
+                if (streamingSnapshotMjpeg) {
+                    streamToGroup(frame.retainedDuplicate(), snapshotMjpegChannelGroup, true);
+                }
+                if (sendToAutoFps) {
+                    streamToGroup(frame.retainedDuplicate(), autoSnapshotMjpegChannelGroup, true);
+                    if (!motionDetected) {
+                        // only happens every 8 seconds as some browsers need a frame that often to keep stream alive.
+                        updateAutoFps = false;
+                    }
+                }
+            } finally {
+                frame.release();
             }
         }
 
         if (updateImageChannel) {
-            updateState(CHANNEL_IMAGE, new RawType(incommingSnapshot, "image/jpeg"));
+            updateState(CHANNEL_IMAGE, new RawType(ByteBufUtil.getBytes(snapshot), "image/jpeg"));
         } else if (firstMotionAlarm || motionAlarmUpdateSnapshot) {
-            updateState(CHANNEL_IMAGE, new RawType(incommingSnapshot, "image/jpeg"));
+            updateState(CHANNEL_IMAGE, new RawType(ByteBufUtil.getBytes(snapshot), "image/jpeg"));
             firstMotionAlarm = motionAlarmUpdateSnapshot = false;
         } else if (firstAudioAlarm || audioAlarmUpdateSnapshot) {
-            updateState(CHANNEL_IMAGE, new RawType(incommingSnapshot, "image/jpeg"));
+            updateState(CHANNEL_IMAGE, new RawType(ByteBufUtil.getBytes(snapshot), "image/jpeg"));
             firstAudioAlarm = audioAlarmUpdateSnapshot = false;
         }
     }
 
+    /**
+     * @return true if a snapshot has been received from the camera
+     */
+    public boolean hasSnapshot() {
+        lockCurrentSnapshot.lock();
+        try {
+            return currentSnapshot.readableBytes() > 1;
+        } finally {
+            lockCurrentSnapshot.unlock();
+        }
+    }
+
+    /**
+     * Get the latest snapshot without copying it.
+     *
+     * @return the JPEG, which must be released by the caller
+     */
+    public ByteBuf getSnapshot() {
+        lockCurrentSnapshot.lock();
+        try {
+            return currentSnapshot.retainedDuplicate();
+        } finally {
+            lockCurrentSnapshot.unlock();
+        }
+    }
+
     public void stopStreamServer() {
         serversLoopGroup.shutdownGracefully();
         serverBootstrap = null;
@@ -731,22 +807,22 @@ public class IpCameraHandler extends BaseThingHandler {
             sendMjpegFirstPacket(ctx);
             if (auto) {
                 autoSnapshotMjpegChannelGroup.add(ctx.channel());
-                lockCurrentSnapshot.lock();
+                ByteBuf snapshot = getSnapshot();
                 try {
-                    sendMjpegFrame(currentSnapshot, autoSnapshotMjpegChannelGroup);
+                    sendMjpegFrame(snapshot, autoSnapshotMjpegChannelGroup);
                     // iOS uses a FIFO? and needs two frames to display a pic
-                    sendMjpegFrame(currentSnapshot, autoSnapshotMjpegChannelGroup);
+                    sendMjpegFrame(snapshot, autoSnapshotMjpegChannelGroup);
                 } finally {
-                    lockCurrentSnapshot.unlock();
+                    snapshot.release();
                 }
                 streamingAutoFps = true;
             } else {
                 snapshotMjpegChannelGroup.add(ctx.channel());
-                lockCurrentSnapshot.lock();
+                ByteBuf snapshot = getSnapshot();
                 try {
-                    sendMjpegFrame(currentSnapshot, snapshotMjpegChannelGroup);
+                    sendMjpegFrame(snapshot, snapshotMjpegChannelGroup);
                 } finally {
-                    lockCurrentSnapshot.unlock();
+                    snapshot.release();
                 }
                 streamingSnapshotMjpeg = true;
                 startSnapshotPolling();
@@ -868,17 +944,26 @@ public class IpCameraHandler extends BaseThingHandler {
         ctx.channel().writeAndFlush(response);
     }
 
-    public void sendMjpegFrame(byte[] jpg, ChannelGroup channelGroup) {
+    /**
+     * Send a JPEG as a frame of a MJPEG stream to all channels of the group. The channels share the JPEG, it is not
+     * copied.
+     *
+     * @param jpg the JPEG. The reference of the caller is not released.
+     * @param channelGroup the channels
+     */
+    public void sendMjpegFrame(ByteBuf jpg, ChannelGroup channelGroup) {
+        streamToGroup(createMjpegFrame(jpg), channelGroup, true);
+    }
+
+    private ByteBuf createMjpegFrame(ByteBuf jpg) {
         final String boundary = "thisMjpegStream";
-        ByteBuf imageByteBuf = Unpooled.copiedBuffer(jpg);
-        int length = imageByteBuf.readableBytes();
+        int length = jpg.readableBytes();
         String header = "--" + boundary + "\r\n" + "content-type: image/jpeg" + "\r\n" + "content-length: " + length
                 + "\r\n\r\n";
         ByteBuf headerBbuf = Unpooled.copiedBuffer(header, 0, header.length(), StandardCharsets.UTF_8);
-        ByteBuf footerBbuf = Unpooled.copiedBuffer("\r\n", 0, 2, StandardCharsets.UTF_8);
-        streamToGroup(headerBbuf, channelGroup, false);
-        streamToGroup(imageByteBuf, channelGroup, false);
-        streamToGroup(footerBbuf, channelGroup, true);
+        CompositeByteBuf frame = Unpooled.compositeBuffer(3);
+        frame.addComponents(true, headerBbuf, jpg.retainedDuplicate(), MJPEG_FRAME_FOOTER.duplicate());
+        return frame;
     }
 
     public void streamToGroup(Object msg, ChannelGroup channelGroup, boolean flush) {
@@ -890,16 +975,14 @@ public class IpCameraHandler extends BaseThingHandler {
 
     private void storeSnapshots() {
         int count = 0;
-        // Need to lock as fifoSnapshotBuffer is not thread safe and new snapshots can be incoming.
-        lockCurrentSnapshot.lock();
+        // The snapshots stay valid while new snapshots are incoming.
+        List<ByteBuf> snapshots = fifoSnapshotBuffer.retainAll();
         try {
-            for (byte[] foo : fifoSnapshotBuffer) {
+            for (ByteBuf foo : snapshots) {
                 File file = new File(cameraConfig.getFfmpegOutput() + "snapshot" + count + ".jpg");
                 count++;
-                try {
-                    OutputStream fos = new FileOutputStream(file);
-                    fos.write(foo);
-                    fos.close();
+                try (FileOutputStream fos = new FileOutputStream(file)) {
+                    foo.getBytes(foo.readerIndex(), fos, foo.readableBytes());
                 } catch (FileNotFoundException e) {
                     logger.warn("FileNotFoundException {}", e.getMessage());
                 } catch (IOException e) {
@@ -907,7 +990,7 @@ public class IpCameraHandler extends BaseThingHandler {
                 }
             }
         } finally {
-            lockCurrentSnapshot.unlock();
+            snapshots.forEach(ByteBuf::release);
         }
     }
 
@@ -1652,12 +1735,41 @@ public class IpCameraHandler extends BaseThingHandler {
         if (localHLS != null) {
             localHLS.checkKeepAlive();
         }
+        updateFfmpegStatistics();
         if (openChannels.size() > 18) {
             logger.debug("There are {} open Channels being tracked.", openChannels.size());
             cleanChannels();
         }
     }
 
+    /**
+     * The properties are updated when the number of FFmpeg processes changes, and the CPU time at most every
+     * {@link #FFMPEG_CPU_TIME_INTERVAL}, as each update stores the thing.
+     */
+    private void updateFfmpegStatistics() {
+        int processes = ffmpegMultiplexer.getProcessCount();
+        long cpuSeconds = ffmpegMultiplexer.getCpuTime().toSeconds();
+        if (processes > 0) {
+            logger.debug("Camera {} is using {} FFmpeg processes, {} seconds of CPU time in total.",
+                    cameraConfig.getIp(), processes, cpuSeconds);
+        }
+        long now = System.currentTimeMillis();
+        if (processes != reportedFfmpegProcesses) {
+            reportedFfmpegProcesses = processes;
+            updateProperty(PROPERTY_FFMPEG_PROCESSES, String.valueOf(processes));
+            updateProperty(PROPERTY_FFMPEG_RESTARTS, String.valueOf(ffmpegMultiplexer.getRestarts()));
+        } else if (cpuSeconds == reportedFfmpegCpuSeconds || now - ffmpegCpuTimeReportTime < FFMPEG_CPU_TIME_INTERVAL) {
+            return;
+        }
+        reportedFfmpegCpuSeconds = cpuSeconds;
+        ffmpegCpuTimeReportTime = now;
+        updateProperty(PROPERTY_FFMPEG_CPU_TIME, String.valueOf(cpuSeconds));
+    }
+
+    public FfmpegMultiplexer getFfmpegMultiplexer() {
+        return ffmpegMultiplexer;
+    }
+
     @Override
     public void initialize() {
         cameraConfig = getConfigAs(CameraConfig.class);
@@ -1780,32 +1892,17 @@ public class IpCameraHandler extends BaseThingHandler {
         useDigestAuth = false;
         stopStreamServer();
         openChannels.close();
-
-        Ffmpeg localFfmpeg = ffmpegHLS;
-        if (localFfmpeg != null) {
-            localFfmpeg.stopConverting();
-            localFfmpeg = null;
-        }
-        localFfmpeg = ffmpegRecord;
-        if (localFfmpeg != null) {
-            localFfmpeg.stopConverting();
-        }
-        localFfmpeg = ffmpegGIF;
-        if (localFfmpeg != null) {
-            localFfmpeg.stopConverting();
-        }
-        localFfmpeg = ffmpegRtspHelper;
-        if (localFfmpeg != null) {
-            localFfmpeg.stopConverting();
-        }
-        localFfmpeg = ffmpegMjpeg;
-        if (localFfmpeg != null) {
-            localFfmpeg.stopConverting();
-        }
-        localFfmpeg = ffmpegSnapshot;
-        if (localFfmpeg != null) {
-            localFfmpeg.stopConverting();
+        fifoSnapshotBuffer.clear();
+        lockCurrentSnapshot.lock();
+        try {
+            currentSnapshot.release();
+            currentSnapshot = Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(new byte[] { (byte) 0x00 }));
+        } finally {
+            lockCurrentSnapshot.unlock();
         }
+
+        // stops all outputs at once, so shared processes are not restarted for the remaining outputs
+        ffmpegMultiplexer.stopAll();
         channelTrackingMap.clear();
     }
 
@@ -0,0 +1,194 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.ipcamera.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.openhab.binding.ipcamera.internal.IpCameraBindingConstants.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.BooleanSupplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+import org.openhab.binding.ipcamera.internal.IpCameraBindingConstants.FFmpegFormat;
+import org.openhab.binding.ipcamera.internal.handler.IpCameraHandler;
+import org.openhab.core.library.types.DecimalType;
+
+/**
+ * Tests the commands and the processes of the {@link FfmpegMultiplexer}
+ *
+ * The processes are run with a script in place of FFmpeg: as a source it writes MPEG-TS sized chunks to stdout, as an
+ * output it copies stdin to its output file.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class FfmpegMultiplexerTest {
+
+    private static final String RTSP_INPUT = "rtsp://192.168.1.2/stream";
+    private static final long TIMEOUT_MS = 5000;
+
+    private final IpCameraHandler handler = mock(IpCameraHandler.class);
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final FfmpegMultiplexer multiplexer = new FfmpegMultiplexer(scheduler);
+    private @TempDir @NonNullByDefault({}) Path folder;
+    private String ffmpegLocation = "";
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        when(handler.getFfmpegMultiplexer()).thenReturn(multiplexer);
+        Path script = folder.resolve("ffmpeg");
+        Files.writeString(script, String.join("\n", "#!/bin/sh", "for last; do :; done",
+                "if [ \"$last\" = \"pipe:1\" ]; then", "  while true; do head -c 1880 /dev/zero; sleep 0.1; done",
+                "else", "  cat > \"$last\"", "fi", ""), StandardCharsets.UTF_8);
+        script.toFile().setExecutable(true);
+        ffmpegLocation = script.toString();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        multiplexer.stopAll();
+        scheduler.shutdownNow();
+    }
+
+    private Ffmpeg ffmpeg(FFmpegFormat format, String location, String inputArguments, String input, String output) {
+        return new Ffmpeg(handler, format, location, inputArguments, input, "", output, "", "");
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long end = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < end, "timed out");
+            Thread.sleep(50);
+        }
+    }
+
+    @Test
+    public void sourceReceivesTheInputOnce() {
+        Ffmpeg ffmpeg = ffmpeg(FFmpegFormat.HLS, "/usr/bin/ffmpeg", "-hide_banner -rtsp_transport tcp", RTSP_INPUT,
+                "/tmp/ipcamera.m3u8");
+
+        assertEquals(List.of("/usr/bin/ffmpeg", "-hide_banner", "-loglevel", "warning", "-rtsp_transport", "tcp", "-i",
+                RTSP_INPUT, "-map", "0:v", "-map", "0:a?", "-c:v", "copy", "-c:a", "aac", "-f", "mpegts", "pipe:1"),
+                FfmpegMultiplexer.buildSourceCommand(ffmpeg));
+    }
+
+    @Test
+    public void restreamedOutputReadsStdin() {
+        Ffmpeg ffmpeg = ffmpeg(FFmpegFormat.SNAPSHOT, "/usr/bin/ffmpeg",
+                "-threads 1 -skip_frame nokey -hide_banner -rtsp_transport tcp", RTSP_INPUT, "-update 1 out.jpg");
+
+        assertEquals(List.of("/usr/bin/ffmpeg", "-hide_banner", "-y", "-threads", "1", "-skip_frame", "nokey", "-f",
+                "mpegts", "-i", "pipe:0", "-update", "1", "out.jpg"),
+                FfmpegMultiplexer.buildOutputCommand(ffmpeg, true));
+    }
+
+    @Test
+    public void directOutputReadsTheInput() {
+        Ffmpeg ffmpeg = ffmpeg(FFmpegFormat.GIF, "/usr/bin/ffmpeg", "-y -threads 1 -r 1",
+                "/tmp/snapshot%d.jpg", "ipcamera.gif");
+
+        assertFalse(FfmpegMultiplexer.isRestreamed(ffmpeg));
+        assertEquals(List.of("/usr/bin/ffmpeg", "-y", "-r", "1", "-threads", "1", "-i", "/tmp/snapshot%d.jpg",
+                "ipcamera.gif"), FfmpegMultiplexer.buildOutputCommand(ffmpeg, false));
+    }
+
+    @Test
+    public void outputsShareTheSourceOfTheSameInput() {
+        Ffmpeg hls = ffmpeg(FFmpegFormat.HLS, "/usr/bin/ffmpeg", "-rtsp_transport tcp", RTSP_INPUT, "out.m3u8");
+        Ffmpeg snapshot = ffmpeg(FFmpegFormat.SNAPSHOT, "/usr/bin/ffmpeg", "-rtsp_transport tcp -skip_frame nokey",
+                RTSP_INPUT, "out.jpg");
+        Ffmpeg udp = ffmpeg(FFmpegFormat.MJPEG, "/usr/bin/ffmpeg", "-rtsp_transport udp", RTSP_INPUT, "out.jpg");
+
+        assertTrue(FfmpegMultiplexer.isRestreamed(hls));
+        assertEquals(FfmpegMultiplexer.getSourceKey(hls), FfmpegMultiplexer.getSourceKey(snapshot));
+        assertNotEquals(FfmpegMultiplexer.getSourceKey(hls), FfmpegMultiplexer.getSourceKey(udp));
+    }
+
+    @Test
+    @EnabledOnOs({ OS.LINUX, OS.MAC })
+    public void outputReceivesTheRestream() throws InterruptedException {
+        File output = folder.resolve("ipcamera.ts").toFile();
+        Ffmpeg hls = ffmpeg(FFmpegFormat.HLS, ffmpegLocation, "", RTSP_INPUT, output.toString());
+
+        assertTrue(multiplexer.start(hls));
+        assertFalse(multiplexer.start(hls));
+
+        waitFor(() -> output.length() > 0);
+        assertEquals(0, output.length() % 188);
+        assertTrue(multiplexer.isRunning(hls));
+    }
+
+    @Test
+    @EnabledOnOs({ OS.LINUX, OS.MAC })
+    public void outputsAreStoppedWithoutInterruptingTheOthers() throws InterruptedException {
+        File hlsOutput = folder.resolve("hls.ts").toFile();
+        File mjpegOutput = folder.resolve("mjpeg.ts").toFile();
+        Ffmpeg hls = ffmpeg(FFmpegFormat.HLS, ffmpegLocation, "", RTSP_INPUT, hlsOutput.toString());
+        Ffmpeg mjpeg = ffmpeg(FFmpegFormat.MJPEG, ffmpegLocation, "", RTSP_INPUT, mjpegOutput.toString());
+
+        multiplexer.start(hls);
+        multiplexer.start(mjpeg);
+        waitFor(() -> multiplexer.getProcessCount() == 3);
+
+        assertTrue(multiplexer.stop(hls));
+        assertFalse(multiplexer.stop(hls));
+        assertFalse(multiplexer.isRunning(hls));
+        long length = mjpegOutput.length();
+        waitFor(() -> mjpegOutput.length() > length);
+        assertEquals(2, multiplexer.getProcessCount());
+        assertEquals(0, multiplexer.getRestarts());
+
+        // the source is stopped with its last output
+        multiplexer.stop(mjpeg);
+        assertEquals(0, multiplexer.getProcessCount());
+    }
+
+    @Test
+    @EnabledOnOs({ OS.LINUX, OS.MAC })
+    public void stoppedRecordingIsReported() throws InterruptedException {
+        Ffmpeg recording = ffmpeg(FFmpegFormat.RECORD, ffmpegLocation, "", RTSP_INPUT,
+                folder.resolve("ipcamera.mp4").toString());
+
+        multiplexer.start(recording);
+        waitFor(() -> multiplexer.getProcessCount() == 2);
+        multiplexer.stop(recording);
+
+        verify(handler, timeout(TIMEOUT_MS)).setChannelState(CHANNEL_RECORDING_MP4, DecimalType.ZERO);
+        verify(handler, timeout(TIMEOUT_MS)).setChannelState(CHANNEL_MP4_HISTORY_LENGTH, new DecimalType(1));
+    }
+
+    @Test
+    public void recordingThatCanNotStartIsReported() {
+        Ffmpeg recording = ffmpeg(FFmpegFormat.RECORD, folder.resolve("missing").toString(), "", RTSP_INPUT,
+                folder.resolve("ipcamera.mp4").toString());
+
+        multiplexer.start(recording);
+
+        verify(handler, timeout(TIMEOUT_MS)).setChannelState(CHANNEL_RECORDING_MP4, DecimalType.ZERO);
+        assertFalse(multiplexer.isRunning(recording));
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.ipcamera.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * Tests the reference counts of the snapshots kept by the {@link SnapshotRingBuffer}
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class SnapshotRingBufferTest {
+
+    private final SnapshotRingBuffer ringBuffer = new SnapshotRingBuffer();
+    private final List<ByteBuf> snapshots = new ArrayList<>();
+
+    /**
+     * Create a snapshot, the test holds one reference to it
+     */
+    private ByteBuf snapshot(int number) {
+        ByteBuf snapshot = Unpooled.wrappedBuffer(new byte[] { (byte) number });
+        snapshots.add(snapshot);
+        return snapshot;
+    }
+
+    private static List<Integer> numbers(List<ByteBuf> retained) {
+        List<Integer> numbers = new ArrayList<>();
+        for (ByteBuf snapshot : retained) {
+            numbers.add((int) snapshot.getByte(snapshot.readerIndex()));
+            snapshot.release();
+        }
+        return numbers;
+    }
+
+    @AfterEach
+    public void releaseSnapshots() {
+        ringBuffer.clear();
+        // only the references of the test are left
+        for (ByteBuf snapshot : snapshots) {
+            assertEquals(1, snapshot.refCnt());
+            snapshot.release();
+        }
+    }
+
+    @Test
+    public void addRetainsTheSnapshot() {
+        ByteBuf snapshot = snapshot(1);
+
+        ringBuffer.add(snapshot, 3);
+
+        assertEquals(2, snapshot.refCnt());
+    }
+
+    @Test
+    public void overflowReleasesTheOldestSnapshot() {
+        ByteBuf first = snapshot(1);
+        ByteBuf second = snapshot(2);
+        ByteBuf third = snapshot(3);
+
+        ringBuffer.add(first, 2);
+        ringBuffer.add(second, 2);
+        ringBuffer.add(third, 2);
+
+        assertEquals(1, first.refCnt());
+        assertEquals(2, second.refCnt());
+        assertEquals(2, third.refCnt());
+        assertEquals(List.of(2, 3), numbers(ringBuffer.retainAll()));
+    }
+
+    @Test
+    public void retainAllReturnsOwnReferences() {
+        ByteBuf snapshot = snapshot(1);
+        ringBuffer.add(snapshot, 2);
+
+        List<ByteBuf> retained = ringBuffer.retainAll();
+
+        assertEquals(3, snapshot.refCnt());
+        assertEquals(List.of(1), numbers(retained));
+        assertEquals(2, snapshot.refCnt());
+    }
+
+    @Test
+    public void shrinkKeepsTheNewestSnapshots() {
+        ByteBuf first = snapshot(1);
+        ByteBuf second = snapshot(2);
+        ByteBuf third = snapshot(3);
+        ByteBuf fourth = snapshot(4);
+        ringBuffer.add(first, 3);
+        ringBuffer.add(second, 3);
+        ringBuffer.add(third, 3);
+
+        ringBuffer.add(fourth, 2);
+
+        assertEquals(1, first.refCnt());
+        assertEquals(1, second.refCnt());
+        assertEquals(2, third.refCnt());
+        assertEquals(2, fourth.refCnt());
+        assertEquals(List.of(3, 4), numbers(ringBuffer.retainAll()));
+    }
+
+    @Test
+    public void growKeepsAllSnapshots() {
+        ByteBuf first = snapshot(1);
+        ByteBuf second = snapshot(2);
+        ByteBuf third = snapshot(3);
+        ringBuffer.add(first, 2);
+        ringBuffer.add(second, 2);
+
+        ringBuffer.add(third, 4);
+
+        assertEquals(2, first.refCnt());
+        assertEquals(2, second.refCnt());
+        assertEquals(2, third.refCnt());
+        assertEquals(List.of(1, 2, 3), numbers(ringBuffer.retainAll()));
+    }
+
+    @Test
+    public void clearReleasesAllSnapshots() {
+        ByteBuf first = snapshot(1);
+        ByteBuf second = snapshot(2);
+        ringBuffer.add(first, 2);
+        ringBuffer.add(second, 2);
+
+        ringBuffer.clear();
+
+        assertEquals(1, first.refCnt());
+        assertEquals(1, second.refCnt());
+        assertTrue(ringBuffer.retainAll().isEmpty());
+    }
+
+    @Test
+    public void zeroCapacityReleasesAllSnapshots() {
+        ByteBuf first = snapshot(1);
+        ByteBuf second = snapshot(2);
+        ringBuffer.add(first, 2);
+
+        ringBuffer.add(second, 0);
+
+        assertEquals(1, first.refCnt());
+        assertEquals(1, second.refCnt());
+        assertTrue(ringBuffer.retainAll().isEmpty());
+    }
+}
@@ -43,6 +43,11 @@ public class KNXBindingConstants {
     public static final String MANUFACTURER_SERIAL_NO = "manfacturerserialnumber";
     public static final String MANUFACTURER_HARDWARE_TYPE = "manfacturerhardwaretype";
     public static final String MANUFACTURER_FIRMWARE_REVISION = "manfacturerfirmwarerevision";
+    public static final String TELEGRAMS_PER_SECOND = "telegramsPerSecond";
+    public static final String DISPATCH_LATENCY_AVERAGE = "dispatchLatencyAverage";
+    public static final String DISPATCH_LATENCY_MAXIMUM = "dispatchLatencyMaximum";
+    public static final String READ_QUEUE_PENDING = "readQueuePending";
+    public static final String READ_QUEUE_COMPLETED = "readQueueCompleted";
 
     // Thing Configuration parameters
     public static final String IP_ADDRESS = "ipAddress";
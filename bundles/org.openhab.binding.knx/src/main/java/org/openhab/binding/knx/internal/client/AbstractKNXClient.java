@@ -12,16 +12,19 @@
  */
 package org.openhab.binding.knx.internal.client;
 
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.knx.internal.KNXBindingConstants;
 import org.openhab.binding.knx.internal.KNXTypeMapper;
 import org.openhab.binding.knx.internal.dpt.KNXCoreTypeMapper;
 import org.openhab.binding.knx.internal.handler.GroupAddressListener;
@@ -64,6 +67,7 @@ import tuwien.auto.calimero.process.ProcessListener;
 public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClient {
 
     private static final int MAX_SEND_ATTEMPTS = 2;
+    private static final int STATISTICS_INTERVAL = 60;
 
     private final Logger logger = LoggerFactory.getLogger(AbstractKNXClient.class);
     private final KNXTypeMapper typeHelper = new KNXCoreTypeMapper();
@@ -84,9 +88,31 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
     private @Nullable DeviceInfoClient deviceInfoClient;
     private @Nullable ScheduledFuture<?> busJob;
     private @Nullable ScheduledFuture<?> connectJob;
+    private @Nullable ScheduledFuture<?> statisticsJob;
+
+    private final Map<GroupAddressListener, ListenerRegistration> groupAddressListeners = new ConcurrentHashMap<>();
+    private final Map<GroupAddress, Set<GroupAddressListener>> listenersByGroupAddress = new ConcurrentHashMap<>();
+    private final AtomicLong telegramCount = new AtomicLong();
+    private final AtomicLong dispatchCount = new AtomicLong();
+    private final AtomicLong dispatchLatencyNanos = new AtomicLong();
+    private final AtomicLong maxDispatchLatencyNanos = new AtomicLong();
+    private final ReadScheduler readScheduler = new ReadScheduler();
+    private boolean reading = false;
+    private long readGeneration = 0;
+    private boolean readQueueDrained = true;
 
-    private final Set<GroupAddressListener> groupAddressListeners = new CopyOnWriteArraySet<>();
-    private final LinkedBlockingQueue<ReadDatapoint> readDatapoints = new LinkedBlockingQueue<>();
+    /**
+     * Group addresses a listener has been indexed with, and the dispatcher of its telegrams
+     */
+    private static class ListenerRegistration {
+        private final Set<GroupAddress> groupAddresses;
+        private final SerialDispatcher dispatcher;
+
+        private ListenerRegistration(Set<GroupAddress> groupAddresses, SerialDispatcher dispatcher) {
+            this.groupAddresses = groupAddresses;
+            this.dispatcher = dispatcher;
+        }
+    }
 
     @FunctionalInterface
     private interface ListenerNotification {
@@ -117,6 +143,7 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
 
         @Override
         public void groupReadResponse(ProcessEvent e) {
+            readScheduler.responseReceived(e.getDestination());
             processEvent("Group Read Response", e, (listener, source, destination, asdu) -> {
                 listener.onGroupReadResponse(AbstractKNXClient.this, source, destination, asdu);
             });
@@ -196,8 +223,10 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
 
             link.addLinkListener(this);
 
-            busJob = knxScheduler.scheduleWithFixedDelay(() -> readNextQueuedDatapoint(), 0, readingPause,
-                    TimeUnit.MILLISECONDS);
+            reading = true;
+            scheduleNextRead(0);
+            statisticsJob = knxScheduler.scheduleWithFixedDelay(this::updateStatistics, STATISTICS_INTERVAL,
+                    STATISTICS_INTERVAL, TimeUnit.SECONDS);
 
             statusUpdateCallback.updateStatus(ThingStatus.ONLINE);
             connectJob = null;
@@ -224,8 +253,9 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
     @SuppressWarnings("null")
     private void releaseConnection() {
         logger.debug("Bridge {} is disconnecting from the KNX bus", thingUID);
-        readDatapoints.clear();
-        busJob = nullify(busJob, j -> j.cancel(true));
+        stopReading();
+        readScheduler.clear();
+        statisticsJob = nullify(statisticsJob, j -> j.cancel(false));
         deviceInfoClient = null;
         managementProcedures = nullify(managementProcedures, mp -> mp.detach());
         managementClient = nullify(managementClient, mc -> mc.detach());
@@ -252,13 +282,49 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
         IndividualAddress source = event.getSourceAddr();
         byte[] asdu = event.getASDU();
         logger.trace("Received a {} telegram from '{}' to '{}' with value '{}'", task, source, destination, asdu);
-        for (GroupAddressListener listener : groupAddressListeners) {
-            if (listener.listensTo(destination)) {
-                knxScheduler.schedule(() -> action.apply(listener, source, destination, asdu), 0, TimeUnit.SECONDS);
+        telegramCount.incrementAndGet();
+        readScheduler.telegramReceived();
+        Set<GroupAddressListener> listeners = getListeners(destination);
+        if (listeners.isEmpty()) {
+            return;
+        }
+        long received = System.nanoTime();
+        for (GroupAddressListener listener : listeners) {
+            ListenerRegistration registration = groupAddressListeners.get(listener);
+            if (registration != null) {
+                registration.dispatcher.execute(() -> {
+                    recordDispatchLatency(System.nanoTime() - received);
+                    action.apply(listener, source, destination, asdu);
+                });
             }
         }
     }
 
+    private void recordDispatchLatency(long latencyNanos) {
+        dispatchCount.incrementAndGet();
+        dispatchLatencyNanos.addAndGet(latencyNanos);
+        maxDispatchLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+    }
+
+    private void updateStatistics() {
+        long telegrams = telegramCount.getAndSet(0);
+        long dispatches = dispatchCount.getAndSet(0);
+        long latency = dispatchLatencyNanos.getAndSet(0);
+        long maxLatency = maxDispatchLatencyNanos.getAndSet(0);
+        String telegramsPerSecond = String.format("%.1f", (double) telegrams / STATISTICS_INTERVAL);
+        String averageLatency = String.format("%.2f", dispatches > 0 ? latency / 1e6 / dispatches : 0.0);
+        String maximumLatency = String.format("%.2f", maxLatency / 1e6);
+        logger.debug("Bridge {} received {} telegrams/s, dispatch latency avg {} ms, max {} ms", thingUID,
+                telegramsPerSecond, averageLatency, maximumLatency);
+        statusUpdateCallback.updateProperty(KNXBindingConstants.TELEGRAMS_PER_SECOND, telegramsPerSecond);
+        statusUpdateCallback.updateProperty(KNXBindingConstants.DISPATCH_LATENCY_AVERAGE, averageLatency);
+        statusUpdateCallback.updateProperty(KNXBindingConstants.DISPATCH_LATENCY_MAXIMUM, maximumLatency);
+        statusUpdateCallback.updateProperty(KNXBindingConstants.READ_QUEUE_PENDING,
+                Integer.toString(readScheduler.getPending()));
+        statusUpdateCallback.updateProperty(KNXBindingConstants.READ_QUEUE_COMPLETED,
+                Long.toString(readScheduler.getCompleted()));
+    }
+
     /**
      * Transforms a {@link Type} into a datapoint type value for the KNX bus.
      *
@@ -271,6 +337,29 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
         return typeHelper.toDPTValue(type, dpt);
     }
 
+    private synchronized void stopReading() {
+        reading = false;
+        readGeneration++;
+        busJob = nullify(busJob, j -> j.cancel(true));
+    }
+
+    private synchronized void scheduleNextRead(long delay) {
+        if (reading) {
+            long generation = readGeneration;
+            busJob = knxScheduler.schedule(() -> {
+                readNextQueuedDatapoint();
+                continueReading(generation);
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void continueReading(long generation) {
+        // A reconnect during the read has stopped this chain and started a new one
+        if (generation == readGeneration) {
+            scheduleNextRead(readScheduler.getReadingPause(readingPause));
+        }
+    }
+
     @SuppressWarnings("null")
     private void readNextQueuedDatapoint() {
         if (!connectIfNotAutomatic()) {
@@ -280,15 +369,23 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
         if (processCommunicator == null) {
             return;
         }
-        ReadDatapoint datapoint = readDatapoints.poll();
-        if (datapoint != null) {
+        ReadDatapoint datapoint = readScheduler.poll();
+        if (datapoint == null) {
+            if (!readQueueDrained) {
+                readQueueDrained = true;
+                logger.debug("Bridge {} has sent all queued read requests ({} sent, {} coalesced)", thingUID,
+                        readScheduler.getCompleted(), readScheduler.getCoalesced());
+            }
+        } else {
+            readQueueDrained = false;
             datapoint.incrementRetries();
             try {
                 logger.trace("Sending a Group Read Request telegram for {}", datapoint.getDatapoint().getMainAddress());
+                readScheduler.readSent(datapoint.getDatapoint().getMainAddress());
                 processCommunicator.read(datapoint.getDatapoint());
             } catch (KNXException e) {
                 if (datapoint.getRetries() < datapoint.getLimit()) {
-                    readDatapoints.add(datapoint);
+                    readScheduler.add(datapoint, ReadPriority.LOW);
                     logger.debug("Could not read value for datapoint {}: {}. Going to retry.",
                             datapoint.getDatapoint().getMainAddress(), e.getMessage());
                 } else {
@@ -368,22 +465,58 @@ public abstract class AbstractKNXClient implements NetworkLinkListener, KNXClien
 
     @Override
     public void readDatapoint(Datapoint datapoint) {
-        synchronized (this) {
-            ReadDatapoint retryDatapoint = new ReadDatapoint(datapoint, readRetriesLimit);
-            if (!readDatapoints.contains(retryDatapoint)) {
-                readDatapoints.add(retryDatapoint);
-            }
-        }
+        readDatapoint(datapoint, ReadPriority.NORMAL);
     }
 
     @Override
-    public final boolean registerGroupAddressListener(GroupAddressListener listener) {
-        return groupAddressListeners.add(listener);
+    public void readDatapoint(Datapoint datapoint, ReadPriority priority) {
+        readScheduler.add(new ReadDatapoint(datapoint, readRetriesLimit), priority);
     }
 
     @Override
-    public final boolean unregisterGroupAddressListener(GroupAddressListener listener) {
-        return groupAddressListeners.remove(listener);
+    public final synchronized boolean registerGroupAddressListener(GroupAddressListener listener) {
+        ListenerRegistration previous = groupAddressListeners.get(listener);
+        if (previous != null) {
+            removeFromIndex(listener, previous);
+        }
+        Set<GroupAddress> groupAddresses = Set.copyOf(listener.getGroupAddresses());
+        for (GroupAddress groupAddress : groupAddresses) {
+            listenersByGroupAddress.computeIfAbsent(groupAddress, ga -> new CopyOnWriteArraySet<>()).add(listener);
+        }
+        // Keep the dispatcher of a re-registered listener, so that telegrams stay in order
+        SerialDispatcher dispatcher = previous != null ? previous.dispatcher : new SerialDispatcher(knxScheduler);
+        groupAddressListeners.put(listener, new ListenerRegistration(groupAddresses, dispatcher));
+        return previous == null;
+    }
+
+    @Override
+    public final synchronized boolean unregisterGroupAddressListener(GroupAddressListener listener) {
+        ListenerRegistration registration = groupAddressListeners.remove(listener);
+        if (registration == null) {
+            return false;
+        }
+        removeFromIndex(listener, registration);
+        return true;
+    }
+
+    /**
+     * Get the listeners indexed for a group address.
+     *
+     * @param destination the group address
+     * @return the listeners, or an empty set if no listener is registered for it
+     */
+    Set<GroupAddressListener> getListeners(GroupAddress destination) {
+        Set<GroupAddressListener> listeners = listenersByGroupAddress.get(destination);
+        return listeners != null ? listeners : Set.of();
+    }
+
+    private void removeFromIndex(GroupAddressListener listener, ListenerRegistration registration) {
+        for (GroupAddress groupAddress : registration.groupAddresses) {
+            listenersByGroupAddress.computeIfPresent(groupAddress, (ga, listeners) -> {
+                listeners.remove(listener);
+                return listeners.isEmpty() ? null : listeners;
+            });
+        }
     }
 
     @Override
@@ -83,6 +83,15 @@ public interface KNXClient {
      */
     void readDatapoint(Datapoint datapoint);
 
+    /**
+     * Schedule the given data point for asynchronous reading, with the given priority. Reads of a group address
+     * that is already queued are coalesced.
+     *
+     * @param datapoint the datapoint
+     * @param priority the priority of the read
+     */
+    void readDatapoint(Datapoint datapoint, ReadPriority priority);
+
     /**
      * Write a command to the KNX bus.
      *
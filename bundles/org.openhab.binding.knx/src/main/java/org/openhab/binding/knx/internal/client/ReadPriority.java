@@ -0,0 +1,36 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.knx.internal.client;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Priority classes of queued read requests. Requests of a higher priority class are sent to the bus first.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public enum ReadPriority {
+    /**
+     * Reads explicitly requested for an item, e.g. by a REFRESH command of a UI showing it
+     */
+    HIGH,
+    /**
+     * Initial reads of linked channels
+     */
+    NORMAL,
+    /**
+     * Periodic reads of slowly changing values, and retries of failed reads
+     */
+    LOW
+}
@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.knx.internal.client;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+import tuwien.auto.calimero.GroupAddress;
+
+/**
+ * Queue of read requests to the KNX bus.
+ *
+ * Requests are queued per {@link ReadPriority} and coalesced by group address: a group address shared by several
+ * channels or things is read only once, and a request with a higher priority moves a queued request up. Lookup,
+ * insertion and removal are O(1).
+ *
+ * The scheduler also observes the bus traffic. The pause between two reads is the configured reading pause, but it
+ * grows if the bus is busy or devices take long to respond.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ReadScheduler {
+
+    /**
+     * Telegram rate above which reads are slowed down, in telegrams per second. A twisted pair line can carry
+     * about 50 telegrams per second.
+     */
+    static final double BUSY_TELEGRAM_RATE = 20;
+    static final long MAX_READING_PAUSE = 5000;
+    private static final long RATE_WINDOW_NANOS = 1_000_000_000L;
+    private static final double SMOOTHING = 0.3;
+
+    private static class Entry {
+        private final ReadDatapoint datapoint;
+        private ReadPriority priority;
+
+        private Entry(ReadDatapoint datapoint, ReadPriority priority) {
+            this.datapoint = datapoint;
+            this.priority = priority;
+        }
+    }
+
+    private final Map<GroupAddress, Entry> queued = new HashMap<>();
+    private final Map<ReadPriority, Deque<Entry>> queues = new EnumMap<>(ReadPriority.class);
+    private final Map<GroupAddress, Long> pendingResponses = new HashMap<>();
+    private long completed = 0;
+    private long coalesced = 0;
+
+    private long windowStart = System.nanoTime();
+    private int windowTelegrams = 0;
+    private double telegramRate = 0;
+    private double responseTimeMillis = 0;
+
+    public ReadScheduler() {
+        for (ReadPriority priority : ReadPriority.values()) {
+            queues.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Queue a read request
+     *
+     * @param datapoint the datapoint to read
+     * @param priority the priority of the request
+     * @return {@code true} if the request was queued, {@code false} if it was coalesced with a queued request
+     */
+    public synchronized boolean add(ReadDatapoint datapoint, ReadPriority priority) {
+        GroupAddress groupAddress = datapoint.getDatapoint().getMainAddress();
+        Entry entry = queued.get(groupAddress);
+        if (entry != null) {
+            coalesced++;
+            if (priority.compareTo(entry.priority) < 0) {
+                // The entry left in the queue of the lower priority is skipped when polled
+                entry.priority = priority;
+                getQueue(priority).add(entry);
+            }
+            return false;
+        }
+        entry = new Entry(datapoint, priority);
+        queued.put(groupAddress, entry);
+        getQueue(priority).add(entry);
+        return true;
+    }
+
+    /**
+     * Get the next read request, highest priority first
+     *
+     * @return the next request, or null if there is none
+     */
+    public synchronized @Nullable ReadDatapoint poll() {
+        for (ReadPriority priority : ReadPriority.values()) {
+            Deque<Entry> queue = getQueue(priority);
+            Entry entry;
+            while ((entry = queue.poll()) != null) {
+                GroupAddress groupAddress = entry.datapoint.getDatapoint().getMainAddress();
+                if (entry.priority == priority && queued.get(groupAddress) == entry) {
+                    queued.remove(groupAddress);
+                    completed++;
+                    return entry.datapoint;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Forget all queued requests and observations
+     */
+    public synchronized void clear() {
+        queued.clear();
+        queues.values().forEach(Deque::clear);
+        pendingResponses.clear();
+        completed = 0;
+        coalesced = 0;
+        telegramRate = 0;
+        responseTimeMillis = 0;
+        windowTelegrams = 0;
+        windowStart = System.nanoTime();
+    }
+
+    /**
+     * Called when a read request has been sent to the bus
+     */
+    public synchronized void readSent(GroupAddress groupAddress) {
+        pendingResponses.put(groupAddress, System.nanoTime());
+    }
+
+    /**
+     * Called for every group telegram received from the bus
+     */
+    public synchronized void telegramReceived() {
+        updateTelegramRate(System.nanoTime());
+        windowTelegrams++;
+    }
+
+    /**
+     * Called when a read response has been received from the bus
+     */
+    public synchronized void responseReceived(GroupAddress groupAddress) {
+        Long sent = pendingResponses.remove(groupAddress);
+        if (sent != null) {
+            double millis = (System.nanoTime() - sent) / 1e6;
+            if (millis > MAX_READING_PAUSE) {
+                // Most likely a response to a read of someone else, the own read has not been answered
+                return;
+            }
+            responseTimeMillis = responseTimeMillis == 0 ? millis
+                    : (1 - SMOOTHING) * responseTimeMillis + SMOOTHING * millis;
+        }
+    }
+
+    /**
+     * Get the pause before the next read request
+     *
+     * @param readingPause the configured minimum pause, in milliseconds
+     * @return the pause, in milliseconds
+     */
+    public synchronized long getReadingPause(long readingPause) {
+        updateTelegramRate(System.nanoTime());
+        double pause = readingPause;
+        if (telegramRate > BUSY_TELEGRAM_RATE) {
+            pause = readingPause * telegramRate / BUSY_TELEGRAM_RATE;
+        }
+        // Do not request faster than devices respond
+        pause = Math.max(pause, responseTimeMillis);
+        return Math.min(Math.max(readingPause, Math.round(pause)), Math.max(readingPause, MAX_READING_PAUSE));
+    }
+
+    public synchronized int getPending() {
+        return queued.size();
+    }
+
+    public synchronized long getCompleted() {
+        return completed;
+    }
+
+    public synchronized long getCoalesced() {
+        return coalesced;
+    }
+
+    public synchronized double getTelegramRate() {
+        return telegramRate;
+    }
+
+    private Deque<Entry> getQueue(ReadPriority priority) {
+        Deque<Entry> queue = queues.get(priority);
+        if (queue == null) {
+            throw new IllegalStateException("No queue for priority " + priority);
+        }
+        return queue;
+    }
+
+    private void updateTelegramRate(long now) {
+        long elapsed = now - windowStart;
+        if (elapsed < RATE_WINDOW_NANOS) {
+            return;
+        }
+        double rate = windowTelegrams * 1e9 / elapsed;
+        telegramRate = (1 - SMOOTHING) * telegramRate + SMOOTHING * rate;
+        windowTelegrams = 0;
+        windowStart = now;
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.knx.internal.client;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the tasks of a single group address listener one after another, in submission order, on a shared executor.
+ *
+ * Instead of scheduling one task per telegram, a single drain task is submitted whenever the queue becomes non-empty.
+ * A drain task runs a limited number of tasks before it gives the executor thread back, so that a busy listener
+ * cannot starve the others.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+class SerialDispatcher {
+
+    private static final int MAX_TASKS_PER_DRAIN = 32;
+
+    private final Logger logger = LoggerFactory.getLogger(SerialDispatcher.class);
+
+    private final Executor executor;
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private boolean draining = false;
+
+    SerialDispatcher(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Queue a task. It will run after all tasks queued before.
+     *
+     * @param task the task
+     */
+    void execute(Runnable task) {
+        synchronized (tasks) {
+            tasks.add(task);
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+        executor.execute(this::drain);
+    }
+
+    private void drain() {
+        for (int i = 0; i < MAX_TASKS_PER_DRAIN; i++) {
+            Runnable task;
+            synchronized (tasks) {
+                task = tasks.poll();
+                if (task == null) {
+                    draining = false;
+                    return;
+                }
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.warn("Error dispatching KNX telegram: {}", e.getMessage(), e);
+            }
+        }
+        // More tasks pending, continue with a new drain task
+        executor.execute(this::drain);
+    }
+}
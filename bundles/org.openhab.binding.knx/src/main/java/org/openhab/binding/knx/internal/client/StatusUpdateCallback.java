@@ -38,4 +38,12 @@ public interface StatusUpdateCallback {
      * @param status
      */
     void updateStatus(ThingStatus status, ThingStatusDetail thingStatusDetail, String message);
+
+    /**
+     * see BaseThingHandler
+     *
+     * @param name
+     * @param value
+     */
+    void updateProperty(String name, String value);
 }
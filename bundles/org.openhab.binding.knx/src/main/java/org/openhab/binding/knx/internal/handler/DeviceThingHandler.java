@@ -15,6 +15,8 @@ package org.openhab.binding.knx.internal.handler;
 import static org.openhab.binding.knx.internal.KNXBindingConstants.*;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -24,6 +26,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -34,6 +37,7 @@ import org.openhab.binding.knx.internal.channel.KNXChannelTypes;
 import org.openhab.binding.knx.internal.client.AbstractKNXClient;
 import org.openhab.binding.knx.internal.client.InboundSpec;
 import org.openhab.binding.knx.internal.client.OutboundSpec;
+import org.openhab.binding.knx.internal.client.ReadPriority;
 import org.openhab.binding.knx.internal.config.DeviceConfig;
 import org.openhab.binding.knx.internal.dpt.KNXCoreTypeMapper;
 import org.openhab.core.config.core.Configuration;
@@ -74,26 +78,58 @@ public class DeviceThingHandler extends AbstractKNXThingHandler {
     private final Set<OutboundSpec> groupAddressesRespondingSpec = new HashSet<>();
     private final Map<GroupAddress, ScheduledFuture<?>> readFutures = new HashMap<>();
     private final Map<ChannelUID, ScheduledFuture<?>> channelFutures = new HashMap<>();
+    private volatile Map<GroupAddress, List<ListenBinding>> listenBindings = Collections.emptyMap();
     private int readInterval;
 
+    /**
+     * A channel listening to a group address, with its pre-computed listen spec
+     */
+    private static class ListenBinding {
+        private final Channel channel;
+        private final KNXChannelType selector;
+        private final InboundSpec listenSpec;
+        private final boolean control;
+
+        private ListenBinding(Channel channel, KNXChannelType selector, InboundSpec listenSpec, boolean control) {
+            this.channel = channel;
+            this.selector = selector;
+            this.listenSpec = listenSpec;
+            this.control = control;
+        }
+    }
+
     public DeviceThingHandler(Thing thing) {
         super(thing);
     }
 
     @Override
     public void initialize() {
+        // group addresses must be known before the handler registers with the client
+        initializeGroupAddresses();
         super.initialize();
         DeviceConfig config = getConfigAs(DeviceConfig.class);
         readInterval = config.getReadInterval().intValue();
-        initializeGroupAddresses();
     }
 
     private void initializeGroupAddresses() {
-        forAllChannels((selector, channelConfiguration) -> {
-            groupAddresses.addAll(selector.getReadAddresses(channelConfiguration));
-            groupAddresses.addAll(selector.getWriteAddresses(channelConfiguration));
-            groupAddresses.addAll(selector.getListenAddresses(channelConfiguration));
-        });
+        Map<GroupAddress, List<ListenBinding>> bindings = new HashMap<>();
+        for (Channel channel : getThing().getChannels()) {
+            withKNXType(channel, (selector, channelConfiguration) -> {
+                groupAddresses.addAll(selector.getReadAddresses(channelConfiguration));
+                groupAddresses.addAll(selector.getWriteAddresses(channelConfiguration));
+                Set<GroupAddress> listenAddresses = selector.getListenAddresses(channelConfiguration);
+                groupAddresses.addAll(listenAddresses);
+                boolean control = isControl(channel.getUID());
+                for (GroupAddress groupAddress : listenAddresses) {
+                    InboundSpec listenSpec = selector.getListenSpec(channelConfiguration, groupAddress);
+                    if (listenSpec != null) {
+                        bindings.computeIfAbsent(groupAddress, ga -> new ArrayList<>())
+                                .add(new ListenBinding(channel, selector, listenSpec, control));
+                    }
+                }
+            });
+        }
+        listenBindings = bindings;
     }
 
     @Override
@@ -113,6 +149,7 @@ public class DeviceThingHandler extends AbstractKNXThingHandler {
     }
 
     private void freeGroupAdresses() {
+        listenBindings = Collections.emptyMap();
         groupAddresses.clear();
         groupAddressesWriteBlockedOnce.clear();
         groupAddressesRespondingSpec.clear();
@@ -151,17 +188,11 @@ public class DeviceThingHandler extends AbstractKNXThingHandler {
         }
     }
 
-    private void forAllChannels(ChannelFunction function) {
-        for (Channel channel : getThing().getChannels()) {
-            withKNXType(channel, function);
-        }
-    }
-
     @Override
     public void channelLinked(ChannelUID channelUID) {
         if (!isControl(channelUID)) {
             withKNXType(channelUID, (selector, configuration) -> {
-                scheduleRead(selector, configuration);
+                scheduleRead(selector, configuration, ReadPriority.NORMAL);
             });
         }
     }
@@ -172,42 +203,45 @@ public class DeviceThingHandler extends AbstractKNXThingHandler {
         for (Channel channel : getThing().getChannels()) {
             if (isLinked(channel.getUID().getId()) && !isControl(channel.getUID())) {
                 withKNXType(channel, (selector, configuration) -> {
-                    scheduleRead(selector, configuration);
+                    scheduleRead(selector, configuration, ReadPriority.NORMAL);
                 });
             }
         }
     }
 
-    private void scheduleRead(KNXChannelType selector, Configuration configuration) throws KNXFormatException {
+    private void scheduleRead(KNXChannelType selector, Configuration configuration, ReadPriority priority)
+            throws KNXFormatException {
         List<InboundSpec> readSpecs = selector.getReadSpec(configuration);
         for (InboundSpec readSpec : readSpecs) {
             for (GroupAddress groupAddress : readSpec.getGroupAddresses()) {
-                scheduleReadJob(groupAddress, readSpec.getDPT());
+                scheduleReadJob(groupAddress, readSpec.getDPT(), priority);
             }
         }
     }
 
-    private void scheduleReadJob(GroupAddress groupAddress, String dpt) {
-        if (readInterval > 0) {
+    private void scheduleReadJob(GroupAddress groupAddress, String dpt, ReadPriority priority) {
+        if (readInterval > 0 && priority != ReadPriority.HIGH) {
             ScheduledFuture<?> future = readFutures.get(groupAddress);
             if (future == null || future.isDone() || future.isCancelled()) {
-                future = getScheduler().scheduleWithFixedDelay(() -> readDatapoint(groupAddress, dpt), 0, readInterval,
-                        TimeUnit.SECONDS);
+                // the first read is an initial read, the following ones are periodic
+                AtomicBoolean initial = new AtomicBoolean(true);
+                future = getScheduler().scheduleWithFixedDelay(() -> readDatapoint(groupAddress, dpt,
+                        initial.getAndSet(false) ? priority : ReadPriority.LOW), 0, readInterval, TimeUnit.SECONDS);
                 readFutures.put(groupAddress, future);
             }
         } else {
-            getScheduler().submit(() -> readDatapoint(groupAddress, dpt));
+            getScheduler().submit(() -> readDatapoint(groupAddress, dpt, priority));
         }
     }
 
-    private void readDatapoint(GroupAddress groupAddress, String dpt) {
+    private void readDatapoint(GroupAddress groupAddress, String dpt, ReadPriority priority) {
         if (getClient().isConnected()) {
             if (!isDPTSupported(dpt)) {
                 logger.warn("DPT '{}' is not supported by the KNX binding", dpt);
                 return;
             }
             Datapoint datapoint = new CommandDP(groupAddress, getThing().getUID().toString(), 0, dpt);
-            getClient().readDatapoint(datapoint);
+            getClient().readDatapoint(datapoint, priority);
         }
     }
 
@@ -216,6 +250,11 @@ public class DeviceThingHandler extends AbstractKNXThingHandler {
         return groupAddresses.contains(destination);
     }
 
+    @Override
+    public Set<GroupAddress> getGroupAddresses() {
+        return groupAddresses;
+    }
+
     /** KNXIO remember controls, removeIf may be null */
     @SuppressWarnings("null")
     private void rememberRespondingSpec(OutboundSpec commandSpec, boolean add) {
@@ -235,7 +274,7 @@ public class DeviceThingHandler extends AbstractKNXThingHandler {
         if (command instanceof RefreshType && !isControl(channelUID)) {
             logger.debug("Refreshing channel '{}'", channelUID);
             withKNXType(channelUID, (selector, configuration) -> {
-                scheduleRead(selector, configuration);
+                scheduleRead(selector, configuration, ReadPriority.HIGH);
             });
         } else {
             switch (channelUID.getId()) {
@@ -345,31 +384,32 @@ public class DeviceThingHandler extends AbstractKNXThingHandler {
         logger.debug("onGroupWrite Thing '{}' received a GroupValueWrite telegram from '{}' for destination '{}'",
                 getThing().getUID(), source, destination);
 
-        for (Channel channel : getThing().getChannels()) {
-            withKNXType(channel, (selector, configuration) -> {
-                InboundSpec listenSpec = selector.getListenSpec(configuration, destination);
-                if (listenSpec != null) {
-                    logger.trace(
-                            "onGroupWrite Thing '{}' processes a GroupValueWrite telegram for destination '{}' for channel '{}'",
-                            getThing().getUID(), destination, channel.getUID());
-                    /**
-                     * Remember current KNXIO outboundSpec only if it is a control channel.
-                     */
-                    if (isControl(channel.getUID())) {
-                        logger.trace("onGroupWrite isControl");
-                        Type type = typeHelper.toType(
-                                new CommandDP(destination, getThing().getUID().toString(), 0, listenSpec.getDPT()),
-                                asdu);
-                        if (type != null) {
-                            OutboundSpec commandSpec = selector.getCommandSpec(configuration, typeHelper, type);
-                            if (commandSpec != null) {
-                                rememberRespondingSpec(commandSpec, true);
-                            }
+        for (ListenBinding binding : listenBindings.getOrDefault(destination, Collections.emptyList())) {
+            Channel channel = binding.channel;
+            InboundSpec listenSpec = binding.listenSpec;
+            logger.trace(
+                    "onGroupWrite Thing '{}' processes a GroupValueWrite telegram for destination '{}' for channel '{}'",
+                    getThing().getUID(), destination, channel.getUID());
+            /**
+             * Remember current KNXIO outboundSpec only if it is a control channel.
+             */
+            if (binding.control) {
+                logger.trace("onGroupWrite isControl");
+                Type type = typeHelper.toType(
+                        new CommandDP(destination, getThing().getUID().toString(), 0, listenSpec.getDPT()), asdu);
+                if (type != null) {
+                    try {
+                        OutboundSpec commandSpec = binding.selector.getCommandSpec(channel.getConfiguration(),
+                                typeHelper, type);
+                        if (commandSpec != null) {
+                            rememberRespondingSpec(commandSpec, true);
                         }
+                    } catch (KNXException e) {
+                        logger.warn("An error occurred on channel {}: {}", channel.getUID(), e.getMessage(), e);
                     }
-                    processDataReceived(destination, asdu, listenSpec, channel.getUID());
                 }
-            });
+            }
+            processDataReceived(destination, asdu, listenSpec, channel.getUID());
         }
     }
 
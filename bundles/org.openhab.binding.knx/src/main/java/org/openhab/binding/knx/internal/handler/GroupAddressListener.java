@@ -12,6 +12,8 @@
  */
 package org.openhab.binding.knx.internal.handler;
 
+import java.util.Set;
+
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.openhab.binding.knx.internal.client.BusMessageListener;
 
@@ -33,4 +35,11 @@ public interface GroupAddressListener extends BusMessageListener {
      * @param destination
      */
     public boolean listensTo(GroupAddress destination);
+
+    /**
+     * Get all GroupAddresses the GroupAddressListener has an interest in.
+     *
+     * The client indexes the listener with these addresses when it gets registered, so they must be known before.
+     */
+    public Set<GroupAddress> getGroupAddresses();
 }
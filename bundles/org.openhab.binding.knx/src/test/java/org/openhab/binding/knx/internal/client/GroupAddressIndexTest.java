@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.knx.internal.client;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.binding.knx.internal.handler.GroupAddressListener;
+import org.openhab.core.thing.ThingUID;
+
+import tuwien.auto.calimero.GroupAddress;
+import tuwien.auto.calimero.KNXException;
+import tuwien.auto.calimero.link.KNXNetworkLink;
+
+/**
+ * Tests the group address index of the {@link AbstractKNXClient}.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class GroupAddressIndexTest {
+
+    private static final GroupAddress GA1 = new GroupAddress(1, 0, 1);
+    private static final GroupAddress GA2 = new GroupAddress(1, 0, 2);
+    private static final GroupAddress GA3 = new GroupAddress(1, 0, 3);
+
+    private @NonNullByDefault({}) AbstractKNXClient client;
+
+    @BeforeEach
+    public void setUp() {
+        client = new AbstractKNXClient(0, new ThingUID("knx:ip:test"), 10, 50, 3,
+                mock(ScheduledExecutorService.class), mock(StatusUpdateCallback.class)) {
+            @Override
+            protected KNXNetworkLink establishConnection() throws KNXException {
+                throw new KNXException("not connected");
+            }
+        };
+    }
+
+    private static GroupAddressListener listener(Set<GroupAddress> groupAddresses) {
+        GroupAddressListener listener = mock(GroupAddressListener.class);
+        when(listener.getGroupAddresses()).thenReturn(groupAddresses);
+        return listener;
+    }
+
+    @Test
+    public void testListenersAreIndexedByGroupAddress() {
+        GroupAddressListener first = listener(Set.of(GA1, GA2));
+        GroupAddressListener second = listener(Set.of(GA2));
+
+        assertTrue(client.registerGroupAddressListener(first));
+        assertTrue(client.registerGroupAddressListener(second));
+
+        assertEquals(Set.of(first), client.getListeners(GA1));
+        assertEquals(Set.of(first, second), client.getListeners(GA2));
+        assertTrue(client.getListeners(GA3).isEmpty());
+    }
+
+    @Test
+    public void testReRegisterUpdatesTheIndex() {
+        Set<GroupAddress> groupAddresses = new HashSet<>(Set.of(GA1, GA2));
+        GroupAddressListener listener = listener(groupAddresses);
+        client.registerGroupAddressListener(listener);
+
+        groupAddresses.remove(GA1);
+        groupAddresses.add(GA3);
+        assertFalse(client.registerGroupAddressListener(listener));
+
+        assertTrue(client.getListeners(GA1).isEmpty());
+        assertEquals(Set.of(listener), client.getListeners(GA2));
+        assertEquals(Set.of(listener), client.getListeners(GA3));
+    }
+
+    @Test
+    public void testUnregisterRemovesFromIndex() {
+        GroupAddressListener first = listener(Set.of(GA1, GA2));
+        GroupAddressListener second = listener(Set.of(GA2));
+        client.registerGroupAddressListener(first);
+        client.registerGroupAddressListener(second);
+
+        assertTrue(client.unregisterGroupAddressListener(first));
+        assertFalse(client.unregisterGroupAddressListener(first));
+
+        assertTrue(client.getListeners(GA1).isEmpty());
+        assertEquals(Set.of(second), client.getListeners(GA2));
+    }
+}
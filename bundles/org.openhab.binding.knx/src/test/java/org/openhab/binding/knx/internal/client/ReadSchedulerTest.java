@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.knx.internal.client;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Objects;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+
+import tuwien.auto.calimero.GroupAddress;
+import tuwien.auto.calimero.datapoint.CommandDP;
+
+/**
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ReadSchedulerTest {
+
+    private static ReadDatapoint read(int mainGroup) {
+        return new ReadDatapoint(new CommandDP(new GroupAddress(mainGroup, 0, 1), "test", 0, "1.001"), 3);
+    }
+
+    @Test
+    public void testDuplicatesAreCoalesced() {
+        ReadScheduler scheduler = new ReadScheduler();
+        assertTrue(scheduler.add(read(1), ReadPriority.NORMAL));
+        assertFalse(scheduler.add(read(1), ReadPriority.LOW));
+        assertTrue(scheduler.add(read(2), ReadPriority.NORMAL));
+
+        assertEquals(2, scheduler.getPending());
+        assertEquals(1, scheduler.getCoalesced());
+        assertNotNull(scheduler.poll());
+        assertNotNull(scheduler.poll());
+        assertNull(scheduler.poll());
+        assertEquals(2, scheduler.getCompleted());
+    }
+
+    @Test
+    public void testHigherPriorityFirst() {
+        ReadScheduler scheduler = new ReadScheduler();
+        scheduler.add(read(1), ReadPriority.LOW);
+        scheduler.add(read(2), ReadPriority.NORMAL);
+        scheduler.add(read(3), ReadPriority.LOW);
+        // promote a queued request
+        scheduler.add(read(3), ReadPriority.HIGH);
+
+        assertEquals(new GroupAddress(3, 0, 1), getMainAddress(scheduler.poll()));
+        assertEquals(new GroupAddress(2, 0, 1), getMainAddress(scheduler.poll()));
+        assertEquals(new GroupAddress(1, 0, 1), getMainAddress(scheduler.poll()));
+        assertNull(scheduler.poll());
+    }
+
+    @Test
+    public void testReadingPauseOfIdleBus() {
+        ReadScheduler scheduler = new ReadScheduler();
+        assertEquals(50, scheduler.getReadingPause(50));
+        assertEquals(10000, scheduler.getReadingPause(10000));
+    }
+
+    private static GroupAddress getMainAddress(@Nullable ReadDatapoint datapoint) {
+        return Objects.requireNonNull(datapoint).getDatapoint().getMainAddress();
+    }
+}
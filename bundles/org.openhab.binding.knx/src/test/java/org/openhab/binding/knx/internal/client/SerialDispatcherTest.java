@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.knx.internal.client;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class SerialDispatcherTest {
+
+    private final Queue<Runnable> submitted = new ArrayDeque<>();
+    private final SerialDispatcher dispatcher = new SerialDispatcher(submitted::add);
+
+    private int runSubmitted() {
+        int drains = 0;
+        Runnable drain;
+        while ((drain = submitted.poll()) != null) {
+            drain.run();
+            drains++;
+        }
+        return drains;
+    }
+
+    @Test
+    public void testTasksRunInOrderInOneDrain() {
+        List<Integer> executed = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            int task = i;
+            dispatcher.execute(() -> executed.add(task));
+        }
+
+        assertEquals(1, submitted.size());
+        assertEquals(1, runSubmitted());
+        assertEquals(List.of(0, 1, 2, 3, 4), executed);
+    }
+
+    @Test
+    public void testLongQueueIsSplitIntoSeveralDrains() {
+        List<Integer> executed = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            int task = i;
+            dispatcher.execute(() -> executed.add(task));
+        }
+
+        assertEquals(2, runSubmitted());
+        assertEquals(40, executed.size());
+        for (int i = 0; i < 40; i++) {
+            assertEquals(i, executed.get(i));
+        }
+    }
+
+    @Test
+    public void testFailingTaskDoesNotStopTheQueue() {
+        List<String> executed = new ArrayList<>();
+        dispatcher.execute(() -> {
+            throw new IllegalStateException("test");
+        });
+        dispatcher.execute(() -> executed.add("next"));
+
+        runSubmitted();
+        assertEquals(List.of("next"), executed);
+    }
+
+    @Test
+    public void testNewDrainAfterQueueRanEmpty() {
+        List<String> executed = new ArrayList<>();
+        dispatcher.execute(() -> executed.add("first"));
+        runSubmitted();
+        dispatcher.execute(() -> executed.add("second"));
+
+        assertEquals(1, runSubmitted());
+        assertEquals(List.of("first", "second"), executed);
+    }
+}
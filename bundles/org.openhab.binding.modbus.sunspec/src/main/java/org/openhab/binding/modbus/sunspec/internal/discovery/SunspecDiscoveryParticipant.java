@@ -15,6 +15,7 @@ package org.openhab.binding.modbus.sunspec.internal.discovery;
 import static org.openhab.binding.modbus.sunspec.internal.SunSpecConstants.SUPPORTED_THING_TYPES_UIDS;
 
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -22,8 +23,13 @@ import org.openhab.binding.modbus.discovery.ModbusDiscoveryListener;
 import org.openhab.binding.modbus.discovery.ModbusDiscoveryParticipant;
 import org.openhab.binding.modbus.handler.EndpointNotInitializedException;
 import org.openhab.binding.modbus.handler.ModbusEndpointThingHandler;
+import org.openhab.core.storage.Storage;
+import org.openhab.core.storage.StorageService;
 import org.openhab.core.thing.ThingTypeUID;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,14 +37,40 @@ import org.slf4j.LoggerFactory;
  * Discovery service for sunspec
  *
  * @author Nagy Attila Gabor - initial contribution
+ * @author agent - Model map cache and read pipelining settings
  *
  */
-@Component
+@Component(configurationPid = "discovery.sunspec")
 @NonNullByDefault
 public class SunspecDiscoveryParticipant implements ModbusDiscoveryParticipant {
 
+    private static final String CONFIG_MAX_IN_FLIGHT_READS = "maxInFlightReads";
+    private static final int DEFAULT_MAX_IN_FLIGHT_READS = 3;
+
     private final Logger logger = LoggerFactory.getLogger(SunspecDiscoveryParticipant.class);
 
+    private final Storage<String> modelCache;
+    private volatile int maxInFlightReads = DEFAULT_MAX_IN_FLIGHT_READS;
+
+    @Activate
+    public SunspecDiscoveryParticipant(final @Reference StorageService storageService,
+            Map<String, Object> configProperties) {
+        modelCache = storageService.getStorage("modbus.sunspec.models", getClass().getClassLoader());
+        modified(configProperties);
+    }
+
+    @Modified
+    protected void modified(Map<String, Object> configProperties) {
+        Object value = configProperties.get(CONFIG_MAX_IN_FLIGHT_READS);
+        try {
+            maxInFlightReads = value == null ? DEFAULT_MAX_IN_FLIGHT_READS : Integer.parseInt(value.toString());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid value '{}' for {}, using {}", value, CONFIG_MAX_IN_FLIGHT_READS,
+                    DEFAULT_MAX_IN_FLIGHT_READS);
+            maxInFlightReads = DEFAULT_MAX_IN_FLIGHT_READS;
+        }
+    }
+
     @Override
     public Set<ThingTypeUID> getSupportedThingTypeUIDs() {
         return new HashSet<ThingTypeUID>(SUPPORTED_THING_TYPES_UIDS.values());
@@ -48,7 +80,7 @@ public class SunspecDiscoveryParticipant implements ModbusDiscoveryParticipant {
     public void startDiscovery(ModbusEndpointThingHandler handler, ModbusDiscoveryListener listener) {
         logger.trace("Starting sunspec discovery");
         try {
-            new SunspecDiscoveryProcess(handler, listener).detectModel();
+            new SunspecDiscoveryProcess(handler, listener, maxInFlightReads, modelCache).detectModel();
         } catch (EndpointNotInitializedException ex) {
             logger.debug("Could not start discovery process");
             listener.discoveryFinished();
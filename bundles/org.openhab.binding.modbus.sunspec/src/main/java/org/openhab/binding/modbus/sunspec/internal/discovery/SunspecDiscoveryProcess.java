@@ -14,11 +14,15 @@ package org.openhab.binding.modbus.sunspec.internal.discovery;
 
 import static org.openhab.binding.modbus.sunspec.internal.SunSpecConstants.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -33,12 +37,14 @@ import org.openhab.core.config.discovery.DiscoveryResultBuilder;
 import org.openhab.core.io.transport.modbus.AsyncModbusFailure;
 import org.openhab.core.io.transport.modbus.ModbusBitUtilities;
 import org.openhab.core.io.transport.modbus.ModbusCommunicationInterface;
+import org.openhab.core.io.transport.modbus.ModbusConstants;
 import org.openhab.core.io.transport.modbus.ModbusConstants.ValueType;
 import org.openhab.core.io.transport.modbus.ModbusReadFunctionCode;
 import org.openhab.core.io.transport.modbus.ModbusReadRequestBlueprint;
 import org.openhab.core.io.transport.modbus.ModbusRegisterArray;
 import org.openhab.core.io.transport.modbus.exception.ModbusSlaveErrorResponseException;
 import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.storage.Storage;
 import org.openhab.core.thing.ThingTypeUID;
 import org.openhab.core.thing.ThingUID;
 import org.slf4j.Logger;
@@ -50,7 +56,12 @@ import org.slf4j.LoggerFactory;
  * It scans trough the defined model items and notifies the
  * discovery service about the discovered devices
  *
+ * All possible base addresses are probed at once, and up to a configurable number of reads are kept in flight
+ * towards the endpoint. The model map found is cached per endpoint, so that a later discovery only verifies the
+ * cached blocks with parallel reads instead of walking the model chain one block at a time.
+ *
  * @author Nagy Attila Gabor - Initial contribution
+ * @author agent - Pipelined discovery with cached model maps
  */
 @NonNullByDefault
 public class SunspecDiscoveryProcess {
@@ -83,9 +94,25 @@ public class SunspecDiscoveryProcess {
     private static final int maxTries = 3;
 
     /**
-     * List of start addresses to try
+     * Separators of the blocks, and the fields of a block, in cached model maps
+     */
+    private static final String MODEL_MAP_SEPARATOR = ";";
+    private static final String MODEL_MAP_FIELD_SEPARATOR = ":";
+
+    /**
+     * Start addresses to try, in order of preference
+     */
+    private static final List<Integer> POSSIBLE_ADDRESSES = List.of(40000, 50000, 0);
+
+    /**
+     * Results of probing the possible start addresses
+     */
+    private final Map<Integer, Boolean> probeResults = new HashMap<>();
+
+    /**
+     * The start address of the model chain currently walked
      */
-    private Queue<Integer> possibleAddresses;
+    private int chainAddress = -1;
 
     /**
      * This is the base address where the next block should be searched for
@@ -97,6 +124,11 @@ public class SunspecDiscoveryProcess {
      */
     private int blocksFound = 0;
 
+    /**
+     * Blocks found while walking the model chain
+     */
+    private final List<ModelBlock> discoveredBlocks = new ArrayList<>();
+
     /**
      * Parser for commonblock
      */
@@ -113,13 +145,62 @@ public class SunspecDiscoveryProcess {
      */
     private ModbusCommunicationInterface comms;
 
+    /**
+     * Maximum number of reads submitted to the endpoint at the same time
+     */
+    private final int maxInFlightReads;
+
+    /**
+     * Number of reads submitted and not yet answered
+     */
+    private int inFlightReads = 0;
+
+    /**
+     * Reads waiting for a free slot
+     */
+    private final Queue<Runnable> pendingReads = new LinkedList<>();
+
+    /**
+     * Cache of model maps found, per endpoint
+     */
+    private final Storage<String> modelCache;
+
+    /**
+     * Key of this endpoint in the model cache
+     */
+    private final String modelCacheKey;
+
+    /**
+     * Blocks of the cached model map currently verified, null if not verifying
+     */
+    private @Nullable List<ModelBlock> blocksToVerify;
+
+    /**
+     * Number of verification reads not yet answered
+     */
+    private int pendingVerifications = 0;
+
+    /**
+     * Common blocks read during verification, by address
+     */
+    private final Map<Integer, CommonModelBlock> verifiedCommonBlocks = new HashMap<>();
+
+    /**
+     * Whether the discovery has finished
+     */
+    private boolean finished = false;
+
     /**
      * New instances of this class should get a reference to the handler
      *
+     * @param handler the endpoint handler
+     * @param listener listener for the discovery results
+     * @param maxInFlightReads maximum number of reads submitted to the endpoint at the same time
+     * @param modelCache cache for model maps found
      * @throws EndpointNotInitializedException
      */
-    public SunspecDiscoveryProcess(ModbusEndpointThingHandler handler, ModbusDiscoveryListener listener)
-            throws EndpointNotInitializedException {
+    public SunspecDiscoveryProcess(ModbusEndpointThingHandler handler, ModbusDiscoveryListener listener,
+            int maxInFlightReads, Storage<String> modelCache) throws EndpointNotInitializedException {
         this.handler = handler;
 
         ModbusCommunicationInterface localComms = handler.getCommunicationInterface();
@@ -130,73 +211,91 @@ public class SunspecDiscoveryProcess {
         }
         slaveId = handler.getSlaveId();
         this.listener = listener;
+        this.maxInFlightReads = Math.max(1, maxInFlightReads);
+        this.modelCache = modelCache;
+        this.modelCacheKey = handler.getUID().getAsString() + ":" + slaveId;
         commonBlockParser = new CommonModelParser();
-        possibleAddresses = new ConcurrentLinkedQueue<>();
-        // Preferred and alternate base registers
-        // @see SunSpec Information Model Overview
-        possibleAddresses.add(40000);
-        possibleAddresses.add(50000);
-        possibleAddresses.add(0);
     }
 
     /**
      * Start model detection
      *
-     * @param uid the thing type to look for
-     * @throws EndpointNotInitializedException
+     * Verifies the cached model map of the endpoint if there is one, scans the possible start addresses otherwise.
      */
-    public void detectModel() {
-
-        if (possibleAddresses.isEmpty()) {
-            parsingFinished();
+    public synchronized void detectModel() {
+        String cachedModelMap = modelCache.get(modelCacheKey);
+        if (cachedModelMap != null && verifyModelMap(cachedModelMap)) {
             return;
         }
-        // Try the next address from the possibles
-        baseAddress = possibleAddresses.poll();
-        logger.trace("Beginning scan for SunSpec device at address {}", baseAddress);
-
-        ModbusReadRequestBlueprint request = new ModbusReadRequestBlueprint(slaveId,
-                ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, baseAddress, // Start address
-                SUNSPEC_ID_SIZE, // number or words to return
-                maxTries);
+        scanAddresses();
+    }
 
-        comms.submitOneTimePoll(request, result -> result.getRegisters().ifPresent(this::headerReceived),
-                this::handleError);
+    /**
+     * Probe all possible start addresses for the SunS identifier
+     */
+    private void scanAddresses() {
+        for (int address : POSSIBLE_ADDRESSES) {
+            if (probeResults.containsKey(address)) {
+                continue;
+            }
+            logger.trace("Beginning scan for SunSpec device at address {}", address);
+            submitRead(address, SUNSPEC_ID_SIZE, registers -> probeReceived(address, registers),
+                    failure -> probeFailed(address, failure));
+        }
+        selectChainAddress();
     }
 
     /**
      * We received the first two words, that should equal to SunS
      */
-    private void headerReceived(ModbusRegisterArray registers) {
+    private void probeReceived(int address, ModbusRegisterArray registers) {
         logger.trace("Received response from device {}", registers.toString());
 
-        Optional<DecimalType> id = ModbusBitUtilities.extractStateFromRegisters(registers, 0, ValueType.UINT32);
-
-        if (!id.isPresent() || id.get().longValue() != SUNSPEC_ID) {
-            logger.debug("Could not find SunSpec DID at address {}, received: {}, expected: {}", baseAddress, id,
-                    SUNSPEC_ID);
-            detectModel();
-            return;
+        boolean found = isSunspecId(registers);
+        if (!found) {
+            logger.debug("Could not find SunSpec DID at address {}, received: {}, expected: {}", address,
+                    registers, SUNSPEC_ID);
         }
+        probeResults.put(address, found);
+        selectChainAddress();
+    }
 
-        logger.trace("Header looks correct");
-        baseAddress += SUNSPEC_ID_SIZE;
+    private void probeFailed(int address, AsyncModbusFailure<ModbusReadRequestBlueprint> failure) {
+        logger.debug("Error with read at address {}: {} {}", address, failure.getCause().getClass().getName(),
+                failure.getCause().getMessage());
+        probeResults.put(address, false);
+        selectChainAddress();
+    }
 
-        lookForModelBlock();
+    /**
+     * Start walking the model chain at the most preferred start address with a SunS identifier, as soon as all
+     * more preferred addresses are known not to have one
+     */
+    private void selectChainAddress() {
+        if (finished || chainAddress >= 0) {
+            return;
+        }
+        for (int address : POSSIBLE_ADDRESSES) {
+            Boolean found = probeResults.get(address);
+            if (found == null) {
+                // Wait for the result of the more preferred address
+                return;
+            } else if (found) {
+                logger.trace("Header looks correct");
+                chainAddress = address;
+                baseAddress = address + SUNSPEC_ID_SIZE;
+                lookForModelBlock();
+                return;
+            }
+        }
+        parsingFinished();
     }
 
     /**
      * Look for a valid model block at the current base address
      */
     private void lookForModelBlock() {
-
-        ModbusReadRequestBlueprint request = new ModbusReadRequestBlueprint(slaveId,
-                ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, baseAddress, // Start address
-                MODEL_HEADER_SIZE, // number or words to return
-                maxTries);
-
-        comms.submitOneTimePoll(request, result -> result.getRegisters().ifPresent(this::modelBlockReceived),
-                this::handleError);
+        submitRead(baseAddress, MODEL_HEADER_SIZE, this::modelBlockReceived, this::handleError);
     }
 
     /**
@@ -225,9 +324,10 @@ public class SunspecDiscoveryProcess {
         if (block.moduleID == FINAL_BLOCK) {
             parsingFinished();
         } else {
+            discoveredBlocks.add(block);
             baseAddress += block.length;
             if (block.moduleID == COMMON_BLOCK) {
-                readCommonBlock(block); // This is an asynchronous task
+                readCommonBlock(block, true); // This is an asynchronous task
                 return;
             } else {
                 createDiscoveryResult(block);
@@ -241,27 +341,201 @@ public class SunspecDiscoveryProcess {
      * Start reading common block
      *
      * @param block
+     * @param withNextHeader read the header of the following block with the same request
      */
-    private void readCommonBlock(ModelBlock block) {
-        ModbusReadRequestBlueprint request = new ModbusReadRequestBlueprint(slaveId,
-                ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, block.address, // Start address
-                block.length, // number or words to return
-                maxTries);
-
-        comms.submitOneTimePoll(request, result -> result.getRegisters().ifPresent(this::parseCommonBlock),
-                this::handleError);
+    private void readCommonBlock(ModelBlock block, boolean withNextHeader) {
+        boolean readNextHeader = withNextHeader
+                && block.length + MODEL_HEADER_SIZE <= ModbusConstants.MAX_REGISTERS_READ_COUNT;
+        submitRead(block.address, readNextHeader ? block.length + MODEL_HEADER_SIZE : block.length,
+                registers -> parseCommonBlock(block, registers), failure -> {
+                    if (readNextHeader) {
+                        // The common block might be the last block in the register space
+                        readCommonBlock(block, false);
+                    } else {
+                        handleError(failure);
+                    }
+                });
     }
 
     /**
      * We've read the details of a common block now parse it, and
      * store for later use
      *
-     * @param registers
+     * @param block
+     * @param registers common block, optionally followed by the header of the next block
      */
-    private void parseCommonBlock(ModbusRegisterArray registers) {
+    private void parseCommonBlock(ModelBlock block, ModbusRegisterArray registers) {
         logger.trace("Got common block data: {}", registers);
-        lastCommonBlock = commonBlockParser.parse(registers);
-        lookForModelBlock(); // Continue parsing
+        byte[] bytes = registers.getBytes();
+        lastCommonBlock = commonBlockParser
+                .parse(new ModbusRegisterArray(Arrays.copyOfRange(bytes, 0, 2 * block.length)));
+        if (registers.size() >= block.length + MODEL_HEADER_SIZE) {
+            // Continue parsing with the header read along with the common block
+            modelBlockReceived(new ModbusRegisterArray(Arrays.copyOfRange(bytes, 2 * block.length,
+                    2 * (block.length + MODEL_HEADER_SIZE))));
+        } else {
+            lookForModelBlock(); // Continue parsing
+        }
+    }
+
+    /**
+     * Verify the cached model map with parallel reads
+     *
+     * @param modelMap cached model map
+     * @return whether the verification was started
+     */
+    private boolean verifyModelMap(String modelMap) {
+        List<ModelBlock> blocks = new ArrayList<>();
+        int address;
+        try {
+            String[] parts = modelMap.split(MODEL_MAP_SEPARATOR);
+            address = Integer.parseInt(parts[0]);
+            for (int i = 1; i < parts.length; i++) {
+                String[] fields = parts[i].split(MODEL_MAP_FIELD_SEPARATOR);
+                ModelBlock block = new ModelBlock();
+                block.address = Integer.parseInt(fields[0]);
+                block.moduleID = Integer.parseInt(fields[1]);
+                block.length = Integer.parseInt(fields[2]);
+                blocks.add(block);
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            logger.debug("Ignoring invalid cached model map '{}'", modelMap);
+            modelCache.remove(modelCacheKey);
+            return false;
+        }
+        if (blocks.isEmpty()) {
+            return false;
+        }
+
+        logger.debug("Verifying cached model map of {}: {}", modelCacheKey, blocks);
+        final int sunspecAddress = address;
+        chainAddress = address;
+        blocksToVerify = blocks;
+        // the SunS identifier, every cached block and the end of the model chain
+        pendingVerifications = blocks.size() + 2;
+        submitRead(sunspecAddress, SUNSPEC_ID_SIZE, registers -> {
+            if (isSunspecId(registers)) {
+                verificationStepDone();
+            } else {
+                verificationFailed(String.format("No SunSpec DID at address %d", sunspecAddress));
+            }
+        }, failure -> verificationFailed(failure.getCause().toString()));
+        for (ModelBlock block : blocks) {
+            submitRead(block.address, block.moduleID == COMMON_BLOCK ? block.length : MODEL_HEADER_SIZE,
+                    registers -> cachedBlockReceived(block, registers),
+                    failure -> verificationFailed(failure.getCause().toString()));
+        }
+        // Blocks added behind the cached ones would be missed otherwise
+        ModelBlock lastBlock = blocks.get(blocks.size() - 1);
+        final int endAddress = lastBlock.address + lastBlock.length;
+        submitRead(endAddress, MODEL_HEADER_SIZE, registers -> {
+            Optional<DecimalType> moduleID = ModbusBitUtilities.extractStateFromRegisters(registers, 0,
+                    ValueType.UINT16);
+            if (moduleID.isPresent() && moduleID.get().intValue() == FINAL_BLOCK) {
+                verificationStepDone();
+            } else {
+                verificationFailed(String.format("No end block at address %d: %s", endAddress, registers));
+            }
+        }, failure -> {
+            if (isEndOfRegisterSpace(failure)) {
+                // The device does not report an end block, like when the model map was found
+                verificationStepDone();
+            } else {
+                verificationFailed(failure.getCause().toString());
+            }
+        });
+        return true;
+    }
+
+    private void cachedBlockReceived(ModelBlock block, ModbusRegisterArray registers) {
+        Optional<DecimalType> moduleID = ModbusBitUtilities.extractStateFromRegisters(registers, 0, ValueType.UINT16);
+        Optional<DecimalType> blockLength = ModbusBitUtilities.extractStateFromRegisters(registers, 1,
+                ValueType.UINT16);
+        if (!moduleID.isPresent() || moduleID.get().intValue() != block.moduleID || !blockLength.isPresent()
+                || blockLength.get().intValue() + MODEL_HEADER_SIZE != block.length) {
+            verificationFailed(String.format("Block at address %d changed: %s", block.address, registers));
+            return;
+        }
+        if (block.moduleID == COMMON_BLOCK) {
+            verifiedCommonBlocks.put(block.address, commonBlockParser.parse(registers));
+        }
+        verificationStepDone();
+    }
+
+    private void verificationStepDone() {
+        List<ModelBlock> blocks = blocksToVerify;
+        if (blocks == null || --pendingVerifications > 0) {
+            return;
+        }
+        logger.debug("Cached model map of {} verified", modelCacheKey);
+        blocksToVerify = null;
+        for (ModelBlock block : blocks) {
+            if (block.moduleID == COMMON_BLOCK) {
+                lastCommonBlock = verifiedCommonBlocks.get(block.address);
+            } else {
+                createDiscoveryResult(block);
+            }
+        }
+        finished = true;
+        listener.discoveryFinished();
+    }
+
+    private void verificationFailed(String reason) {
+        if (blocksToVerify == null) {
+            return;
+        }
+        logger.debug("Cached model map of {} is outdated ({}), scanning the device", modelCacheKey, reason);
+        blocksToVerify = null;
+        chainAddress = -1;
+        pendingReads.clear();
+        modelCache.remove(modelCacheKey);
+        scanAddresses();
+    }
+
+    /**
+     * @return true if the device rejected the read because the registers do not exist
+     */
+    private boolean isEndOfRegisterSpace(AsyncModbusFailure<ModbusReadRequestBlueprint> failure) {
+        if (failure.getCause() instanceof ModbusSlaveErrorResponseException) {
+            int code = ((ModbusSlaveErrorResponseException) failure.getCause()).getExceptionCode();
+            return code == ModbusSlaveErrorResponseException.ILLEGAL_DATA_ACCESS
+                    || code == ModbusSlaveErrorResponseException.ILLEGAL_DATA_VALUE;
+        }
+        return false;
+    }
+
+    private boolean isSunspecId(ModbusRegisterArray registers) {
+        Optional<DecimalType> id = ModbusBitUtilities.extractStateFromRegisters(registers, 0, ValueType.UINT32);
+        return id.isPresent() && id.get().longValue() == SUNSPEC_ID;
+    }
+
+    /**
+     * Submit a read, or queue it if the maximum number of reads is already in flight
+     */
+    private void submitRead(int address, int length, Consumer<ModbusRegisterArray> resultHandler,
+            Consumer<AsyncModbusFailure<ModbusReadRequestBlueprint>> failureHandler) {
+        ModbusReadRequestBlueprint request = new ModbusReadRequestBlueprint(slaveId,
+                ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, address, // Start address
+                length, // number or words to return
+                maxTries);
+        pendingReads.add(() -> comms.submitOneTimePoll(request,
+                result -> readCompleted(() -> result.getRegisters().ifPresent(resultHandler)),
+                failure -> readCompleted(() -> failureHandler.accept(failure))));
+        submitPendingReads();
+    }
+
+    private synchronized void readCompleted(Runnable handler) {
+        inFlightReads--;
+        handler.run();
+        submitPendingReads();
+    }
+
+    private void submitPendingReads() {
+        while (inFlightReads < maxInFlightReads && !pendingReads.isEmpty()) {
+            Runnable read = pendingReads.poll();
+            inFlightReads++;
+            read.run();
+        }
     }
 
     /**
@@ -311,6 +585,19 @@ public class SunspecDiscoveryProcess {
      * Now we have to report back to the handler the common block and the block we were looking for
      */
     private void parsingFinished() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        pendingReads.clear();
+        if (!discoveredBlocks.isEmpty()) {
+            StringBuilder modelMap = new StringBuilder(Integer.toString(chainAddress));
+            for (ModelBlock block : discoveredBlocks) {
+                modelMap.append(MODEL_MAP_SEPARATOR).append(block.address).append(MODEL_MAP_FIELD_SEPARATOR)
+                        .append(block.moduleID).append(MODEL_MAP_FIELD_SEPARATOR).append(block.length);
+            }
+            modelCache.put(modelCacheKey, modelMap.toString());
+        }
         listener.discoveryFinished();
     }
 
@@ -318,17 +605,12 @@ public class SunspecDiscoveryProcess {
      * Handle errors received during communication
      */
     private void handleError(AsyncModbusFailure<ModbusReadRequestBlueprint> failure) {
-        if (blocksFound > 1 && failure.getCause() instanceof ModbusSlaveErrorResponseException) {
-            int code = ((ModbusSlaveErrorResponseException) failure.getCause()).getExceptionCode();
-            if (code == ModbusSlaveErrorResponseException.ILLEGAL_DATA_ACCESS
-                    || code == ModbusSlaveErrorResponseException.ILLEGAL_DATA_VALUE) {
-                // It is very likely that the slave does not report an end block (0xffff) after the main blocks
-                // so we treat this situation as normal.
-                logger.debug(
-                        "Seems like slave device does not report an end block. Continuing with the dectected blocks");
-                parsingFinished();
-                return;
-            }
+        if (blocksFound > 1 && isEndOfRegisterSpace(failure)) {
+            // It is very likely that the slave does not report an end block (0xffff) after the main blocks
+            // so we treat this situation as normal.
+            logger.debug("Seems like slave device does not report an end block. Continuing with the dectected blocks");
+            parsingFinished();
+            return;
         }
 
         String cls = failure.getCause().getClass().getName();
@@ -336,6 +618,10 @@ public class SunspecDiscoveryProcess {
 
         logger.warn("Error with read at address {}: {} {}", baseAddress, cls, msg);
 
-        detectModel();
+        // Continue with the next start address having a SunS identifier
+        probeResults.put(chainAddress, false);
+        chainAddress = -1;
+        discoveredBlocks.clear();
+        selectChainAddress();
     }
 }
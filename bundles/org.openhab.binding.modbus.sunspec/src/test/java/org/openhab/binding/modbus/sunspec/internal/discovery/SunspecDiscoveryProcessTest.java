@@ -0,0 +1,165 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.modbus.sunspec.internal.discovery;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.openhab.binding.modbus.sunspec.internal.SunSpecConstants.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.binding.modbus.discovery.ModbusDiscoveryListener;
+import org.openhab.binding.modbus.handler.EndpointNotInitializedException;
+import org.openhab.binding.modbus.handler.ModbusEndpointThingHandler;
+import org.openhab.core.io.transport.modbus.AsyncModbusFailure;
+import org.openhab.core.io.transport.modbus.AsyncModbusReadResult;
+import org.openhab.core.io.transport.modbus.ModbusCommunicationInterface;
+import org.openhab.core.io.transport.modbus.ModbusFailureCallback;
+import org.openhab.core.io.transport.modbus.ModbusReadCallback;
+import org.openhab.core.io.transport.modbus.ModbusReadRequestBlueprint;
+import org.openhab.core.io.transport.modbus.ModbusRegisterArray;
+import org.openhab.core.io.transport.modbus.exception.ModbusSlaveErrorResponseException;
+import org.openhab.core.storage.Storage;
+import org.openhab.core.thing.ThingUID;
+
+/**
+ * Tests the discovery and the verification of cached model maps with a simulated device, with and without an end
+ * block after the last model block.
+ *
+ * @author agent - Initial contribution
+ */
+public class SunspecDiscoveryProcessTest {
+    private static final int COMMON_BLOCK_ADDRESS = 40002;
+    private static final int COMMON_BLOCK_LENGTH = 66;
+    private static final int INVERTER_ADDRESS = COMMON_BLOCK_ADDRESS + COMMON_BLOCK_LENGTH + MODEL_HEADER_SIZE;
+    private static final int INVERTER_LENGTH = 50;
+    private static final int END_ADDRESS = INVERTER_ADDRESS + INVERTER_LENGTH + MODEL_HEADER_SIZE;
+
+    // register values of the simulated device by address, reads of other registers are rejected
+    private final Map<Integer, Integer> registers = new HashMap<>();
+    private final List<Integer> readAddresses = new ArrayList<>();
+    private final Map<String, String> storedModels = new HashMap<>();
+    private ModbusEndpointThingHandler handler;
+    private Storage<String> modelCache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() throws EndpointNotInitializedException {
+        registers.put(40000, 0x5375);
+        registers.put(40001, 0x6e53);
+        registers.put(COMMON_BLOCK_ADDRESS, COMMON_BLOCK);
+        registers.put(COMMON_BLOCK_ADDRESS + 1, COMMON_BLOCK_LENGTH);
+        for (int i = 0; i < COMMON_BLOCK_LENGTH; i++) {
+            registers.put(COMMON_BLOCK_ADDRESS + MODEL_HEADER_SIZE + i, 0);
+        }
+        registers.put(INVERTER_ADDRESS, INVERTER_SINGLE_PHASE);
+        registers.put(INVERTER_ADDRESS + 1, INVERTER_LENGTH);
+        for (int i = 0; i < INVERTER_LENGTH; i++) {
+            registers.put(INVERTER_ADDRESS + MODEL_HEADER_SIZE + i, 0);
+        }
+
+        ModbusCommunicationInterface comms = mock(ModbusCommunicationInterface.class);
+        doAnswer(invocation -> {
+            read(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+            return null;
+        }).when(comms).submitOneTimePoll(any(ModbusReadRequestBlueprint.class), any(ModbusReadCallback.class),
+                any());
+        handler = mock(ModbusEndpointThingHandler.class);
+        when(handler.getCommunicationInterface()).thenReturn(comms);
+        when(handler.getSlaveId()).thenReturn(1);
+        when(handler.getUID()).thenReturn(new ThingUID("modbus:tcp:endpoint"));
+
+        modelCache = mock(Storage.class);
+        when(modelCache.get(anyString())).thenAnswer(invocation -> storedModels.get(invocation.getArgument(0)));
+        when(modelCache.put(anyString(), any())).thenAnswer(
+                invocation -> storedModels.put(invocation.getArgument(0), invocation.getArgument(1)));
+        when(modelCache.remove(anyString()))
+                .thenAnswer(invocation -> storedModels.remove(invocation.getArgument(0)));
+    }
+
+    private void read(ModbusReadRequestBlueprint request, ModbusReadCallback callback,
+            ModbusFailureCallback<ModbusReadRequestBlueprint> failureCallback) {
+        readAddresses.add(request.getReference());
+        int[] values = new int[request.getDataLength()];
+        for (int i = 0; i < values.length; i++) {
+            Integer value = registers.get(request.getReference() + i);
+            if (value == null) {
+                ModbusSlaveErrorResponseException illegalAddress = mock(ModbusSlaveErrorResponseException.class);
+                when(illegalAddress.getExceptionCode())
+                        .thenReturn(ModbusSlaveErrorResponseException.ILLEGAL_DATA_ACCESS);
+                failureCallback.handle(new AsyncModbusFailure<>(request, illegalAddress));
+                return;
+            }
+            values[i] = value;
+        }
+        callback.handle(new AsyncModbusReadResult(request, new ModbusRegisterArray(values)));
+    }
+
+    private ModbusDiscoveryListener discover() throws EndpointNotInitializedException {
+        ModbusDiscoveryListener listener = mock(ModbusDiscoveryListener.class);
+        new SunspecDiscoveryProcess(handler, listener, 2, modelCache).detectModel();
+        verify(listener).thingDiscovered(any());
+        verify(listener).discoveryFinished();
+        return listener;
+    }
+
+    @Test
+    public void testCachedModelMapWithEndBlockIsVerified() throws EndpointNotInitializedException {
+        registers.put(END_ADDRESS, FINAL_BLOCK);
+        registers.put(END_ADDRESS + 1, 0);
+
+        discover();
+        assertThat(storedModels.isEmpty(), is(false));
+
+        readAddresses.clear();
+        discover();
+        // only the cached blocks and the end block were read, no scan of the other start addresses
+        assertThat(readAddresses, not(hasItem(50000)));
+        assertThat(readAddresses.size(), is(4));
+    }
+
+    @Test
+    public void testCachedModelMapWithoutEndBlockIsVerified() throws EndpointNotInitializedException {
+        discover();
+        assertThat(storedModels.isEmpty(), is(false));
+
+        readAddresses.clear();
+        discover();
+        // the rejected read behind the last block is accepted like during the scan
+        assertThat(readAddresses, not(hasItem(50000)));
+        assertThat(readAddresses.size(), is(4));
+    }
+
+    @Test
+    public void testChangedModelMapIsScannedAgain() throws EndpointNotInitializedException {
+        discover();
+
+        // a block was added behind the cached ones
+        registers.put(END_ADDRESS, INVERTER_SINGLE_PHASE);
+        registers.put(END_ADDRESS + 1, 0);
+        readAddresses.clear();
+        ModbusDiscoveryListener listener = mock(ModbusDiscoveryListener.class);
+        new SunspecDiscoveryProcess(handler, listener, 2, modelCache).detectModel();
+
+        assertThat(readAddresses, hasItem(50000));
+        verify(listener, times(2)).thingDiscovered(any());
+        verify(listener).discoveryFinished();
+    }
+}
@@ -21,7 +21,11 @@ import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.binding.modbus.internal.AtomicStampedValue;
 import org.openhab.binding.modbus.internal.ModbusBindingConstantsInternal;
+import org.openhab.binding.modbus.internal.ModbusPollChangeTracker;
+import org.openhab.binding.modbus.internal.ModbusPollPlanner;
+import org.openhab.binding.modbus.internal.ModbusPollPlanner.PlannedPoll;
 import org.openhab.binding.modbus.internal.config.ModbusPollerConfiguration;
+import org.openhab.binding.modbus.internal.handler.AbstractModbusEndpointThingHandler;
 import org.openhab.binding.modbus.internal.handler.ModbusDataThingHandler;
 import org.openhab.core.io.transport.modbus.AsyncModbusFailure;
 import org.openhab.core.io.transport.modbus.AsyncModbusReadResult;
@@ -67,6 +71,7 @@ public class ModbusPollerThingHandler extends BaseBridgeHandler {
             implements ModbusReadCallback, ModbusFailureCallback<ModbusReadRequestBlueprint> {
 
         private volatile @Nullable AtomicStampedValue<PollResult> lastResult;
+        private final ModbusPollChangeTracker changeTracker = new ModbusPollChangeTracker();
 
         public synchronized void handleResult(PollResult result) {
             // Ignore all incoming data and errors if configuration is not correct
@@ -83,7 +88,14 @@ public class ModbusPollerThingHandler extends BaseBridgeHandler {
                 }
             }
             logger.debug("Thing {} received response {}", thing.getUID(), result);
-            notifyChildren(result);
+            @Nullable
+            AsyncModbusReadResult readResult = result.result;
+            if (readResult != null) {
+                changeTracker.update(readResult);
+            } else {
+                changeTracker.reset();
+            }
+            notifyChildren(result, changeTracker);
             if (result.failure != null) {
                 Exception error = result.failure.getCause();
                 assert error != null;
@@ -123,18 +135,21 @@ public class ModbusPollerThingHandler extends BaseBridgeHandler {
             return Optional.ofNullable(this.lastResult).map(result -> result.copyIfStampAfter(oldestStamp))
                     .map(result -> {
                         logger.debug("Thing {} reusing cached data: {}", thing.getUID(), result.getValue());
-                        notifyChildren(result.getValue());
+                        // Children should process the data even if it has not changed
+                        notifyChildren(result.getValue(), null);
                         return true;
                     }).orElse(false);
         }
 
-        private void notifyChildren(PollResult pollResult) {
+        private void notifyChildren(PollResult pollResult, @Nullable ModbusPollChangeTracker changeTracker) {
             @Nullable
             AsyncModbusReadResult result = pollResult.result;
             @Nullable
             AsyncModbusFailure<ModbusReadRequestBlueprint> failure = pollResult.failure;
             childCallbacks.forEach(handler -> {
-                if (result != null) {
+                if (result != null && changeTracker != null) {
+                    handler.onReadResult(result, changeTracker);
+                } else if (result != null) {
                     handler.onReadResult(result);
                 } else if (failure != null) {
                     handler.handleReadError(failure);
@@ -147,6 +162,7 @@ public class ModbusPollerThingHandler extends BaseBridgeHandler {
          */
         public void resetCache() {
             lastResult = null;
+            changeTracker.reset();
         }
     }
 
@@ -183,6 +199,8 @@ public class ModbusPollerThingHandler extends BaseBridgeHandler {
     private @NonNullByDefault({}) ModbusPollerConfiguration config;
     private long cacheMillis;
     private volatile @Nullable PollTask pollTask;
+    private volatile @Nullable PlannedPoll plannedPoll;
+    private volatile @Nullable ModbusPollPlanner pollPlanner;
     private volatile @Nullable ModbusReadRequestBlueprint request;
     private volatile boolean disposed;
     private volatile List<ModbusDataThingHandler> childCallbacks = new CopyOnWriteArrayList<>();
@@ -305,7 +323,15 @@ public class ModbusPollerThingHandler extends BaseBridgeHandler {
             logger.debug("Unregistering polling from ModbusManager");
             comms.unregisterRegularPoll(localPollTask);
         }
+        PlannedPoll localPlannedPoll = this.plannedPoll;
+        ModbusPollPlanner localPollPlanner = this.pollPlanner;
+        if (localPlannedPoll != null && localPollPlanner != null) {
+            logger.debug("Unregistering polling from endpoint poll planner");
+            localPollPlanner.unregisterRegularPoll(localPlannedPoll);
+        }
         this.pollTask = null;
+        this.plannedPoll = null;
+        this.pollPlanner = null;
         request = null;
         comms = null;
         updateStatus(ThingStatus.OFFLINE);
@@ -320,7 +346,7 @@ public class ModbusPollerThingHandler extends BaseBridgeHandler {
     @SuppressWarnings("null")
     private synchronized void registerPollTask() throws EndpointNotInitializedException {
         logger.trace("registerPollTask()");
-        if (pollTask != null) {
+        if (pollTask != null || plannedPoll != null) {
             updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR);
             logger.debug("pollTask should be unregistered before registering a new one!");
             return;
@@ -354,10 +380,20 @@ public class ModbusPollerThingHandler extends BaseBridgeHandler {
             logger.debug("Not registering polling with ModbusManager since refresh disabled");
             updateStatus(ThingStatus.ONLINE, ThingStatusDetail.NONE, "Not polling");
         } else {
-            logger.debug("Registering polling with ModbusManager");
-            pollTask = localComms.registerRegularPoll(localRequest, config.getRefresh(), 0, callbackDelegator,
-                    callbackDelegator);
-            assert pollTask != null;
+            ModbusPollPlanner localPollPlanner = slaveEndpointThingHandler instanceof AbstractModbusEndpointThingHandler
+                    ? ((AbstractModbusEndpointThingHandler<?, ?>) slaveEndpointThingHandler).getPollPlanner()
+                    : null;
+            if (localPollPlanner != null) {
+                logger.debug("Registering polling with endpoint poll planner");
+                pollPlanner = localPollPlanner;
+                plannedPoll = localPollPlanner.registerRegularPoll(localRequest, config.getRefresh(),
+                        callbackDelegator, callbackDelegator);
+            } else {
+                logger.debug("Registering polling with ModbusManager");
+                pollTask = localComms.registerRegularPoll(localRequest, config.getRefresh(), 0, callbackDelegator,
+                        callbackDelegator);
+                assert pollTask != null;
+            }
             updateStatus(ThingStatus.ONLINE);
         }
     }
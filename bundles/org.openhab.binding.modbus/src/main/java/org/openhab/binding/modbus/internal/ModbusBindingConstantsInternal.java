@@ -26,6 +26,7 @@ import org.openhab.core.thing.ThingTypeUID;
  * used across the whole binding.
  *
  * @author Sami Salonen - Initial contribution
+ * @author agent - Property with the round-trips saved by merged polls
  */
 @NonNullByDefault
 public class ModbusBindingConstantsInternal {
@@ -49,6 +50,9 @@ public class ModbusBindingConstantsInternal {
     public static final String CHANNEL_LAST_WRITE_SUCCESS = "lastWriteSuccess";
     public static final String CHANNEL_LAST_WRITE_ERROR = "lastWriteError";
 
+    // List of all Thing properties
+    public static final String PROPERTY_POLL_ROUND_TRIPS_SAVED = "pollRoundTripsSaved";
+
     public static final String[] DATA_CHANNELS = { CHANNEL_SWITCH, CHANNEL_CONTACT, CHANNEL_DATETIME, CHANNEL_DIMMER,
             CHANNEL_NUMBER, CHANNEL_STRING, CHANNEL_ROLLERSHUTTER };
 
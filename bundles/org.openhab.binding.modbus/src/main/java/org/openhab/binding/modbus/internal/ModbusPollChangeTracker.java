@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.modbus.internal;
+
+import java.util.Optional;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.core.io.transport.modbus.AsyncModbusReadResult;
+import org.openhab.core.io.transport.modbus.BitArray;
+import org.openhab.core.io.transport.modbus.ModbusRegisterArray;
+
+/**
+ * Tracks which registers (or coils/discrete inputs) of a poll have changed since the previous poll.
+ *
+ * The poller updates the tracker once per poll, with a single pass over the polled data. Data things can then check
+ * whether the elements they are decoding have changed, and skip decoding and transformation if not.
+ *
+ * The tracker is updated and queried by the poll callback, and reset whenever the poller configuration changes.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ModbusPollChangeTracker {
+
+    private static final byte[] NO_REGISTERS = new byte[0];
+    private static final boolean[] NO_BITS = new boolean[0];
+
+    private byte[] previousRegisters = NO_REGISTERS;
+    private boolean[] previousBits = NO_BITS;
+    private boolean[] changed = NO_BITS;
+    private int length;
+    private boolean allChanged = true;
+
+    /**
+     * Compare polled data to the data of the previous poll
+     *
+     * @param result result of the poll
+     */
+    public synchronized void update(AsyncModbusReadResult result) {
+        Optional<ModbusRegisterArray> registers = result.getRegisters();
+        Optional<BitArray> bits = result.getBits();
+        if (registers.isPresent()) {
+            updateRegisters(registers.get().getBytes());
+        } else if (bits.isPresent()) {
+            updateBits(bits.get(), result.getRequest().getDataLength());
+        } else {
+            reset();
+        }
+    }
+
+    /**
+     * Forget the previous poll. All elements are reported as changed with the next poll.
+     */
+    public synchronized void reset() {
+        allChanged = true;
+        length = 0;
+        previousRegisters = NO_REGISTERS;
+        previousBits = NO_BITS;
+    }
+
+    /**
+     * Check whether any of the given elements has changed with the latest poll
+     *
+     * @param offset index of the first element, relative to the start of the poll
+     * @param count number of elements
+     * @return whether any of the elements changed
+     */
+    public synchronized boolean isChanged(int offset, int count) {
+        if (allChanged || offset < 0 || offset + count > length) {
+            return true;
+        }
+        for (int i = offset; i < offset + count; i++) {
+            if (changed[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void updateRegisters(byte[] bytes) {
+        int registerCount = bytes.length / 2;
+        allChanged = previousBits.length > 0 || previousRegisters.length != bytes.length;
+        ensureCapacity(registerCount);
+        if (!allChanged) {
+            for (int i = 0; i < registerCount; i++) {
+                changed[i] = bytes[2 * i] != previousRegisters[2 * i]
+                        || bytes[2 * i + 1] != previousRegisters[2 * i + 1];
+            }
+        }
+        if (previousRegisters.length != bytes.length) {
+            previousRegisters = new byte[bytes.length];
+        }
+        System.arraycopy(bytes, 0, previousRegisters, 0, bytes.length);
+        previousBits = NO_BITS;
+        length = registerCount;
+    }
+
+    private void updateBits(BitArray bits, int bitCount) {
+        allChanged = previousRegisters.length > 0 || previousBits.length != bitCount;
+        ensureCapacity(bitCount);
+        if (previousBits.length != bitCount) {
+            previousBits = new boolean[bitCount];
+        }
+        for (int i = 0; i < bitCount; i++) {
+            boolean bit = bits.getBit(i);
+            changed[i] = bit != previousBits[i];
+            previousBits[i] = bit;
+        }
+        previousRegisters = NO_REGISTERS;
+        length = bitCount;
+    }
+
+    private void ensureCapacity(int count) {
+        if (changed.length < count) {
+            changed = new boolean[count];
+        }
+    }
+}
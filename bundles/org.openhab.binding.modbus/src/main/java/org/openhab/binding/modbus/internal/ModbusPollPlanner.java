@@ -0,0 +1,389 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.modbus.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.function.LongSupplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.io.transport.modbus.AsyncModbusFailure;
+import org.openhab.core.io.transport.modbus.AsyncModbusReadResult;
+import org.openhab.core.io.transport.modbus.BitArray;
+import org.openhab.core.io.transport.modbus.ModbusCommunicationInterface;
+import org.openhab.core.io.transport.modbus.ModbusConstants;
+import org.openhab.core.io.transport.modbus.ModbusFailureCallback;
+import org.openhab.core.io.transport.modbus.ModbusReadCallback;
+import org.openhab.core.io.transport.modbus.ModbusReadFunctionCode;
+import org.openhab.core.io.transport.modbus.ModbusReadRequestBlueprint;
+import org.openhab.core.io.transport.modbus.ModbusRegisterArray;
+import org.openhab.core.io.transport.modbus.PollTask;
+import org.openhab.core.io.transport.modbus.exception.ModbusSlaveErrorResponseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Merges the regular polls of one endpoint into fewer, larger read requests.
+ *
+ * Polls are compatible if they read the same slave, with the same function code, refresh interval and maximum tries.
+ * Compatible polls are sorted by their start address and merged as long as the gap between them is at most
+ * {@code maxGap} registers (or coils/discrete inputs) and the merged request does not exceed the protocol limits.
+ * Results and errors of a merged request are split and delegated to the callbacks of the original polls. If the
+ * slave rejects a merged request, e.g. because the gap contains an illegal address, its polls are read separately
+ * from then on.
+ *
+ * When the polls of a group change, the merged requests keep the schedule of the group, so registering many polls
+ * does not cause a burst of requests. A poll that joins an existing group is read once right away instead.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ModbusPollPlanner {
+
+    /**
+     * Regular poll registered with the planner.
+     */
+    public static class PlannedPoll {
+        private final ModbusReadRequestBlueprint request;
+        private final long pollPeriodMillis;
+        private final ModbusReadCallback resultCallback;
+        private final ModbusFailureCallback<ModbusReadRequestBlueprint> failureCallback;
+        // set when a merged request containing this poll was rejected by the slave
+        private boolean separate = false;
+
+        private PlannedPoll(ModbusReadRequestBlueprint request, long pollPeriodMillis,
+                ModbusReadCallback resultCallback, ModbusFailureCallback<ModbusReadRequestBlueprint> failureCallback) {
+            this.request = request;
+            this.pollPeriodMillis = pollPeriodMillis;
+            this.resultCallback = resultCallback;
+            this.failureCallback = failureCallback;
+        }
+
+        public ModbusReadRequestBlueprint getRequest() {
+            return request;
+        }
+
+        private int getStart() {
+            return request.getReference();
+        }
+
+        private int getEnd() {
+            return request.getReference() + request.getDataLength();
+        }
+
+        private GroupKey getGroupKey() {
+            return new GroupKey(request.getUnitID(), request.getFunctionCode(), pollPeriodMillis,
+                    request.getMaxTries());
+        }
+    }
+
+    /**
+     * Polls with equal keys can be merged
+     */
+    private static class GroupKey {
+        private final int unitId;
+        private final ModbusReadFunctionCode functionCode;
+        private final long pollPeriodMillis;
+        private final int maxTries;
+
+        private GroupKey(int unitId, ModbusReadFunctionCode functionCode, long pollPeriodMillis, int maxTries) {
+            this.unitId = unitId;
+            this.functionCode = functionCode;
+            this.pollPeriodMillis = pollPeriodMillis;
+            this.maxTries = maxTries;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(unitId, functionCode, pollPeriodMillis, maxTries);
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            GroupKey other = (GroupKey) obj;
+            return unitId == other.unitId && functionCode == other.functionCode
+                    && pollPeriodMillis == other.pollPeriodMillis && maxTries == other.maxTries;
+        }
+    }
+
+    /**
+     * Merged read request, delegating results to the polls it consists of
+     */
+    private class MergedPoll implements ModbusReadCallback, ModbusFailureCallback<ModbusReadRequestBlueprint> {
+        private final ModbusReadRequestBlueprint request;
+        private final List<PlannedPoll> polls;
+        private @Nullable PollTask pollTask;
+
+        private MergedPoll(ModbusReadRequestBlueprint request, List<PlannedPoll> polls) {
+            this.request = request;
+            this.polls = polls;
+        }
+
+        @Override
+        public void handle(AsyncModbusReadResult result) {
+            if (polls.size() == 1) {
+                // Not merged with anything, the result can be passed through as is
+                polls.get(0).resultCallback.handle(result);
+                return;
+            }
+            Optional<ModbusRegisterArray> registers = result.getRegisters();
+            Optional<BitArray> bits = result.getBits();
+            for (PlannedPoll poll : polls) {
+                int offset = poll.getStart() - request.getReference();
+                int length = poll.request.getDataLength();
+                if (registers.isPresent()) {
+                    byte[] bytes = registers.get().getBytes();
+                    poll.resultCallback.handle(new AsyncModbusReadResult(poll.request,
+                            new ModbusRegisterArray(Arrays.copyOfRange(bytes, 2 * offset, 2 * (offset + length)))));
+                } else if (bits.isPresent()) {
+                    BitArray allBits = bits.get();
+                    BitArray pollBits = new BitArray(length);
+                    for (int i = 0; i < length; i++) {
+                        pollBits.setBit(i, allBits.getBit(offset + i));
+                    }
+                    poll.resultCallback.handle(new AsyncModbusReadResult(poll.request, pollBits));
+                }
+            }
+        }
+
+        @Override
+        public void handle(AsyncModbusFailure<ModbusReadRequestBlueprint> failure) {
+            if (polls.size() == 1) {
+                polls.get(0).failureCallback.handle(failure);
+                return;
+            }
+            if (isRejected(failure.getCause())) {
+                split(this);
+                return;
+            }
+            for (PlannedPoll poll : polls) {
+                poll.failureCallback.handle(new AsyncModbusFailure<>(poll.request, failure.getCause()));
+            }
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(ModbusPollPlanner.class);
+    private final ModbusCommunicationInterface comms;
+    private final int maxGap;
+    private final IntConsumer roundTripsSavedListener;
+    private final LongSupplier nanoClock;
+    private final Map<GroupKey, List<PlannedPoll>> pollsByGroup = new HashMap<>();
+    private final Map<GroupKey, List<MergedPoll>> mergedPollsByGroup = new HashMap<>();
+    // System.nanoTime() when the merged requests of a group were first scheduled
+    private final Map<GroupKey, Long> scheduleStartByGroup = new HashMap<>();
+
+    /**
+     * Constructs a planner
+     *
+     * @param comms communication interface of the endpoint
+     * @param maxGap maximum number of unused registers (or coils/discrete inputs) between two polls that are merged
+     * @param roundTripsSavedListener called with the number of saved round-trips per poll cycle when the plan changes
+     */
+    public ModbusPollPlanner(ModbusCommunicationInterface comms, int maxGap, IntConsumer roundTripsSavedListener) {
+        this(comms, maxGap, roundTripsSavedListener, System::nanoTime);
+    }
+
+    ModbusPollPlanner(ModbusCommunicationInterface comms, int maxGap, IntConsumer roundTripsSavedListener,
+            LongSupplier nanoClock) {
+        this.comms = comms;
+        this.maxGap = maxGap;
+        this.roundTripsSavedListener = roundTripsSavedListener;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Register regular poll. The poll is merged with compatible polls of the same endpoint.
+     *
+     * @param request request to poll
+     * @param pollPeriodMillis poll interval, in milliseconds
+     * @param resultCallback callback for the results of the request
+     * @param failureCallback callback for the failures of the request
+     * @return handle for unregistering the poll
+     */
+    public synchronized PlannedPoll registerRegularPoll(ModbusReadRequestBlueprint request, long pollPeriodMillis,
+            ModbusReadCallback resultCallback, ModbusFailureCallback<ModbusReadRequestBlueprint> failureCallback) {
+        PlannedPoll poll = new PlannedPoll(request, pollPeriodMillis, resultCallback, failureCallback);
+        GroupKey key = poll.getGroupKey();
+        pollsByGroup.computeIfAbsent(key, k -> new ArrayList<>()).add(poll);
+        if (scheduleStartByGroup.containsKey(key)) {
+            // the merged requests keep their schedule, read the new poll right away
+            comms.submitOneTimePoll(request, resultCallback, failureCallback);
+        }
+        replan(key);
+        return poll;
+    }
+
+    /**
+     * Unregister regular poll
+     *
+     * @param poll handle returned by {@link #registerRegularPoll}
+     * @return whether the poll was registered
+     */
+    public synchronized boolean unregisterRegularPoll(PlannedPoll poll) {
+        GroupKey key = poll.getGroupKey();
+        List<PlannedPoll> polls = pollsByGroup.get(key);
+        if (polls == null || !polls.remove(poll)) {
+            return false;
+        }
+        if (polls.isEmpty()) {
+            pollsByGroup.remove(key);
+            scheduleStartByGroup.remove(key);
+        }
+        replan(key);
+        return true;
+    }
+
+    /**
+     * Get the number of read requests saved per poll cycle, compared to polling each registered poll separately
+     *
+     * @return number of saved round-trips per poll cycle
+     */
+    public synchronized int getRoundTripsSaved() {
+        int polls = pollsByGroup.values().stream().mapToInt(List::size).sum();
+        int mergedPolls = mergedPollsByGroup.values().stream().mapToInt(List::size).sum();
+        return polls - mergedPolls;
+    }
+
+    private void replan(GroupKey key) {
+        List<MergedPoll> oldMergedPolls = mergedPollsByGroup.remove(key);
+        if (oldMergedPolls != null) {
+            for (MergedPoll mergedPoll : oldMergedPolls) {
+                PollTask pollTask = mergedPoll.pollTask;
+                if (pollTask != null) {
+                    comms.unregisterRegularPoll(pollTask);
+                }
+            }
+        }
+        List<PlannedPoll> polls = pollsByGroup.get(key);
+        if (polls == null) {
+            return;
+        }
+
+        List<MergedPoll> mergedPolls = merge(key, polls);
+        long initialDelayMillis = getInitialDelayMillis(key);
+        for (MergedPoll mergedPoll : mergedPolls) {
+            mergedPoll.pollTask = comms.registerRegularPoll(mergedPoll.request, key.pollPeriodMillis,
+                    initialDelayMillis, mergedPoll, mergedPoll);
+        }
+        mergedPollsByGroup.put(key, mergedPolls);
+        int roundTripsSaved = getRoundTripsSaved();
+        logger.debug(
+                "Merged {} polls of slave {} ({}, every {} ms) into {} requests. {} round-trips saved per poll cycle on the endpoint",
+                polls.size(), key.unitId, key.functionCode, key.pollPeriodMillis, mergedPolls.size(),
+                roundTripsSaved);
+        roundTripsSavedListener.accept(roundTripsSaved);
+    }
+
+    /**
+     * The first requests of a group are polled right away, later ones continue the schedule of the group.
+     */
+    private long getInitialDelayMillis(GroupKey key) {
+        long now = nanoClock.getAsLong();
+        Long scheduleStart = scheduleStartByGroup.putIfAbsent(key, now);
+        if (scheduleStart == null || key.pollPeriodMillis <= 0) {
+            return 0;
+        }
+        long periodNanos = TimeUnit.MILLISECONDS.toNanos(key.pollPeriodMillis);
+        long sinceLastPoll = (now - scheduleStart) % periodNanos;
+        return sinceLastPoll == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(periodNanos - sinceLastPoll);
+    }
+
+    /**
+     * @return true if the slave has rejected the addresses of a request
+     */
+    private static boolean isRejected(Exception cause) {
+        if (cause instanceof ModbusSlaveErrorResponseException) {
+            int code = ((ModbusSlaveErrorResponseException) cause).getExceptionCode();
+            return code == ModbusSlaveErrorResponseException.ILLEGAL_DATA_ACCESS
+                    || code == ModbusSlaveErrorResponseException.ILLEGAL_DATA_VALUE;
+        }
+        return false;
+    }
+
+    /**
+     * Poll the requests of a rejected merged request separately, and read them once for the failed poll cycle.
+     */
+    private synchronized void split(MergedPoll mergedPoll) {
+        GroupKey key = mergedPoll.polls.get(0).getGroupKey();
+        List<MergedPoll> mergedPolls = mergedPollsByGroup.get(key);
+        if (mergedPolls == null || !mergedPolls.contains(mergedPoll)) {
+            // replanned in the meantime
+            return;
+        }
+        logger.debug("Slave {} rejected the merged read of {} items at {}, polling its {} requests separately",
+                key.unitId, mergedPoll.request.getDataLength(), mergedPoll.request.getReference(),
+                mergedPoll.polls.size());
+        for (PlannedPoll poll : mergedPoll.polls) {
+            poll.separate = true;
+            comms.submitOneTimePoll(poll.request, poll.resultCallback, poll.failureCallback);
+        }
+        replan(key);
+    }
+
+    private List<MergedPoll> merge(GroupKey key, List<PlannedPoll> polls) {
+        int maxLength = key.functionCode == ModbusReadFunctionCode.READ_COILS
+                || key.functionCode == ModbusReadFunctionCode.READ_INPUT_DISCRETES
+                        ? ModbusConstants.MAX_BITS_READ_COUNT
+                        : ModbusConstants.MAX_REGISTERS_READ_COUNT;
+        List<PlannedPoll> sortedPolls = new ArrayList<>(polls);
+        sortedPolls.sort(Comparator.comparingInt(PlannedPoll::getStart));
+
+        List<MergedPoll> mergedPolls = new ArrayList<>();
+        List<PlannedPoll> currentPolls = new ArrayList<>();
+        int currentStart = 0;
+        int currentEnd = 0;
+        for (PlannedPoll poll : sortedPolls) {
+            if (poll.separate) {
+                mergedPolls.add(new MergedPoll(poll.request, List.of(poll)));
+                continue;
+            }
+            if (!currentPolls.isEmpty() && poll.getStart() <= currentEnd + maxGap
+                    && Math.max(currentEnd, poll.getEnd()) - currentStart <= maxLength) {
+                currentEnd = Math.max(currentEnd, poll.getEnd());
+            } else {
+                if (!currentPolls.isEmpty()) {
+                    mergedPolls.add(createMergedPoll(key, currentStart, currentEnd, currentPolls));
+                }
+                currentPolls = new ArrayList<>();
+                currentStart = poll.getStart();
+                currentEnd = poll.getEnd();
+            }
+            currentPolls.add(poll);
+        }
+        if (!currentPolls.isEmpty()) {
+            mergedPolls.add(createMergedPoll(key, currentStart, currentEnd, currentPolls));
+        }
+        return mergedPolls;
+    }
+
+    private MergedPoll createMergedPoll(GroupKey key, int start, int end, List<PlannedPoll> polls) {
+        ModbusReadRequestBlueprint request = polls.size() == 1 ? polls.get(0).request
+                : new ModbusReadRequestBlueprint(key.unitId, key.functionCode, start, end - start, key.maxTries);
+        return new MergedPoll(request, polls);
+    }
+}
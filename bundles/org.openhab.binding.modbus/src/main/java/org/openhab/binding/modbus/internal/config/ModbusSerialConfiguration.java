@@ -38,6 +38,7 @@ public class ModbusSerialConfiguration {
     private int connectMaxTries = 1;
     private int connectTimeoutMillis = 10_000;
     private boolean enableDiscovery;
+    private int pollCoalescingGap = -1;
 
     public @Nullable String getPort() {
         return port;
@@ -158,4 +159,16 @@ public class ModbusSerialConfiguration {
     public void setDiscoveryEnabled(boolean enableDiscovery) {
         this.enableDiscovery = enableDiscovery;
     }
+
+    /**
+     * Gets maximum gap (in registers, coils or discrete inputs) between regular polls that are merged into one
+     * request. Negative value disables merging.
+     */
+    public int getPollCoalescingGap() {
+        return pollCoalescingGap;
+    }
+
+    public void setPollCoalescingGap(int pollCoalescingGap) {
+        this.pollCoalescingGap = pollCoalescingGap;
+    }
 }
@@ -12,11 +12,17 @@
  */
 package org.openhab.binding.modbus.internal.handler;
 
+import static org.openhab.binding.modbus.internal.ModbusBindingConstantsInternal.PROPERTY_POLL_ROUND_TRIPS_SAVED;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.binding.modbus.handler.EndpointNotInitializedException;
 import org.openhab.binding.modbus.handler.ModbusEndpointThingHandler;
 import org.openhab.binding.modbus.internal.ModbusConfigurationException;
+import org.openhab.binding.modbus.internal.ModbusPollPlanner;
 import org.openhab.core.io.transport.modbus.ModbusCommunicationInterface;
 import org.openhab.core.io.transport.modbus.ModbusManager;
 import org.openhab.core.io.transport.modbus.endpoint.EndpointPoolConfiguration;
@@ -34,6 +40,7 @@ import org.slf4j.LoggerFactory;
  * Base class for Modbus Slave endpoint thing handlers
  *
  * @author Sami Salonen - Initial contribution
+ * @author agent - Poll planner merging the regular polls of the endpoint
  *
  * @param <E> endpoint class
  * @param <C> config class
@@ -42,12 +49,22 @@ import org.slf4j.LoggerFactory;
 public abstract class AbstractModbusEndpointThingHandler<E extends ModbusSlaveEndpoint, C> extends BaseBridgeHandler
         implements ModbusEndpointThingHandler {
 
+    // The plan changes with each poller that is registered, the property is only stored once they have settled
+    private static final long ROUND_TRIPS_SAVED_UPDATE_DELAY_SECONDS = 10;
+
     protected volatile @Nullable C config;
     protected volatile @Nullable E endpoint;
     protected ModbusManager modbusManager;
     protected volatile @NonNullByDefault({}) EndpointPoolConfiguration poolConfiguration;
+    /**
+     * Maximum gap between regular polls that are merged. Negative value disables merging.
+     */
+    protected volatile int pollCoalescingGap = -1;
     private final Logger logger = LoggerFactory.getLogger(AbstractModbusEndpointThingHandler.class);
     private @NonNullByDefault({}) ModbusCommunicationInterface comms;
+    private volatile @Nullable ModbusPollPlanner pollPlanner;
+    private volatile int roundTripsSaved;
+    private @Nullable ScheduledFuture<?> roundTripsSavedJob;
 
     public AbstractModbusEndpointThingHandler(Bridge bridge, ModbusManager modbusManager) {
         super(bridge);
@@ -76,6 +93,9 @@ public abstract class AbstractModbusEndpointThingHandler<E extends ModbusSlaveEn
                 }
                 try {
                     comms = modbusManager.newModbusCommunicationInterface(endpoint, poolConfiguration);
+                    pollPlanner = pollCoalescingGap >= 0
+                            ? new ModbusPollPlanner(comms, pollCoalescingGap, this::roundTripsSavedChanged)
+                            : null;
                     updateStatus(ThingStatus.ONLINE);
                 } catch (IllegalArgumentException e) {
                     updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR,
@@ -102,7 +122,30 @@ public abstract class AbstractModbusEndpointThingHandler<E extends ModbusSlaveEn
             logger.warn("Error closing modbus communication interface", e);
         } finally {
             comms = null;
+            pollPlanner = null;
+            synchronized (this) {
+                ScheduledFuture<?> localJob = roundTripsSavedJob;
+                if (localJob != null) {
+                    localJob.cancel(false);
+                    roundTripsSavedJob = null;
+                }
+            }
+        }
+    }
+
+    private synchronized void roundTripsSavedChanged(int roundTripsSaved) {
+        this.roundTripsSaved = roundTripsSaved;
+        if (roundTripsSavedJob == null) {
+            roundTripsSavedJob = scheduler.schedule(this::updateRoundTripsSaved,
+                    ROUND_TRIPS_SAVED_UPDATE_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private void updateRoundTripsSaved() {
+        synchronized (this) {
+            roundTripsSavedJob = null;
         }
+        updateProperty(PROPERTY_POLL_ROUND_TRIPS_SAVED, String.valueOf(roundTripsSaved));
     }
 
     @Override
@@ -110,6 +153,17 @@ public abstract class AbstractModbusEndpointThingHandler<E extends ModbusSlaveEn
         return comms;
     }
 
+    /**
+     * Get the planner that merges regular polls of this endpoint
+     *
+     * Note that this is <code>null</code> in case merging is disabled or the initialization is incomplete
+     *
+     * @return poll planner of this endpoint
+     */
+    public @Nullable ModbusPollPlanner getPollPlanner() {
+        return pollPlanner;
+    }
+
     @Nullable
     public E getEndpoint() {
         return endpoint;
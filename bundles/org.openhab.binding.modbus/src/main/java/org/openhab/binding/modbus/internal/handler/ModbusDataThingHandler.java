@@ -34,6 +34,7 @@ import org.openhab.binding.modbus.handler.ModbusPollerThingHandler;
 import org.openhab.binding.modbus.internal.CascadedValueTransformationImpl;
 import org.openhab.binding.modbus.internal.ModbusBindingConstantsInternal;
 import org.openhab.binding.modbus.internal.ModbusConfigurationException;
+import org.openhab.binding.modbus.internal.ModbusPollChangeTracker;
 import org.openhab.binding.modbus.internal.SingleValueTransformation;
 import org.openhab.binding.modbus.internal.ValueTransformation;
 import org.openhab.binding.modbus.internal.config.ModbusDataConfiguration;
@@ -135,6 +136,11 @@ public class ModbusDataThingHandler extends BaseThingHandler {
     private volatile Optional<Integer> readSubIndex = Optional.empty();
     private volatile @Nullable Integer writeStart;
     private volatile int pollStart;
+    // Decode plan, derived from the read parameters once in initialize
+    private volatile int readElementOffset;
+    private volatile int readElementCount;
+    private volatile int extractIndex;
+    private volatile boolean readStatesValid;
     private volatile int slaveId;
     private volatile @Nullable ModbusReadFunctionCode functionCode;
     private volatile @Nullable ModbusReadRequestBlueprint readRequest;
@@ -400,6 +406,10 @@ public class ModbusDataThingHandler extends BaseThingHandler {
         readSubIndex = Optional.empty();
         writeStart = null;
         pollStart = 0;
+        readElementOffset = 0;
+        readElementCount = 0;
+        extractIndex = 0;
+        readStatesValid = false;
         slaveId = 0;
         comms = null;
         functionCode = null;
@@ -644,6 +654,25 @@ public class ModbusDataThingHandler extends BaseThingHandler {
                     readIndex.get());
             throw new ModbusConfigurationException(errmsg);
         }
+
+        // Elements (registers, coils or discrete inputs) covered by the value, relative to poll start
+        readElementOffset = readIndex.get() - readRequest.getReference();
+        readElementCount = (readEndBitIndex / dataElementBits) - (readStartBitIndex / dataElementBits) + 1;
+        // extractIndex:
+        // e.g. with bit, extractIndex=4 means 5th bit (from right) ("10.4" -> 5th bit of register 10, "10.4" -> 5th bit
+        // of register 10)
+        // bit of second register)
+        // e.g. with 8bit integer, extractIndex=3 means high byte of second register
+        //
+        // with <16 bit types, this is the index of the N'th 1-bit/8-bit item. Each register has 16/2 items,
+        // respectively.
+        // with >=16 bit types, this is index of first register
+        if (bitQuery || valueTypeBitCount >= 16) {
+            extractIndex = readElementOffset;
+        } else {
+            int itemsPerRegister = 16 / valueTypeBitCount;
+            extractIndex = readElementOffset * itemsPerRegister + readSubIndex.orElse(0);
+        }
     }
 
     private boolean containsOnOff(List<Class<? extends State>> channelAcceptedDataTypes) {
@@ -663,6 +692,28 @@ public class ModbusDataThingHandler extends BaseThingHandler {
         result.getBits().ifPresent(bits -> onBits(result.getRequest(), bits));
     }
 
+    /**
+     * Handle polled data, skipping decoding and transformation if the data of this thing has not changed
+     *
+     * @param result polled data
+     * @param changeTracker tracker of the poller, updated with the polled data
+     */
+    public synchronized void onReadResult(AsyncModbusReadResult result, ModbusPollChangeTracker changeTracker) {
+        if (readStatesValid && isReadEnabled && !hasConfigurationError()
+                && !changeTracker.isChanged(readElementOffset, readElementCount)) {
+            onUnchangedData();
+        } else {
+            onReadResult(result);
+        }
+    }
+
+    @Override
+    public synchronized void channelLinked(ChannelUID channelUID) {
+        // Newly linked channel has no state computed yet
+        readStatesValid = false;
+        super.channelLinked(channelUID);
+    }
+
     public synchronized void handleReadError(AsyncModbusFailure<ModbusReadRequestBlueprint> failure) {
         onError(failure.getRequest(), failure.getCause());
     }
@@ -682,30 +733,11 @@ public class ModbusDataThingHandler extends BaseThingHandler {
             return;
         }
         State numericState;
-
-        // extractIndex:
-        // e.g. with bit, extractIndex=4 means 5th bit (from right) ("10.4" -> 5th bit of register 10, "10.4" -> 5th bit
-        // of register 10)
-        // bit of second register)
-        // e.g. with 8bit integer, extractIndex=3 means high byte of second register
-        //
-        // with <16 bit types, this is the index of the N'th 1-bit/8-bit item. Each register has 16/2 items,
-        // respectively.
-        // with >=16 bit types, this is index of first register
-        int extractIndex;
-        if (readValueType.getBits() >= 16) {
-            // Invariant, checked in initialize
-            assert readSubIndex.orElse(0) == 0;
-            extractIndex = readIndex.get() - pollStart;
-        } else {
-            int subIndex = readSubIndex.orElse(0);
-            int itemsPerRegister = 16 / readValueType.getBits();
-            extractIndex = (readIndex.get() - pollStart) * itemsPerRegister + subIndex;
-        }
         numericState = ModbusBitUtilities.extractStateFromRegisters(registers, extractIndex, readValueType)
                 .map(state -> (State) state).orElse(UnDefType.UNDEF);
         boolean boolValue = !numericState.equals(DecimalType.ZERO);
         Map<ChannelUID, State> values = processUpdatedValue(numericState, boolValue);
+        readStatesValid = true;
         logger.debug(
                 "Thing {} channels updated: {}. readValueType={}, readIndex={}, readSubIndex(or 0)={}, extractIndex={} -> numeric value {} and boolValue={}. Registers {} for request {}",
                 thing.getUID(), values, readValueType, readIndex, readSubIndex.orElse(0), extractIndex, numericState,
@@ -718,14 +750,26 @@ public class ModbusDataThingHandler extends BaseThingHandler {
         } else if (!isReadEnabled) {
             return;
         }
-        boolean boolValue = bits.getBit(readIndex.get() - pollStart);
+        boolean boolValue = bits.getBit(extractIndex);
         DecimalType numericState = boolValue ? new DecimalType(BigDecimal.ONE) : DecimalType.ZERO;
         Map<ChannelUID, State> values = processUpdatedValue(numericState, boolValue);
+        readStatesValid = true;
         logger.debug(
                 "Thing {} channels updated: {}. readValueType={}, readIndex={} -> numeric value {} and boolValue={}. Bits {} for request {}",
                 thing.getUID(), values, readValueType, readIndex, numericState, boolValue, bits, request);
     }
 
+    private void onUnchangedData() {
+        // Same data as with previous poll, reuse the transformed states
+        Map<ChannelUID, State> states = new HashMap<>(channelLastState);
+        ChannelUID lastReadSuccessUID = getChannelUID(ModbusBindingConstantsInternal.CHANNEL_LAST_READ_SUCCESS);
+        if (isLinked(lastReadSuccessUID)) {
+            states.put(lastReadSuccessUID, new DateTimeType());
+        }
+        updateExpiredChannels(states);
+        logger.trace("Thing {} polled data unchanged, reusing channel states {}", thing.getUID(), states);
+    }
+
     private synchronized void onError(ModbusReadRequestBlueprint request, Exception error) {
         if (hasConfigurationError()) {
             return;
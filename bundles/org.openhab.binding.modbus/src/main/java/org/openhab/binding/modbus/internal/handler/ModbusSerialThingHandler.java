@@ -58,6 +58,7 @@ public class ModbusSerialThingHandler
         }
 
         this.config = config;
+        pollCoalescingGap = config.getPollCoalescingGap();
 
         EndpointPoolConfiguration poolConfiguration = new EndpointPoolConfiguration();
         this.poolConfiguration = poolConfiguration;
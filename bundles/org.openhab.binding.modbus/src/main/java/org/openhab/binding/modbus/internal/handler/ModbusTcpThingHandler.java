@@ -51,6 +51,7 @@ public class ModbusTcpThingHandler
         }
 
         this.config = config;
+        pollCoalescingGap = config.getPollCoalescingGap();
         endpoint = new ModbusTCPSlaveEndpoint(host, config.getPort(), config.getRtuEncoded());
 
         EndpointPoolConfiguration poolConfiguration = new EndpointPoolConfiguration();
@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.modbus.internal;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.io.transport.modbus.AsyncModbusReadResult;
+import org.openhab.core.io.transport.modbus.BitArray;
+import org.openhab.core.io.transport.modbus.ModbusReadFunctionCode;
+import org.openhab.core.io.transport.modbus.ModbusReadRequestBlueprint;
+import org.openhab.core.io.transport.modbus.ModbusRegisterArray;
+
+/**
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ModbusPollChangeTrackerTest {
+
+    private static AsyncModbusReadResult registers(int... values) {
+        return new AsyncModbusReadResult(new ModbusReadRequestBlueprint(1,
+                ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 0, values.length, 1), new ModbusRegisterArray(values));
+    }
+
+    private static AsyncModbusReadResult bits(boolean... values) {
+        BitArray bits = new BitArray(values.length);
+        for (int i = 0; i < values.length; i++) {
+            bits.setBit(i, values[i]);
+        }
+        return new AsyncModbusReadResult(
+                new ModbusReadRequestBlueprint(1, ModbusReadFunctionCode.READ_COILS, 0, values.length, 1), bits);
+    }
+
+    @Test
+    public void testFirstPollIsChanged() {
+        ModbusPollChangeTracker tracker = new ModbusPollChangeTracker();
+        tracker.update(registers(1, 2, 3));
+        assertThat(tracker.isChanged(0, 1), is(true));
+        assertThat(tracker.isChanged(1, 2), is(true));
+    }
+
+    @Test
+    public void testRegisterChanges() {
+        ModbusPollChangeTracker tracker = new ModbusPollChangeTracker();
+        tracker.update(registers(1, 2, 3));
+        tracker.update(registers(1, 5, 3));
+        assertThat(tracker.isChanged(0, 1), is(false));
+        assertThat(tracker.isChanged(1, 1), is(true));
+        assertThat(tracker.isChanged(0, 2), is(true));
+        assertThat(tracker.isChanged(2, 1), is(false));
+        // out of bounds is always considered changed
+        assertThat(tracker.isChanged(2, 2), is(true));
+    }
+
+    @Test
+    public void testBitChanges() {
+        ModbusPollChangeTracker tracker = new ModbusPollChangeTracker();
+        tracker.update(bits(true, false, true));
+        tracker.update(bits(true, true, true));
+        assertThat(tracker.isChanged(0, 1), is(false));
+        assertThat(tracker.isChanged(1, 1), is(true));
+        assertThat(tracker.isChanged(2, 1), is(false));
+    }
+
+    @Test
+    public void testReset() {
+        ModbusPollChangeTracker tracker = new ModbusPollChangeTracker();
+        tracker.update(registers(1, 2));
+        tracker.update(registers(1, 2));
+        assertThat(tracker.isChanged(0, 2), is(false));
+        tracker.reset();
+        assertThat(tracker.isChanged(0, 2), is(true));
+        tracker.update(registers(1, 2));
+        assertThat(tracker.isChanged(0, 2), is(true));
+    }
+}
@@ -0,0 +1,234 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.modbus.internal;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.openhab.core.io.transport.modbus.AsyncModbusFailure;
+import org.openhab.core.io.transport.modbus.AsyncModbusReadResult;
+import org.openhab.core.io.transport.modbus.ModbusCommunicationInterface;
+import org.openhab.core.io.transport.modbus.ModbusFailureCallback;
+import org.openhab.core.io.transport.modbus.ModbusReadCallback;
+import org.openhab.core.io.transport.modbus.ModbusReadFunctionCode;
+import org.openhab.core.io.transport.modbus.ModbusReadRequestBlueprint;
+import org.openhab.core.io.transport.modbus.ModbusRegisterArray;
+import org.openhab.core.io.transport.modbus.PollTask;
+import org.openhab.core.io.transport.modbus.exception.ModbusSlaveErrorResponseException;
+
+/**
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ModbusPollPlannerTest {
+
+    private static ModbusReadRequestBlueprint holding(int start, int length) {
+        return new ModbusReadRequestBlueprint(1, ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, start, length, 3);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ModbusFailureCallback<ModbusReadRequestBlueprint> failureCallback() {
+        return mock(ModbusFailureCallback.class);
+    }
+
+    @Test
+    public void testAdjacentPollsAreMerged() {
+        ModbusCommunicationInterface comms = mock(ModbusCommunicationInterface.class);
+        when(comms.registerRegularPoll(any(), anyLong(), anyLong(), any(), any())).thenReturn(mock(PollTask.class));
+        ModbusPollPlanner planner = new ModbusPollPlanner(comms, 2, saved -> {
+        }, () -> 0L);
+
+        List<AsyncModbusReadResult> results1 = new ArrayList<>();
+        List<AsyncModbusReadResult> results2 = new ArrayList<>();
+        ModbusReadCallback callback1 = results1::add;
+        ModbusReadCallback callback2 = results2::add;
+        planner.registerRegularPoll(holding(0, 2), 1000, callback1, failureCallback());
+        planner.registerRegularPoll(holding(3, 1), 1000, callback2, failureCallback());
+
+        assertThat(planner.getRoundTripsSaved(), is(equalTo(1)));
+        ArgumentCaptor<ModbusReadRequestBlueprint> requestCaptor = ArgumentCaptor
+                .forClass(ModbusReadRequestBlueprint.class);
+        ArgumentCaptor<ModbusReadCallback> callbackCaptor = ArgumentCaptor.forClass(ModbusReadCallback.class);
+        verify(comms, times(2)).registerRegularPoll(requestCaptor.capture(), eq(1000L), eq(0L),
+                callbackCaptor.capture(), any());
+        verify(comms, times(1)).unregisterRegularPoll(any());
+        ModbusReadRequestBlueprint merged = requestCaptor.getValue();
+        assertThat(merged.getReference(), is(equalTo(0)));
+        assertThat(merged.getDataLength(), is(equalTo(4)));
+
+        callbackCaptor.getValue().handle(new AsyncModbusReadResult(merged, new ModbusRegisterArray(10, 11, 12, 13)));
+        assertThat(results1.size(), is(equalTo(1)));
+        assertThat(results2.size(), is(equalTo(1)));
+        ModbusRegisterArray registers1 = results1.get(0).getRegisters().get();
+        ModbusRegisterArray registers2 = results2.get(0).getRegisters().get();
+        assertThat(registers1.size(), is(equalTo(2)));
+        assertThat(registers1.getRegister(0), is(equalTo(10)));
+        assertThat(registers1.getRegister(1), is(equalTo(11)));
+        assertThat(registers2.size(), is(equalTo(1)));
+        assertThat(registers2.getRegister(0), is(equalTo(13)));
+    }
+
+    @Test
+    public void testDistantPollsAreNotMerged() {
+        ModbusCommunicationInterface comms = mock(ModbusCommunicationInterface.class);
+        when(comms.registerRegularPoll(any(), anyLong(), anyLong(), any(), any())).thenReturn(mock(PollTask.class));
+        ModbusPollPlanner planner = new ModbusPollPlanner(comms, 2, saved -> {
+        }, () -> 0L);
+
+        ModbusReadCallback callback = result -> {
+        };
+        planner.registerRegularPoll(holding(0, 2), 1000, callback, failureCallback());
+        planner.registerRegularPoll(holding(10, 1), 1000, callback, failureCallback());
+        planner.registerRegularPoll(holding(11, 1), 500, callback, failureCallback());
+
+        assertThat(planner.getRoundTripsSaved(), is(equalTo(0)));
+    }
+
+    @Test
+    public void testUnregisterReplansRemainingPolls() {
+        ModbusCommunicationInterface comms = mock(ModbusCommunicationInterface.class);
+        when(comms.registerRegularPoll(any(), anyLong(), anyLong(), any(), any())).thenReturn(mock(PollTask.class));
+        ModbusPollPlanner planner = new ModbusPollPlanner(comms, 0, saved -> {
+        }, () -> 0L);
+
+        ModbusReadCallback callback = result -> {
+        };
+        ModbusPollPlanner.PlannedPoll poll1 = planner.registerRegularPoll(holding(0, 2), 1000, callback,
+                failureCallback());
+        ModbusReadRequestBlueprint request2 = holding(2, 2);
+        planner.registerRegularPoll(request2, 1000, callback, failureCallback());
+        assertThat(planner.getRoundTripsSaved(), is(equalTo(1)));
+
+        assertThat(planner.unregisterRegularPoll(poll1), is(true));
+        assertThat(planner.unregisterRegularPoll(poll1), is(false));
+        assertThat(planner.getRoundTripsSaved(), is(equalTo(0)));
+        // remaining poll is registered as is
+        verify(comms, times(1)).registerRegularPoll(eq(request2), eq(1000L), eq(0L), any(), any());
+    }
+
+    @Test
+    public void testReplanKeepsSchedulePhase() {
+        ModbusCommunicationInterface comms = mock(ModbusCommunicationInterface.class);
+        when(comms.registerRegularPoll(any(), anyLong(), anyLong(), any(), any())).thenReturn(mock(PollTask.class));
+        AtomicLong now = new AtomicLong(0);
+        ModbusPollPlanner planner = new ModbusPollPlanner(comms, 2, saved -> {
+        }, now::get);
+
+        ModbusReadCallback callback = result -> {
+        };
+        planner.registerRegularPoll(holding(0, 2), 1000, callback, failureCallback());
+        verify(comms).registerRegularPoll(any(), eq(1000L), eq(0L), any(), any());
+        verify(comms, never()).submitOneTimePoll(any(), any(ModbusReadCallback.class), any());
+
+        now.set(TimeUnit.MILLISECONDS.toNanos(2300));
+        ModbusReadRequestBlueprint request2 = holding(2, 2);
+        planner.registerRegularPoll(request2, 1000, callback, failureCallback());
+
+        // The merged request continues the schedule of the group, the new poll is read once right away
+        verify(comms).registerRegularPoll(any(), eq(1000L), eq(700L), any(), any());
+        verify(comms).submitOneTimePoll(eq(request2), eq(callback), any());
+    }
+
+    @Test
+    public void testRejectedMergedPollIsSplit() {
+        ModbusCommunicationInterface comms = mock(ModbusCommunicationInterface.class);
+        when(comms.registerRegularPoll(any(), anyLong(), anyLong(), any(), any())).thenReturn(mock(PollTask.class));
+        ModbusPollPlanner planner = new ModbusPollPlanner(comms, 2, saved -> {
+        }, () -> 0L);
+
+        ModbusReadCallback callback = result -> {
+        };
+        ModbusFailureCallback<ModbusReadRequestBlueprint> failureCallback1 = failureCallback();
+        ModbusFailureCallback<ModbusReadRequestBlueprint> failureCallback2 = failureCallback();
+        ModbusReadRequestBlueprint request1 = holding(0, 2);
+        ModbusReadRequestBlueprint request2 = holding(3, 1);
+        planner.registerRegularPoll(request1, 1000, callback, failureCallback1);
+        planner.registerRegularPoll(request2, 1000, callback, failureCallback2);
+        assertThat(planner.getRoundTripsSaved(), is(equalTo(1)));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<ModbusFailureCallback<ModbusReadRequestBlueprint>> failureCaptor = ArgumentCaptor
+                .forClass(ModbusFailureCallback.class);
+        ArgumentCaptor<ModbusReadRequestBlueprint> requestCaptor = ArgumentCaptor
+                .forClass(ModbusReadRequestBlueprint.class);
+        verify(comms, times(2)).registerRegularPoll(requestCaptor.capture(), anyLong(), anyLong(), any(),
+                failureCaptor.capture());
+        ModbusSlaveErrorResponseException illegalAddress = mock(ModbusSlaveErrorResponseException.class);
+        when(illegalAddress.getExceptionCode()).thenReturn(ModbusSlaveErrorResponseException.ILLEGAL_DATA_ACCESS);
+        failureCaptor.getValue().handle(new AsyncModbusFailure<>(requestCaptor.getValue(), illegalAddress));
+
+        // No failures for the original polls, they are read and polled separately instead
+        verifyNoInteractions(failureCallback1, failureCallback2);
+        verify(comms).submitOneTimePoll(request1, callback, failureCallback1);
+        verify(comms).submitOneTimePoll(request2, callback, failureCallback2);
+        // request1 was polled alone before request2 was registered
+        verify(comms, times(2)).registerRegularPoll(eq(request1), eq(1000L), anyLong(), any(), any());
+        verify(comms).registerRegularPoll(eq(request2), eq(1000L), anyLong(), any(), any());
+        assertThat(planner.getRoundTripsSaved(), is(equalTo(0)));
+    }
+
+    @Test
+    public void testOtherFailuresAreDelegated() {
+        ModbusCommunicationInterface comms = mock(ModbusCommunicationInterface.class);
+        when(comms.registerRegularPoll(any(), anyLong(), anyLong(), any(), any())).thenReturn(mock(PollTask.class));
+        ModbusPollPlanner planner = new ModbusPollPlanner(comms, 2, saved -> {
+        }, () -> 0L);
+
+        ModbusReadCallback callback = result -> {
+        };
+        ModbusFailureCallback<ModbusReadRequestBlueprint> failureCallback1 = failureCallback();
+        ModbusFailureCallback<ModbusReadRequestBlueprint> failureCallback2 = failureCallback();
+        planner.registerRegularPoll(holding(0, 2), 1000, callback, failureCallback1);
+        planner.registerRegularPoll(holding(3, 1), 1000, callback, failureCallback2);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<ModbusFailureCallback<ModbusReadRequestBlueprint>> failureCaptor = ArgumentCaptor
+                .forClass(ModbusFailureCallback.class);
+        ArgumentCaptor<ModbusReadRequestBlueprint> requestCaptor = ArgumentCaptor
+                .forClass(ModbusReadRequestBlueprint.class);
+        verify(comms, times(2)).registerRegularPoll(requestCaptor.capture(), anyLong(), anyLong(), any(),
+                failureCaptor.capture());
+        failureCaptor.getValue().handle(new AsyncModbusFailure<>(requestCaptor.getValue(), new Exception("timeout")));
+
+        verify(failureCallback1).handle(any());
+        verify(failureCallback2).handle(any());
+        assertThat(planner.getRoundTripsSaved(), is(equalTo(1)));
+    }
+
+    @Test
+    public void testRoundTripsSavedAreReported() {
+        ModbusCommunicationInterface comms = mock(ModbusCommunicationInterface.class);
+        when(comms.registerRegularPoll(any(), anyLong(), anyLong(), any(), any())).thenReturn(mock(PollTask.class));
+        List<Integer> reported = new ArrayList<>();
+        ModbusPollPlanner planner = new ModbusPollPlanner(comms, 2, reported::add, () -> 0L);
+
+        ModbusReadCallback callback = result -> {
+        };
+        ModbusPollPlanner.PlannedPoll poll1 = planner.registerRegularPoll(holding(0, 2), 1000, callback,
+                failureCallback());
+        planner.registerRegularPoll(holding(2, 2), 1000, callback, failureCallback());
+        planner.unregisterRegularPoll(poll1);
+
+        assertThat(reported, is(equalTo(List.of(0, 1, 0))));
+    }
+}
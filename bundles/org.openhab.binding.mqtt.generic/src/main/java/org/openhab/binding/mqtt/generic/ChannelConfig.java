@@ -37,6 +37,12 @@ public class ChannelConfig {
      * Instead a postCommand() call is performed.
      */
     public boolean postCommand = false;
+    /** If true, a received value is only propagated to the framework if it differs from the last one. */
+    public boolean onlyOnChange = false;
+    /** Minimum time in milliseconds between two propagated values. Only the last value in between is propagated. */
+    public int minInterval = 0;
+    /** Numeric values that differ less than this from the last propagated value are dropped. */
+    public @Nullable BigDecimal deadband;
     public @Nullable Integer qos;
     public boolean retained = false;
     /** If true, the state topic will not update a state, but trigger a channel instead. */
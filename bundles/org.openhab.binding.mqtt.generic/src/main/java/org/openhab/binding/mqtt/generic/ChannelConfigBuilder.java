@@ -12,6 +12,8 @@
  */
 package org.openhab.binding.mqtt.generic;
 
+import java.math.BigDecimal;
+
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 
@@ -69,6 +71,21 @@ public class ChannelConfigBuilder {
         return this;
     }
 
+    public ChannelConfigBuilder withOnlyOnChange(boolean onlyOnChange) {
+        config.onlyOnChange = onlyOnChange;
+        return this;
+    }
+
+    public ChannelConfigBuilder withMinInterval(int minInterval) {
+        config.minInterval = minInterval;
+        return this;
+    }
+
+    public ChannelConfigBuilder withDeadband(@Nullable BigDecimal deadband) {
+        config.deadband = deadband;
+        return this;
+    }
+
     public ChannelConfigBuilder makeTrigger(boolean trigger) {
         config.trigger = trigger;
         return this;
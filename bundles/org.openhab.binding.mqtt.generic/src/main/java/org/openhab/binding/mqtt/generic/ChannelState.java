@@ -12,7 +12,7 @@
  */
 package org.openhab.binding.mqtt.generic;
 
-import java.nio.charset.StandardCharsets;
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.IllegalFormatException;
 import java.util.List;
@@ -20,17 +20,25 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.measure.Unit;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.mqtt.generic.tools.TopicPayloadDecoder;
+import org.openhab.binding.mqtt.generic.tools.TopicPayloadDecoder.DecodedPayload;
 import org.openhab.binding.mqtt.generic.values.TextValue;
 import org.openhab.binding.mqtt.generic.values.Value;
 import org.openhab.core.io.transport.mqtt.MqttBrokerConnection;
 import org.openhab.core.io.transport.mqtt.MqttMessageSubscriber;
+import org.openhab.core.library.types.QuantityType;
 import org.openhab.core.library.types.StringType;
 import org.openhab.core.thing.ChannelUID;
 import org.openhab.core.types.Command;
+import org.openhab.core.types.State;
 import org.openhab.core.types.TypeParser;
+import org.openhab.core.types.util.UnitUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +47,7 @@ import org.slf4j.LoggerFactory;
  * Updates to the value are propagated via the {@link ChannelStateUpdateListener}.
  *
  * @author David Graeff - Initial contribution
+ * @author agent - Deferred updates within the minimum interval
  */
 @NonNullByDefault
 public class ChannelState implements MqttMessageSubscriber {
@@ -57,10 +66,21 @@ public class ChannelState implements MqttMessageSubscriber {
     protected final List<ChannelStateTransformation> transformationsIn = new ArrayList<>();
     protected final List<ChannelStateTransformation> transformationsOut = new ArrayList<>();
     private @Nullable ChannelStateUpdateListener channelStateUpdateListener;
+    private @Nullable TopicPayloadDecoder payloadDecoder;
     protected boolean hasSubscribed = false;
     private @Nullable ScheduledFuture<?> scheduledFuture;
     private CompletableFuture<@Nullable Void> future = CompletableFuture.completedFuture(null);
     private final Object futureLock = new Object();
+    // Suppression of unchanged or too frequent updates
+    private final double deadband;
+    private final @Nullable Unit<?> channelUnit;
+    private final Object suppressionLock = new Object();
+    private @Nullable State lastPropagatedState;
+    private double lastPropagatedNumber; // in the unit of the channel
+    private long lastPropagatedTime;
+    private @Nullable ScheduledExecutorService scheduler;
+    private @Nullable ScheduledFuture<?> trailingUpdate;
+    private final AtomicLong suppressedUpdates = new AtomicLong();
 
     /**
      * Creates a new channel state.
@@ -78,6 +98,9 @@ public class ChannelState implements MqttMessageSubscriber {
         this.channelUID = channelUID;
         this.cachedValue = cachedValue;
         this.readOnly = config.commandTopic.isBlank();
+        final BigDecimal deadband = config.deadband;
+        this.deadband = deadband != null ? deadband.doubleValue() : 0;
+        this.channelUnit = this.deadband > 0 && !config.unit.isEmpty() ? UnitUtils.parseUnit(config.unit) : null;
     }
 
     public boolean isReadOnly() {
@@ -104,6 +127,16 @@ public class ChannelState implements MqttMessageSubscriber {
         transformationsOut.add(transformation);
     }
 
+    /**
+     * Set a payload decoder that is shared with other channel states, which might subscribe to the same topic.
+     * Incoming payloads are then decoded (and JSON parsed) only once per topic.
+     *
+     * @param payloadDecoder A shared payload decoder
+     */
+    public void setPayloadDecoder(@Nullable TopicPayloadDecoder payloadDecoder) {
+        this.payloadDecoder = payloadDecoder;
+    }
+
     /**
      * Clear transformations
      */
@@ -153,9 +186,14 @@ public class ChannelState implements MqttMessageSubscriber {
         }
 
         // String value: Apply transformations
-        String strValue = new String(payload, StandardCharsets.UTF_8);
-        for (ChannelStateTransformation t : transformationsIn) {
-            String transformedValue = t.processValue(strValue);
+        final TopicPayloadDecoder payloadDecoder = this.payloadDecoder;
+        final DecodedPayload decodedPayload = payloadDecoder != null ? payloadDecoder.decode(topic, payload)
+                : new DecodedPayload(payload);
+        String strValue = decodedPayload.getText();
+        for (int i = 0; i < transformationsIn.size(); ++i) {
+            ChannelStateTransformation t = transformationsIn.get(i);
+            // Only the first transformation works on the raw payload that is shared with other channels
+            String transformedValue = i == 0 ? t.processValue(decodedPayload) : t.processValue(strValue);
             if (transformedValue != null) {
                 strValue = transformedValue;
             } else {
@@ -197,12 +235,125 @@ public class ChannelState implements MqttMessageSubscriber {
             return;
         }
 
+        final State newState = cachedValue.getChannelState();
+        if (isSuppressed(newState)) {
+            suppressedUpdates.incrementAndGet();
+            receivedOrTimeout();
+            return;
+        }
+
+        propagate(channelStateUpdateListener, newState);
+        receivedOrTimeout();
+    }
+
+    private void propagate(ChannelStateUpdateListener channelStateUpdateListener, State state) {
         if (config.postCommand) {
-            channelStateUpdateListener.postChannelCommand(channelUID, (Command) cachedValue.getChannelState());
+            channelStateUpdateListener.postChannelCommand(channelUID, (Command) state);
         } else {
-            channelStateUpdateListener.updateChannelState(channelUID, cachedValue.getChannelState());
+            channelStateUpdateListener.updateChannelState(channelUID, state);
         }
-        receivedOrTimeout();
+    }
+
+    /**
+     * Decides whether the new state is propagated to the framework, depending on the "only on change", minimum
+     * interval and deadband channel options. If it is propagated, it becomes the reference for the next decision.
+     * A changed state that is received within the minimum interval is deferred: the last deferred state is
+     * propagated when the interval has passed.
+     *
+     * @param newState The new channel state
+     * @return Returns true if the new state must not be propagated now.
+     */
+    private boolean isSuppressed(State newState) {
+        synchronized (suppressionLock) {
+            final long now = config.minInterval > 0 ? System.currentTimeMillis() : 0;
+            if (isUnchanged(newState)) {
+                return true;
+            }
+            if (lastPropagatedState != null && config.minInterval > 0
+                    && now - lastPropagatedTime < config.minInterval) {
+                scheduleTrailingUpdate(lastPropagatedTime + config.minInterval - now);
+                return true;
+            }
+            setLastPropagated(newState, now);
+            return false;
+        }
+    }
+
+    /**
+     * @return true if the state is the same as the last propagated one, or within its deadband
+     */
+    private boolean isUnchanged(State newState) {
+        final State lastState = lastPropagatedState;
+        if (lastState == null) {
+            return false;
+        }
+        if (config.onlyOnChange && newState.equals(lastState)) {
+            return true;
+        }
+        return deadband > 0 && newState instanceof Number && lastState instanceof Number
+                && Math.abs(toChannelUnit((Number) newState) - lastPropagatedNumber) < deadband;
+    }
+
+    private void setLastPropagated(State state, long time) {
+        lastPropagatedState = state;
+        lastPropagatedTime = time;
+        if (deadband > 0 && state instanceof Number) {
+            lastPropagatedNumber = toChannelUnit((Number) state);
+        }
+    }
+
+    /**
+     * The deadband is given in the unit of the channel. Quantities usually arrive in that unit already, only other
+     * units are converted before they are compared.
+     */
+    private double toChannelUnit(Number number) {
+        final Unit<?> channelUnit = this.channelUnit;
+        if (channelUnit != null && number instanceof QuantityType<?>) {
+            final QuantityType<?> quantity = (QuantityType<?>) number;
+            if (!channelUnit.equals(quantity.getUnit())) {
+                final QuantityType<?> converted = quantity.toUnit(channelUnit);
+                if (converted != null) {
+                    return converted.doubleValue();
+                }
+            }
+        }
+        return number.doubleValue();
+    }
+
+    private void scheduleTrailingUpdate(long delay) {
+        final ScheduledExecutorService scheduler = this.scheduler;
+        if (scheduler == null || trailingUpdate != null) {
+            return;
+        }
+        trailingUpdate = scheduler.schedule(this::propagateTrailingUpdate, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Propagates the last value that has been received within the minimum interval, unless it is the same as the
+     * last propagated one by now.
+     */
+    private void propagateTrailingUpdate() {
+        final ChannelStateUpdateListener channelStateUpdateListener = this.channelStateUpdateListener;
+        final State state;
+        synchronized (suppressionLock) {
+            trailingUpdate = null;
+            state = cachedValue.getChannelState();
+            if (channelStateUpdateListener == null || isUnchanged(state)) {
+                return;
+            }
+            setLastPropagated(state, System.currentTimeMillis());
+        }
+        // the deferred value has been propagated after all
+        suppressedUpdates.decrementAndGet();
+        propagate(channelStateUpdateListener, state);
+    }
+
+    /**
+     * Returns the number of received values that were not propagated, because of the "only on change",
+     * minimum interval or deadband channel options.
+     */
+    public long getSuppressedUpdates() {
+        return suppressedUpdates.get();
     }
 
     /**
@@ -254,6 +405,14 @@ public class ChannelState implements MqttMessageSubscriber {
         this.connection = null;
         this.channelStateUpdateListener = null;
         hasSubscribed = false;
+        synchronized (suppressionLock) {
+            final ScheduledFuture<?> trailingUpdate = this.trailingUpdate;
+            if (trailingUpdate != null) {
+                trailingUpdate.cancel(false);
+                this.trailingUpdate = null;
+            }
+            lastPropagatedState = null;
+        }
         cachedValue.resetState();
     }
 
@@ -295,6 +454,7 @@ public class ChannelState implements MqttMessageSubscriber {
             hasSubscribed = false;
 
             this.connection = connection;
+            this.scheduler = scheduler;
 
             if (config.stateTopic.isBlank()) {
                 return CompletableFuture.completedFuture(null);
@@ -13,14 +13,19 @@
 package org.openhab.binding.mqtt.generic;
 
 import java.lang.ref.WeakReference;
+import java.util.regex.Pattern;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.mqtt.generic.tools.TopicPayloadDecoder.DecodedPayload;
 import org.openhab.core.transform.TransformationException;
 import org.openhab.core.transform.TransformationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
 /**
  * A transformation for a {@link ChannelState}. It is applied for each received value on an MQTT topic.
  *
@@ -28,11 +33,16 @@ import org.slf4j.LoggerFactory;
  */
 @NonNullByDefault
 public class ChannelStateTransformation {
+    private static final String JSONPATH_SERVICE = "JSONPATH";
+    private static final Pattern SIMPLE_JSONPATH = Pattern.compile("^\\$(\\.[A-Za-z_][A-Za-z0-9_\\-]*)+$");
+
     private final Logger logger = LoggerFactory.getLogger(ChannelStateTransformation.class);
     private final TransformationServiceProvider provider;
     private WeakReference<@Nullable TransformationService> transformationService = new WeakReference<>(null);
     final String pattern;
     final String serviceName;
+    // Field names of a simple JSONPATH pattern like "$.device.temperature", null otherwise
+    final String @Nullable [] jsonPathFields;
 
     /**
      * Creates a new channel state transformer.
@@ -53,6 +63,7 @@ public class ChannelStateTransformation {
         String type = pattern.substring(0, index).toUpperCase();
         this.pattern = pattern.substring(index + 1);
         this.serviceName = type;
+        this.jsonPathFields = simpleJsonPathFields(this.serviceName, this.pattern);
     }
 
     /**
@@ -68,6 +79,40 @@ public class ChannelStateTransformation {
         this.serviceName = serviceName;
         this.pattern = pattern;
         this.provider = provider;
+        this.jsonPathFields = simpleJsonPathFields(serviceName, pattern);
+    }
+
+    private static String @Nullable [] simpleJsonPathFields(String serviceName, String pattern) {
+        String trimmedPattern = pattern.trim();
+        if (!JSONPATH_SERVICE.equalsIgnoreCase(serviceName) || !SIMPLE_JSONPATH.matcher(trimmedPattern).matches()) {
+            return null;
+        }
+        return trimmedPattern.substring(2).split("\\.");
+    }
+
+    /**
+     * Will be called by the {@link ChannelState} for the first transformation of an incoming MQTT value.
+     * <p>
+     * Simple JSONPATH patterns, that only select a (nested) field, are evaluated on the JSON tree of the payload.
+     * The tree is parsed only once for all channels of the same topic. All other patterns are handed to the
+     * transformation service.
+     *
+     * @param payload The decoded incoming value
+     * @return The transformed value
+     */
+    protected @Nullable String processValue(DecodedPayload payload) {
+        final String[] jsonPathFields = this.jsonPathFields;
+        if (jsonPathFields != null) {
+            JsonElement element = payload.getJson();
+            for (int i = 0; i < jsonPathFields.length && element != null; ++i) {
+                element = element.isJsonObject() ? ((JsonObject) element).get(jsonPathFields[i]) : null;
+            }
+            if (element != null && element.isJsonPrimitive()) {
+                return element.getAsString();
+            }
+            // Missing fields, objects and arrays are left to the transformation service
+        }
+        return processValue(payload.getText());
     }
 
     /**
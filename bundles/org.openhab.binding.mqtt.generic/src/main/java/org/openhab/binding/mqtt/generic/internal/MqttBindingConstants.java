@@ -43,4 +43,7 @@ public class MqttBindingConstants {
     public static final String DATETIME = "datetime";
     public static final String ROLLERSHUTTER = "rollershutter";
     public static final String TRIGGER = "trigger";
+
+    // Generic thing properties
+    public static final String PROPERTY_SUPPRESSED_UPDATES = "suppressedUpdates";
 }
@@ -18,6 +18,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -31,6 +33,8 @@ import org.openhab.binding.mqtt.generic.ChannelStateTransformation;
 import org.openhab.binding.mqtt.generic.ChannelStateUpdateListener;
 import org.openhab.binding.mqtt.generic.MqttChannelStateDescriptionProvider;
 import org.openhab.binding.mqtt.generic.TransformationServiceProvider;
+import org.openhab.binding.mqtt.generic.internal.MqttBindingConstants;
+import org.openhab.binding.mqtt.generic.tools.TopicPayloadDecoder;
 import org.openhab.binding.mqtt.generic.utils.FutureCollector;
 import org.openhab.binding.mqtt.generic.values.Value;
 import org.openhab.binding.mqtt.generic.values.ValueFactory;
@@ -56,6 +60,10 @@ public class GenericMQTTThingHandler extends AbstractMQTTThingHandler implements
     final Map<ChannelUID, ChannelState> channelStateByChannelUID = new HashMap<>();
     protected final MqttChannelStateDescriptionProvider stateDescProvider;
     protected final TransformationServiceProvider transformationServiceProvider;
+    // Shared by all channels, so that a payload is decoded only once if several channels use the same topic
+    protected final TopicPayloadDecoder payloadDecoder = new TopicPayloadDecoder();
+    private @Nullable ScheduledFuture<?> statisticsJob;
+    private long reportedSuppressedUpdates = 0;
 
     /**
      * Creates a new Thing handler for generic MQTT channels.
@@ -85,16 +93,45 @@ public class GenericMQTTThingHandler extends AbstractMQTTThingHandler implements
      */
     @Override
     protected CompletableFuture<@Nullable Void> start(MqttBrokerConnection connection) {
+        final ScheduledFuture<?> statisticsJob = this.statisticsJob;
+        if (statisticsJob == null || statisticsJob.isDone()) {
+            this.statisticsJob = scheduler.scheduleWithFixedDelay(this::updateStatistics, 1, 1, TimeUnit.MINUTES);
+        }
         return channelStateByChannelUID.values().stream().map(c -> c.start(connection, scheduler, 0))
                 .collect(FutureCollector.allOf()).thenRun(this::calculateThingStatus);
     }
 
     @Override
     protected void stop() {
+        final ScheduledFuture<?> statisticsJob = this.statisticsJob;
+        if (statisticsJob != null) {
+            statisticsJob.cancel(false);
+            this.statisticsJob = null;
+        }
         channelStateByChannelUID.values().forEach(c -> c.getCache().resetState());
+        payloadDecoder.clear();
         super.stop();
     }
 
+    /**
+     * Returns the number of received values of all channels that were not propagated to the framework,
+     * because of the "only on change", minimum interval or deadband channel options.
+     */
+    public long getSuppressedUpdates() {
+        return channelStateByChannelUID.values().stream().mapToLong(ChannelState::getSuppressedUpdates).sum();
+    }
+
+    /**
+     * Publishes the update suppression counter as thing property, to help tuning the channel options.
+     */
+    private void updateStatistics() {
+        long suppressedUpdates = getSuppressedUpdates();
+        if (suppressedUpdates != reportedSuppressedUpdates) {
+            reportedSuppressedUpdates = suppressedUpdates;
+            updateProperty(MqttBindingConstants.PROPERTY_SUPPRESSED_UPDATES, String.valueOf(suppressedUpdates));
+        }
+    }
+
     @Override
     public void dispose() {
         // Remove all state descriptions of this handler
@@ -123,6 +160,7 @@ public class GenericMQTTThingHandler extends AbstractMQTTThingHandler implements
      */
     protected ChannelState createChannelState(ChannelConfig channelConfig, ChannelUID channelUID, Value valueState) {
         ChannelState state = new ChannelState(channelConfig, channelUID, valueState, this);
+        state.setPayloadDecoder(payloadDecoder);
         String[] transformations;
 
         // Incoming value transformations
@@ -107,6 +107,7 @@ public abstract class AbstractMqttAttributeClass implements SubscribeFieldToMQTT
     protected transient AttributeChanged attributeChangedListener = (b, c, d, e, f) -> {
     };
     private transient boolean complete = false;
+    private transient @Nullable AttributeTopicRouter topicRouter;
 
     /**
      * Implement this interface to be notified of an updated field.
@@ -131,6 +132,17 @@ public abstract class AbstractMqttAttributeClass implements SubscribeFieldToMQTT
         prefix = (topicUsesPrefix != null) ? topicUsesPrefix.value() : "";
     }
 
+    /**
+     * Use a topic router, that is subscribed to a wildcard topic, instead of subscribing to each field topic.
+     * Must be set before {@link #subscribeAndReceive(MqttBrokerConnection, ScheduledExecutorService, String,
+     * AttributeChanged, int)} is called.
+     *
+     * @param topicRouter A topic router or null to subscribe to each field topic.
+     */
+    public void setTopicRouter(@Nullable AttributeTopicRouter topicRouter) {
+        this.topicRouter = topicRouter;
+    }
+
     /**
      * Unsubscribe from all topics of the managed object.
      *
@@ -139,6 +151,14 @@ public abstract class AbstractMqttAttributeClass implements SubscribeFieldToMQTT
      * @return Returns a future that completes as soon as all unsubscriptions have been performed.
      */
     public CompletableFuture<@Nullable Void> unsubscribe() {
+        final AttributeTopicRouter topicRouter = this.topicRouter;
+        if (topicRouter != null) {
+            subscriptions.forEach(topicRouter::remove);
+            subscriptions.forEach(SubscribeFieldToMQTTtopic::stopWaiting);
+            subscriptions.clear();
+            return CompletableFuture.completedFuture(null);
+        }
+
         final MqttBrokerConnection connection = this.connection.get();
         if (connection == null) {
             subscriptions.clear();
@@ -191,6 +211,15 @@ public abstract class AbstractMqttAttributeClass implements SubscribeFieldToMQTT
         subscriptions = getAllFields(getFieldsOf().getClass()).stream().filter(AbstractMqttAttributeClass::filterField)
                 .map(this::mapFieldToSubscriber).collect(Collectors.toList());
 
+        final AttributeTopicRouter topicRouter = this.topicRouter;
+        if (topicRouter != null) {
+            // Retained values are handed over by the router, on registration or when they arrive. As soon as all
+            // mandatory fields are known, optional fields are no longer waited for, see fieldChanged().
+            final CompletableFuture<?>[] futures = subscriptions.stream()
+                    .map(m -> m.registerAndReceive(topicRouter, timeout)).toArray(CompletableFuture[]::new);
+            return CompletableFuture.allOf(startFuture, CompletableFuture.allOf(futures));
+        }
+
         final CompletableFuture<?>[] futures = subscriptions.stream()
                 .map(m -> m.subscribeAndReceive(connection, timeout)).toArray(CompletableFuture[]::new);
         return CompletableFuture.allOf(startFuture, CompletableFuture.allOf(futures));
@@ -285,6 +314,10 @@ public abstract class AbstractMqttAttributeClass implements SubscribeFieldToMQTT
         return complete;
     }
 
+    private boolean isMandatoryComplete() {
+        return !subscriptions.stream().anyMatch(s -> s.isMandatory() && !s.hasReceivedValue());
+    }
+
     /**
      * One of the observed MQTT topics got a new value. Apply this to the given field now
      * and propagate the changed value event.
@@ -304,9 +337,13 @@ public abstract class AbstractMqttAttributeClass implements SubscribeFieldToMQTT
         // But at least issue a warning to the log.
         try {
             field.set(getFieldsOf(), value);
-            final boolean newComplete = !subscriptions.stream().anyMatch(s -> s.isMandatory() && !s.hasReceivedValue());
+            final boolean newComplete = isMandatoryComplete();
             attributeChangedListener.attributeChanged(field.getName(), value, connection, scheduler, newComplete);
             complete = newComplete;
+            if (newComplete && topicRouter != null) {
+                // Do not wait for optional fields that were never published. They are still applied when they arrive.
+                subscriptions.forEach(SubscribeFieldToMQTTtopic::stopWaitingIfOptional);
+            }
         } catch (IllegalArgumentException | IllegalAccessException e) {
             logger.warn("Could not assign value {} to field {}", value, field, e);
         }
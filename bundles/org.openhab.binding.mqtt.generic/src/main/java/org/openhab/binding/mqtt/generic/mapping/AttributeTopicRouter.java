@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.mqtt.generic.mapping;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.io.transport.mqtt.MqttBrokerConnection;
+import org.openhab.core.io.transport.mqtt.MqttMessageSubscriber;
+
+/**
+ * Subscribes once to the wildcard topic "basetopic/#" and routes received attribute messages to the
+ * {@link SubscribeFieldToMQTTtopic}s of all {@link AbstractMqttAttributeClass}es below that base topic.
+ * <p>
+ * Retained attribute messages usually arrive before the attribute class, that is interested in them, exists.
+ * The last payload of each attribute topic is therefore kept and handed to a field subscriber as soon as it
+ * registers. An attribute class that has all its values available completes without any further broker round-trip.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class AttributeTopicRouter implements MqttMessageSubscriber {
+    private final String wildcardTopic;
+    private final String attributePrefix;
+    private final Map<String, byte[]> attributePayloads = new ConcurrentHashMap<>();
+    private final Map<String, SubscribeFieldToMQTTtopic> fieldSubscribers = new ConcurrentHashMap<>();
+    private WeakReference<@Nullable MqttBrokerConnection> connection = new WeakReference<>(null);
+
+    /**
+     * Creates a topic router.
+     *
+     * @param baseTopic The base topic, for example "homie/device".
+     * @param attributePrefix Only topics, where the last level starts with this prefix, are attribute topics.
+     *            For example "$" for the Homie convention.
+     */
+    public AttributeTopicRouter(String baseTopic, String attributePrefix) {
+        this.wildcardTopic = baseTopic + "/#";
+        this.attributePrefix = attributePrefix;
+    }
+
+    /**
+     * Subscribes to the wildcard topic.
+     *
+     * @param connection A broker connection
+     * @return A future that completes with true if subscribing worked.
+     */
+    public CompletableFuture<Boolean> subscribe(MqttBrokerConnection connection) {
+        this.connection = new WeakReference<>(connection);
+        return connection.subscribe(wildcardTopic, this);
+    }
+
+    /**
+     * Unsubscribes from the wildcard topic and forgets all received attribute values.
+     *
+     * @return A future that completes with true if unsubscribing worked.
+     */
+    public CompletableFuture<Boolean> unsubscribe() {
+        final MqttBrokerConnection connection = this.connection.get();
+        attributePayloads.clear();
+        if (connection == null) {
+            return CompletableFuture.completedFuture(true);
+        }
+        this.connection.clear();
+        return connection.unsubscribe(wildcardTopic, this);
+    }
+
+    /**
+     * Registers a field subscriber. If a value for its topic has been received already, the subscriber is
+     * notified immediately.
+     *
+     * @param subscriber A field subscriber
+     */
+    public void register(SubscribeFieldToMQTTtopic subscriber) {
+        fieldSubscribers.put(subscriber.topic, subscriber);
+        final byte[] payload = attributePayloads.get(subscriber.topic);
+        if (payload != null) {
+            subscriber.processMessage(subscriber.topic, payload);
+        }
+    }
+
+    /**
+     * Removes a field subscriber.
+     *
+     * @param subscriber A field subscriber
+     */
+    public void remove(SubscribeFieldToMQTTtopic subscriber) {
+        fieldSubscribers.remove(subscriber.topic, subscriber);
+    }
+
+    @Override
+    public void processMessage(String topic, byte[] payload) {
+        if (!topic.startsWith(attributePrefix, topic.lastIndexOf('/') + 1)) {
+            return;
+        }
+        attributePayloads.put(topic, payload);
+        final SubscribeFieldToMQTTtopic subscriber = fieldSubscribers.get(topic);
+        if (subscriber != null) {
+            subscriber.processMessage(topic, payload);
+        }
+    }
+}
@@ -197,6 +197,51 @@ public class SubscribeFieldToMQTTtopic implements MqttMessageSubscriber {
         return future;
     }
 
+    /**
+     * Register at a topic router instead of subscribing to the MQTT topic. If the router already knows a value for
+     * the topic, the returned future completes immediately.
+     *
+     * @param router A topic router that is subscribed to a wildcard topic covering {@link #topic}.
+     * @param timeout Timeout in milliseconds. The returned future completes after this time even if no message has
+     *            been received for the MQTT topic.
+     * @return Returns a future that completes if either a value is received for the topic or a timeout happens.
+     */
+    public CompletableFuture<@Nullable Void> registerAndReceive(AttributeTopicRouter router, int timeout) {
+        router.register(this);
+        if (!future.isDone()) {
+            this.scheduledFuture = scheduler.schedule(this::timeoutReached, timeout, TimeUnit.MILLISECONDS);
+        }
+        return future;
+    }
+
+    /**
+     * Complete the returned future of {@link #registerAndReceive(AttributeTopicRouter, int)} without waiting
+     * for the timeout, if this is an optional field. A value that is received later on is still applied.
+     */
+    void stopWaitingIfOptional() {
+        if (!mandatory && !future.isDone()) {
+            cancelTimeout();
+            future.complete(null);
+        }
+    }
+
+    /**
+     * Stop waiting for a value after the field was removed from its topic router. The returned future of
+     * {@link #registerAndReceive(AttributeTopicRouter, int)} is cancelled, if it has not completed yet.
+     */
+    void stopWaiting() {
+        cancelTimeout();
+        future.cancel(false);
+    }
+
+    private void cancelTimeout() {
+        final ScheduledFuture<?> scheduledFuture = this.scheduledFuture;
+        if (scheduledFuture != null) {
+            scheduledFuture.cancel(false);
+            this.scheduledFuture = null;
+        }
+    }
+
     /**
      * Return true if the corresponding field has received a value at least once.
      */
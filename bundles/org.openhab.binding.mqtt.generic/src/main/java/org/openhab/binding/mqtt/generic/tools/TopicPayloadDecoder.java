@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.mqtt.generic.tools;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+/**
+ * Decodes an incoming MQTT payload once per topic, no matter how many channels are subscribed to that topic.
+ * <p>
+ * The broker connection hands the very same payload array to every subscriber of a topic. All channels of a
+ * thing share one decoder and the first channel that receives a message decodes it. All others get the already
+ * decoded {@link DecodedPayload} for as long as the payload array is the same instance.
+ * <p>
+ * Wildcard subscriptions can receive messages on any number of topics, so only the payloads of the most recently
+ * used topics are kept.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class TopicPayloadDecoder {
+    // All subscribers of a topic receive a message right after each other, a few topics are enough to share it
+    static final int MAX_TOPICS = 256;
+
+    private final Map<String, DecodedPayload> lastPayloadByTopic = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.@Nullable Entry<String, DecodedPayload> eldest) {
+            return size() > MAX_TOPICS;
+        }
+    };
+
+    /**
+     * A decoded MQTT payload. The UTF-8 string is decoded eagerly, the JSON tree is only parsed if requested.
+     */
+    public static class DecodedPayload {
+        private final byte[] payload;
+        private final String text;
+        private boolean jsonParsed = false;
+        private @Nullable JsonElement json;
+
+        public DecodedPayload(byte[] payload) {
+            this.payload = payload;
+            this.text = new String(payload, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Returns the UTF-8 decoded payload.
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * Returns the parsed JSON tree of the payload or null if the payload is not valid JSON.
+         * The payload is parsed at most once.
+         */
+        public synchronized @Nullable JsonElement getJson() {
+            if (!jsonParsed) {
+                jsonParsed = true;
+                try {
+                    json = JsonParser.parseString(text);
+                } catch (JsonParseException e) {
+                    json = null;
+                }
+            }
+            return json;
+        }
+    }
+
+    /**
+     * Returns the decoded payload for the given topic. The payload is only decoded if it is not the one that
+     * has been decoded last for this topic.
+     *
+     * @param topic The MQTT topic
+     * @param payload The raw payload
+     * @return The decoded payload
+     */
+    public synchronized DecodedPayload decode(String topic, byte[] payload) {
+        DecodedPayload decoded = lastPayloadByTopic.get(topic);
+        if (decoded == null || decoded.payload != payload) {
+            decoded = new DecodedPayload(payload);
+            lastPayloadByTopic.put(topic, decoded);
+        }
+        return decoded;
+    }
+
+    /**
+     * Returns the number of topics with a decoded payload.
+     */
+    synchronized int size() {
+        return lastPayloadByTopic.size();
+    }
+
+    /**
+     * Forget all decoded payloads.
+     */
+    public synchronized void clear() {
+        lastPayloadByTopic.clear();
+    }
+}
@@ -26,6 +26,7 @@ import java.util.Arrays;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -35,6 +36,7 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -322,4 +324,114 @@ public class ChannelStateTests {
         assertThat(value.getChannelState(), is(instanceOf(RawType.class)));
         assertThat(((RawType) value.getChannelState()).getMimeType(), is("image/jpeg"));
     }
+
+    @Test
+    public void receiveOnlyOnChangeTest() {
+        ChannelConfig onlyOnChangeConfig = ChannelConfigBuilder.create("state", "command").withOnlyOnChange(true)
+                .build();
+        ChannelState c = spy(new ChannelState(onlyOnChangeConfig, channelUID, textValue, channelStateUpdateListener));
+        c.start(connection, mock(ScheduledExecutorService.class), 100);
+
+        c.processMessage("state", "A".getBytes());
+        c.processMessage("state", "A".getBytes());
+        c.processMessage("state", "B".getBytes());
+
+        verify(channelStateUpdateListener, times(2)).updateChannelState(eq(channelUID), any());
+        assertThat(c.getSuppressedUpdates(), is(1L));
+    }
+
+    @Test
+    public void receiveDeadbandTest() {
+        NumberValue value = new NumberValue(null, null, null, null);
+        ChannelConfig deadbandConfig = ChannelConfigBuilder.create("state", "command")
+                .withDeadband(new BigDecimal("0.5")).build();
+        ChannelState c = spy(new ChannelState(deadbandConfig, channelUID, value, channelStateUpdateListener));
+        c.start(connection, mock(ScheduledExecutorService.class), 100);
+
+        c.processMessage("state", "20.0".getBytes());
+        c.processMessage("state", "20.2".getBytes());
+        c.processMessage("state", "20.4".getBytes());
+        c.processMessage("state", "20.6".getBytes());
+
+        verify(channelStateUpdateListener, times(2)).updateChannelState(eq(channelUID), any());
+        assertThat(c.getSuppressedUpdates(), is(2L));
+    }
+
+    @Test
+    public void receiveDeadbandWithUnitTest() {
+        NumberValue value = new NumberValue(null, null, null, "°C");
+        ChannelConfig deadbandConfig = ChannelConfigBuilder.create("state", "command")
+                .withDeadband(new BigDecimal("0.5")).build();
+        deadbandConfig.unit = "°C";
+        ChannelState c = spy(new ChannelState(deadbandConfig, channelUID, value, channelStateUpdateListener));
+        c.start(connection, mock(ScheduledExecutorService.class), 100);
+
+        c.processMessage("state", "20.0".getBytes());
+        c.processMessage("state", "20.4".getBytes());
+        c.processMessage("state", "20.6".getBytes());
+
+        verify(channelStateUpdateListener, times(2)).updateChannelState(eq(channelUID), any());
+        assertThat(c.getSuppressedUpdates(), is(1L));
+    }
+
+    @Test
+    public void receiveMinIntervalTest() {
+        ChannelConfig minIntervalConfig = ChannelConfigBuilder.create("state", "command").withMinInterval(60000)
+                .build();
+        ChannelState c = spy(new ChannelState(minIntervalConfig, channelUID, textValue, channelStateUpdateListener));
+        c.start(connection, mock(ScheduledExecutorService.class), 100);
+
+        c.processMessage("state", "A".getBytes());
+        c.processMessage("state", "B".getBytes());
+
+        verify(channelStateUpdateListener, times(1)).updateChannelState(eq(channelUID), any());
+        assertThat(c.getSuppressedUpdates(), is(1L));
+    }
+
+    @Test
+    public void receiveMinIntervalTrailingUpdateTest() {
+        ChannelConfig minIntervalConfig = ChannelConfigBuilder.create("state", "command").withMinInterval(60000)
+                .build();
+        ScheduledExecutorService mockScheduler = mock(ScheduledExecutorService.class);
+        doReturn(mock(ScheduledFuture.class)).when(mockScheduler).schedule(any(Runnable.class), anyLong(), any());
+        ChannelState c = spy(new ChannelState(minIntervalConfig, channelUID, textValue, channelStateUpdateListener));
+        c.start(connection, mockScheduler, 0);
+
+        c.processMessage("state", "A".getBytes());
+        c.processMessage("state", "B".getBytes());
+        c.processMessage("state", "C".getBytes());
+
+        // Only one trailing update for all values within the interval
+        ArgumentCaptor<Runnable> trailingUpdate = ArgumentCaptor.forClass(Runnable.class);
+        verify(mockScheduler, times(1)).schedule(trailingUpdate.capture(), longThat(delay -> delay <= 60000),
+                eq(TimeUnit.MILLISECONDS));
+        verify(channelStateUpdateListener, times(1)).updateChannelState(eq(channelUID), any());
+
+        trailingUpdate.getValue().run();
+
+        verify(channelStateUpdateListener).updateChannelState(channelUID, new StringType("C"));
+        assertThat(c.getSuppressedUpdates(), is(1L));
+    }
+
+    @Test
+    public void trailingUpdateOfUnchangedValueTest() {
+        ChannelConfig minIntervalConfig = ChannelConfigBuilder.create("state", "command").withMinInterval(60000)
+                .withOnlyOnChange(true).build();
+        ScheduledExecutorService mockScheduler = mock(ScheduledExecutorService.class);
+        doReturn(mock(ScheduledFuture.class)).when(mockScheduler).schedule(any(Runnable.class), anyLong(), any());
+        ChannelState c = spy(new ChannelState(minIntervalConfig, channelUID, textValue, channelStateUpdateListener));
+        c.start(connection, mockScheduler, 0);
+
+        c.processMessage("state", "A".getBytes());
+        c.processMessage("state", "B".getBytes());
+        c.processMessage("state", "A".getBytes());
+
+        ArgumentCaptor<Runnable> trailingUpdate = ArgumentCaptor.forClass(Runnable.class);
+        verify(mockScheduler).schedule(trailingUpdate.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        trailingUpdate.getValue().run();
+
+        // The value is back to the propagated one, nothing to update
+        verify(channelStateUpdateListener, times(1)).updateChannelState(eq(channelUID), any());
+        assertThat(c.getSuppressedUpdates(), is(2L));
+    }
 }
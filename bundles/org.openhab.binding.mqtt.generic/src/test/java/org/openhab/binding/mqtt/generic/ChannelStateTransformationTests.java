@@ -30,6 +30,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.openhab.binding.mqtt.generic.internal.handler.GenericMQTTThingHandler;
+import org.openhab.binding.mqtt.generic.tools.TopicPayloadDecoder;
+import org.openhab.binding.mqtt.generic.tools.TopicPayloadDecoder.DecodedPayload;
 import org.openhab.binding.mqtt.handler.AbstractBrokerHandler;
 import org.openhab.core.config.core.Configuration;
 import org.openhab.core.io.transport.mqtt.MqttBrokerConnection;
@@ -120,4 +122,36 @@ public class ChannelStateTransformationTests {
         verify(callback).stateUpdated(eq(textChannelUID), argThat(arg -> "23.2".equals(arg.toString())));
         assertThat(channelConfig.getCache().getChannelState().toString(), is("23.2"));
     }
+
+    @Test
+    public void simpleJSONPathSkipsTransformationService() throws Exception {
+        ChannelStateTransformation transformation = new ChannelStateTransformation("JSONPATH", jsonPathPattern,
+                transformationServiceProvider);
+
+        DecodedPayload payload = new TopicPayloadDecoder().decode("topic", jsonPathJSON.getBytes());
+        assertThat(transformation.processValue(payload), is("23.2"));
+        verify(jsonPathService, never()).transform(anyString(), anyString());
+    }
+
+    @Test
+    public void complexJSONPathUsesTransformationService() throws Exception {
+        final String pattern = "$.device.status[?(@.temperature > 20)]";
+        when(jsonPathService.transform(pattern, jsonPathJSON)).thenReturn("23.2");
+        ChannelStateTransformation transformation = new ChannelStateTransformation("JSONPATH", pattern,
+                transformationServiceProvider);
+
+        DecodedPayload payload = new TopicPayloadDecoder().decode("topic", jsonPathJSON.getBytes());
+        assertThat(transformation.processValue(payload), is("23.2"));
+        verify(jsonPathService).transform(pattern, jsonPathJSON);
+    }
+
+    @Test
+    public void payloadDecodedOncePerTopic() {
+        TopicPayloadDecoder decoder = new TopicPayloadDecoder();
+        byte[] payload = jsonPathJSON.getBytes();
+
+        DecodedPayload first = decoder.decode("topic", payload);
+        assertThat(decoder.decode("topic", payload) == first, is(true));
+        assertThat(decoder.decode("topic", jsonPathJSON.getBytes()) == first, is(false));
+    }
 }
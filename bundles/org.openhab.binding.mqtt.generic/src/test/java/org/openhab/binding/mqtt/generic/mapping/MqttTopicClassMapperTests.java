@@ -27,6 +27,7 @@ import java.math.BigDecimal;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.stream.Stream;
 
 import org.eclipse.jdt.annotation.NonNull;
@@ -104,6 +105,17 @@ public class MqttTopicClassMapperTests {
         }
     }
 
+    @TopicPrefix("$")
+    public static class RoutedAttributes extends AbstractMqttAttributeClass {
+        public @MandatoryField String name = "";
+        public String optional = "";
+
+        @Override
+        public @NonNull Object getFieldsOf() {
+            return this;
+        }
+    }
+
     @Mock
     MqttBrokerConnection connection;
 
@@ -211,4 +223,48 @@ public class MqttTopicClassMapperTests {
 
         assertThat(future.isDone(), is(true));
     }
+
+    @Test
+    public void routedAttributesCompleteWhenMandatoryFieldsArrive() {
+        RoutedAttributes attributes = new RoutedAttributes();
+        AttributeTopicRouter router = new AttributeTopicRouter("homie/device123", "$");
+        router.subscribe(connection);
+        attributes.setTopicRouter(router);
+
+        CompletableFuture<Void> future = attributes.subscribeAndReceive(connection, executor, "homie/device123",
+                fieldChangedObserver, 10000);
+        assertThat(future.isDone(), is(false));
+
+        // The retained value of the mandatory field arrives after the registration, the optional field is
+        // never published
+        router.processMessage("homie/device123/$name", "device".getBytes());
+
+        assertThat(future.isDone(), is(true));
+        assertThat(attributes.name, is("device"));
+
+        // The optional field is still applied when it arrives later on
+        router.processMessage("homie/device123/$optional", "value".getBytes());
+        assertThat(attributes.optional, is("value"));
+    }
+
+    @Test
+    public void routedAttributesCancelTimeoutsOnUnsubscribe() {
+        ScheduledFuture<?> timeout = mock(ScheduledFuture.class);
+        doReturn(timeout).when(executor).schedule(any(Runnable.class), anyLong(), any());
+        RoutedAttributes attributes = new RoutedAttributes();
+        AttributeTopicRouter router = new AttributeTopicRouter("homie/device123", "$");
+        router.subscribe(connection);
+        attributes.setTopicRouter(router);
+
+        CompletableFuture<Void> future = attributes.subscribeAndReceive(connection, executor, "homie/device123",
+                fieldChangedObserver, 10000);
+        attributes.unsubscribe();
+
+        verify(timeout, times(2)).cancel(false);
+        assertThat(future.isCompletedExceptionally(), is(true));
+
+        // Values are no longer routed to the attribute class
+        router.processMessage("homie/device123/$name", "device".getBytes());
+        assertThat(attributes.name, is(""));
+    }
 }
@@ -18,6 +18,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -158,4 +159,26 @@ public class SubscribeFieldToMQTTtopicTests {
         future.get(50, TimeUnit.MILLISECONDS);
         assertThat(attributes.Int, is(10));
     }
+
+    @Test
+    public void ReceiveRetainedValueFromTopicRouter()
+            throws InterruptedException, NoSuchFieldException, ExecutionException, TimeoutException {
+        final Field field = Attributes.class.getField("Int");
+        ScheduledExecutorService scheduler = new ScheduledThreadPoolExecutor(1);
+
+        AttributeTopicRouter router = new AttributeTopicRouter("homie/device123", "$");
+        router.subscribe(connection).get();
+        // Retained values arrive before the field subscriber is registered. Non-attribute topics are ignored.
+        router.processMessage("homie/device123/$Int", "14".getBytes());
+        router.processMessage("homie/device123/node/property", "15".getBytes());
+
+        SubscribeFieldToMQTTtopic subscriber = new SubscribeFieldToMQTTtopic(scheduler, field, fieldChanged,
+                "homie/device123/$Int", true);
+        subscriber.registerAndReceive(router, 1000).get(50, TimeUnit.MILLISECONDS);
+        assertTrue(subscriber.hasReceivedValue());
+
+        // Further values are routed to the registered subscriber
+        router.processMessage("homie/device123/$Int", "16".getBytes());
+        verify(fieldChanged).fieldChanged(field, 16);
+    }
 }
@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.mqtt.generic.tools;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.openhab.binding.mqtt.generic.tools.TopicPayloadDecoder.DecodedPayload;
+
+/**
+ * Tests the {@link TopicPayloadDecoder}.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class TopicPayloadDecoderTests {
+
+    @Test
+    public void samePayloadIsDecodedOnce() {
+        TopicPayloadDecoder decoder = new TopicPayloadDecoder();
+        byte[] payload = "{\"a\":1}".getBytes(StandardCharsets.UTF_8);
+
+        DecodedPayload first = decoder.decode("topic", payload);
+        DecodedPayload second = decoder.decode("topic", payload);
+
+        assertThat(second, is(sameInstance(first)));
+        assertThat(second.getJson(), is(notNullValue()));
+    }
+
+    @Test
+    public void newPayloadIsDecodedAgain() {
+        TopicPayloadDecoder decoder = new TopicPayloadDecoder();
+
+        DecodedPayload first = decoder.decode("topic", "1".getBytes(StandardCharsets.UTF_8));
+        DecodedPayload second = decoder.decode("topic", "1".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(second, is(not(sameInstance(first))));
+        assertThat(second.getText(), is("1"));
+    }
+
+    @Test
+    public void leastRecentlyUsedTopicsAreEvicted() {
+        TopicPayloadDecoder decoder = new TopicPayloadDecoder();
+        byte[] payload = "on".getBytes(StandardCharsets.UTF_8);
+        DecodedPayload kept = decoder.decode("wildcard/0", payload);
+
+        for (int i = 1; i < TopicPayloadDecoder.MAX_TOPICS * 2; i++) {
+            decoder.decode("wildcard/" + i, "off".getBytes(StandardCharsets.UTF_8));
+            // keep using the first topic, so it is never the eldest entry
+            decoder.decode("wildcard/0", payload);
+        }
+
+        assertThat(decoder.size(), is(TopicPayloadDecoder.MAX_TOPICS));
+        assertThat(decoder.decode("wildcard/0", payload), is(sameInstance(kept)));
+    }
+}
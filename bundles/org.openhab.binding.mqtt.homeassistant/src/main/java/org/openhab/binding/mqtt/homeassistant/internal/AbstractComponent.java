@@ -193,6 +193,13 @@ public abstract class AbstractComponent<C extends BaseChannelConfiguration> {
         return configHash;
     }
 
+    /**
+     * @return Returns the HomeAssistant topic ID of this component.
+     */
+    public HaID getHaID() {
+        return haID;
+    }
+
     /**
      * Return the channel group type.
      */
@@ -14,8 +14,10 @@ package org.openhab.binding.mqtt.homeassistant.internal;
 
 import java.lang.ref.WeakReference;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -58,6 +60,8 @@ public class DiscoverComponents implements MqttMessageSubscriber {
     protected @NonNullByDefault({}) ComponentDiscovered discoveredListener;
     private int discoverTime;
     private Set<String> topics = new HashSet<>();
+    // Configuration hashes ({@link String#hashCode()}) of already known components by their config topic
+    private final Map<String, Integer> knownConfigHashes = new ConcurrentHashMap<>();
 
     /**
      * Implement this to get notified of new components
@@ -93,6 +97,15 @@ public class DiscoverComponents implements MqttMessageSubscriber {
         HaID haID = new HaID(topic);
         String config = new String(payload);
 
+        // Retained configurations of known components are replayed on every (re-)subscription.
+        // Skip parsing them, if nothing changed.
+        Integer knownConfigHash = knownConfigHashes.get(topic);
+        if (knownConfigHash != null && knownConfigHash == config.hashCode()) {
+            logger.trace("Configuration of HomeAssistant thing {} component {} unchanged", haID.objectID,
+                    haID.component);
+            return;
+        }
+
         AbstractComponent<?> component = null;
 
         if (config.length() > 0) {
@@ -111,6 +124,17 @@ public class DiscoverComponents implements MqttMessageSubscriber {
         }
     }
 
+    /**
+     * Remember the configuration of an already known component. A discovered configuration on the given topic
+     * is only parsed and reported, if its hash differs from the known one.
+     *
+     * @param configTopic The configuration topic of the component, like "homeassistant/switch/garden/config"
+     * @param configHash The hash code ({@link String#hashCode()}) of the known configuration
+     */
+    public void setKnownConfigHash(String configTopic, int configHash) {
+        knownConfigHashes.put(configTopic, configHash);
+    }
+
     /**
      * Start a components discovery.
      *
@@ -160,6 +160,9 @@ public class HomeAssistantThingHandler extends AbstractMQTTThingHandler
             if (component != null) {
                 haComponents.put(component.uid().getId(), component);
                 component.addChannelTypes(channelTypeProvider);
+                // The component layout is restored from the channel configuration. The retained discovery
+                // message does not need to be parsed again, unless it has changed.
+                discoverComponents.setKnownConfigHash(haID.getTopic("config"), component.getConfigHash());
             } else {
                 logger.warn("Could not restore component {}", thing);
             }
@@ -277,6 +280,8 @@ public class HomeAssistantThingHandler extends AbstractMQTTThingHandler
                     }
                 }
 
+                discoverComponents.setKnownConfigHash(discovered.getHaID().getTopic("config"),
+                        discovered.getConfigHash());
                 // Add channel and group types to the types registry
                 discovered.addChannelTypes(channelTypeProvider);
                 // Add component to the component map
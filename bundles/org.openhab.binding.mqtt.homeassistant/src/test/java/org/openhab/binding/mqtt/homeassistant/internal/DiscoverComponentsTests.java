@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.mqtt.homeassistant.internal;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.binding.mqtt.generic.AvailabilityTracker;
+import org.openhab.binding.mqtt.generic.ChannelStateUpdateListener;
+import org.openhab.binding.mqtt.generic.TransformationServiceProvider;
+import org.openhab.binding.mqtt.homeassistant.internal.DiscoverComponents.ComponentDiscovered;
+import org.openhab.core.thing.ThingUID;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Tests that {@link DiscoverComponents} skips retained configurations of known components that did not change.
+ *
+ * @author agent - Initial contribution
+ */
+public class DiscoverComponentsTests {
+    private static final String TOPIC = "homeassistant/switch/garden/config";
+    private static final String CONFIG = "{\"name\":\"garden\",\"state_topic\":\"zigbee/garden/state\","
+            + "\"command_topic\":\"zigbee/garden/set\"}";
+
+    private final Gson gson = new GsonBuilder().registerTypeAdapterFactory(new ChannelConfigurationTypeAdapterFactory())
+            .create();
+    private ComponentDiscovered listener;
+    private DiscoverComponents discover;
+
+    @BeforeEach
+    public void setUp() {
+        listener = mock(ComponentDiscovered.class);
+        discover = new DiscoverComponents(new ThingUID("mqtt:homeassistant:broker:garden"),
+                mock(ScheduledExecutorService.class), mock(ChannelStateUpdateListener.class),
+                mock(AvailabilityTracker.class), gson, mock(TransformationServiceProvider.class));
+        discover.discoveredListener = listener;
+    }
+
+    @Test
+    public void unknownConfigurationIsReported() {
+        discover.processMessage(TOPIC, CONFIG.getBytes(StandardCharsets.UTF_8));
+
+        verify(listener).componentDiscovered(eq(new HaID(TOPIC)), any());
+    }
+
+    @Test
+    public void unchangedConfigurationIsSkipped() {
+        discover.setKnownConfigHash(TOPIC, CONFIG.hashCode());
+
+        discover.processMessage(TOPIC, CONFIG.getBytes(StandardCharsets.UTF_8));
+
+        verify(listener, never()).componentDiscovered(any(), any());
+    }
+
+    @Test
+    public void changedConfigurationIsReported() {
+        discover.setKnownConfigHash(TOPIC, CONFIG.hashCode());
+
+        String changed = CONFIG.replace("\"garden\"", "\"garden light\"");
+        discover.processMessage(TOPIC, changed.getBytes(StandardCharsets.UTF_8));
+
+        verify(listener).componentDiscovered(eq(new HaID(TOPIC)), any());
+    }
+
+    @Test
+    public void knownHashOnlyAppliesToItsTopic() {
+        discover.setKnownConfigHash(TOPIC, CONFIG.hashCode());
+
+        String otherTopic = "homeassistant/switch/pond/config";
+        discover.processMessage(otherTopic, CONFIG.getBytes(StandardCharsets.UTF_8));
+
+        verify(listener).componentDiscovered(eq(new HaID(otherTopic)), any());
+    }
+}
@@ -33,6 +33,7 @@ public class MqttBindingConstants {
 
     public static final String HOMIE_PROPERTY_VERSION = "homieversion";
     public static final String HOMIE_PROPERTY_HEARTBEAT_INTERVAL = "heartbeat_interval";
+    public static final String HOMIE_PROPERTY_DISCOVERY_DURATION = "discovery_duration";
 
     public static final int HOMIE_DEVICE_TIMEOUT_MS = 30000;
     public static final int HOMIE_SUBSCRIBE_TIMEOUT_MS = 500;
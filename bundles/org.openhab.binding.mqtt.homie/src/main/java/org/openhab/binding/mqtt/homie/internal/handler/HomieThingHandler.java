@@ -104,6 +104,7 @@ public class HomieThingHandler extends AbstractMQTTThingHandler implements Devic
             updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR, "Object ID unknown");
             return;
         }
+        device.setWildcardSubscription(config.wildcardsubscription);
         device.initialize(config.basetopic, config.deviceid, thing.getChannels());
         super.initialize();
     }
@@ -130,6 +131,8 @@ public class HomieThingHandler extends AbstractMQTTThingHandler implements Devic
             return device.startChannels(connection, scheduler, attributeReceiveTimeout, this);
         }).thenRun(() -> {
             logger.debug("Homie device {} fully attached (start)", device.attributes.name);
+            updateProperty(MqttBindingConstants.HOMIE_PROPERTY_DISCOVERY_DURATION,
+                    device.getDiscoveryDuration() + " ms");
         });
     }
 
@@ -23,6 +23,7 @@ import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.binding.mqtt.generic.ChannelConfig;
 import org.openhab.binding.mqtt.generic.mapping.AbstractMqttAttributeClass;
+import org.openhab.binding.mqtt.generic.mapping.AttributeTopicRouter;
 import org.openhab.binding.mqtt.generic.tools.ChildMap;
 import org.openhab.binding.mqtt.homie.internal.handler.HomieThingHandler;
 import org.openhab.core.io.transport.mqtt.MqttBrokerConnection;
@@ -64,6 +65,10 @@ public class Device implements AbstractMqttAttributeClass.AttributeChanged {
     private String topic = "";
     public String deviceID = "";
     private boolean initialized = false;
+    // Subscribe once to "basetopic/deviceid/#" instead of to each attribute topic
+    private boolean wildcardSubscription = false;
+    private @Nullable AttributeTopicRouter topicRouter;
+    private long discoveryDuration = -1;
 
     /**
      * Creates a Homie Device structure. It consists of device attributes, device statistics and nodes.
@@ -113,15 +118,42 @@ public class Device implements AbstractMqttAttributeClass.AttributeChanged {
             throw new IllegalStateException("You must call initialize()!");
         }
 
-        return attributes.subscribeAndReceive(connection, scheduler, topic, this, timeout)
+        final long startTime = System.currentTimeMillis();
+        final AttributeTopicRouter topicRouter = this.topicRouter;
+        final CompletableFuture<Boolean> routerFuture = topicRouter != null ? topicRouter.subscribe(connection)
+                : CompletableFuture.completedFuture(true);
+
+        return routerFuture
+                .thenCompose(b -> attributes.subscribeAndReceive(connection, scheduler, topic, this, timeout))
                 // On success, create all nodes and tell the handler about the ready state
                 .thenCompose(b -> attributesReceived(connection, scheduler, timeout))
                 // No matter if values have been received or not -> the subscriptions have been performed
                 .whenComplete((r, e) -> {
                     initialized = true;
+                    discoveryDuration = System.currentTimeMillis() - startTime;
+                    logger.debug("Homie device {} discovered in {} ms", deviceID, discoveryDuration);
                 });
     }
 
+    /**
+     * Enables or disables the wildcard subscription mode. In this mode the device subscribes once to all topics
+     * below the device topic, instead of subscribing to each device, node and property attribute topic
+     * separately. Must be set before {@link #initialize(String, String, List)} is called.
+     *
+     * @param wildcardSubscription True to enable the wildcard subscription mode
+     */
+    public void setWildcardSubscription(boolean wildcardSubscription) {
+        this.wildcardSubscription = wildcardSubscription;
+    }
+
+    /**
+     * @return Returns the time in milliseconds it took to subscribe to and receive the device tree
+     *         or -1 if {@link #subscribe(MqttBrokerConnection, ScheduledExecutorService, int)} has not completed yet.
+     */
+    public long getDiscoveryDuration() {
+        return discoveryDuration;
+    }
+
     public CompletableFuture<@Nullable Void> attributesReceived(MqttBrokerConnection connection,
             ScheduledExecutorService scheduler, int timeout) {
         callback.readyStateChanged(attributes.state);
@@ -174,8 +206,13 @@ public class Device implements AbstractMqttAttributeClass.AttributeChanged {
      * Unsubscribe from everything.
      */
     public CompletableFuture<@Nullable Void> stop() {
-        return attributes.unsubscribe().thenCompose(
+        final AttributeTopicRouter topicRouter = this.topicRouter;
+        final CompletableFuture<@Nullable Void> future = attributes.unsubscribe().thenCompose(
                 b -> CompletableFuture.allOf(nodes.stream().map(Node::stop).toArray(CompletableFuture[]::new)));
+        if (topicRouter != null) {
+            return future.thenCompose(b -> CompletableFuture.allOf(topicRouter.unsubscribe()));
+        }
+        return future;
     }
 
     /**
@@ -201,6 +238,9 @@ public class Device implements AbstractMqttAttributeClass.AttributeChanged {
     public void initialize(String baseTopic, String deviceID, List<Channel> channels) {
         this.topic = baseTopic + "/" + deviceID;
         this.deviceID = deviceID;
+        final AttributeTopicRouter topicRouter = wildcardSubscription ? new AttributeTopicRouter(topic, "$") : null;
+        this.topicRouter = topicRouter;
+        attributes.setTopicRouter(topicRouter);
         nodes.clear();
         for (Channel channel : channels) {
             final ChannelConfig channelConfig = channel.getConfiguration().as(ChannelConfig.class);
@@ -240,7 +280,7 @@ public class Device implements AbstractMqttAttributeClass.AttributeChanged {
      * @return A child node
      */
     public Node createNode(String nodeID) {
-        return new Node(topic, nodeID, thingUID, callback, new NodeAttributes());
+        return createNode(nodeID, new NodeAttributes());
     }
 
     /**
@@ -251,7 +291,9 @@ public class Device implements AbstractMqttAttributeClass.AttributeChanged {
      * @return A child node
      */
     public Node createNode(String nodeID, NodeAttributes attributes) {
-        return new Node(topic, nodeID, thingUID, callback, attributes);
+        Node node = new Node(topic, nodeID, thingUID, callback, attributes);
+        node.setTopicRouter(topicRouter);
+        return node;
     }
 
     /**
@@ -22,6 +22,7 @@ import java.util.stream.Stream;
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.binding.mqtt.generic.mapping.AbstractMqttAttributeClass;
+import org.openhab.binding.mqtt.generic.mapping.AttributeTopicRouter;
 import org.openhab.binding.mqtt.generic.tools.ChildMap;
 import org.openhab.binding.mqtt.homie.generic.internal.MqttBindingConstants;
 import org.openhab.core.io.transport.mqtt.MqttBrokerConnection;
@@ -57,6 +58,7 @@ public class Node implements AbstractMqttAttributeClass.AttributeChanged {
     public final ChannelGroupTypeUID channelGroupTypeUID;
     private final String topic;
     private boolean initialized = false;
+    private @Nullable AttributeTopicRouter topicRouter;
 
     /**
      * Creates a Homie Node.
@@ -98,6 +100,16 @@ public class Node implements AbstractMqttAttributeClass.AttributeChanged {
         return applyProperties(connection, scheduler, timeout);
     }
 
+    /**
+     * Use the given topic router for the attributes of this node and all its properties.
+     *
+     * @param topicRouter A topic router of the device or null to subscribe to each attribute topic
+     */
+    public void setTopicRouter(@Nullable AttributeTopicRouter topicRouter) {
+        this.topicRouter = topicRouter;
+        attributes.setTopicRouter(topicRouter);
+    }
+
     public void nodeRestoredFromConfig() {
         initialized = true;
     }
@@ -138,7 +150,7 @@ public class Node implements AbstractMqttAttributeClass.AttributeChanged {
      * @return A Homie Property
      */
     public Property createProperty(String propertyID) {
-        return new Property(topic, this, propertyID, callback, new PropertyAttributes());
+        return createProperty(propertyID, new PropertyAttributes());
     }
 
     /**
@@ -149,6 +161,7 @@ public class Node implements AbstractMqttAttributeClass.AttributeChanged {
      * @return A Homie Property
      */
     public Property createProperty(String propertyID, PropertyAttributes attributes) {
+        attributes.setTopicRouter(topicRouter);
         return new Property(topic, this, propertyID, callback, attributes);
     }
 
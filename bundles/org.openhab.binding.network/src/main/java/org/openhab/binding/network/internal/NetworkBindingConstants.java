@@ -60,6 +60,8 @@ public class NetworkBindingConstants {
     public static final String PROPERTY_ICMP_STATE = "icmp_state";
     public static final String PROPERTY_PRESENCE_DETECTION_TYPE = "presence_detection_type";
     public static final String PROPERTY_IOS_WAKEUP = "uses_ios_wakeup";
+    public static final String PROPERTY_PROBE_STATISTICS = "probe_statistics";
+    public static final String PROPERTY_DISCOVERY_SWEEP = "discovery_sweep";
 
     public static final Set<ThingTypeUID> SUPPORTED_THING_TYPES_UIDS = new HashSet<>();
 
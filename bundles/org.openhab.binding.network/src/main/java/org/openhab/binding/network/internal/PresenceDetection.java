@@ -17,14 +17,21 @@ import java.net.Inet4Address;
 import java.net.InetAddress;
 import java.net.SocketException;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -45,6 +52,7 @@ import org.slf4j.LoggerFactory;
  * @author Marc Mettke - Initial contribution
  * @author David Gräff, 2017 - Rewritten
  * @author Jan N. Klug - refactored host name resolution
+ * @author agent - Checks on the shared presence engine
  */
 @NonNullByDefault
 public class PresenceDetection implements IPRequestReceivedCallback {
@@ -78,15 +86,30 @@ public class PresenceDetection implements IPRequestReceivedCallback {
     /// State variables (cannot be final because of test dependency injections)
     ExpiringCacheAsync<PresenceDetectionValue> cache;
     private final PresenceDetectionListener updateListener;
+    private final PresenceEngine engine;
     private @Nullable ScheduledFuture<?> refreshJob;
-    protected @Nullable ExecutorService executorService;
+    @Nullable
+    CompletableFuture<Void> detection;
+    private @Nullable ScheduledFuture<?> detectionTimeoutJob;
+    private List<CompletableFuture<Void>> checks = List.of();
+    private long detectionId;
+    private long detectionStartInMS;
     private String dhcpState = "off";
-    Integer currentCheck = 0;
     int detectionChecks;
 
-    public PresenceDetection(final PresenceDetectionListener updateListener, int cacheDeviceStateTimeInMS)
-            throws IllegalArgumentException {
+    private static class ProbeStatistics {
+        private long probes;
+        private long successes;
+        private double latencySum;
+    }
+
+    private final Map<PresenceDetectionType, ProbeStatistics> probeStatistics = new EnumMap<>(
+            PresenceDetectionType.class);
+
+    public PresenceDetection(final PresenceDetectionListener updateListener, int cacheDeviceStateTimeInMS,
+            PresenceEngine engine) throws IllegalArgumentException {
         this.updateListener = updateListener;
+        this.engine = engine;
         cache = new ExpiringCacheAsync<>(cacheDeviceStateTimeInMS, () -> {
             performPresenceDetection(false);
         });
@@ -279,14 +302,32 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         cache.getValue(callback);
     }
 
-    public ExecutorService getThreadsFor(int threadCount) {
-        return Executors.newFixedThreadPool(threadCount);
+    /**
+     * Return the number of probes, the number of successful probes and the average latency of the successful probes
+     * for each detection method that has been used.
+     */
+    public synchronized String getProbeStatistics() {
+        return probeStatistics.entrySet().stream().map(e -> {
+            ProbeStatistics statistics = e.getValue();
+            double averageLatency = statistics.successes > 0 ? statistics.latencySum / statistics.successes : 0;
+            return String.format(Locale.ROOT, "%s: %d probes, %d successful, %.1f ms", e.getKey(),
+                    statistics.probes, statistics.successes, averageLatency);
+        }).collect(Collectors.joining("; "));
+    }
+
+    private synchronized void recordProbe(PresenceDetectionType type, PingResult pingResult) {
+        ProbeStatistics statistics = probeStatistics.computeIfAbsent(type, t -> new ProbeStatistics());
+        statistics.probes++;
+        if (pingResult.isSuccess()) {
+            statistics.successes++;
+            statistics.latencySum += getLatency(pingResult, preferResponseTimeAsLatency);
+        }
     }
 
     /**
      * Perform a presence detection with ICMP-, ARP ping and
-     * TCP connection attempts simultaneously. A fixed thread pool will be created with as many
-     * thread as necessary to perform all tests at once.
+     * TCP connection attempts simultaneously. TCP connection attempts are non-blocking and handled by the
+     * {@link PresenceEngine}, all other checks are executed on the bounded thread pool of the engine.
      *
      * This is a NO-OP, if there is already an ongoing detection or if the cached value
      * is not expired yet.
@@ -300,75 +341,71 @@ public class PresenceDetection implements IPRequestReceivedCallback {
      * @return Return true if a presence detection is performed and false otherwise.
      */
     public boolean performPresenceDetection(boolean waitForDetectionToFinish) {
-        if (executorService != null) {
-            logger.debug(
-                    "There is already an ongoing presence discovery for {} and a new one was issued by the scheduler! TCP Port {}",
-                    hostname, tcpPorts);
-            return false;
-        }
+        final CompletableFuture<Void> detection;
+        synchronized (this) {
+            if (this.detection != null) {
+                logger.debug(
+                        "There is already an ongoing presence discovery for {} and a new one was issued by the scheduler! TCP Port {}",
+                        hostname, tcpPorts);
+                return false;
+            }
 
-        if (!cache.isExpired()) {
-            return false;
-        }
+            if (!cache.isExpired()) {
+                return false;
+            }
 
-        Set<String> interfaceNames = null;
+            Set<String> interfaceNames = null;
 
-        currentCheck = 0;
-        detectionChecks = tcpPorts.size();
-        if (pingMethod != null) {
-            detectionChecks += 1;
-        }
-        if (arpPingMethod != ArpPingUtilEnum.UNKNOWN_TOOL) {
-            interfaceNames = networkUtils.getInterfaceNames();
-            detectionChecks += interfaceNames.size();
-        }
+            detectionChecks = tcpPorts.size();
+            if (pingMethod != null) {
+                detectionChecks += 1;
+            }
+            if (arpPingMethod != ArpPingUtilEnum.UNKNOWN_TOOL) {
+                interfaceNames = networkUtils.getInterfaceNames();
+                detectionChecks += interfaceNames.size();
+            }
 
-        if (detectionChecks == 0) {
-            return false;
-        }
+            if (detectionChecks == 0) {
+                return false;
+            }
 
-        final ExecutorService executorService = getThreadsFor(detectionChecks);
-        this.executorService = executorService;
+            detectionStartInMS = System.currentTimeMillis();
+            final long id = ++detectionId;
+            List<CompletableFuture<Void>> checks = new ArrayList<>(detectionChecks);
 
-        for (Integer tcpPort : tcpPorts) {
-            executorService.execute(() -> {
-                Thread.currentThread().setName("presenceDetectionTCP_" + hostname + " " + String.valueOf(tcpPort));
-                performServicePing(tcpPort);
-                checkIfFinished();
-            });
-        }
+            for (Integer tcpPort : tcpPorts) {
+                checks.add(performServicePing(tcpPort));
+            }
 
-        // ARP ping for IPv4 addresses. Use single executor for Windows tool and
-        // each own executor for each network interface for other tools
-        if (arpPingMethod == ArpPingUtilEnum.ELI_FULKERSON_ARP_PING_FOR_WINDOWS) {
-            executorService.execute(() -> {
-                Thread.currentThread().setName("presenceDetectionARP_" + hostname + " ");
+            // ARP ping for IPv4 addresses. Use a single check for Windows tool and
+            // one check for each network interface for other tools
+            if (arpPingMethod == ArpPingUtilEnum.ELI_FULKERSON_ARP_PING_FOR_WINDOWS) {
                 // arp-ping.exe tool capable of handling multiple interfaces by itself
-                performARPping("");
-                checkIfFinished();
-            });
-        } else if (interfaceNames != null) {
-            for (final String interfaceName : interfaceNames) {
-                executorService.execute(() -> {
-                    Thread.currentThread().setName("presenceDetectionARP_" + hostname + " " + interfaceName);
-                    performARPping(interfaceName);
-                    checkIfFinished();
-                });
+                checks.add(executeCheck(id, () -> performARPping("")));
+            } else if (interfaceNames != null) {
+                for (final String interfaceName : interfaceNames) {
+                    checks.add(executeCheck(id, () -> performARPping(interfaceName)));
+                }
             }
-        }
 
-        // ICMP ping
-        if (pingMethod != null) {
-            executorService.execute(() -> {
-                if (pingMethod != IpPingMethodEnum.JAVA_PING) {
-                    Thread.currentThread().setName("presenceDetectionICMP_" + hostname);
-                    performSystemPing();
-                } else {
-                    performJavaPing();
-                }
-                checkIfFinished();
-            });
+            // ICMP ping
+            if (pingMethod != null) {
+                checks.add(executeCheck(id, () -> {
+                    if (pingMethod != IpPingMethodEnum.JAVA_PING) {
+                        performSystemPing();
+                    } else {
+                        performJavaPing();
+                    }
+                }));
+            }
+
+            this.checks = checks;
+            detection = CompletableFuture.allOf(checks.toArray(new CompletableFuture<?>[checks.size()]));
+            this.detection = detection;
+            detectionTimeoutJob = engine.getScheduler().schedule(() -> submitFinalResult(detection),
+                    getDetectionTimeout(), TimeUnit.MILLISECONDS);
         }
+        detection.whenComplete((result, e) -> submitFinalResult(detection));
 
         if (waitForDetectionToFinish) {
             waitForPresenceDetection();
@@ -377,28 +414,50 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         return true;
     }
 
+    /**
+     * Run a check on the thread pool of the {@link PresenceEngine}. The check is skipped if the detection has
+     * finished before a thread was available.
+     */
+    private CompletableFuture<Void> executeCheck(long id, Runnable check) {
+        return engine.execute(() -> {
+            if (isCurrentDetection(id)) {
+                check.run();
+            }
+        });
+    }
+
+    private synchronized boolean isCurrentDetection(long id) {
+        return detectionId == id;
+    }
+
+    /**
+     * The maximum duration of a presence detection. It leaves room for checks that have to wait for a thread
+     * of the {@link PresenceEngine}.
+     */
+    private long getDetectionTimeout() {
+        return 2L * timeoutInMS + 100;
+    }
+
     /**
      * Calls updateListener.finalDetectionResult() with a final result value.
      * Safe to be called from different threads. After a call to this method,
-     * the presence detection process is finished and all threads are forcefully
-     * shut down.
+     * the presence detection process is finished. Checks that are still running are not waited for.
+     *
+     * @param detection the detection to finish. Nothing is done if it is not the ongoing detection.
      */
-    private synchronized void submitFinalResult() {
-        // Do nothing if we are not in a detection process
-        ExecutorService service = executorService;
-        if (service == null) {
+    private synchronized void submitFinalResult(CompletableFuture<Void> detection) {
+        // Do nothing if we are not in this detection process
+        if (this.detection != detection) {
             return;
         }
         // Finish the detection process
-        service.shutdownNow();
-        executorService = null;
-        detectionChecks = 0;
+        finishDetection();
 
         PresenceDetectionValue v;
 
-        // The cache will be expired by now if cache_time < timeoutInMS. But the device might be actually reachable.
-        // Therefore use lastSeenInMS here and not cache.isExpired() to determine if we got a ping response.
-        if (lastSeenInMS + timeoutInMS + 100 < System.currentTimeMillis()) {
+        // The cache will be expired by now if cache_time < detection time. But the device might be actually
+        // reachable. Therefore use lastSeenInMS here and not cache.isExpired() to determine if we got a ping response.
+        if (lastSeenInMS < detectionStartInMS) {
             // We haven't seen the device in the detection process
             v = new PresenceDetectionValue(hostname, -1);
         } else {
@@ -414,37 +473,43 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         updateListener.finalDetectionResult(v);
     }
 
-    /**
-     * This method is called after each individual check and increases a check counter.
-     * If the counter equals the total checks,the final result is submitted. This will
-     * happen way before the "timeoutInMS", if all checks were successful.
-     * Thread safe.
-     */
-    private synchronized void checkIfFinished() {
-        currentCheck += 1;
-        if (currentCheck < detectionChecks) {
-            return;
+    private synchronized void finishDetection() {
+        detection = null;
+        detectionChecks = 0;
+        // Checks still waiting for a thread or a connection belong to no detection anymore
+        detectionId++;
+        checks.forEach(check -> check.cancel(false));
+        checks = List.of();
+        ScheduledFuture<?> timeoutJob = detectionTimeoutJob;
+        if (timeoutJob != null) {
+            timeoutJob.cancel(false);
+            detectionTimeoutJob = null;
         }
-        submitFinalResult();
     }
 
     /**
-     * Waits for the presence detection threads to finish. Returns immediately
+     * Waits for the presence detection to finish. Returns immediately
      * if no presence detection is performed right now.
      */
     public void waitForPresenceDetection() {
-        ExecutorService service = executorService;
-        if (service == null) {
+        CompletableFuture<Void> detection = this.detection;
+        if (detection == null) {
             return;
         }
         try {
             // We may get interrupted here by cancelRefreshJob().
-            service.awaitTermination(timeoutInMS + 100, TimeUnit.MILLISECONDS);
-            submitFinalResult();
+            detection.get(getDetectionTimeout(), TimeUnit.MILLISECONDS);
+            submitFinalResult(detection);
+        } catch (ExecutionException | TimeoutException e) {
+            // Every check handles its own errors, a final result is submitted nevertheless
+            submitFinalResult(detection);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt(); // Reset interrupt flag
-            service.shutdownNow();
-            executorService = null;
+            synchronized (this) {
+                if (this.detection == detection) {
+                    finishDetection();
+                }
+            }
         }
     }
 
@@ -473,24 +538,29 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         return v;
     }
 
-    protected void performServicePing(int tcpPort) {
+    protected CompletableFuture<Void> performServicePing(int tcpPort) {
         logger.trace("Perform TCP presence detection for {} on port: {}", hostname, tcpPort);
-        try {
-            InetAddress destinationAddress = destination.getValue();
-            if (destinationAddress != null) {
-                networkUtils.servicePing(destinationAddress.getHostAddress(), tcpPort, timeoutInMS).ifPresent(o -> {
-                    if (o.isSuccess()) {
-                        PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.TCP_CONNECTION,
-                                getLatency(o, preferResponseTimeAsLatency));
-                        v.addReachableTcpService(tcpPort);
-                        updateListener.partialDetectionResult(v);
-                    }
-                });
+        InetAddress destinationAddress = destination.getValue();
+        if (destinationAddress == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        final long id = detectionId;
+        return engine.servicePing(destinationAddress, tcpPort, timeoutInMS).thenAccept(o -> {
+            if (!isCurrentDetection(id)) {
+                return;
             }
-        } catch (IOException e) {
+            recordProbe(PresenceDetectionType.TCP_CONNECTION, o);
+            if (o.isSuccess()) {
+                PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.TCP_CONNECTION,
+                        getLatency(o, preferResponseTimeAsLatency));
+                v.addReachableTcpService(tcpPort);
+                updateListener.partialDetectionResult(v);
+            }
+        }).exceptionally(e -> {
             // This should not happen and might be a user configuration issue, we log a warning message therefore.
             logger.warn("Could not create a socket connection", e);
-        }
+            return null;
+        });
     }
 
     /**
@@ -515,6 +585,7 @@ public class PresenceDetection implements IPRequestReceivedCallback {
 
             networkUtils.nativeARPPing(arpPingMethod, arpPingUtilPath, interfaceName,
                     destinationAddress.getHostAddress(), timeoutInMS).ifPresent(o -> {
+                        recordProbe(PresenceDetectionType.ARP_PING, o);
                         if (o.isSuccess()) {
                             PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.ARP_PING,
                                     getLatency(o, preferResponseTimeAsLatency));
@@ -543,6 +614,7 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         }
 
         networkUtils.javaPing(timeoutInMS, destinationAddress).ifPresent(o -> {
+            recordProbe(PresenceDetectionType.ICMP_PING, o);
             if (o.isSuccess()) {
                 PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.ICMP_PING,
                         getLatency(o, preferResponseTimeAsLatency));
@@ -560,6 +632,7 @@ public class PresenceDetection implements IPRequestReceivedCallback {
             }
 
             networkUtils.nativePing(pingMethod, destinationAddress.getHostAddress(), timeoutInMS).ifPresent(o -> {
+                recordProbe(PresenceDetectionType.ICMP_PING, o);
                 if (o.isSuccess()) {
                     PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.ICMP_PING,
                             getLatency(o, preferResponseTimeAsLatency));
@@ -594,6 +667,7 @@ public class PresenceDetection implements IPRequestReceivedCallback {
 
     /**
      * Start/Restart a fixed scheduled runner to update the devices reach-ability state.
+     * The runner does not wait for the presence detection to finish.
      *
      * @param scheduledExecutorService A scheduler to run pings periodically.
      */
@@ -602,7 +676,7 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         if (future != null && !future.isDone()) {
             future.cancel(true);
         }
-        refreshJob = scheduledExecutorService.scheduleWithFixedDelay(() -> performPresenceDetection(true), 0,
+        refreshJob = scheduledExecutorService.scheduleWithFixedDelay(() -> performPresenceDetection(false), 0,
                 refreshIntervalInMS, TimeUnit.MILLISECONDS);
     }
 
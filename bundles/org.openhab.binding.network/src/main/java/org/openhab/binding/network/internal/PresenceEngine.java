@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.network.internal;
+
+import java.net.InetAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.binding.network.internal.utils.PingResult;
+import org.openhab.binding.network.internal.utils.ServicePingSelector;
+import org.openhab.core.common.NamedThreadFactory;
+
+/**
+ * The {@link PresenceEngine} is shared by all presence detections of the binding.
+ *
+ * Service pings (TCP connection attempts) are performed with non-blocking sockets by a single selector thread.
+ * Checks that need a thread, like native ICMP and ARP pings that run an external process, are executed on one
+ * bounded thread pool. The automatic refresh of all presence detections is scheduled on the same pool.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class PresenceEngine {
+    /**
+     * Maximum number of concurrently running checks that need a thread
+     */
+    public static final int MAX_THREADS = 16;
+    private static final long THREAD_KEEP_ALIVE_SECONDS = 60;
+
+    private final ScheduledExecutorService scheduler;
+    private final ServicePingSelector servicePingSelector;
+
+    public PresenceEngine(String name) {
+        this(createScheduler(name), new ServicePingSelector("OH-binding-network-" + name + "-tcp"));
+    }
+
+    PresenceEngine(ScheduledExecutorService scheduler, ServicePingSelector servicePingSelector) {
+        this.scheduler = scheduler;
+        this.servicePingSelector = servicePingSelector;
+    }
+
+    private static ScheduledExecutorService createScheduler(String name) {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(MAX_THREADS,
+                new NamedThreadFactory("network-" + name));
+        scheduler.setKeepAliveTime(THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+        scheduler.allowCoreThreadTimeOut(true);
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * The scheduler for periodic presence detections. Tasks on this scheduler must not block for long.
+     */
+    public ScheduledExecutorService getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Run a check that blocks a thread, like a native ping.
+     *
+     * @param check the check
+     * @return a future that completes when the check has run
+     */
+    public CompletableFuture<Void> execute(Runnable check) {
+        return CompletableFuture.runAsync(check, scheduler);
+    }
+
+    /**
+     * Try to establish a tcp connection to the given port, without blocking a thread.
+     *
+     * @param address The address of the host
+     * @param port The tcp port
+     * @param timeoutInMS Timeout in ms
+     * @return A future with the ping result
+     */
+    public CompletableFuture<PingResult> servicePing(InetAddress address, int port, int timeoutInMS) {
+        return servicePingSelector.servicePing(address, port, timeoutInMS);
+    }
+
+    /**
+     * Stop all threads of the engine.
+     */
+    public void dispose() {
+        servicePingSelector.close();
+        scheduler.shutdownNow();
+    }
+}
@@ -13,7 +13,10 @@
 package org.openhab.binding.network.internal.dhcp;
 
 import java.net.SocketException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -28,6 +31,8 @@ import org.slf4j.LoggerFactory;
  * after the receive socket is closed.
  * IPRequestReceivedCallback will be called for the address that is registered and matches the
  * DHO_DHCP_REQUESTED_ADDRESS address field.
+ * The addresses of all DHCP requests are remembered for a while, so that the discovery can learn about present
+ * hosts without probing them.
  *
  * @author David Graeff - Initial contribution
  */
@@ -36,6 +41,15 @@ public class DHCPListenService {
     static @Nullable DHCPPacketListenerServer instance;
     static Map<String, IPRequestReceivedCallback> registeredListeners = new TreeMap<>();
     static Logger logger = LoggerFactory.getLogger(DHCPListenService.class);
+    static final int MAX_REMEMBERED_REQUESTS = 1024;
+    static final Map<String, Long> recentRequests = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_REMEMBERED_REQUESTS;
+        }
+    };
 
     @SuppressWarnings({ "null", "unused" })
     public static synchronized DHCPPacketListenerServer register(String hostAddress,
@@ -43,6 +57,9 @@ public class DHCPListenService {
         DHCPPacketListenerServer instance = DHCPListenService.instance;
         if (instance == null) {
             instance = new DHCPPacketListenerServer((String ipAddress) -> {
+                synchronized (recentRequests) {
+                    recentRequests.put(ipAddress, System.currentTimeMillis());
+                }
                 IPRequestReceivedCallback listener = registeredListeners.get(ipAddress);
                 if (listener != null) {
                     listener.dhcpRequestReceived(ipAddress);
@@ -73,4 +90,24 @@ public class DHCPListenService {
         }
         DHCPListenService.instance = null;
     }
+
+    /**
+     * Return the addresses of the DHCP requests that have been received recently. This is only known while the
+     * listener is running, i.e. while at least one thing uses DHCP sniffing.
+     *
+     * @param maxAgeInMS The maximum age of a request in milliseconds
+     * @return The requested IP addresses
+     */
+    public static Set<String> getRecentRequests(long maxAgeInMS) {
+        long oldest = System.currentTimeMillis() - maxAgeInMS;
+        Set<String> result = new HashSet<>();
+        synchronized (recentRequests) {
+            recentRequests.forEach((address, time) -> {
+                if (time >= oldest) {
+                    result.add(address);
+                }
+            });
+        }
+        return result;
+    }
 }
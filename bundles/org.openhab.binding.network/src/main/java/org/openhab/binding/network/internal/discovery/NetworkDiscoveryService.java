@@ -16,25 +16,22 @@ import static org.openhab.binding.network.internal.NetworkBindingConstants.*;
 
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.binding.network.internal.NetworkBindingConfiguration;
-import org.openhab.binding.network.internal.PresenceDetection;
-import org.openhab.binding.network.internal.PresenceDetectionListener;
-import org.openhab.binding.network.internal.PresenceDetectionValue;
+import org.openhab.binding.network.internal.PresenceEngine;
+import org.openhab.binding.network.internal.utils.ArpTableParser;
 import org.openhab.binding.network.internal.utils.NetworkUtils;
 import org.openhab.core.config.core.Configuration;
 import org.openhab.core.config.discovery.AbstractDiscoveryService;
+import org.openhab.core.config.discovery.DiscoveryResult;
 import org.openhab.core.config.discovery.DiscoveryResultBuilder;
 import org.openhab.core.config.discovery.DiscoveryService;
 import org.openhab.core.thing.ThingUID;
@@ -48,14 +45,15 @@ import org.slf4j.LoggerFactory;
 /**
  * The {@link NetworkDiscoveryService} is responsible for discovering devices on
  * the current Network. It uses every Network Interface which is connected to a network.
- * It tries common TCP ports to connect to, ICMP pings and ARP pings.
+ * It tries common TCP ports to connect to and looks up the ARP table, recent DHCP requests or
+ * uses ICMP pings, see {@link NetworkSweep}.
  *
  * @author Marc Mettke - Initial contribution
  * @author David Graeff - Rewritten
  */
 @NonNullByDefault
 @Component(service = DiscoveryService.class, configurationPid = "discovery.network")
-public class NetworkDiscoveryService extends AbstractDiscoveryService implements PresenceDetectionListener {
+public class NetworkDiscoveryService extends AbstractDiscoveryService {
     static final int PING_TIMEOUT_IN_MS = 500;
     static final int MAXIMUM_IPS_PER_INTERFACE = 255;
     private static final long DISCOVERY_RESULT_TTL = TimeUnit.MINUTES.toSeconds(10);
@@ -66,10 +64,13 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
     // TCP port 1025 (Xbox / MS-RPC)
     private Set<Integer> tcpServicePorts = Collections
             .unmodifiableSet(Stream.of(80, 548, 554, 1025).collect(Collectors.toSet()));
-    private AtomicInteger scannedIPcount = new AtomicInteger(0);
-    private @Nullable ExecutorService executorService = null;
+    private @Nullable NetworkSweep sweep = null;
+    // The results of the running sweep, to add the sweep statistics to them once it has finished
+    private final Map<ThingUID, DiscoveryResult> sweepResults = new ConcurrentHashMap<>();
     private final NetworkBindingConfiguration configuration = new NetworkBindingConfiguration();
     private final NetworkUtils networkUtils = new NetworkUtils();
+    private final ArpTableParser arpTableParser = new ArpTableParser();
+    private final PresenceEngine presenceEngine = new PresenceEngine("discovery");
 
     public NetworkDiscoveryService() {
         super(SUPPORTED_THING_TYPES_UIDS, (int) Math.round(
@@ -97,86 +98,77 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
     @Override
     @Deactivate
     protected void deactivate() {
-        if (executorService != null) {
-            executorService.shutdown();
-        }
+        stopScan();
+        presenceEngine.dispose();
         super.deactivate();
     }
 
-    @Override
-    public void partialDetectionResult(PresenceDetectionValue value) {
-        final String ip = value.getHostAddress();
-        if (value.isPingReachable()) {
-            newPingDevice(ip);
-        } else if (value.isTCPServiceReachable()) {
-            List<Integer> tcpServices = value.getReachableTCPports();
-            for (int port : tcpServices) {
-                newServiceDevice(ip, port);
-            }
-        }
-    }
-
-    @Override
-    public void finalDetectionResult(PresenceDetectionValue value) {
-    }
-
     /**
-     * Starts the DiscoveryThread for each IP on each interface on the network
+     * Starts a sweep of each IP on each interface on the network
      */
     @Override
-    protected void startScan() {
-        if (executorService == null) {
-            executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
-        }
-        final ExecutorService service = executorService;
-        if (service == null) {
-            return;
+    protected synchronized void startScan() {
+        NetworkSweep previousSweep = sweep;
+        if (previousSweep != null) {
+            previousSweep.cancel();
         }
         removeOlderResults(getTimestampOfLastScan(), null);
+        sweepResults.clear();
         logger.trace("Starting Network Device Discovery");
 
         final Set<String> networkIPs = networkUtils.getNetworkIPs(MAXIMUM_IPS_PER_INTERFACE);
-        scannedIPcount.set(0);
-
-        for (String ip : networkIPs) {
-            final PresenceDetection s = new PresenceDetection(this, 2000);
-            s.setHostname(ip);
-            s.setIOSDevice(true);
-            s.setUseDhcpSniffing(false);
-            s.setTimeout(PING_TIMEOUT_IN_MS);
-            // Ping devices
-            s.setUseIcmpPing(true);
-            s.setUseArpPing(true, configuration.arpPingToolPath, configuration.arpPingUtilMethod);
-            // TCP devices
-            s.setServicePorts(tcpServicePorts);
-
-            service.execute(() -> {
-                Thread.currentThread().setName("Discovery thread " + ip);
-                s.performPresenceDetection(true);
-                int count = scannedIPcount.incrementAndGet();
-                if (count == networkIPs.size()) {
-                    logger.trace("Scan of {} IPs successful", scannedIPcount);
+        final NetworkSweep sweep = new NetworkSweep(presenceEngine, networkUtils, arpTableParser,
+                configuration.allowSystemPings, this::newPingDevice, this::newServiceDevice);
+        this.sweep = sweep;
+
+        scheduler.execute(() -> {
+            try {
+                sweep.sweep(networkIPs, tcpServicePorts, PING_TIMEOUT_IN_MS);
+                logger.trace("Scan of {} IPs successful", networkIPs.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // Reset interrupt flag
+            }
+            synchronized (this) {
+                if (this.sweep == sweep) {
+                    if (sweep.getDurationInMS() >= 0) {
+                        reportSweepStatistics(sweep.getStatistics());
+                    }
                     stopScan();
                 }
-            });
-        }
+            }
+        });
     }
 
     @Override
     protected synchronized void stopScan() {
         super.stopScan();
-        final ExecutorService service = executorService;
-        if (service == null) {
+        final NetworkSweep sweep = this.sweep;
+        if (sweep == null) {
             return;
         }
+        sweep.cancel();
+        this.sweep = null;
+        sweepResults.clear();
+    }
 
-        try {
-            service.awaitTermination(PING_TIMEOUT_IN_MS, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt(); // Reset interrupt flag
+    /**
+     * Update the results of the finished sweep with its statistics, which are shown as a property of the things.
+     *
+     * @param statistics The statistics of the sweep
+     */
+    private void reportSweepStatistics(String statistics) {
+        logger.debug("Network sweep found {} results: {}", sweepResults.size(), statistics);
+        for (DiscoveryResult result : sweepResults.values()) {
+            Map<String, Object> properties = new HashMap<>(result.getProperties());
+            properties.put(PROPERTY_DISCOVERY_SWEEP, statistics);
+            thingDiscovered(DiscoveryResultBuilder.create(result.getThingUID()).withTTL(DISCOVERY_RESULT_TTL)
+                    .withProperties(properties).withLabel(result.getLabel()).build());
         }
-        service.shutdown();
-        executorService = null;
+    }
+
+    private void publish(DiscoveryResult result) {
+        sweepResults.put(result.getThingUID(), result);
+        thingDiscovered(result);
     }
 
     public static ThingUID createServiceUID(String ip, int tcpPort) {
@@ -185,7 +177,8 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
     }
 
     /**
-     * Submit newly discovered devices. This method is called by the spawned threads in {@link startScan}.
+     * Submit newly discovered devices. This method is called by the {@link NetworkSweep} started in
+     * {@link startScan}.
      *
      * @param ip The device IP
      * @param tcpPort The TCP port
@@ -218,7 +211,7 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
         Map<String, Object> properties = new HashMap<>();
         properties.put(PARAMETER_HOSTNAME, ip);
         properties.put(PARAMETER_PORT, tcpPort);
-        thingDiscovered(DiscoveryResultBuilder.create(createServiceUID(ip, tcpPort)).withTTL(DISCOVERY_RESULT_TTL)
+        publish(DiscoveryResultBuilder.create(createServiceUID(ip, tcpPort)).withTTL(DISCOVERY_RESULT_TTL)
                 .withProperties(properties).withLabel(label).build());
     }
 
@@ -228,7 +221,8 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
     }
 
     /**
-     * Submit newly discovered devices. This method is called by the spawned threads in {@link startScan}.
+     * Submit newly discovered devices. This method is called by the {@link NetworkSweep} started in
+     * {@link startScan}.
      *
      * @param ip The device IP
      */
@@ -237,7 +231,7 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
 
         Map<String, Object> properties = new HashMap<>();
         properties.put(PARAMETER_HOSTNAME, ip);
-        thingDiscovered(DiscoveryResultBuilder.create(createPingUID(ip)).withTTL(DISCOVERY_RESULT_TTL)
+        publish(DiscoveryResultBuilder.create(createPingUID(ip)).withTTL(DISCOVERY_RESULT_TTL)
                 .withProperties(properties).withLabel("Network Device (" + ip + ")").build());
     }
 }
@@ -0,0 +1,249 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.network.internal.discovery;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.network.internal.PresenceEngine;
+import org.openhab.binding.network.internal.dhcp.DHCPListenService;
+import org.openhab.binding.network.internal.utils.ArpTableParser;
+import org.openhab.binding.network.internal.utils.ArpTableParser.ArpState;
+import org.openhab.binding.network.internal.utils.NetworkUtils;
+import org.openhab.binding.network.internal.utils.NetworkUtils.IpPingMethodEnum;
+import org.openhab.binding.network.internal.utils.PingResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link NetworkSweep} scans a set of IP addresses for present hosts and TCP services.
+ *
+ * Hosts that are known from recently confirmed entries of the ARP table of the operating system or from recent DHCP
+ * requests are reported without probing them. TCP connection attempts for all (address, port) pairs are non-blocking
+ * and handled by the single selector thread of the {@link PresenceEngine}, with at most
+ * {@link #MAX_CONCURRENT_PROBES} pending at a time.
+ * These connection attempts make the operating system resolve the hardware address of every present host, so a
+ * second look at the ARP table reveals hosts without any open port. Hosts that only have a stale ARP entry, and all
+ * remaining hosts if there is no ARP table, are pinged.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class NetworkSweep {
+    static final int MAX_CONCURRENT_PROBES = 256;
+    private static final long KNOWN_HOST_MAX_AGE_IN_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private final Logger logger = LoggerFactory.getLogger(NetworkSweep.class);
+
+    private final PresenceEngine engine;
+    private final NetworkUtils networkUtils;
+    private final ArpTableParser arpTableParser;
+    private final boolean allowSystemPings;
+    private final Consumer<String> hostFound;
+    private final BiConsumer<String, Integer> serviceFound;
+
+    private final Semaphore window = new Semaphore(MAX_CONCURRENT_PROBES);
+    private final AtomicLong probes = new AtomicLong();
+    private volatile boolean cancelled = false;
+    private volatile long durationInMS = -1;
+
+    /**
+     * @param engine The engine performing the probes
+     * @param networkUtils Network utilities for pings
+     * @param arpTableParser Reader for the ARP table
+     * @param allowSystemPings Use the native ping instead of the Java ping for hosts not found otherwise
+     * @param hostFound Called with the address of each present host
+     * @param serviceFound Called with the address and port of each reachable TCP service
+     */
+    public NetworkSweep(PresenceEngine engine, NetworkUtils networkUtils, ArpTableParser arpTableParser,
+            boolean allowSystemPings, Consumer<String> hostFound, BiConsumer<String, Integer> serviceFound) {
+        this.engine = engine;
+        this.networkUtils = networkUtils;
+        this.arpTableParser = arpTableParser;
+        this.allowSystemPings = allowSystemPings;
+        this.hostFound = hostFound;
+        this.serviceFound = serviceFound;
+    }
+
+    /**
+     * Stop the sweep. Probes that are already pending are not waited for.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Scan the given addresses. Blocks until all probes have finished or the sweep has been cancelled.
+     *
+     * @param addresses The IPv4 addresses to scan
+     * @param tcpPorts The TCP ports to try on each address
+     * @param timeoutInMS The timeout of a single probe
+     * @throws InterruptedException if the thread is interrupted while waiting for probes
+     */
+    public void sweep(Set<String> addresses, Set<Integer> tcpPorts, int timeoutInMS) throws InterruptedException {
+        long startTime = System.nanoTime();
+
+        Set<String> knownHosts = new HashSet<>(DHCPListenService.getRecentRequests(KNOWN_HOST_MAX_AGE_IN_MS));
+        Optional<Map<String, ArpState>> arpTable = arpTableParser.readArpTable();
+        arpTable.ifPresent(entries -> knownHosts.addAll(withState(entries, ArpState.REACHABLE)));
+        knownHosts.retainAll(addresses);
+        knownHosts.forEach(hostFound);
+        logger.debug("{} of {} addresses are known hosts and will not be pinged", knownHosts.size(),
+                addresses.size());
+
+        for (String address : addresses) {
+            InetAddress inetAddress = toInetAddress(address);
+            if (inetAddress == null) {
+                continue;
+            }
+            for (Integer tcpPort : tcpPorts) {
+                window.acquire();
+                if (cancelled) {
+                    window.release();
+                    return;
+                }
+                probes.incrementAndGet();
+                engine.servicePing(inetAddress, tcpPort, timeoutInMS).whenComplete((result, e) -> {
+                    window.release();
+                    if (result != null && result.isSuccess()) {
+                        serviceFound.accept(address, tcpPort);
+                    }
+                });
+            }
+        }
+        awaitProbes();
+
+        Set<String> unknownHosts = new HashSet<>(addresses);
+        unknownHosts.removeAll(knownHosts);
+        Map<String, ArpState> entries = arpTable.orElse(null);
+        if (entries != null) {
+            // The connection attempts have refreshed the ARP table
+            Map<String, ArpState> refreshedEntries = arpTableParser.readArpTable().orElse(Map.of());
+            Set<String> resolvedHosts = withState(refreshedEntries, ArpState.REACHABLE);
+            resolvedHosts.retainAll(unknownHosts);
+            resolvedHosts.forEach(hostFound);
+            // Stale entries may belong to hosts that have left, they need to answer a ping
+            Set<String> staleHosts = withState(entries, ArpState.STALE);
+            staleHosts.addAll(withState(refreshedEntries, ArpState.STALE));
+            staleHosts.retainAll(unknownHosts);
+            staleHosts.removeAll(resolvedHosts);
+            pingHosts(staleHosts, timeoutInMS);
+        } else {
+            pingHosts(unknownHosts, timeoutInMS);
+        }
+
+        durationInMS = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        logger.debug("Network sweep finished: {}", getStatistics());
+    }
+
+    /**
+     * @return The number of TCP connection attempts and pings sent
+     */
+    public long getProbes() {
+        return probes.get();
+    }
+
+    /**
+     * @return The duration of the finished sweep in milliseconds, or -1 if it has not finished
+     */
+    public long getDurationInMS() {
+        return durationInMS;
+    }
+
+    /**
+     * @return A summary of the sweep, with its duration and probe rate once it has finished
+     */
+    public String getStatistics() {
+        long probeCount = probes.get();
+        long duration = durationInMS;
+        if (duration < 0) {
+            return String.format("%d probes, not finished", probeCount);
+        }
+        long probesPerSecond = duration > 0 ? probeCount * 1000 / duration : probeCount;
+        return String.format("%d probes in %d ms (%d probes/s)", probeCount, duration, probesPerSecond);
+    }
+
+    private static Set<String> withState(Map<String, ArpState> entries, ArpState state) {
+        Set<String> addresses = new HashSet<>();
+        entries.forEach((address, entryState) -> {
+            if (entryState == state) {
+                addresses.add(address);
+            }
+        });
+        return addresses;
+    }
+
+    private void pingHosts(Set<String> hosts, int timeoutInMS) throws InterruptedException {
+        IpPingMethodEnum pingMethod = allowSystemPings ? networkUtils.determinePingMethod()
+                : IpPingMethodEnum.JAVA_PING;
+        for (String address : hosts) {
+            InetAddress inetAddress = toInetAddress(address);
+            if (inetAddress == null) {
+                continue;
+            }
+            window.acquire();
+            if (cancelled) {
+                window.release();
+                return;
+            }
+            probes.incrementAndGet();
+            engine.execute(() -> {
+                if (ping(pingMethod, inetAddress, timeoutInMS)) {
+                    hostFound.accept(address);
+                }
+            }).whenComplete((result, e) -> window.release());
+        }
+        awaitProbes();
+    }
+
+    private boolean ping(IpPingMethodEnum pingMethod, InetAddress address, int timeoutInMS) {
+        try {
+            Optional<PingResult> result = pingMethod == IpPingMethodEnum.JAVA_PING
+                    ? networkUtils.javaPing(timeoutInMS, address)
+                    : networkUtils.nativePing(pingMethod, address.getHostAddress(), timeoutInMS);
+            return result.map(PingResult::isSuccess).orElse(false);
+        } catch (IOException e) {
+            logger.trace("Failed to ping {}", address, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private void awaitProbes() throws InterruptedException {
+        window.acquire(MAX_CONCURRENT_PROBES);
+        window.release(MAX_CONCURRENT_PROBES);
+    }
+
+    private @Nullable InetAddress toInetAddress(String address) {
+        try {
+            // A literal address, no name resolution takes place
+            return InetAddress.getByName(address);
+        } catch (UnknownHostException e) {
+            logger.debug("Invalid address {}", address);
+            return null;
+        }
+    }
+}
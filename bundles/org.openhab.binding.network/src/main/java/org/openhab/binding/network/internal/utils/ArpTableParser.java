@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.network.internal.utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.core.io.net.exec.ExecUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the ARP table of the operating system, to learn which hosts of the local networks are known to be present
+ * without sending any packets. Only supported on Linux.
+ *
+ * The neighbour table of the iproute2 tool tells whether an entry has been confirmed recently. The kernel's
+ * /proc/net/arp does not, so its entries are all considered stale.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ArpTableParser {
+
+    /**
+     * The state of an ARP entry with a known hardware address.
+     */
+    public enum ArpState {
+        /** The host has been confirmed recently */
+        REACHABLE,
+        /** The host has not been confirmed recently, it may have left the network */
+        STALE
+    }
+
+    private static final Path ARP_TABLE = Paths.get("/proc/net/arp");
+    private static final Duration NEIGHBOUR_TABLE_TIMEOUT = Duration.ofSeconds(2);
+    // ATF_COM: the hardware address of the entry is known
+    private static final int FLAG_COMPLETE = 0x2;
+
+    private final Logger logger = LoggerFactory.getLogger(ArpTableParser.class);
+
+    /**
+     * Read the ARP table of the operating system.
+     *
+     * @return The IPv4 addresses with a known hardware address and the state of their entry. Optional is empty if
+     *         there is no readable ARP table.
+     */
+    public Optional<Map<String, ArpState>> readArpTable() {
+        if (!Files.isReadable(ARP_TABLE)) {
+            return Optional.empty();
+        }
+        String neighbours = ExecUtil.executeCommandLineAndWaitResponse(NEIGHBOUR_TABLE_TIMEOUT, "ip", "-4", "neigh",
+                "show");
+        if (neighbours != null) {
+            return Optional.of(parseNeighbourTable(neighbours.lines().collect(Collectors.toList())));
+        }
+        try {
+            return Optional.of(parseArpTable(Files.readAllLines(ARP_TABLE)));
+        } catch (IOException e) {
+            logger.debug("Could not read the ARP table: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    // This is how the input looks like:
+    // 192.168.1.1 dev eth0 lladdr 00:11:22:33:44:55 REACHABLE
+    // 192.168.1.5 dev eth0 lladdr 00:11:22:33:44:77 STALE
+    // 192.168.1.7 dev eth0 FAILED
+
+    /**
+     * Extract the addresses with a known hardware address from the output of "ip -4 neigh show".
+     *
+     * @param lines The lines of the neighbour table
+     * @return The IPv4 addresses with a known hardware address and the state of their entry
+     */
+    public Map<String, ArpState> parseNeighbourTable(List<String> lines) {
+        Map<String, ArpState> addresses = new HashMap<>();
+        for (String line : lines) {
+            String[] columns = line.trim().split("\\s+");
+            if (columns.length < 2 || !line.contains(" lladdr ")) {
+                // no hardware address (yet)
+                continue;
+            }
+            switch (columns[columns.length - 1]) {
+                case "REACHABLE":
+                case "PERMANENT":
+                case "NOARP":
+                    addresses.put(columns[0], ArpState.REACHABLE);
+                    break;
+                case "STALE":
+                case "DELAY":
+                case "PROBE":
+                    addresses.put(columns[0], ArpState.STALE);
+                    break;
+                default:
+                    logger.trace("Skipping neighbour table line {}", line);
+            }
+        }
+        return addresses;
+    }
+
+    // This is how the input looks like:
+    // IP address       HW type     Flags       HW address            Mask     Device
+    // 192.168.1.1      0x1         0x2         00:11:22:33:44:55     *        eth0
+    // 192.168.1.7      0x1         0x0         00:00:00:00:00:00     *        eth0
+
+    /**
+     * Extract the addresses with a complete entry from the lines of the ARP table. The table does not tell when an
+     * entry has been confirmed, so all of them are stale.
+     *
+     * @param lines The lines of the ARP table, including the header line.
+     * @return The IPv4 addresses with a complete ARP entry
+     */
+    public Map<String, ArpState> parseArpTable(List<String> lines) {
+        Map<String, ArpState> addresses = new HashMap<>();
+        for (String line : lines) {
+            String[] columns = line.trim().split("\\s+");
+            if (columns.length < 4 || !columns[2].startsWith("0x")) {
+                // header or malformed line
+                continue;
+            }
+            try {
+                int flags = Integer.parseInt(columns[2].substring(2), 16);
+                if ((flags & FLAG_COMPLETE) != 0 && !"00:00:00:00:00:00".equals(columns[3])) {
+                    addresses.put(columns[0], ArpState.STALE);
+                }
+            } catch (NumberFormatException e) {
+                logger.trace("Skipping ARP table line {}", line);
+            }
+        }
+        return addresses;
+    }
+}
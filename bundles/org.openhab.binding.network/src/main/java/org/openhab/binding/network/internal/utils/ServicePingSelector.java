@@ -0,0 +1,246 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.network.internal.utils;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Performs service pings (TCP connection attempts) with non-blocking sockets. All pending connection attempts are
+ * handled by a single selector thread, no matter how many hosts and ports are probed.
+ *
+ * The thread is started with the first service ping and runs until {@link #close()} is called.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ServicePingSelector {
+    private final Logger logger = LoggerFactory.getLogger(ServicePingSelector.class);
+
+    private final String threadName;
+    private final Queue<Probe> newProbes = new ConcurrentLinkedQueue<>();
+    private @Nullable Selector selector;
+    private boolean closed = false;
+
+    private static class Probe {
+        private final SocketChannel channel;
+        private final CompletableFuture<PingResult> result;
+        private final long startTime;
+        private final long deadline;
+
+        private Probe(SocketChannel channel, long startTime, int timeoutInMS) {
+            this.channel = channel;
+            this.result = new CompletableFuture<>();
+            this.startTime = startTime;
+            this.deadline = startTime + TimeUnit.MILLISECONDS.toNanos(timeoutInMS);
+        }
+
+        private void complete(boolean success) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Nothing we can do about it
+            }
+            result.complete(new PingResult(success, (System.nanoTime() - startTime) / 1e6));
+        }
+    }
+
+    public ServicePingSelector(String threadName) {
+        this.threadName = threadName;
+    }
+
+    /**
+     * Try to establish a tcp connection to the given port. The result is not successful if a timeout occurred
+     * or the connection was denied.
+     *
+     * @param address The address of the host
+     * @param port The tcp port. Must be not 0.
+     * @param timeoutInMS Timeout in ms
+     * @return A future with the ping result. It completes exceptionally if no socket could be created.
+     */
+    public CompletableFuture<PingResult> servicePing(InetAddress address, int port, int timeoutInMS) {
+        long startTime = System.nanoTime();
+        SocketChannel channel = null;
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            Probe probe = new Probe(channel, startTime, timeoutInMS);
+            try {
+                if (channel.connect(new InetSocketAddress(address, port))) {
+                    probe.complete(true);
+                    return probe.result;
+                }
+            } catch (IOException e) {
+                // Connection refused or network unreachable
+                probe.complete(false);
+                return probe.result;
+            }
+            newProbes.add(probe);
+            wakeUp();
+            return probe.result;
+        } catch (IOException e) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // Nothing we can do about it
+                }
+            }
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Stop the selector thread. Pending service pings are completed as not successful.
+     */
+    public synchronized void close() {
+        closed = true;
+        Selector selector = this.selector;
+        if (selector != null) {
+            selector.wakeup();
+        }
+        this.selector = null;
+    }
+
+    private synchronized void wakeUp() throws IOException {
+        if (closed) {
+            failNewProbes();
+            return;
+        }
+        Selector selector = this.selector;
+        if (selector == null) {
+            selector = Selector.open();
+            this.selector = selector;
+            final Selector threadSelector = selector;
+            Thread thread = new Thread(() -> run(threadSelector), threadName);
+            thread.setDaemon(true);
+            thread.start();
+        } else {
+            selector.wakeup();
+        }
+    }
+
+    private synchronized boolean isRunning(Selector selector) {
+        return this.selector == selector;
+    }
+
+    private void run(Selector selector) {
+        try {
+            while (isRunning(selector)) {
+                registerNewProbes(selector);
+                long timeout = expireProbes(selector);
+                selector.select(timeout);
+                Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                while (iterator.hasNext()) {
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+                    finishConnect(key);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Service ping selector failed: {}", e.getMessage());
+            synchronized (this) {
+                if (this.selector == selector) {
+                    this.selector = null;
+                }
+            }
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                Probe probe = (Probe) key.attachment();
+                if (probe != null) {
+                    probe.complete(false);
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+                // Nothing we can do about it
+            }
+            failNewProbes();
+        }
+    }
+
+    private void registerNewProbes(Selector selector) {
+        Probe probe;
+        while ((probe = newProbes.poll()) != null) {
+            try {
+                probe.channel.register(selector, SelectionKey.OP_CONNECT, probe);
+            } catch (IOException e) {
+                probe.complete(false);
+            }
+        }
+    }
+
+    /**
+     * Complete all probes that have timed out.
+     *
+     * @return the time in ms until the next probe times out, or 0 if there are no probes
+     */
+    private long expireProbes(Selector selector) {
+        long now = System.nanoTime();
+        long nextDeadline = Long.MAX_VALUE;
+        for (SelectionKey key : selector.keys()) {
+            Probe probe = (Probe) key.attachment();
+            if (probe == null || !key.isValid()) {
+                continue;
+            }
+            if (probe.deadline <= now) {
+                key.cancel();
+                probe.complete(false);
+            } else {
+                nextDeadline = Math.min(nextDeadline, probe.deadline);
+            }
+        }
+        if (nextDeadline == Long.MAX_VALUE) {
+            return 0;
+        }
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(nextDeadline - now));
+    }
+
+    private void finishConnect(SelectionKey key) {
+        Probe probe = (Probe) key.attachment();
+        if (probe == null) {
+            return;
+        }
+        key.cancel();
+        boolean success;
+        try {
+            success = probe.channel.finishConnect();
+        } catch (IOException e) {
+            // Connection refused, host unreachable, ...
+            success = false;
+        }
+        probe.complete(success);
+    }
+
+    private void failNewProbes() {
+        Probe probe;
+        while ((probe = newProbes.poll()) != null) {
+            probe.complete(false);
+        }
+    }
+}
@@ -17,9 +17,6 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
-import java.util.Collections;
-
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -28,12 +25,11 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.openhab.binding.network.internal.NetworkBindingConstants;
-import org.openhab.binding.network.internal.PresenceDetectionValue;
 import org.openhab.core.config.discovery.DiscoveryListener;
 import org.openhab.core.config.discovery.DiscoveryResult;
 
 /**
- * Tests cases for {@see PresenceDetectionValue}
+ * Tests cases for {@see NetworkDiscoveryService}
  *
  * @author David Graeff - Initial contribution
  */
@@ -42,17 +38,8 @@ import org.openhab.core.config.discovery.DiscoveryResult;
 public class DiscoveryTest {
     private final String ip = "127.0.0.1";
 
-    private @Mock PresenceDetectionValue value;
     private @Mock DiscoveryListener listener;
 
-    @BeforeEach
-    public void setUp() {
-        when(value.getHostAddress()).thenReturn(ip);
-        when(value.getLowestLatency()).thenReturn(10.0);
-        when(value.isReachable()).thenReturn(true);
-        when(value.getSuccessfulDetectionTypes()).thenReturn("TESTMETHOD");
-    }
-
     @Test
     public void pingDeviceDetected() {
         NetworkDiscoveryService d = new NetworkDiscoveryService();
@@ -61,9 +48,7 @@ public class DiscoveryTest {
         ArgumentCaptor<DiscoveryResult> result = ArgumentCaptor.forClass(DiscoveryResult.class);
 
         // Ping device
-        when(value.isPingReachable()).thenReturn(true);
-        when(value.isTCPServiceReachable()).thenReturn(false);
-        d.partialDetectionResult(value);
+        d.newPingDevice(ip);
         verify(listener).thingDiscovered(any(), result.capture());
         DiscoveryResult dresult = result.getValue();
         assertThat(dresult.getThingUID(), is(NetworkDiscoveryService.createPingUID(ip)));
@@ -78,10 +63,7 @@ public class DiscoveryTest {
         ArgumentCaptor<DiscoveryResult> result = ArgumentCaptor.forClass(DiscoveryResult.class);
 
         // TCP device
-        when(value.isPingReachable()).thenReturn(false);
-        when(value.isTCPServiceReachable()).thenReturn(true);
-        when(value.getReachableTCPports()).thenReturn(Collections.singletonList(1010));
-        d.partialDetectionResult(value);
+        d.newServiceDevice(ip, 1010);
         verify(listener).thingDiscovered(any(), result.capture());
         DiscoveryResult dresult = result.getValue();
         assertThat(dresult.getThingUID(), is(NetworkDiscoveryService.createServiceUID(ip, 1010)));
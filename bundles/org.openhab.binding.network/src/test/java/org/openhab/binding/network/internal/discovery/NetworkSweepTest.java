@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.network.internal.discovery;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.openhab.binding.network.internal.PresenceEngine;
+import org.openhab.binding.network.internal.utils.ArpTableParser;
+import org.openhab.binding.network.internal.utils.ArpTableParser.ArpState;
+import org.openhab.binding.network.internal.utils.NetworkUtils;
+import org.openhab.binding.network.internal.utils.PingResult;
+
+/**
+ * Tests cases for {@see NetworkSweep}
+ *
+ * @author agent - Initial contribution
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.WARN)
+public class NetworkSweepTest {
+    private static final String REACHABLE_HOST = "192.168.1.1";
+    private static final String SERVICE_HOST = "192.168.1.2";
+    private static final String RESOLVED_HOST = "192.168.1.3";
+    private static final String STALE_HOST = "192.168.1.4";
+    private static final String GONE_HOST = "192.168.1.5";
+    private static final String ABSENT_HOST = "192.168.1.6";
+    private static final Set<String> ADDRESSES = Set.of(REACHABLE_HOST, SERVICE_HOST, RESOLVED_HOST, STALE_HOST,
+            GONE_HOST, ABSENT_HOST);
+
+    private @Mock PresenceEngine engine;
+    private @Mock NetworkUtils networkUtils;
+    private @Mock ArpTableParser arpTableParser;
+
+    private final Set<String> hosts = new HashSet<>();
+    private final List<String> services = new ArrayList<>();
+    private final Set<String> pinged = new HashSet<>();
+
+    @BeforeEach
+    public void setUp() {
+        when(engine.servicePing(any(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            InetAddress address = invocation.getArgument(0);
+            int port = invocation.getArgument(1);
+            boolean open = SERVICE_HOST.equals(address.getHostAddress()) && port == 80;
+            return CompletableFuture.completedFuture(new PingResult(open, 1));
+        });
+        when(engine.execute(any())).thenAnswer(invocation -> {
+            invocation.<Runnable> getArgument(0).run();
+            return CompletableFuture.completedFuture(null);
+        });
+        when(networkUtils.javaPing(anyInt(), any())).thenAnswer(invocation -> {
+            String address = invocation.<InetAddress> getArgument(1).getHostAddress();
+            pinged.add(address);
+            return Optional.of(new PingResult(STALE_HOST.equals(address), 1));
+        });
+    }
+
+    private NetworkSweep createSweep() {
+        return new NetworkSweep(engine, networkUtils, arpTableParser, false, hosts::add,
+                (address, port) -> services.add(address + ":" + port));
+    }
+
+    @Test
+    public void sweepWithArpTable() throws InterruptedException {
+        when(arpTableParser.readArpTable()).thenReturn(
+                Optional.of(Map.of(REACHABLE_HOST, ArpState.REACHABLE, STALE_HOST, ArpState.STALE, GONE_HOST,
+                        ArpState.STALE)),
+                Optional.of(Map.of(REACHABLE_HOST, ArpState.REACHABLE, SERVICE_HOST, ArpState.REACHABLE,
+                        RESOLVED_HOST, ArpState.REACHABLE, STALE_HOST, ArpState.STALE, GONE_HOST, ArpState.STALE)));
+        NetworkSweep sweep = createSweep();
+
+        sweep.sweep(ADDRESSES, Set.of(80, 548), 500);
+
+        assertEquals(Set.of(REACHABLE_HOST, SERVICE_HOST, RESOLVED_HOST, STALE_HOST), hosts);
+        assertEquals(List.of(SERVICE_HOST + ":80"), services);
+        // Only the hosts with a stale entry need to answer a ping
+        assertEquals(Set.of(STALE_HOST, GONE_HOST), pinged);
+        // Known hosts still get their ports tried
+        verify(engine, times(12)).servicePing(any(), anyInt(), anyInt());
+        assertEquals(14, sweep.getProbes());
+    }
+
+    @Test
+    public void sweepWithoutArpTablePingsUnknownHosts() throws InterruptedException {
+        when(arpTableParser.readArpTable()).thenReturn(Optional.empty());
+        NetworkSweep sweep = createSweep();
+
+        sweep.sweep(ADDRESSES, Set.of(80), 500);
+
+        assertEquals(ADDRESSES, pinged);
+        assertEquals(Set.of(STALE_HOST), hosts);
+        assertEquals(List.of(SERVICE_HOST + ":80"), services);
+        assertEquals(12, sweep.getProbes());
+    }
+
+    @Test
+    public void statisticsAfterSweep() throws InterruptedException {
+        when(arpTableParser.readArpTable()).thenReturn(Optional.of(Map.of()));
+        NetworkSweep sweep = createSweep();
+        assertEquals(-1, sweep.getDurationInMS());
+        assertEquals("0 probes, not finished", sweep.getStatistics());
+
+        sweep.sweep(ADDRESSES, Set.of(80), 500);
+
+        assertTrue(sweep.getDurationInMS() >= 0);
+        assertTrue(sweep.getStatistics().startsWith("6 probes in "), sweep.getStatistics());
+        assertTrue(sweep.getStatistics().endsWith(" probes/s)"), sweep.getStatistics());
+    }
+
+    @Test
+    public void cancelledSweepStopsProbing() throws InterruptedException {
+        NetworkSweep sweep = createSweep();
+        when(arpTableParser.readArpTable()).thenReturn(Optional.of(Map.of()));
+        sweep.cancel();
+
+        sweep.sweep(ADDRESSES, Set.of(80), 500);
+
+        verify(engine, never()).servicePing(any(), anyInt(), anyInt());
+        assertEquals(-1, sweep.getDurationInMS());
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.network.internal.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.openhab.binding.network.internal.utils.ArpTableParser.ArpState;
+
+/**
+ * Tests the parser which extracts present hosts from the ARP table.
+ *
+ * @author agent - Initial contribution
+ */
+public class ArpTableParserTest {
+
+    @Test
+    public void parseCompleteEntriesTest() {
+        // Arrange
+        ArpTableParser parser = new ArpTableParser();
+        List<String> lines = List.of("IP address       HW type     Flags       HW address            Mask     Device",
+                "192.168.1.1      0x1         0x2         00:11:22:33:44:55     *        eth0",
+                "192.168.1.7      0x1         0x0         00:00:00:00:00:00     *        eth0",
+                "192.168.1.9      0x1         0x6         00:11:22:33:44:66     *        eth0", "garbage");
+
+        // Act
+        Map<String, ArpState> addresses = parser.parseArpTable(lines);
+
+        // Assert
+        assertEquals(Set.of("192.168.1.1", "192.168.1.9"), addresses.keySet());
+        // The kernel's table does not tell when an entry has been confirmed
+        assertEquals(Set.of(ArpState.STALE), Set.copyOf(addresses.values()));
+    }
+
+    @Test
+    public void parseNeighbourTableTest() {
+        // Arrange
+        ArpTableParser parser = new ArpTableParser();
+        List<String> lines = List.of("192.168.1.1 dev eth0 lladdr 00:11:22:33:44:55 REACHABLE",
+                "192.168.1.2 dev eth0 lladdr 00:11:22:33:44:56 router PERMANENT",
+                "192.168.1.5 dev eth0 lladdr 00:11:22:33:44:77 STALE",
+                "192.168.1.6 dev eth0 lladdr 00:11:22:33:44:78 DELAY", "192.168.1.7 dev eth0 FAILED",
+                "192.168.1.8 dev eth0 INCOMPLETE", "garbage");
+
+        // Act
+        Map<String, ArpState> addresses = parser.parseNeighbourTable(lines);
+
+        // Assert
+        assertEquals(Map.of("192.168.1.1", ArpState.REACHABLE, "192.168.1.2", ArpState.REACHABLE, "192.168.1.5",
+                ArpState.STALE, "192.168.1.6", ArpState.STALE), addresses);
+    }
+}
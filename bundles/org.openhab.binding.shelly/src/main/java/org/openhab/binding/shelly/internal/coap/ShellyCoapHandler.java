@@ -61,16 +61,19 @@ import com.google.gson.JsonSyntaxException;
  * The {@link ShellyCoapHandler} handles the CoIoT/CoAP registration and events.
  *
  * @author Markus Michels - Initial contribution
+ * @author agent - Packets are routed by the server, shared parser
  */
 @NonNullByDefault
 public class ShellyCoapHandler implements ShellyCoapListener {
     private static final byte[] EMPTY_BYTE = new byte[0];
+    // Gson and the type adapters are thread-safe, one instance serves all devices
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(CoIotDevDescription.class, new CoIotDevDescrTypeAdapter())
+            .registerTypeAdapter(CoIotGenericSensorList.class, new CoIotSensorTypeAdapter()).create();
 
     private final Logger logger = LoggerFactory.getLogger(ShellyCoapHandler.class);
     private final ShellyBaseHandler thingHandler;
     private ShellyThingConfiguration config = new ShellyThingConfiguration();
-    private final GsonBuilder gsonBuilder = new GsonBuilder();
-    private final Gson gson;
     private String thingName;
 
     private boolean coiotBound = false;
@@ -84,8 +87,10 @@ public class ShellyCoapHandler implements ShellyCoapListener {
     private boolean updatesRequested = false;
     private int coiotPort = COIOT_PORT;
 
+    private long coiotPackets = 0;
     private long coiotMessages = 0;
     private long coiotErrors = 0;
+    private long coiotDuplicates = 0;
     private int lastSerial = -1;
     private String lastPayload = "";
     private Map<String, CoIotDescrBlk> blkMap = new LinkedHashMap<>();
@@ -100,10 +105,6 @@ public class ShellyCoapHandler implements ShellyCoapListener {
         this.api = thingHandler.getApi();
         this.coapServer = coapServer;
         this.coiot = new ShellyCoIoTVersion2(thingName, thingHandler, blkMap, sensorMap); // Default: V2
-
-        gsonBuilder.registerTypeAdapter(CoIotDevDescription.class, new CoIotDevDescrTypeAdapter());
-        gsonBuilder.registerTypeAdapter(CoIotGenericSensorList.class, new CoIotSensorTypeAdapter());
-        gson = gsonBuilder.create();
     }
 
     /**
@@ -128,7 +129,7 @@ public class ShellyCoapHandler implements ShellyCoapListener {
                 String ps = substringAfter(profile.coiotEndpoint, ":");
                 coiotPort = Integer.parseInt(ps);
             }
-            coapServer.start(config.localIp, coiotPort, this);
+            coapServer.start(config.localIp, coiotPort, this, config.deviceIp, profile.mac);
             statusClient = new CoapClient(completeUrl(config.deviceIp, coiotPort, COLOIT_URI_DEVSTATUS))
                     .setTimeout((long) SHELLY_API_TIMEOUT_MS).useNONs().setEndpoint(coapServer.getEndpoint());
             @Nullable
@@ -157,6 +158,7 @@ public class ShellyCoapHandler implements ShellyCoapListener {
 
     /**
      * Process an inbound Response (or mapped Request): decode CoAP options. handle discovery result or status updates
+     * The {@link ShellyCoapServer} passes only packets of this device.
      *
      * @param response The Response packet
      */
@@ -166,6 +168,7 @@ public class ShellyCoapHandler implements ShellyCoapListener {
             coiotErrors++;
             return; // other device instance
         }
+        coiotPackets++;
         ResponseCode code = response.getCode();
         if (code != ResponseCode.CONTENT) {
             // error handling
@@ -176,29 +179,6 @@ public class ShellyCoapHandler implements ShellyCoapListener {
         }
 
         List<Option> options = response.getOptions().asSortedList();
-        String ip = response.getSourceContext().getPeerAddress().toString();
-        boolean match = ip.contains(config.deviceIp);
-        if (!match) {
-            // We can't identify device by IP, so we need to check the CoAP header's Global Device ID
-            for (Option opt : options) {
-                if (opt.getNumber() == COIOT_OPTION_GLOBAL_DEVID) {
-                    String devid = opt.getStringValue();
-                    if (devid.contains("#")) {
-                        // Format: <device type>#<mac address>#<coap version>
-                        String macid = substringBetween(devid, "#", "#");
-                        if (profile.mac.toUpperCase().contains(macid.toUpperCase())) {
-                            match = true;
-                            break;
-                        }
-                    }
-                }
-            }
-        }
-        if (!match) {
-            // other instance
-            return;
-        }
-
         String payload = "";
         String devId = "";
         String uri = "";
@@ -269,6 +249,7 @@ public class ShellyCoapHandler implements ShellyCoapListener {
             if ((serial == lastSerial) && payload.equals(lastPayload) && (!profile.hasBattery
                     || coiot.getLastWakeup().equalsIgnoreCase("ext_power") || ((serial & 0xFF) != 0))) {
                 logger.debug("{}: Serial {} was already processed, ignore update", thingName, serial);
+                coiotDuplicates++;
                 return;
             }
 
@@ -315,7 +296,7 @@ public class ShellyCoapHandler implements ShellyCoapListener {
             boolean valid = true;
 
             // Decode Json
-            CoIotDevDescription descr = fromJson(gson, payload, CoIotDevDescription.class);
+            CoIotDevDescription descr = fromJson(GSON, payload, CoIotDevDescription.class);
             for (int i = 0; i < descr.blk.size(); i++) {
                 CoIotDescrBlk blk = descr.blk.get(i);
                 logger.debug("{}:    id={}: {}", thingName, blk.id, blk.desc);
@@ -429,7 +410,8 @@ public class ShellyCoapHandler implements ShellyCoapListener {
         }
 
         // Parse Json,
-        CoIotGenericSensorList list = fromJson(gson, fixJSON(payload), CoIotGenericSensorList.class);
+        // The payload has already been fixed by processResponse()
+        CoIotGenericSensorList list = fromJson(GSON, payload, CoIotGenericSensorList.class);
         if (list.generic == null) {
             logger.debug("{}: Sensor list has invalid format! Payload: {}", devId, payload);
             return;
@@ -677,6 +659,20 @@ public class ShellyCoapHandler implements ShellyCoapListener {
         return coiotErrors;
     }
 
+    /**
+     * @return the number of packets received from the device, including duplicates
+     */
+    public long getPacketCount() {
+        return coiotPackets;
+    }
+
+    /**
+     * @return the number of duplicate packets that were discarded
+     */
+    public long getDuplicateCount() {
+        return coiotDuplicates;
+    }
+
     public void dispose() {
         stop();
     }
@@ -26,6 +26,7 @@ import com.google.gson.stream.JsonWriter;
  * The {@link ShellyCoapJSonDTO} helps the CoIoT Json into Java objects
  *
  * @author Markus Michels - Initial contribution
+ * @author agent - Pre-sized sensor list
  */
 public class ShellyCoapJSonDTO {
     // Coap
@@ -47,6 +48,8 @@ public class ShellyCoapJSonDTO {
     public static final String COIOT_TAG_SEN = "sen";
     public static final String COIOT_TAG_ACT = "act";
     public static final String COIOT_TAG_GENERIC = "G";
+    // initial capacity of the sensor list of a status update, sufficient for most devices
+    public static final int COIOT_SENSOR_LIST_CAPACITY = 32;
 
     public static class CoIotDescrBlk {
         @SerializedName("I")
@@ -124,6 +127,10 @@ public class ShellyCoapJSonDTO {
         public CoIotGenericSensorList() {
             generic = new ArrayList<>();
         }
+
+        public CoIotGenericSensorList(int capacity) {
+            generic = new ArrayList<>(capacity);
+        }
     }
 
     protected static class CoIotDevDescrTypeAdapter extends TypeAdapter<CoIotDevDescription> {
@@ -267,7 +274,7 @@ public class ShellyCoapJSonDTO {
     protected static class CoIotSensorTypeAdapter extends TypeAdapter<CoIotGenericSensorList> {
         @Override
         public CoIotGenericSensorList read(final JsonReader in) throws IOException {
-            CoIotGenericSensorList list = new CoIotGenericSensorList();
+            CoIotGenericSensorList list = new CoIotGenericSensorList(COIOT_SENSOR_LIST_CAPACITY);
 
             in.beginObject();
             String generic = in.nextName();
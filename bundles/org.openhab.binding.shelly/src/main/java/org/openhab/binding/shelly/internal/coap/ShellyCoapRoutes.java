@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.shelly.internal.coap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * The {@link ShellyCoapRoutes} finds the listener of the device that sent a CoIoT packet, by the IP address of the
+ * device or by the MAC address of its global device id.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ShellyCoapRoutes {
+    private final Map<String, ShellyCoapListener> listenersByAddress = new ConcurrentHashMap<>();
+    private final Map<String, ShellyCoapListener> listenersByMac = new ConcurrentHashMap<>();
+
+    /**
+     * Register the listener of a device, replacing its previous routes
+     *
+     * @param listener the listener of the device
+     * @param deviceIp IP address of the device, empty if unknown
+     * @param mac MAC address of the device, empty if unknown
+     */
+    public void add(ShellyCoapListener listener, String deviceIp, String mac) {
+        remove(listener);
+        if (!deviceIp.isEmpty()) {
+            listenersByAddress.put(deviceIp, listener);
+        }
+        if (!mac.isEmpty()) {
+            listenersByMac.put(normalizeMac(mac), listener);
+        }
+    }
+
+    public void remove(ShellyCoapListener listener) {
+        listenersByAddress.values().removeIf(l -> l == listener);
+        listenersByMac.values().removeIf(l -> l == listener);
+    }
+
+    public void clear() {
+        listenersByAddress.clear();
+        listenersByMac.clear();
+    }
+
+    /**
+     * Find the listener of the device that sent a packet
+     *
+     * @param peerAddress the IP address the packet was received from
+     * @param devId the global device id option of the packet, null if it has none
+     * @return the listener or null if the device is not registered
+     */
+    public @Nullable ShellyCoapListener get(String peerAddress, @Nullable String devId) {
+        ShellyCoapListener listener = listenersByAddress.get(peerAddress);
+        if (listener != null || devId == null) {
+            return listener;
+        }
+
+        // The device id has the format <device type>#<mac address>#<coap version>
+        int start = devId.indexOf('#');
+        int end = devId.indexOf('#', start + 1);
+        if (start < 0 || end < 0) {
+            return null;
+        }
+        String mac = normalizeMac(devId.substring(start + 1, end));
+        listener = listenersByMac.get(mac);
+        if (listener == null && !mac.isEmpty()) {
+            // Some devices report only a part of the MAC address, remember the match
+            for (Map.Entry<String, ShellyCoapListener> entry : listenersByMac.entrySet()) {
+                if (entry.getKey().contains(mac)) {
+                    listener = entry.getValue();
+                    listenersByMac.put(mac, listener);
+                    break;
+                }
+            }
+        }
+        return listener;
+    }
+
+    private static String normalizeMac(String mac) {
+        return mac.replace(":", "").toUpperCase();
+    }
+}
@@ -12,7 +12,7 @@
  */
 package org.openhab.binding.shelly.internal.coap;
 
-import static org.openhab.binding.shelly.internal.coap.ShellyCoapJSonDTO.COIOT_PORT;
+import static org.openhab.binding.shelly.internal.coap.ShellyCoapJSonDTO.*;
 
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
@@ -20,12 +20,14 @@ import java.net.SocketException;
 import java.net.UnknownHostException;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.californium.core.CoapResource;
 import org.eclipse.californium.core.CoapServer;
 import org.eclipse.californium.core.coap.CoAP;
 import org.eclipse.californium.core.coap.CoAP.Code;
 import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.coap.Option;
 import org.eclipse.californium.core.coap.Request;
 import org.eclipse.californium.core.coap.Response;
 import org.eclipse.californium.core.network.CoapEndpoint;
@@ -40,7 +42,11 @@ import org.slf4j.LoggerFactory;
 /**
  * The {@link ShellyCoapServer} implements the UDP listener and status event processor (for /cit/s messages)
  *
+ * Each multicast packet is routed to the listener of the sending device only, see {@link ShellyCoapRoutes}. The device
+ * is looked up before the payload is decoded.
+ *
  * @author Markus Michels - Initial contribution
+ * @author agent - Route packets by peer address and device id
  */
 @NonNullByDefault
 public class ShellyCoapServer {
@@ -51,6 +57,8 @@ public class ShellyCoapServer {
     private @Nullable UdpMulticastConnector statusConnector;
     private CoapServer server = new CoapServer(NetworkConfig.getStandard(), COIOT_PORT);
     private final Set<ShellyCoapListener> coapListeners = ConcurrentHashMap.newKeySet();
+    private final ShellyCoapRoutes routes = new ShellyCoapRoutes();
+    private final AtomicLong unroutedPackets = new AtomicLong();
 
     protected class ShellyStatusListener extends CoapResource {
         private ShellyCoapServer listener;
@@ -78,8 +86,17 @@ public class ShellyCoapServer {
         }
     }
 
-    public synchronized void start(String localIp, int port, ShellyCoapListener listener)
-            throws UnknownHostException, SocketException {
+    /**
+     * Start the listener and register a device
+     *
+     * @param localIp IP address of the local interface
+     * @param port CoIoT port
+     * @param listener the listener of the device
+     * @param deviceIp IP address of the device, used to route packets by their peer address
+     * @param mac MAC address of the device, used to route packets by their global device id
+     */
+    public synchronized void start(String localIp, int port, ShellyCoapListener listener, String deviceIp,
+            String mac) throws UnknownHostException, SocketException {
         if (!started) {
             logger.debug("Initializing CoIoT listener (local IP={}:{})", localIp, port);
             NetworkConfig nc = NetworkConfig.getStandard();
@@ -101,10 +118,43 @@ public class ShellyCoapServer {
         if (!coapListeners.contains(listener)) {
             coapListeners.add(listener);
         }
+        routes.add(listener, deviceIp, mac);
     }
 
     protected void processResponse(Response response) {
-        coapListeners.forEach(listener -> listener.processResponse(response));
+        ShellyCoapListener listener = getListener(response);
+        if (listener != null) {
+            listener.processResponse(response);
+        } else {
+            // packet from a device without thing
+            unroutedPackets.incrementAndGet();
+        }
+    }
+
+    /**
+     * Find the listener of the device that sent a packet
+     *
+     * @param response the packet
+     * @return the listener or null if the device is not registered
+     */
+    private @Nullable ShellyCoapListener getListener(Response response) {
+        InetSocketAddress peer = response.getSourceContext().getPeerAddress();
+        InetAddress address = peer.getAddress();
+        String devId = null;
+        for (Option opt : response.getOptions().asSortedList()) {
+            if (opt.getNumber() == COIOT_OPTION_GLOBAL_DEVID) {
+                devId = opt.getStringValue();
+                break;
+            }
+        }
+        return routes.get(address != null ? address.getHostAddress() : peer.getHostString(), devId);
+    }
+
+    /**
+     * @return the number of packets received from devices without thing
+     */
+    public long getUnroutedPacketCount() {
+        return unroutedPackets.get();
     }
 
     public static Response createResponse(Request request) {
@@ -127,6 +177,7 @@ public class ShellyCoapServer {
      */
     public void stop(ShellyCoapListener listener) {
         coapListeners.remove(listener);
+        routes.remove(listener);
         if (coapListeners.isEmpty()) {
             stop();
         }
@@ -138,8 +189,9 @@ public class ShellyCoapServer {
             server.stop();
             statusEndpoint.stop();
             coapListeners.clear();
+            routes.clear();
             started = false;
-            logger.debug("CoAP Listener stopped");
+            logger.debug("CoAP Listener stopped, {} packets from devices without thing", unroutedPackets.get());
         }
     }
 
@@ -72,6 +72,7 @@ import org.slf4j.LoggerFactory;
  * sent to one of the channels.
  *
  * @author Markus Michels - Initial contribution
+ * @author agent - CoIoT packet statistics, start CoIoT with the new profile
  */
 @NonNullByDefault
 public class ShellyBaseHandler extends BaseThingHandler implements ShellyDeviceListener, ShellyManagerInterface {
@@ -294,13 +295,14 @@ public class ShellyBaseHandler extends BaseThingHandler implements ShellyDeviceL
         fillDeviceStatus(tmpPrf.status, false);
         postEvent(ALARM_TYPE_NONE, false);
         api.setActionURLs(); // register event urls
+        // the CoIoT listener routes packets by the MAC address and endpoint of the new profile
+        profile = tmpPrf;
         if (config.eventsCoIoT) {
             logger.debug("{}: Starting CoIoT (autoCoIoT={}/{})", thingName, bindingConfig.autoCoIoT, autoCoIoT);
             coap.start(thingName, config);
         }
 
         logger.debug("{}: Thing successfully initialized.", thingName);
-        profile = tmpPrf;
         setThingOnline(); // if API call was successful the thing must be online
 
         return true; // success
@@ -562,6 +564,8 @@ public class ShellyBaseHandler extends BaseThingHandler implements ShellyDeviceL
         stats.lastUptime = getLong(status.uptime);
         stats.coiotMessages = coap.getMessageCount();
         stats.coiotErrors = coap.getErrorCount();
+        stats.coiotPackets = coap.getPacketCount();
+        stats.coiotDuplicates = coap.getDuplicateCount();
 
         if (!alarm.isEmpty()) {
             postEvent(alarm, force);
@@ -22,6 +22,7 @@ import org.openhab.binding.shelly.internal.util.ShellyUtils;
  * {@link ShellyDeviceStats} some statistical values for the thing
  *
  * @author Markus Michels - Initial contribution
+ * @author agent - CoIoT packet statistics
  */
 @NonNullByDefault
 public class ShellyDeviceStats {
@@ -35,6 +36,8 @@ public class ShellyDeviceStats {
     public long lastAlarmTs = 0;
     public long coiotMessages = 0;
     public long coiotErrors = 0;
+    public long coiotPackets = 0;
+    public long coiotDuplicates = 0;
     public int wifiRssi = 0;
     public int maxInternalTemp = 0;
 
@@ -50,6 +53,8 @@ public class ShellyDeviceStats {
         prop.put("lastAlarmTs", ShellyUtils.convertTimestamp(lastAlarmTs));
         prop.put("coiotMessages", String.valueOf(coiotMessages));
         prop.put("coiotErrors", String.valueOf(coiotErrors));
+        prop.put("coiotPackets", String.valueOf(coiotPackets));
+        prop.put("coiotDuplicates", String.valueOf(coiotDuplicates));
         prop.put("wifiRssi", String.valueOf(wifiRssi));
         return prop;
     }
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.shelly.internal.coap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests cases for {@link ShellyCoapRoutes}
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ShellyCoapRoutesTest {
+
+    private final ShellyCoapRoutes routes = new ShellyCoapRoutes();
+    private final ShellyCoapListener first = mock(ShellyCoapListener.class);
+    private final ShellyCoapListener second = mock(ShellyCoapListener.class);
+
+    @Test
+    public void routeByPeerAddress() {
+        routes.add(first, "192.168.1.10", "AA:BB:CC:DD:EE:01");
+        routes.add(second, "192.168.1.11", "AA:BB:CC:DD:EE:02");
+
+        assertSame(first, routes.get("192.168.1.10", null));
+        assertSame(second, routes.get("192.168.1.11", "SHSW-1#AABBCCDDEE01#2"));
+        assertNull(routes.get("192.168.1.12", null));
+    }
+
+    @Test
+    public void routeByDeviceIdIfAddressIsUnknown() {
+        routes.add(first, "", "aa:bb:cc:dd:ee:01");
+        routes.add(second, "192.168.1.11", "AA:BB:CC:DD:EE:02");
+
+        assertSame(first, routes.get("10.0.0.1", "SHSW-1#AABBCCDDEE01#2"));
+        assertSame(second, routes.get("10.0.0.1", "SHSW-25#aabbccddee02#1"));
+        assertNull(routes.get("10.0.0.1", "SHSW-1#AABBCCDDEE03#2"));
+    }
+
+    @Test
+    public void routeByPartialMac() {
+        routes.add(first, "", "AA:BB:CC:DD:EE:01");
+
+        assertSame(first, routes.get("10.0.0.1", "SHDW-1#DDEE01#2"));
+        // the remembered match is removed with the listener
+        routes.remove(first);
+        assertNull(routes.get("10.0.0.1", "SHDW-1#DDEE01#2"));
+    }
+
+    @Test
+    public void malformedDeviceId() {
+        routes.add(first, "", "AA:BB:CC:DD:EE:01");
+
+        assertNull(routes.get("10.0.0.1", "AABBCCDDEE01"));
+        assertNull(routes.get("10.0.0.1", "SHSW-1#AABBCCDDEE01"));
+        assertNull(routes.get("10.0.0.1", "SHSW-1##2"));
+    }
+
+    @Test
+    public void addReplacesPreviousRoutes() {
+        routes.add(first, "192.168.1.10", "AA:BB:CC:DD:EE:01");
+        routes.add(first, "192.168.1.20", "AA:BB:CC:DD:EE:01");
+
+        assertNull(routes.get("192.168.1.10", null));
+        assertSame(first, routes.get("192.168.1.20", null));
+        assertSame(first, routes.get("10.0.0.1", "SHSW-1#AABBCCDDEE01#2"));
+    }
+
+    @Test
+    public void removeAndClear() {
+        routes.add(first, "192.168.1.10", "AA:BB:CC:DD:EE:01");
+        routes.add(second, "192.168.1.11", "AA:BB:CC:DD:EE:02");
+
+        routes.remove(first);
+        assertNull(routes.get("192.168.1.10", "SHSW-1#AABBCCDDEE01#2"));
+        assertSame(second, routes.get("192.168.1.11", null));
+
+        routes.clear();
+        assertNull(routes.get("192.168.1.11", "SHSW-1#AABBCCDDEE02#2"));
+    }
+}
@@ -0,0 +1,278 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.sonos.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link SonosContentCache} keeps the content directory containers that are shared by all zone players of a
+ * household, like the favorites, the saved playlists and the favorite radios.
+ *
+ * A container is browsed once, page by page, and then served from memory until the content directory reports a
+ * change. The change events are received by every zone player of the household, only the first player that sees a
+ * new update id invalidates the containers. If several players request a container at the same time, it is browsed
+ * only once. A lookup by title completes as soon as the page containing the title has been browsed.
+ *
+ * Containers are only cached once the household of the zone player is known, before that every request browses.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class SonosContentCache {
+
+    // Maximum time a player waits for the browse of another player
+    private static final long BROWSE_TIMEOUT_SECONDS = 30;
+
+    private final Logger logger = LoggerFactory.getLogger(SonosContentCache.class);
+
+    /**
+     * Browses one page of a container
+     */
+    @FunctionalInterface
+    public interface PageBrowser {
+        /**
+         * @param startingIndex the index of the first entry of the page
+         * @return the page or null if the container could not be browsed
+         */
+        @Nullable
+        Page browse(long startingIndex);
+    }
+
+    /**
+     * A page of a container, as returned by the Browse action
+     */
+    public static class Page {
+        private final List<SonosEntry> entries;
+        private final long numberReturned;
+        private final long totalMatches;
+
+        public Page(List<SonosEntry> entries, long numberReturned, long totalMatches) {
+            this.entries = entries;
+            this.numberReturned = numberReturned;
+            this.totalMatches = totalMatches;
+        }
+    }
+
+    /**
+     * The entries of a container, indexed by title, filled page by page
+     */
+    private static class Container {
+        private final @Nullable String key;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CompletableFuture<List<SonosEntry>> entries = new CompletableFuture<>();
+
+        // guarded by this
+        private final List<SonosEntry> browsed = new ArrayList<>();
+        private final Map<String, SonosEntry> entriesByTitle = new HashMap<>();
+        private final Map<String, List<CompletableFuture<@Nullable SonosEntry>>> lookups = new HashMap<>();
+        private boolean finished;
+
+        private Container(@Nullable String key) {
+            this.key = key;
+        }
+
+        private void addPage(List<SonosEntry> page) {
+            List<Runnable> found = new ArrayList<>();
+            synchronized (this) {
+                browsed.addAll(page);
+                for (SonosEntry entry : page) {
+                    // the first entry of a title wins, like in a search of the list
+                    if (entriesByTitle.putIfAbsent(entry.getTitle(), entry) == null) {
+                        List<CompletableFuture<@Nullable SonosEntry>> waiting = lookups.remove(entry.getTitle());
+                        if (waiting != null) {
+                            waiting.forEach(lookup -> found.add(() -> lookup.complete(entry)));
+                        }
+                    }
+                }
+            }
+            // complete outside of the lock, the lookups run the commands
+            found.forEach(Runnable::run);
+        }
+
+        private void finish() {
+            List<CompletableFuture<@Nullable SonosEntry>> notFound = new ArrayList<>();
+            List<SonosEntry> result;
+            synchronized (this) {
+                finished = true;
+                lookups.values().forEach(notFound::addAll);
+                lookups.clear();
+                result = List.copyOf(browsed);
+            }
+            notFound.forEach(lookup -> lookup.complete(null));
+            entries.complete(result);
+        }
+
+        private synchronized CompletableFuture<@Nullable SonosEntry> lookup(String title) {
+            SonosEntry entry = entriesByTitle.get(title);
+            if (entry != null || finished) {
+                return CompletableFuture.completedFuture(entry);
+            }
+            CompletableFuture<@Nullable SonosEntry> lookup = new CompletableFuture<>();
+            lookups.computeIfAbsent(title, t -> new ArrayList<>()).add(lookup);
+            return lookup;
+        }
+    }
+
+    private final Map<String, Container> containers = new ConcurrentHashMap<>();
+    private final Map<String, String> updateIds = new ConcurrentHashMap<>();
+
+    /**
+     * Get the entries of a container. If the container is not cached, it is browsed in the calling thread.
+     *
+     * @param household the household of the zone player, null if it is not yet known
+     * @param containerId the object id of the container, e.g. FV:2
+     * @param browser browses the pages of the container
+     * @return the entries
+     */
+    public List<SonosEntry> getEntries(@Nullable String household, String containerId, PageBrowser browser) {
+        Container container = getContainer(household, containerId);
+        browse(container, browser);
+        try {
+            return container.entries.get(BROWSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            logger.debug("Could not browse {} in household {}: {}", containerId, household, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return List.of();
+    }
+
+    /**
+     * Find an entry of a container by its title. If the container is not cached, it is browsed with the executor and
+     * the entry is returned as soon as the page containing it has been browsed.
+     *
+     * @param household the household of the zone player, null if it is not yet known
+     * @param containerId the object id of the container, e.g. FV:2
+     * @param title the title of the entry
+     * @param browser browses the pages of the container
+     * @param executor runs the browse
+     * @return the entry, completed with null if there is no entry with this title
+     */
+    public CompletableFuture<@Nullable SonosEntry> findEntry(@Nullable String household, String containerId,
+            String title, PageBrowser browser, Executor executor) {
+        Container container = getContainer(household, containerId);
+        CompletableFuture<@Nullable SonosEntry> lookup = container.lookup(title);
+        if (!lookup.isDone() && container.scheduled.compareAndSet(false, true)) {
+            executor.execute(() -> browse(container, browser));
+        }
+        return lookup;
+    }
+
+    /**
+     * Process a change event of the content directory
+     *
+     * @param household the household of the zone player that received the event, null if it is not yet known
+     * @param variable the name of the state variable, e.g. FavoritesUpdateID
+     * @param updateId the value of the state variable
+     * @param containerIds the object ids of the containers that are affected by the change; a container is also
+     *            invalidated if its id starts with one of these ids
+     * @return true if the event is new, false if another zone player of the household already received it
+     */
+    public boolean update(@Nullable String household, String variable, String updateId,
+            Collection<String> containerIds) {
+        if (household == null) {
+            // nothing is cached for this zone player
+            return true;
+        }
+        String previous = updateIds.put(household + "/" + variable, updateId);
+        if (updateId.equals(previous)) {
+            return false;
+        }
+        for (String containerId : containerIds) {
+            invalidate(household, containerId);
+        }
+        return true;
+    }
+
+    /**
+     * Forget the entries of containers, after the zone player has changed them
+     *
+     * @param household the household of the zone player, null if it is not yet known
+     * @param containerId the object id of the container; all containers with an id starting with it are invalidated
+     */
+    public void invalidate(@Nullable String household, String containerId) {
+        if (household == null) {
+            return;
+        }
+        String prefix = key(household, containerId);
+        if (containers.keySet().removeIf(key -> key.startsWith(prefix))) {
+            logger.debug("Content of {} in household {} has changed", containerId, household);
+        }
+    }
+
+    private Container getContainer(@Nullable String household, String containerId) {
+        if (household == null) {
+            // the household is not yet known, the entries could not be shared nor invalidated
+            return new Container(null);
+        }
+        String key = key(household, containerId);
+        return containers.computeIfAbsent(key, Container::new);
+    }
+
+    /**
+     * Browse all pages of a container, unless another thread has already started it
+     */
+    private void browse(Container container, PageBrowser browser) {
+        if (!container.started.compareAndSet(false, true)) {
+            return;
+        }
+        boolean complete = false;
+        long startingIndex = 0;
+        try {
+            while (true) {
+                Page page = browser.browse(startingIndex);
+                if (page == null) {
+                    break;
+                }
+                container.addPage(page.entries);
+                startingIndex += page.numberReturned;
+                if (startingIndex >= page.totalMatches) {
+                    complete = true;
+                    break;
+                } else if (page.numberReturned <= 0) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.debug("Browsing a container failed: {}", e.getMessage(), e);
+        } finally {
+            String key = container.key;
+            if (key != null && (!complete || startingIndex == 0)) {
+                // an incomplete or empty container could also be an error, browse again next time
+                containers.remove(key, container);
+            }
+            container.finish();
+        }
+    }
+
+    private static String key(String household, String containerId) {
+        return household + "/" + containerId;
+    }
+}
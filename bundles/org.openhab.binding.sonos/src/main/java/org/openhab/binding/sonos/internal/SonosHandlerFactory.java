@@ -30,7 +30,6 @@ import org.openhab.core.io.transport.upnp.UpnpIOService;
 import org.openhab.core.net.HttpServiceUtil;
 import org.openhab.core.net.NetworkAddressService;
 import org.openhab.core.thing.Thing;
-import org.openhab.core.thing.ThingRegistry;
 import org.openhab.core.thing.ThingTypeUID;
 import org.openhab.core.thing.ThingUID;
 import org.openhab.core.thing.binding.BaseThingHandlerFactory;
@@ -49,6 +48,8 @@ import org.slf4j.LoggerFactory;
  * handlers.
  *
  * @author Karel Goderis - Initial contribution
+ * @author agent - Shared zone topology instead of the thing registry
+ * @author agent - Shared content cache
  */
 @NonNullByDefault
 @Component(service = ThingHandlerFactory.class, configurationPid = "binding.sonos")
@@ -56,9 +57,8 @@ public class SonosHandlerFactory extends BaseThingHandlerFactory {
 
     private final Logger logger = LoggerFactory.getLogger(SonosHandlerFactory.class);
 
-    // Bindings should not use the ThingRegistry! See https://github.com/openhab/openhab-addons/pull/6080 and
-    // https://github.com/eclipse/smarthome/issues/5182
-    private final ThingRegistry thingRegistry;
+    private final SonosZoneTopology topology = new SonosZoneTopology();
+    private final SonosContentCache contentCache = new SonosContentCache();
     private final UpnpIOService upnpIOService;
     private final AudioHTTPServer audioHTTPServer;
     private final NetworkAddressService networkAddressService;
@@ -73,11 +73,10 @@ public class SonosHandlerFactory extends BaseThingHandlerFactory {
     private @Nullable String callbackUrl;
 
     @Activate
-    public SonosHandlerFactory(final @Reference ThingRegistry thingRegistry,
-            final @Reference UpnpIOService upnpIOService, final @Reference AudioHTTPServer audioHTTPServer,
+    public SonosHandlerFactory(final @Reference UpnpIOService upnpIOService,
+            final @Reference AudioHTTPServer audioHTTPServer,
             final @Reference NetworkAddressService networkAddressService,
             final @Reference SonosStateDescriptionOptionProvider stateDescriptionProvider) {
-        this.thingRegistry = thingRegistry;
         this.upnpIOService = upnpIOService;
         this.audioHTTPServer = audioHTTPServer;
         this.networkAddressService = networkAddressService;
@@ -117,7 +116,7 @@ public class SonosHandlerFactory extends BaseThingHandlerFactory {
             logger.debug("Creating a ZonePlayerHandler for thing '{}' with UDN '{}'", thing.getUID(),
                     thing.getConfiguration().get(UDN));
 
-            ZonePlayerHandler handler = new ZonePlayerHandler(thingRegistry, thing, upnpIOService, opmlUrl,
+            ZonePlayerHandler handler = new ZonePlayerHandler(topology, contentCache, thing, upnpIOService, opmlUrl,
                     stateDescriptionProvider);
 
             // register the speaker as an audio sink
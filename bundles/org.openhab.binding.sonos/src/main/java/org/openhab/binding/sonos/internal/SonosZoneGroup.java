@@ -14,31 +14,34 @@ package org.openhab.binding.sonos.internal;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 
 /**
  * The {@link SonosZoneGroup} is data structure to describe
- * Groups of Zone Players in the Sonos ecosystem
+ * Groups of Zone Players in the Sonos ecosystem. It is immutable, as it is shared by all zone players.
  *
  * @author Karel Goderis - Initial contribution
+ * @author agent - Immutable
  */
 @NonNullByDefault
 public class SonosZoneGroup {
 
     private final List<String> members;
-    private List<String> memberZoneNames;
+    private final List<String> memberZoneNames;
     private final String coordinator;
     private final String id;
 
     public SonosZoneGroup(String id, String coordinator, Collection<String> members,
             Collection<String> memberZoneNames) {
-        this.members = new ArrayList<>(members);
-        if (!this.members.contains(coordinator)) {
-            this.members.add(coordinator);
+        List<String> allMembers = new ArrayList<>(members);
+        if (!allMembers.contains(coordinator)) {
+            allMembers.add(coordinator);
         }
-        this.memberZoneNames = new ArrayList<>(memberZoneNames);
+        this.members = Collections.unmodifiableList(allMembers);
+        this.memberZoneNames = Collections.unmodifiableList(new ArrayList<>(memberZoneNames));
         this.coordinator = coordinator;
         this.id = id;
     }
@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.sonos.internal;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.sonos.internal.handler.ZonePlayerHandler;
+
+/**
+ * The {@link SonosZoneTopology} is shared by all zone players of the binding.
+ *
+ * All players of a household receive the same ZoneGroupState event. Each revision of the zone group state is parsed
+ * only once and published as an immutable {@link Snapshot}. The topology also maintains an index of the zone player
+ * handlers by UDN, so players find their group members without searching the things.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class SonosZoneTopology {
+
+    // Several households may be present, keep the latest revision of each
+    private static final int MAX_SNAPSHOTS = 4;
+
+    /**
+     * Immutable zone groups of one revision of the zone group state
+     */
+    public static class Snapshot {
+        public static final Snapshot EMPTY = new Snapshot(Collections.emptyList());
+
+        private final List<SonosZoneGroup> groups;
+        private final Map<String, SonosZoneGroup> groupsByMember = new HashMap<>();
+        private final String householdKey;
+
+        private Snapshot(List<SonosZoneGroup> groups) {
+            this.groups = List.copyOf(groups);
+            String lowestMember = null;
+            for (SonosZoneGroup group : this.groups) {
+                for (String member : group.getMembers()) {
+                    groupsByMember.put(member, group);
+                    if (member != null && (lowestMember == null || member.compareTo(lowestMember) < 0)) {
+                        lowestMember = member;
+                    }
+                }
+            }
+            householdKey = lowestMember != null ? lowestMember : "";
+        }
+
+        public List<SonosZoneGroup> getGroups() {
+            return groups;
+        }
+
+        /**
+         * @param udn the UDN of a zone player
+         * @return the group of the zone player, or null if it is not member of a group
+         */
+        public @Nullable SonosZoneGroup getGroup(String udn) {
+            return groupsByMember.get(udn);
+        }
+
+        public boolean isEmpty() {
+            return groups.isEmpty();
+        }
+
+        /**
+         * The zone group state contains all zone players of a household, so the lowest UDN identifies the household.
+         *
+         * @return a key of the household, or an empty string if there are no zone groups
+         */
+        public String getHouseholdKey() {
+            return householdKey;
+        }
+    }
+
+    private final Map<String, Snapshot> snapshots = new LinkedHashMap<>(MAX_SNAPSHOTS + 1, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.@Nullable Entry<String, Snapshot> eldest) {
+            return size() > MAX_SNAPSHOTS;
+        }
+    };
+
+    private final Map<String, ZonePlayerHandler> handlers = new ConcurrentHashMap<>();
+
+    /**
+     * Get the zone groups of a zone group state. The XML is parsed only if it has not been seen before.
+     *
+     * @param zoneGroupState the value of the ZoneGroupState variable
+     * @return the zone groups
+     */
+    public synchronized Snapshot getSnapshot(String zoneGroupState) {
+        Snapshot snapshot = snapshots.get(zoneGroupState);
+        if (snapshot == null) {
+            snapshot = new Snapshot(SonosXMLParser.getZoneGroupFromXML(zoneGroupState));
+            snapshots.put(zoneGroupState, snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Register the handler of a zone player
+     *
+     * @param udn the UDN of the zone player
+     * @param handler the handler
+     */
+    public void addHandler(String udn, ZonePlayerHandler handler) {
+        handlers.put(udn, handler);
+    }
+
+    /**
+     * Unregister the handler of a zone player
+     *
+     * @param udn the UDN of the zone player
+     * @param handler the handler
+     */
+    public void removeHandler(String udn, ZonePlayerHandler handler) {
+        handlers.remove(udn, handler);
+    }
+
+    /**
+     * @param udn the UDN of a zone player
+     * @return the handler of the zone player, or null if there is none
+     */
+    public @Nullable ZonePlayerHandler getHandler(String udn) {
+        return handlers.get(udn);
+    }
+
+    public Collection<ZonePlayerHandler> getHandlers() {
+        return Collections.unmodifiableCollection(handlers.values());
+    }
+}
@@ -31,11 +31,13 @@ import java.util.Map;
 import java.util.TimeZone;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.binding.sonos.internal.SonosAlarm;
 import org.openhab.binding.sonos.internal.SonosBindingConstants;
+import org.openhab.binding.sonos.internal.SonosContentCache;
 import org.openhab.binding.sonos.internal.SonosEntry;
 import org.openhab.binding.sonos.internal.SonosMetaData;
 import org.openhab.binding.sonos.internal.SonosMusicService;
@@ -44,6 +46,7 @@ import org.openhab.binding.sonos.internal.SonosStateDescriptionOptionProvider;
 import org.openhab.binding.sonos.internal.SonosXMLParser;
 import org.openhab.binding.sonos.internal.SonosZoneGroup;
 import org.openhab.binding.sonos.internal.SonosZonePlayerState;
+import org.openhab.binding.sonos.internal.SonosZoneTopology;
 import org.openhab.binding.sonos.internal.config.ZonePlayerConfiguration;
 import org.openhab.core.io.net.http.HttpUtil;
 import org.openhab.core.io.transport.upnp.UpnpIOParticipant;
@@ -60,13 +63,10 @@ import org.openhab.core.library.types.StringType;
 import org.openhab.core.library.types.UpDownType;
 import org.openhab.core.thing.ChannelUID;
 import org.openhab.core.thing.Thing;
-import org.openhab.core.thing.ThingRegistry;
 import org.openhab.core.thing.ThingStatus;
 import org.openhab.core.thing.ThingStatusDetail;
 import org.openhab.core.thing.ThingTypeUID;
-import org.openhab.core.thing.ThingUID;
 import org.openhab.core.thing.binding.BaseThingHandler;
-import org.openhab.core.thing.binding.ThingHandler;
 import org.openhab.core.types.Command;
 import org.openhab.core.types.RefreshType;
 import org.openhab.core.types.State;
@@ -80,6 +80,8 @@ import org.slf4j.LoggerFactory;
  * sent to one of the channels.
  *
  * @author Karel Goderis - Initial contribution
+ * @author agent - Shared zone topology and handler index
+ * @author agent - Cached favorites, playlists and radios
  */
 @NonNullByDefault
 public class ZonePlayerHandler extends BaseThingHandler implements UpnpIOParticipant {
@@ -113,6 +115,11 @@ public class ZonePlayerHandler extends BaseThingHandler implements UpnpIOPartici
     private static final String SERVICE_CONTENT_DIRECTORY = "ContentDirectory";
     private static final String SERVICE_ALARM_CLOCK = "AlarmClock";
 
+    private static final String CONTAINER_FAVORITES = "FV:2";
+    private static final String CONTAINER_PLAYLISTS = "SQ:";
+    private static final String CONTAINER_RADIOS = "R:0/0";
+    private static final String CONTENT_FILTER = "dc:title,res,dc:creator,upnp:artist,upnp:album";
+
     private static final Collection<String> SERVICE_SUBSCRIPTIONS = Arrays.asList(SERVICE_DEVICE_PROPERTIES,
             SERVICE_AV_TRANSPORT, SERVICE_ZONE_GROUP_TOPOLOGY, SERVICE_GROUP_MANAGEMENT, SERVICE_RENDERING_CONTROL,
             SERVICE_AUDIO_IN, SERVICE_HT_CONTROL, SERVICE_CONTENT_DIRECTORY);
@@ -164,7 +171,8 @@ public class ZonePlayerHandler extends BaseThingHandler implements UpnpIOPartici
 
     private final Logger logger = LoggerFactory.getLogger(ZonePlayerHandler.class);
 
-    private final ThingRegistry localThingRegistry;
+    private final SonosZoneTopology topology;
+    private final SonosContentCache contentCache;
     private final UpnpIOService service;
     private final @Nullable String opmlUrl;
     private final SonosStateDescriptionOptionProvider stateDescriptionProvider;
@@ -186,6 +194,11 @@ public class ZonePlayerHandler extends BaseThingHandler implements UpnpIOPartici
 
     private Map<String, Boolean> subscriptionState = new HashMap<>();
 
+    /**
+     * Zone groups of the last ZoneGroupState event, shared with the other players of the household
+     */
+    private volatile SonosZoneTopology.Snapshot zoneGroups = SonosZoneTopology.Snapshot.EMPTY;
+
     /**
      * Thing handler instance of the coordinator speaker used for control delegation
      */
@@ -199,10 +212,12 @@ public class ZonePlayerHandler extends BaseThingHandler implements UpnpIOPartici
         ANY
     }
 
-    public ZonePlayerHandler(ThingRegistry thingRegistry, Thing thing, UpnpIOService upnpIOService,
-            @Nullable String opmlUrl, SonosStateDescriptionOptionProvider stateDescriptionProvider) {
+    public ZonePlayerHandler(SonosZoneTopology topology, SonosContentCache contentCache, Thing thing,
+            UpnpIOService upnpIOService, @Nullable String opmlUrl,
+            SonosStateDescriptionOptionProvider stateDescriptionProvider) {
         super(thing);
-        this.localThingRegistry = thingRegistry;
+        this.topology = topology;
+        this.contentCache = contentCache;
         this.opmlUrl = opmlUrl;
         logger.debug("Creating a ZonePlayerHandler for thing '{}'", getThing().getUID());
         this.service = upnpIOService;
@@ -221,6 +236,11 @@ public class ZonePlayerHandler extends BaseThingHandler implements UpnpIOPartici
 
         removeSubscription();
         service.unregisterParticipant(this);
+
+        String udn = configuration.udn;
+        if (udn != null) {
+            topology.removeHandler(udn, this);
+        }
     }
 
     @Override
@@ -235,6 +255,7 @@ public class ZonePlayerHandler extends BaseThingHandler implements UpnpIOPartici
         configuration = getConfigAs(ZonePlayerConfiguration.class);
         String udn = configuration.udn;
         if (udn != null && !udn.isEmpty()) {
+            topology.addHandler(udn, this);
             service.registerParticipant(this);
             pollingJob = scheduler.scheduleWithFixedDelay(this::poll, 0, configuration.refresh, TimeUnit.SECONDS);
         } else {
@@ -443,24 +464,14 @@ public class ZonePlayerHandler extends BaseThingHandler implements UpnpIOPartici
     }
 
     private void restoreAllPlayerState() {
-        for (Thing aThing : localThingRegistry.getAll()) {
-            if (SonosBindingConstants.SUPPORTED_THING_TYPES_UIDS.contains(aThing.getThingTypeUID())) {
-                ZonePlayerHandler handler = (ZonePlayerHandler) aThing.getHandler();
-                if (handler != null) {
-                    handler.restoreState();
-                }
-            }
+        for (ZonePlayerHandler handler : topology.getHandlers()) {
+            handler.restoreState();
         }
     }
 
     private void saveAllPlayerState() {
-        for (Thing aThing : localThingRegistry.getAll()) {
-            if (SonosBindingConstants.SUPPORTED_THING_TYPES_UIDS.contains(aThing.getThingTypeUID())) {
-                ZonePlayerHandler handler = (ZonePlayerHandler) aThing.getHandler();
-                if (handler != null) {
-                    handler.saveState();
-                }
-            }
+        for (ZonePlayerHandler handler : topology.getHandlers()) {
+            handler.saveState();
         }
     }
 
@@ -511,8 +522,6 @@ public class ZonePlayerHandler extends BaseThingHandler implements UpnpIOPartici
                 });
             }
 
-            List<StateOption> options = new ArrayList<>();
-
             // update the appropriate channel
             switch (variable) {
                 case "TransportState":
@@ -536,6 +545,8 @@ public class ZonePlayerHandler extends BaseThingHandler implements UpnpIOPartici
                     updateChannel(ZONENAME);
                     break;
                 case "ZoneGroupState":
+                    // parsed only once for all players of the household
+                    zoneGroups = topology.getSnapshot(value);
                     updateChannel(COORDINATOR);
                     // Update coordinator after a change is made to the grouping of Sonos players
                     updateGroupCoordinator();
@@ -665,28 +676,23 @@ public class ZonePlayerHandler extends BaseThingHandler implements UpnpIOPartici
                 case "CurrentTuneInStationId":
                     updateChannel(TUNEINSTATIONID);
                     break;
+                // The content is browsed on the scheduler, large libraries must not block the event processing
                 case "SavedQueuesUpdateID": // service ContentDirectoy
-                    for (SonosEntry entry : getPlayLists()) {
-                        options.add(new StateOption(entry.getTitle(), entry.getTitle()));
-                    }
-                    stateDescriptionProvider.setStateOptions(new ChannelUID(getThing().getUID(), PLAYLIST), options);
+                    contentCache.update(getHousehold(), variable, value, List.of(CONTAINER_PLAYLISTS));
+                    scheduler.execute(() -> updateStateOptions(PLAYLIST, getPlayLists()));
                     break;
                 case "FavoritesUpdateID": // service ContentDirectoy
-                    for (SonosEntry entry : getFavorites()) {
-                        options.add(new StateOption(entry.getTitle(), entry.getTitle()));
-                    }
-                    stateDescriptionProvider.setStateOptions(new ChannelUID(getThing().getUID(), FAVORITE), options);
+                    contentCache.update(getHousehold(), variable, value, List.of(CONTAINER_FAVORITES));
+                    scheduler.execute(() -> updateStateOptions(FAVORITE, getFavorites()));
                     break;
                 // For favorite radios, we should have checked the state variable named RadioFavoritesUpdateID
                 // Due to a bug in the data type definition of this state variable, it is not set.
                 // As a workaround, we check the state variable named ContainerUpdateIDs.
                 case "ContainerUpdateIDs": // service ContentDirectoy
+                    contentCache.update(getHousehold(), variable, value, getContainerIds(value));
                     if (value.startsWith("R:0,") || stateDescriptionProvider
                             .getStateOptions(new ChannelUID(getThing().getUID(), RADIO)) == null) {
-                        for (SonosEntry entry : getFavoriteRadios()) {
-                            options.add(new StateOption(entry.getTitle(), entry.getTitle()));
-                        }
-                        stateDescriptionProvider.setStateOptions(new ChannelUID(getThing().getUID(), RADIO), options);
+                        scheduler.execute(() -> updateStateOptions(RADIO, getFavoriteRadios()));
                     }
                     break;
                 case "MoreInfo":
@@ -1187,12 +1193,8 @@ public class ZonePlayerHandler extends BaseThingHandler implements UpnpIOPartici
     }
 
     public String getCoordinator() {
-        for (SonosZoneGroup zg : getZoneGroups()) {
-            if (zg.getMembers().contains(getUDN())) {
-                return zg.getCoordinator();
-            }
-        }
-        return getUDN();
+        SonosZoneGroup zg = zoneGroups.getGroup(getUDN());
+        return zg != null ? zg.getCoordinator() : getUDN();
     }
 
     public boolean isCoordinator() {
@@ -1518,7 +1520,7 @@ public class ZonePlayerHandler extends BaseThingHandler implements UpnpIOPartici
     }
 
     public List<SonosEntry> getPlayLists() {
-        return getEntries("SQ:", "dc:title,res,dc:creator,upnp:artist,upnp:album");
+        return contentCache.getEntries(getHousehold(), CONTAINER_PLAYLISTS, browser(CONTAINER_PLAYLISTS));
     }
 
     public List<SonosEntry> getFavoriteRadios(String filter) {
@@ -1526,7 +1528,7 @@ public class ZonePlayerHandler extends BaseThingHandler implements UpnpIOPartici
     }
 
     public List<SonosEntry> getFavoriteRadios() {
-        return getEntries("R:0/0", "dc:title,res,dc:creator,upnp:artist,upnp:album");
+        return contentCache.getEntries(getHousehold(), CONTAINER_RADIOS, browser(CONTAINER_RADIOS));
     }
 
     /**
@@ -1535,7 +1537,81 @@ public class ZonePlayerHandler extends BaseThingHandler implements UpnpIOPartici
      * @return
      */
     public List<SonosEntry> getFavorites() {
-        return getEntries("FV:2", "dc:title,res,dc:creator,upnp:artist,upnp:album");
+        return contentCache.getEntries(getHousehold(), CONTAINER_FAVORITES, browser(CONTAINER_FAVORITES));
+    }
+
+    /**
+     * Favorites, playlists and radios are shared by all zone players of a household
+     *
+     * @return a key of the household, or null if the zone groups are not yet known
+     */
+    private @Nullable String getHousehold() {
+        String household = zoneGroups.getHouseholdKey();
+        return household.isEmpty() ? null : household;
+    }
+
+    /**
+     * Find an entry of a favorites, playlists or radios container by its title. A container that is not yet cached is
+     * browsed on the scheduler, the action runs as soon as the page containing the entry has been browsed.
+     *
+     * @param containerId the object id of the container
+     * @param title the title of the entry
+     * @param action receives the entry, or null if there is no entry with this title
+     */
+    private void findEntry(String containerId, String title, Consumer<@Nullable SonosEntry> action) {
+        contentCache.findEntry(getHousehold(), containerId, title, browser(containerId), scheduler).thenAccept(action)
+                .exceptionally(e -> {
+                    logger.debug("Cannot handle '{}' of {} ({})", title, containerId, e.getMessage());
+                    return null;
+                });
+    }
+
+    /**
+     * Browses a container of the content directory page by page, for the {@link SonosContentCache}
+     */
+    private SonosContentCache.PageBrowser browser(String containerId) {
+        return startingIndex -> browsePage(containerId, CONTENT_FILTER, startingIndex);
+    }
+
+    private SonosContentCache.@Nullable Page browsePage(String type, String filter, long startingIndex) {
+        Map<String, String> inputs = new HashMap<>();
+        inputs.put("ObjectID", type);
+        inputs.put("BrowseFlag", "BrowseDirectChildren");
+        inputs.put("Filter", filter);
+        inputs.put("StartingIndex", Long.toString(startingIndex));
+        inputs.put("RequestedCount", Integer.toString(200));
+        inputs.put("SortCriteria", "");
+
+        Map<String, String> result = service.invokeAction(this, SERVICE_CONTENT_DIRECTORY, "Browse", inputs);
+
+        String entries = result.get("Result");
+        if (entries == null) {
+            return null;
+        }
+        return new SonosContentCache.Page(SonosXMLParser.getEntriesFromString(entries),
+                getResultEntry(result, "NumberReturned", type, filter),
+                getResultEntry(result, "TotalMatches", type, filter));
+    }
+
+    /**
+     * @param containerUpdateIds the value of ContainerUpdateIDs, pairs of container id and update id
+     * @return the container ids
+     */
+    private static List<String> getContainerIds(String containerUpdateIds) {
+        List<String> containerIds = new ArrayList<>();
+        String[] values = containerUpdateIds.split(",");
+        for (int i = 0; i < values.length; i += 2) {
+            containerIds.add(values[i]);
+        }
+        return containerIds;
+    }
+
+    private void updateStateOptions(String channelId, List<SonosEntry> entries) {
+        List<StateOption> options = new ArrayList<>();
+        for (SonosEntry entry : entries) {
+            options.add(new StateOption(entry.getTitle(), entry.getTitle()));
+        }
+        stateDescriptionProvider.setStateOptions(new ChannelUID(getThing().getUID(), channelId), options);
     }
 
     protected List<SonosEntry> getEntries(String type, String filter) {
@@ -1763,6 +1839,8 @@ public class ZonePlayerHandler extends BaseThingHandler implements UpnpIOPartici
 
     public void saveQueue(String name, String queueID) {
         executeAction(SERVICE_AV_TRANSPORT, ACTION_SAVE_QUEUE, Map.of("Title", name, "ObjectID", queueID));
+        // do not wait for the event, the saved playlist may be looked up right away
+        contentCache.invalidate(getHousehold(), CONTAINER_PLAYLISTS);
     }
 
     public void setVolume(Command command) {
@@ -1886,8 +1964,7 @@ public class ZonePlayerHandler extends BaseThingHandler implements UpnpIOPartici
     }
 
     private Collection<SonosZoneGroup> getZoneGroups() {
-        String zoneGroupState = stateMap.get("ZoneGroupState");
-        return zoneGroupState == null ? Collections.emptyList() : SonosXMLParser.getZoneGroupFromXML(zoneGroupState);
+        return zoneGroups.getGroups();
     }
 
     /**
@@ -1897,13 +1974,11 @@ public class ZonePlayerHandler extends BaseThingHandler implements UpnpIOPartici
      * @return {@link SonosZoneGroup}
      */
     private @Nullable SonosZoneGroup getCurrentZoneGroup() {
-        for (SonosZoneGroup zoneGroup : getZoneGroups()) {
-            if (zoneGroup.getMembers().contains(getUDN())) {
-                return zoneGroup;
-            }
+        SonosZoneGroup zoneGroup = zoneGroups.getGroup(getUDN());
+        if (zoneGroup == null) {
+            logger.debug("Could not fetch Sonos group state information");
         }
-        logger.debug("Could not fetch Sonos group state information");
-        return null;
+        return zoneGroup;
     }
 
     /**
@@ -2238,13 +2313,11 @@ public class ZonePlayerHandler extends BaseThingHandler implements UpnpIOPartici
     protected List<String> getZoneGroupMembers() {
         List<String> result = new ArrayList<>();
 
-        Collection<SonosZoneGroup> zoneGroups = getZoneGroups();
+        SonosZoneTopology.Snapshot zoneGroups = this.zoneGroups;
         if (!zoneGroups.isEmpty()) {
-            for (SonosZoneGroup zg : zoneGroups) {
-                if (zg.getMembers().contains(getUDN())) {
-                    result.addAll(zg.getMembers());
-                    break;
-                }
+            SonosZoneGroup zg = zoneGroups.getGroup(getUDN());
+            if (zg != null) {
+                result.addAll(zg.getMembers());
             }
         } else {
             // If the group topology was not yet received, return at least the current Sonos zone
@@ -2266,22 +2339,14 @@ public class ZonePlayerHandler extends BaseThingHandler implements UpnpIOPartici
     }
 
     protected ZonePlayerHandler getHandlerByName(String remotePlayerName) throws IllegalStateException {
-        for (ThingTypeUID supportedThingType : SonosBindingConstants.SUPPORTED_THING_TYPES_UIDS) {
-            Thing thing = localThingRegistry.get(new ThingUID(supportedThingType, remotePlayerName));
-            if (thing != null) {
-                ThingHandler handler = thing.getHandler();
-                if (handler instanceof ZonePlayerHandler) {
-                    return (ZonePlayerHandler) handler;
-                }
-            }
+        ZonePlayerHandler handler = topology.getHandler(remotePlayerName);
+        if (handler != null) {
+            return handler;
         }
-        for (Thing aThing : localThingRegistry.getAll()) {
-            if (SonosBindingConstants.SUPPORTED_THING_TYPES_UIDS.contains(aThing.getThingTypeUID())
-                    && aThing.getConfiguration().get(ZonePlayerConfiguration.UDN).equals(remotePlayerName)) {
-                ThingHandler handler = aThing.getHandler();
-                if (handler instanceof ZonePlayerHandler) {
-                    return (ZonePlayerHandler) handler;
-                }
+        // the thing id of manually defined things may differ from the UDN
+        for (ZonePlayerHandler aHandler : topology.getHandlers()) {
+            if (aHandler.getThing().getUID().getId().equals(remotePlayerName)) {
+                return aHandler;
             }
         }
         throw new IllegalStateException("Could not find handler for " + remotePlayerName);
@@ -2916,29 +2981,21 @@ public class ZonePlayerHandler extends BaseThingHandler implements UpnpIOPartici
     public void playRadio(Command command) {
         if (command instanceof StringType) {
             String station = command.toString();
-            List<SonosEntry> stations = getFavoriteRadios();
-
-            SonosEntry theEntry = null;
             // search for the appropriate radio based on its name (title)
-            for (SonosEntry someStation : stations) {
-                if (someStation.getTitle().equals(station)) {
-                    theEntry = someStation;
-                    break;
-                }
-            }
-
-            // set the URI of the group coordinator
-            if (theEntry != null) {
-                try {
-                    ZonePlayerHandler coordinator = getCoordinatorHandler();
-                    coordinator.setCurrentURI(theEntry);
-                    coordinator.play();
-                } catch (IllegalStateException e) {
-                    logger.debug("Cannot play radio ({})", e.getMessage());
+            findEntry(CONTAINER_RADIOS, station, theEntry -> {
+                // set the URI of the group coordinator
+                if (theEntry != null) {
+                    try {
+                        ZonePlayerHandler coordinator = getCoordinatorHandler();
+                        coordinator.setCurrentURI(theEntry);
+                        coordinator.play();
+                    } catch (IllegalStateException e) {
+                        logger.debug("Cannot play radio ({})", e.getMessage());
+                    }
+                } else {
+                    logger.debug("Radio station '{}' not found", station);
                 }
-            } else {
-                logger.debug("Radio station '{}' not found", station);
-            }
+            });
         }
     }
 
@@ -3031,42 +3088,35 @@ public class ZonePlayerHandler extends BaseThingHandler implements UpnpIOPartici
     public void playFavorite(Command command) {
         if (command instanceof StringType) {
             String favorite = command.toString();
-            List<SonosEntry> favorites = getFavorites();
-
-            SonosEntry theEntry = null;
             // search for the appropriate favorite based on its name (title)
-            for (SonosEntry entry : favorites) {
-                if (entry.getTitle().equals(favorite)) {
-                    theEntry = entry;
-                    break;
-                }
-            }
-
-            // set the URI of the group coordinator
-            if (theEntry != null) {
-                try {
-                    ZonePlayerHandler coordinator = getCoordinatorHandler();
-
-                    /**
-                     * If this is a playlist we need to treat it as such
-                     */
-                    SonosResourceMetaData resourceMetaData = theEntry.getResourceMetaData();
-                    if (resourceMetaData != null && resourceMetaData.getUpnpClass().startsWith("object.container")) {
-                        coordinator.removeAllTracksFromQueue();
-                        coordinator.addURIToQueue(theEntry);
-                        coordinator.setCurrentURI(QUEUE_URI + coordinator.getUDN() + "#0", "");
-                        String firstTrackNumberEnqueued = stateMap.get("FirstTrackNumberEnqueued");
-                        coordinator.seek("TRACK_NR", firstTrackNumberEnqueued);
-                    } else {
-                        coordinator.setCurrentURI(theEntry);
+            findEntry(CONTAINER_FAVORITES, favorite, theEntry -> {
+                // set the URI of the group coordinator
+                if (theEntry != null) {
+                    try {
+                        ZonePlayerHandler coordinator = getCoordinatorHandler();
+
+                        /**
+                         * If this is a playlist we need to treat it as such
+                         */
+                        SonosResourceMetaData resourceMetaData = theEntry.getResourceMetaData();
+                        if (resourceMetaData != null
+                                && resourceMetaData.getUpnpClass().startsWith("object.container")) {
+                            coordinator.removeAllTracksFromQueue();
+                            coordinator.addURIToQueue(theEntry);
+                            coordinator.setCurrentURI(QUEUE_URI + coordinator.getUDN() + "#0", "");
+                            String firstTrackNumberEnqueued = stateMap.get("FirstTrackNumberEnqueued");
+                            coordinator.seek("TRACK_NR", firstTrackNumberEnqueued);
+                        } else {
+                            coordinator.setCurrentURI(theEntry);
+                        }
+                        coordinator.play();
+                    } catch (IllegalStateException e) {
+                        logger.debug("Cannot paly favorite ({})", e.getMessage());
                     }
-                    coordinator.play();
-                } catch (IllegalStateException e) {
-                    logger.debug("Cannot paly favorite ({})", e.getMessage());
+                } else {
+                    logger.debug("Favorite '{}' not found", favorite);
                 }
-            } else {
-                logger.debug("Favorite '{}' not found", favorite);
-            }
+            });
         }
     }
 
@@ -3096,36 +3146,28 @@ public class ZonePlayerHandler extends BaseThingHandler implements UpnpIOPartici
     public void playPlayList(Command command) {
         if (command instanceof StringType) {
             String playlist = command.toString();
-            List<SonosEntry> playlists = getPlayLists();
-
-            SonosEntry theEntry = null;
             // search for the appropriate play list based on its name (title)
-            for (SonosEntry somePlaylist : playlists) {
-                if (somePlaylist.getTitle().equals(playlist)) {
-                    theEntry = somePlaylist;
-                    break;
-                }
-            }
-
-            // set the URI of the group coordinator
-            if (theEntry != null) {
-                try {
-                    ZonePlayerHandler coordinator = getCoordinatorHandler();
+            findEntry(CONTAINER_PLAYLISTS, playlist, theEntry -> {
+                // set the URI of the group coordinator
+                if (theEntry != null) {
+                    try {
+                        ZonePlayerHandler coordinator = getCoordinatorHandler();
 
-                    coordinator.addURIToQueue(theEntry);
+                        coordinator.addURIToQueue(theEntry);
 
-                    coordinator.setCurrentURI(QUEUE_URI + coordinator.getUDN() + "#0", "");
+                        coordinator.setCurrentURI(QUEUE_URI + coordinator.getUDN() + "#0", "");
 
-                    String firstTrackNumberEnqueued = stateMap.get("FirstTrackNumberEnqueued");
-                    coordinator.seek("TRACK_NR", firstTrackNumberEnqueued);
+                        String firstTrackNumberEnqueued = stateMap.get("FirstTrackNumberEnqueued");
+                        coordinator.seek("TRACK_NR", firstTrackNumberEnqueued);
 
-                    coordinator.play();
-                } catch (IllegalStateException e) {
-                    logger.debug("Cannot play playlist ({})", e.getMessage());
+                        coordinator.play();
+                    } catch (IllegalStateException e) {
+                        logger.debug("Cannot play playlist ({})", e.getMessage());
+                    }
+                } else {
+                    logger.debug("Playlist '{}' not found", playlist);
                 }
-            } else {
-                logger.debug("Playlist '{}' not found", playlist);
-            }
+            });
         }
     }
 
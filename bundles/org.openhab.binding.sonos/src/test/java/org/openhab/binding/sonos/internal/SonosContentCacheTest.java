@@ -0,0 +1,215 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.sonos.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+import org.openhab.binding.sonos.internal.SonosContentCache.Page;
+import org.openhab.binding.sonos.internal.SonosContentCache.PageBrowser;
+
+/**
+ * Tests cases for {@link SonosContentCache}
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class SonosContentCacheTest {
+
+    private static final String HOUSEHOLD = "RINCON_A";
+    private static final String FAVORITES = "FV:2";
+
+    private final SonosContentCache cache = new SonosContentCache();
+    private final Queue<Runnable> submitted = new LinkedList<>();
+    private final Executor executor = submitted::add;
+
+    /**
+     * Serves a container of entries in pages and counts the Browse requests
+     */
+    private static class TestBrowser implements PageBrowser {
+        private final List<SonosEntry> entries = new ArrayList<>();
+        private final int pageSize;
+        private final List<Long> requests = new ArrayList<>();
+
+        private TestBrowser(int pageSize, String... titles) {
+            this.pageSize = pageSize;
+            for (String title : titles) {
+                entries.add(entry(title));
+            }
+        }
+
+        @Override
+        public @Nullable Page browse(long startingIndex) {
+            requests.add(startingIndex);
+            int from = (int) startingIndex;
+            List<SonosEntry> page = entries.subList(from, Math.min(from + pageSize, entries.size()));
+            return new Page(new ArrayList<>(page), page.size(), entries.size());
+        }
+    }
+
+    private static SonosEntry entry(String title) {
+        return new SonosEntry(title + "-id", title, FAVORITES, "", "", "", "object.item", "x-rincon:" + title);
+    }
+
+    private static @Nullable String title(CompletableFuture<@Nullable SonosEntry> lookup) {
+        SonosEntry entry = lookup.join();
+        return entry != null ? entry.getTitle() : null;
+    }
+
+    private void runSubmitted() {
+        Runnable task;
+        while ((task = submitted.poll()) != null) {
+            task.run();
+        }
+    }
+
+    @Test
+    public void allPagesAreBrowsedOnce() {
+        TestBrowser browser = new TestBrowser(2, "a", "b", "c", "d", "e");
+
+        List<SonosEntry> entries = cache.getEntries(HOUSEHOLD, FAVORITES, browser);
+
+        assertEquals(5, entries.size());
+        assertEquals("e", entries.get(4).getTitle());
+        assertEquals(List.of(0L, 2L, 4L), browser.requests);
+
+        assertEquals(entries, cache.getEntries(HOUSEHOLD, FAVORITES, browser));
+        assertEquals(3, browser.requests.size());
+    }
+
+    @Test
+    public void lookupCompletesWithThePageOfTheEntry() {
+        List<Page> pages = new ArrayList<>();
+        PageBrowser browser = startingIndex -> pages.isEmpty() ? null : pages.remove(0);
+        pages.add(new Page(List.of(entry("a"), entry("b")), 2, 4));
+        pages.add(new Page(List.of(entry("c"), entry("d")), 2, 4));
+        CompletableFuture<@Nullable SonosEntry> first = cache.findEntry(HOUSEHOLD, FAVORITES, "a", browser, executor);
+        CompletableFuture<@Nullable SonosEntry> last = cache.findEntry(HOUSEHOLD, FAVORITES, "d", browser, executor);
+        CompletableFuture<@Nullable SonosEntry> missing = cache.findEntry(HOUSEHOLD, FAVORITES, "x", browser,
+                executor);
+
+        // nothing is browsed in the calling thread
+        assertFalse(first.isDone());
+        assertEquals(1, submitted.size());
+
+        runSubmitted();
+
+        assertEquals("a", title(first));
+        assertEquals("d", title(last));
+        assertNull(missing.join());
+        // served from memory afterwards
+        assertTrue(cache.findEntry(HOUSEHOLD, FAVORITES, "c", browser, executor).isDone());
+        assertTrue(submitted.isEmpty());
+    }
+
+    @Test
+    public void firstEntryOfATitleWins() {
+        SonosEntry first = entry("a");
+        PageBrowser browser = startingIndex -> new Page(List.of(first, entry("a")), 2, 2);
+
+        assertSame(first, cache.findEntry(HOUSEHOLD, FAVORITES, "a", browser, Runnable::run).join());
+    }
+
+    @Test
+    public void updateInvalidatesOncePerHousehold() {
+        TestBrowser browser = new TestBrowser(10, "a");
+        cache.getEntries(HOUSEHOLD, FAVORITES, browser);
+
+        assertTrue(cache.update(HOUSEHOLD, "FavoritesUpdateID", "7", List.of(FAVORITES)));
+        // the other players of the household receive the same event
+        assertFalse(cache.update(HOUSEHOLD, "FavoritesUpdateID", "7", List.of(FAVORITES)));
+        cache.getEntries(HOUSEHOLD, FAVORITES, browser);
+        assertEquals(2, browser.requests.size());
+
+        // another household is not affected
+        assertTrue(cache.update("RINCON_Z", "FavoritesUpdateID", "8", List.of(FAVORITES)));
+        cache.getEntries(HOUSEHOLD, FAVORITES, browser);
+        assertEquals(2, browser.requests.size());
+    }
+
+    @Test
+    public void invalidateByPrefix() {
+        TestBrowser radios = new TestBrowser(10, "radio");
+        TestBrowser playlists = new TestBrowser(10, "playlist");
+        cache.getEntries(HOUSEHOLD, "R:0/0", radios);
+        cache.getEntries(HOUSEHOLD, "SQ:", playlists);
+
+        cache.invalidate(HOUSEHOLD, "R:0");
+        cache.getEntries(HOUSEHOLD, "R:0/0", radios);
+        cache.getEntries(HOUSEHOLD, "SQ:", playlists);
+
+        assertEquals(2, radios.requests.size());
+        assertEquals(1, playlists.requests.size());
+    }
+
+    @Test
+    public void emptyOrFailedContainersAreNotCached() {
+        TestBrowser empty = new TestBrowser(10);
+        assertTrue(cache.getEntries(HOUSEHOLD, FAVORITES, empty).isEmpty());
+        cache.getEntries(HOUSEHOLD, FAVORITES, empty);
+        assertEquals(2, empty.requests.size());
+
+        List<Long> requests = new ArrayList<>();
+        PageBrowser failing = startingIndex -> {
+            requests.add(startingIndex);
+            // the second page is missing
+            return startingIndex == 0 ? new Page(List.of(entry("a")), 1, 2) : null;
+        };
+        assertEquals(1, cache.getEntries(HOUSEHOLD, FAVORITES, failing).size());
+        cache.getEntries(HOUSEHOLD, FAVORITES, failing);
+        assertEquals(List.of(0L, 1L, 0L, 1L), requests);
+
+        PageBrowser throwing = startingIndex -> {
+            throw new IllegalStateException("no answer");
+        };
+        assertTrue(cache.getEntries(HOUSEHOLD, FAVORITES, throwing).isEmpty());
+        assertNull(cache.findEntry(HOUSEHOLD, FAVORITES, "a", throwing, Runnable::run).join());
+    }
+
+    @Test
+    public void nothingIsCachedUntilTheHouseholdIsKnown() {
+        TestBrowser browser = new TestBrowser(10, "a");
+
+        cache.getEntries(null, FAVORITES, browser);
+        cache.findEntry(null, FAVORITES, "a", browser, Runnable::run).join();
+        assertEquals(2, browser.requests.size());
+
+        // nothing was stored under a temporary key
+        cache.getEntries(HOUSEHOLD, FAVORITES, browser);
+        cache.getEntries(HOUSEHOLD, FAVORITES, browser);
+        assertEquals(3, browser.requests.size());
+    }
+
+    @Test
+    public void waitingPlayerBrowsesAQueuedContainer() {
+        TestBrowser browser = new TestBrowser(10, "a", "b");
+        CompletableFuture<@Nullable SonosEntry> lookup = cache.findEntry(HOUSEHOLD, FAVORITES, "b", browser,
+                executor);
+
+        // the browse is still queued, the state options must not wait for it
+        assertEquals(2, cache.getEntries(HOUSEHOLD, FAVORITES, browser).size());
+        assertEquals("b", title(lookup));
+
+        runSubmitted();
+        assertEquals(1, browser.requests.size());
+    }
+}
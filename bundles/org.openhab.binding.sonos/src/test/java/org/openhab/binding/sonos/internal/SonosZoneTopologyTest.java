@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2010-2021 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.sonos.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.openhab.binding.sonos.internal.SonosZoneTopology.Snapshot;
+import org.openhab.binding.sonos.internal.handler.ZonePlayerHandler;
+
+/**
+ * Tests cases for {@link SonosZoneTopology}
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class SonosZoneTopologyTest {
+
+    private static final String ZONE_GROUP_STATE = "<ZoneGroupState><ZoneGroups>"
+            + "<ZoneGroup Coordinator=\"RINCON_B\" ID=\"RINCON_B:12\">"
+            + "<ZoneGroupMember UUID=\"RINCON_B\" ZoneName=\"Kitchen\"/>"
+            + "<ZoneGroupMember UUID=\"RINCON_C\" ZoneName=\"Dining\"/></ZoneGroup>"
+            + "<ZoneGroup Coordinator=\"RINCON_D\" ID=\"RINCON_D:7\">"
+            + "<ZoneGroupMember UUID=\"RINCON_D\" ZoneName=\"Living\" "
+            + "HTSatChanMapSet=\"RINCON_D:LF,RF;RINCON_A:LR\"/></ZoneGroup>" + "</ZoneGroups></ZoneGroupState>";
+
+    private final SonosZoneTopology topology = new SonosZoneTopology();
+
+    @Test
+    public void groupsAreIndexedByMember() {
+        Snapshot snapshot = topology.getSnapshot(ZONE_GROUP_STATE);
+
+        assertEquals(2, snapshot.getGroups().size());
+        SonosZoneGroup kitchen = snapshot.getGroup("RINCON_C");
+        assertNotNull(kitchen);
+        assertEquals("RINCON_B", kitchen.getCoordinator());
+        assertSame(kitchen, snapshot.getGroup("RINCON_B"));
+        // the satellite of a home theater is a member of its group
+        SonosZoneGroup living = snapshot.getGroup("RINCON_A");
+        assertNotNull(living);
+        assertEquals("RINCON_D:7", living.getId());
+        assertNull(snapshot.getGroup("RINCON_X"));
+    }
+
+    @Test
+    public void householdKeyIsTheLowestMember() {
+        assertEquals("RINCON_A", topology.getSnapshot(ZONE_GROUP_STATE).getHouseholdKey());
+    }
+
+    @Test
+    public void sameStateIsParsedOnce() {
+        Snapshot snapshot = topology.getSnapshot(ZONE_GROUP_STATE);
+
+        assertSame(snapshot, topology.getSnapshot(new String(ZONE_GROUP_STATE)));
+    }
+
+    @Test
+    public void onlyTheLatestStatesAreKept() {
+        Snapshot snapshot = topology.getSnapshot(ZONE_GROUP_STATE);
+        for (int i = 0; i < 4; i++) {
+            topology.getSnapshot("<ZoneGroups><ZoneGroup Coordinator=\"RINCON_" + i + "\" ID=\"" + i + "\">"
+                    + "<ZoneGroupMember UUID=\"RINCON_" + i + "\"/></ZoneGroup></ZoneGroups>");
+        }
+
+        Snapshot parsedAgain = topology.getSnapshot(ZONE_GROUP_STATE);
+        assertNotSame(snapshot, parsedAgain);
+        SonosZoneGroup kitchen = parsedAgain.getGroup("RINCON_B");
+        assertNotNull(kitchen);
+        assertEquals(Set.of("RINCON_B", "RINCON_C"), Set.copyOf(kitchen.getMembers()));
+    }
+
+    @Test
+    public void emptyState() {
+        Snapshot snapshot = topology.getSnapshot("<ZoneGroups></ZoneGroups>");
+
+        assertTrue(snapshot.isEmpty());
+        assertEquals("", snapshot.getHouseholdKey());
+        assertEquals(List.of(), snapshot.getGroups());
+    }
+
+    @Test
+    public void handlersAreIndexedByUdn() {
+        ZonePlayerHandler kitchen = mock(ZonePlayerHandler.class);
+        ZonePlayerHandler replaced = mock(ZonePlayerHandler.class);
+        topology.addHandler("RINCON_B", kitchen);
+
+        assertSame(kitchen, topology.getHandler("RINCON_B"));
+        assertNull(topology.getHandler("RINCON_C"));
+
+        // a handler that has been replaced does not remove its successor
+        topology.removeHandler("RINCON_B", replaced);
+        assertSame(kitchen, topology.getHandler("RINCON_B"));
+        assertEquals(1, topology.getHandlers().size());
+
+        topology.removeHandler("RINCON_B", kitchen);
+        assertNull(topology.getHandler("RINCON_B"));
+        assertTrue(topology.getHandlers().isEmpty());
+    }
+}